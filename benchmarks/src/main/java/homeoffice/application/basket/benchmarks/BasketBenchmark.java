@@ -0,0 +1,111 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.BasketEntry;
+import homeoffice.application.basket.Item;
+
+/**
+ * Measures the single-item operations, totalling and iteration of each {@code Basket}
+ * implementation against baskets of increasing size. Note that building the larger {@code
+ * SimpleBasket}s is itself quadratic, so their trial setup takes a while.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class BasketBenchmark {
+	
+	@Param
+	private BasketType basketType;
+	
+	@Param({"1", "10", "100", "1000", "10000", "100000"})
+	private int lines;
+	
+	private Basket basket;
+	private Item[] items;
+	private Item absentItem;
+	private int[] accessPattern;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void populateBasket() {
+		items = Catalogue.items(lines);
+		basket = basketType.create();
+		for (Item item : items)
+			basket.addItem(item, 2);
+		absentItem = new Item("ABSENT", "Not in basket", 1d);
+		accessPattern = Catalogue.accessPattern(lines);
+	}
+	
+	private Item nextItem() {
+		return items[accessPattern[cursor++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)]];
+	}
+	
+	@Benchmark
+	public int addThenRemoveExistingItem() {
+		Item item = nextItem();
+		basket.addItem(item);
+		return basket.removeItem(item);
+	}
+	
+	@Benchmark
+	public void addThenRemoveAllNewItem() {
+		basket.addItem(absentItem);
+		basket.removeAll(absentItem);
+	}
+	
+	@Benchmark
+	public boolean containsPresentItem() {
+		return basket.contains(nextItem());
+	}
+	
+	@Benchmark
+	public boolean containsAbsentItem() {
+		return basket.contains(absentItem);
+	}
+	
+	@Benchmark
+	public int getQuantity() {
+		return basket.getQuantity(nextItem());
+	}
+	
+	@Benchmark
+	public double getTotalCost() {
+		return basket.getTotalCost();
+	}
+	
+	@Benchmark
+	public long getTotalCostInMinorUnits() {
+		return basket.getTotalCostInMinorUnits(Item.DEFAULT_PRICE_SCALE);
+	}
+	
+	/**
+	 * The exact total as the reconciliation job computed it before minor unit prices existed.
+	 */
+	@Benchmark
+	public BigDecimal getTotalCostWithBigDecimal() {
+		BigDecimal total = BigDecimal.ZERO;
+		for (BasketEntry basketEntry : basket)
+			total = total.add(BigDecimal.valueOf(basketEntry.getIndividualItemCost())
+					.multiply(BigDecimal.valueOf(basketEntry.getQuantity())));
+		return total;
+	}
+	
+	@Benchmark
+	public long iterate() {
+		long quantity = 0L;
+		for (BasketEntry basketEntry : basket)
+			quantity += basketEntry.getQuantity();
+		return quantity;
+	}
+	
+}
@@ -0,0 +1,61 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.BasketCodec;
+import homeoffice.application.basket.HashBasket;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemDAO;
+import homeoffice.application.basket.ItemHashDAO;
+
+/**
+ * Measures encoding baskets with {@code BasketCodec} and decoding them back into a new basket.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BasketCodecBenchmark {
+	
+	@Param({"10", "100", "1000"})
+	private int lines;
+	
+	private Basket basket;
+	private ItemDAO itemDAO;
+	private ByteBuffer buffer;
+	private ByteBuffer encoded;
+	
+	@Setup(Level.Trial)
+	public void encodeBasket() {
+		Item[] items = Catalogue.items(lines);
+		itemDAO = new ItemHashDAO(items);
+		basket = new HashBasket();
+		for (int i = 0; i < items.length; i++)
+			basket.addItem(items[i], 1 + (i % 200));
+		buffer = ByteBuffer.allocateDirect(BasketCodec.encodedSize(basket));
+		encoded = ByteBuffer.wrap(BasketCodec.encode(basket));
+	}
+	
+	@Benchmark
+	public ByteBuffer encode() {
+		buffer.clear();
+		BasketCodec.encode(basket, buffer);
+		return buffer;
+	}
+	
+	@Benchmark
+	public Basket decode() {
+		Basket decoded = new HashBasket(lines);
+		BasketCodec.decode(encoded.duplicate(), itemDAO, decoded);
+		return decoded;
+	}
+	
+}
@@ -0,0 +1,53 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.BasketEntry;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.SimpleBasket;
+
+/**
+ * Measures the per-line work done by {@code BasketEntry} when baskets are searched and totalled.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BasketEntryBenchmark {
+	
+	private BasketEntry basketEntry;
+	private Item matchingItem;
+	private Item otherItem;
+	
+	@Setup
+	public void createEntry() {
+		Item[] items = Catalogue.items(2);
+		SimpleBasket basket = new SimpleBasket();
+		basket.addItem(items[0], 3);
+		basketEntry = basket.iterator().next();
+		matchingItem = new Item(items[0].getId(), items[0].getName(), items[0].getPrice());
+		otherItem = items[1];
+	}
+	
+	@Benchmark
+	public boolean containsMatchingItem() {
+		return basketEntry.contains(matchingItem);
+	}
+	
+	@Benchmark
+	public boolean containsOtherItem() {
+		return basketEntry.contains(otherItem);
+	}
+	
+	@Benchmark
+	public double getTotalCost() {
+		return basketEntry.getTotalCost();
+	}
+	
+}
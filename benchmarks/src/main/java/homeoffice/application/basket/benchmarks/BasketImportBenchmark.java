@@ -0,0 +1,57 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.Item;
+
+/**
+ * Measures importing a saved list into an empty basket, either one {@code addItem} call per line
+ * or as a single {@code addAll} batch.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BasketImportBenchmark {
+	
+	@Param
+	private BasketType basketType;
+	
+	@Param({"10", "200", "5000"})
+	private int lines;
+	
+	private Map<Item, Integer> savedList;
+	
+	@Setup(Level.Trial)
+	public void createSavedList() {
+		savedList = new LinkedHashMap<>();
+		Item[] items = Catalogue.items(lines);
+		for (int i = 0; i < items.length; i++)
+			savedList.put(items[i], 1 + (i & 3));
+	}
+	
+	@Benchmark
+	public Basket importLineByLine() {
+		Basket basket = basketType.create();
+		for (Map.Entry<Item, Integer> line : savedList.entrySet())
+			basket.addItem(line.getKey(), line.getValue());
+		return basket;
+	}
+	
+	@Benchmark
+	public Basket importAsBatch() {
+		Basket basket = basketType.create();
+		basket.addAll(savedList);
+		return basket;
+	}
+	
+}
@@ -0,0 +1,85 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.BasketStore;
+import homeoffice.application.basket.SimpleBasket;
+
+/**
+ * Measures looking up session baskets from several threads, comparing {@code BasketStore} against
+ * a {@code HashMap} of sessions guarded by one global lock, which is how each service held its
+ * baskets before.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class BasketStoreBenchmark {
+	
+	/**
+	 * How the sessions' baskets are held.
+	 */
+	public enum Storage {
+		GLOBAL_LOCK,
+		STORE
+	}
+	
+	@Param
+	private Storage storage;
+	
+	@Param({"100000"})
+	private int sessions;
+	
+	/**
+	 * The idle timeout of the store, in minutes. A timeout makes every lookup read the clock.
+	 */
+	@Param({"0", "30"})
+	private int idleTimeout;
+	
+	private final Map<String, Basket> baskets = new HashMap<>();
+	private BasketStore store;
+	private String[] sessionIds;
+	
+	@State(Scope.Thread)
+	public static class Cursor {
+		private final int[] accessPattern = Catalogue.accessPattern(Integer.MAX_VALUE);
+		private int position;
+		
+		int next(int bound) {
+			return accessPattern[position++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)] % bound;
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void populateSessions() {
+		store = new BasketStore(SimpleBasket::new, BasketStore.DEFAULT_SHARD_COUNT, idleTimeout,
+				TimeUnit.MINUTES);
+		sessionIds = new String[sessions];
+		for (int i = 0; i < sessions; i++) {
+			sessionIds[i] = "session" + i;
+			baskets.put(sessionIds[i], new SimpleBasket());
+			store.getBasket(sessionIds[i]);
+		}
+	}
+	
+	@Benchmark
+	public Basket getBasket(Cursor cursor) {
+		String sessionId = sessionIds[cursor.next(sessions)];
+		if (storage == Storage.STORE)
+			return store.getBasket(sessionId);
+		synchronized (baskets) {
+			return baskets.computeIfAbsent(sessionId, id -> new SimpleBasket());
+		}
+	}
+	
+}
@@ -0,0 +1,58 @@
+package homeoffice.application.basket.benchmarks;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.CompactBasket;
+import homeoffice.application.basket.ConcurrentBasket;
+import homeoffice.application.basket.HashBasket;
+import homeoffice.application.basket.RunningTotalBasket;
+import homeoffice.application.basket.SimpleBasket;
+
+/**
+ * The {@code Basket} implementations that can be benchmarked.
+ * 
+ * @author Richard Innocent
+ */
+public enum BasketType {
+	
+	SIMPLE {
+		@Override
+		Basket create() {
+			return new SimpleBasket();
+		}
+	},
+	
+	HASH {
+		@Override
+		Basket create() {
+			return new HashBasket();
+		}
+	},
+	
+	CONCURRENT {
+		@Override
+		Basket create() {
+			return new ConcurrentBasket();
+		}
+	},
+	
+	COMPACT {
+		@Override
+		Basket create() {
+			return new CompactBasket();
+		}
+	},
+	
+	RUNNING_TOTAL {
+		@Override
+		Basket create() {
+			return new RunningTotalBasket(new HashBasket());
+		}
+	};
+	
+	/**
+	 * Creates a new, empty basket of this type.
+	 * @return The basket.
+	 */
+	abstract Basket create();
+	
+}
@@ -0,0 +1,49 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the standard JMH command line options, but writes
+ * the results as JSON to {@code jmh-result.json} unless another result format or file is given, so
+ * that results can be compared between releases.
+ * 
+ * @author Richard Innocent
+ */
+public final class BenchmarkRunner {
+	
+	/**
+	 * The file results are written to when none is specified.
+	 */
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+	
+	private BenchmarkRunner() {}
+	
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException,
+			IOException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return;
+		}
+		if (commandLineOptions.shouldList()) {
+			new Runner(commandLineOptions).list();
+			return;
+		}
+		
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!commandLineOptions.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if (!commandLineOptions.getResult().hasValue())
+			options.result(DEFAULT_RESULT_FILE);
+		new Runner(options.build()).run();
+	}
+	
+}
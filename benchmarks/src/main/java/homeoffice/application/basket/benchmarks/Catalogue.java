@@ -0,0 +1,58 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.Random;
+
+import homeoffice.application.basket.Item;
+
+/**
+ * Generates deterministic test catalogues and access patterns for the benchmarks.
+ * 
+ * @author Richard Innocent
+ */
+final class Catalogue {
+	
+	/**
+	 * The number of precomputed random indices. Must be a power of two.
+	 */
+	static final int ACCESS_PATTERN_LENGTH = 4096;
+	
+	private static final long SEED = 0x5EEDL;
+	
+	private Catalogue() {}
+	
+	/**
+	 * Creates {@code size} distinct items with IDs of the form {@code SKU00000042}.
+	 * @param size The number of items.
+	 * @return The items.
+	 */
+	static Item[] items(int size) {
+		Item[] items = new Item[size];
+		Random random = new Random(SEED);
+		for (int i = 0; i < size; i++)
+			items[i] = new Item(id(i), "Item " + i, (1 + random.nextInt(10_000)) / 100d);
+		return items;
+	}
+	
+	/**
+	 * Returns the ID of the {@code index}th generated item.
+	 * @param index The item index.
+	 * @return The item ID.
+	 */
+	static String id(int index) {
+		return String.format("SKU%08d", index);
+	}
+	
+	/**
+	 * Creates a repeatable pseudo-random sequence of indices into a collection of the given size.
+	 * @param bound The exclusive upper bound of the indices.
+	 * @return {@code ACCESS_PATTERN_LENGTH} indices in {@code [0, bound)}.
+	 */
+	static int[] accessPattern(int bound) {
+		int[] pattern = new int[ACCESS_PATTERN_LENGTH];
+		Random random = new Random(SEED);
+		for (int i = 0; i < pattern.length; i++)
+			pattern[i] = random.nextInt(bound);
+		return pattern;
+	}
+	
+}
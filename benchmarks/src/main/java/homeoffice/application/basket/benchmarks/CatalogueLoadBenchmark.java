@@ -0,0 +1,85 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemCsvReader;
+import homeoffice.application.basket.ItemDAO;
+import homeoffice.application.basket.ItemHashDAO;
+import homeoffice.application.basket.ItemListDAO;
+
+/**
+ * Measures loading a catalogue into an empty {@code ItemListDAO}, either one {@code addItem} call
+ * per item or as a single {@code addItems} pass, and loading it from a CSV file with sequential or
+ * parallel parsing.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogueLoadBenchmark {
+	
+	@Param({"1000", "20000"})
+	private int size;
+	
+	private List<Item> items;
+	private Path csv;
+	
+	@Setup(Level.Trial)
+	public void createCatalogue() throws IOException {
+		items = Arrays.asList(Catalogue.items(size));
+		List<String> lines = new ArrayList<>(size + 1);
+		lines.add("id,name,price");
+		for (Item item : items)
+			lines.add(item.getId() + "," + item.getName() + "," + item.getPrice());
+		csv = Files.createTempFile("catalogue", ".csv");
+		Files.write(csv, lines);
+	}
+	
+	@TearDown(Level.Trial)
+	public void deleteCatalogue() throws IOException {
+		Files.delete(csv);
+	}
+	
+	@Benchmark
+	public ItemDAO addItemByItem() {
+		ItemDAO itemDAO = new ItemListDAO();
+		for (Item item : items)
+			itemDAO.addItem(item);
+		return itemDAO;
+	}
+	
+	@Benchmark
+	public ItemDAO addItemsInOnePass() {
+		ItemDAO itemDAO = new ItemListDAO();
+		itemDAO.addItems(items.iterator());
+		return itemDAO;
+	}
+	
+	@Benchmark
+	public ItemDAO loadCsvSequentially() throws IOException {
+		ItemDAO itemDAO = new ItemHashDAO();
+		ItemCsvReader.load(csv, itemDAO, false);
+		return itemDAO;
+	}
+	
+	@Benchmark
+	public ItemDAO loadCsvInParallel() throws IOException {
+		ItemDAO itemDAO = new ItemHashDAO();
+		ItemCsvReader.load(csv, itemDAO, true);
+		return itemDAO;
+	}
+	
+}
@@ -0,0 +1,84 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.BasketMetrics;
+import homeoffice.application.basket.HashBasket;
+import homeoffice.application.basket.InstrumentedBasket;
+import homeoffice.application.basket.InstrumentedItemDAO;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemDAO;
+import homeoffice.application.basket.ItemDAOMetrics;
+import homeoffice.application.basket.ItemHashDAO;
+
+/**
+ * Measures the cost that instrumentation adds to {@code Basket.getQuantity} and {@code
+ * ItemDAO.getItem}, with instrumentation turned off, timing the default sample of calls, and
+ * timing every call.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+	
+	/**
+	 * How the basket and DAO are instrumented.
+	 */
+	public enum Instrumentation {
+		DISABLED,
+		SAMPLED,
+		EVERY_CALL
+	}
+	
+	@Param
+	private Instrumentation instrumentation;
+	
+	private Basket basket;
+	private ItemDAO itemDAO;
+	private Item[] items;
+	private int[] accessPattern;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void createBasket() {
+		items = Catalogue.items(100);
+		accessPattern = Catalogue.accessPattern(items.length);
+		BasketMetrics basketMetrics = null;
+		ItemDAOMetrics itemDAOMetrics = null;
+		if (instrumentation == Instrumentation.SAMPLED) {
+			basketMetrics = new BasketMetrics();
+			itemDAOMetrics = new ItemDAOMetrics();
+		} else if (instrumentation == Instrumentation.EVERY_CALL) {
+			basketMetrics = new BasketMetrics(1);
+			itemDAOMetrics = new ItemDAOMetrics(1);
+		}
+		
+		basket = InstrumentedBasket.instrument(new HashBasket(), basketMetrics);
+		for (Item item : items)
+			basket.addItem(item);
+		itemDAO = InstrumentedItemDAO.instrument(new ItemHashDAO(items), itemDAOMetrics);
+	}
+	
+	@Benchmark
+	public int getQuantity() {
+		return basket.getQuantity(nextItem());
+	}
+	
+	@Benchmark
+	public Item getItem() {
+		return itemDAO.getItem(nextItem().getId());
+	}
+	
+	private Item nextItem() {
+		return items[accessPattern[cursor++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)]];
+	}
+	
+}
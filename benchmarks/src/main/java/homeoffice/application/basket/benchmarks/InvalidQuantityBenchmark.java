@@ -0,0 +1,72 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.Item;
+
+/**
+ * Measures how quickly baskets reject negative quantities, as sent by bot traffic, compared with
+ * the previous validation path, which built its exception reflectively and then wrapped it in a
+ * second exception.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvalidQuantityBenchmark {
+	
+	@Param({"SIMPLE", "HASH", "CONCURRENT"})
+	private BasketType basketType;
+	
+	private Basket basket;
+	private Item item;
+	private int quantity = -1;
+	
+	@Setup
+	public void createBasket() {
+		basket = basketType.create();
+		item = Catalogue.items(1)[0];
+		basket.addItem(item, 2);
+	}
+	
+	@Benchmark
+	public Object rejectNegativeQuantity() {
+		try {
+			return basket.addItem(item, quantity);
+		} catch (IllegalArgumentException e) {
+			return e;
+		}
+	}
+	
+	@Benchmark
+	public int acceptValidQuantity() {
+		basket.addItem(item, 1);
+		return basket.removeItem(item);
+	}
+	
+	/**
+	 * The rejection path as it was before, for comparison.
+	 */
+	@Benchmark
+	public Object rejectNegativeQuantityReflectively() {
+		try {
+			if (quantity < 0)
+				throw IllegalArgumentException.class.getConstructor(String.class)
+						.newInstance("Quantity must be >= 0");
+			return null;
+		} catch (IllegalArgumentException e) {
+			return new IllegalArgumentException(
+					"Should not try to add a negative number of items. Please see removeItem()", e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+}
@@ -0,0 +1,68 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemDAO;
+
+/**
+ * Measures {@code ItemDAO} lookups and updates against catalogues of increasing size.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class ItemDAOBenchmark {
+	
+	@Param
+	private ItemDAOType daoType;
+	
+	@Param({"1000", "100000", "1000000", "10000000"})
+	private int catalogueSize;
+	
+	private ItemDAO itemDAO;
+	private Item[] items;
+	private Item newItem;
+	private int[] accessPattern;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void populateDAO() {
+		items = Catalogue.items(catalogueSize);
+		itemDAO = daoType.create(items);
+		newItem = new Item("NEW", "Not in catalogue", 1d);
+		accessPattern = Catalogue.accessPattern(catalogueSize);
+	}
+	
+	private Item nextItem() {
+		return items[accessPattern[cursor++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)]];
+	}
+	
+	@Benchmark
+	public Item getItem() {
+		return itemDAO.getItem(nextItem().getId());
+	}
+	
+	@Benchmark
+	public Item getAbsentItem() {
+		return itemDAO.getItem(newItem.getId());
+	}
+	
+	@Benchmark
+	public boolean updateItem() {
+		return itemDAO.updateItem(nextItem());
+	}
+	
+	@Benchmark
+	public boolean addThenRemoveItem() {
+		itemDAO.addItem(newItem);
+		return itemDAO.removeItem(newItem);
+	}
+	
+}
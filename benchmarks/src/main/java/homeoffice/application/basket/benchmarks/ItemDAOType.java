@@ -0,0 +1,74 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import homeoffice.application.basket.CachingItemDAO;
+import homeoffice.application.basket.ConcurrentItemDAO;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemDAO;
+import homeoffice.application.basket.ItemHashDAO;
+import homeoffice.application.basket.ItemListDAO;
+import homeoffice.application.basket.MappedCatalogueWriter;
+import homeoffice.application.basket.MappedItemDAO;
+
+/**
+ * The {@code ItemDAO} implementations that can be benchmarked.
+ * 
+ * @author Richard Innocent
+ */
+public enum ItemDAOType {
+	
+	LIST {
+		@Override
+		ItemDAO create(Item[] items) {
+			return new ItemListDAO(items);
+		}
+	},
+	
+	HASH {
+		@Override
+		ItemDAO create(Item[] items) {
+			return new ItemHashDAO(items);
+		}
+	},
+	
+	CONCURRENT {
+		@Override
+		ItemDAO create(Item[] items) {
+			return new ConcurrentItemDAO(items);
+		}
+	},
+	
+	CACHED_LIST {
+		@Override
+		ItemDAO create(Item[] items) {
+			return new CachingItemDAO(new ItemListDAO(items), 10_000);
+		}
+	},
+	
+	MAPPED {
+		@Override
+		ItemDAO create(Item[] items) {
+			try {
+				Path catalogue = Files.createTempFile("catalogue", ".bin");
+				catalogue.toFile().deleteOnExit();
+				MappedCatalogueWriter.write(catalogue, Arrays.asList(items));
+				return new MappedItemDAO(catalogue);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	};
+	
+	/**
+	 * Creates a new DAO of this type holding the given items.
+	 * @param items The catalogue.
+	 * @return The DAO.
+	 */
+	abstract ItemDAO create(Item[] items);
+	
+}
@@ -0,0 +1,98 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.BasketJournal;
+import homeoffice.application.basket.ConcurrentBasket;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.JournalingBasket;
+
+/**
+ * Measures the cost of journaling basket changes from several threads under each {@code
+ * SyncPolicy}. With {@code PER_OPERATION}, threads that change baskets at the same time share a
+ * sync, so throughput should grow with the thread count rather than stay at one sync per change.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+	
+	/**
+	 * The sync policy of the journal.
+	 */
+	public enum Policy {
+		PER_OPERATION {
+			@Override
+			BasketJournal.SyncPolicy create() {
+				return BasketJournal.SyncPolicy.perOperation();
+			}
+		},
+		BATCHED {
+			@Override
+			BasketJournal.SyncPolicy create() {
+				return BasketJournal.SyncPolicy.batched(64);
+			}
+		},
+		INTERVAL {
+			@Override
+			BasketJournal.SyncPolicy create() {
+				return BasketJournal.SyncPolicy.interval(10, TimeUnit.MILLISECONDS);
+			}
+		};
+		
+		abstract BasketJournal.SyncPolicy create();
+	}
+	
+	@Param
+	private Policy policy;
+	
+	private Path directory;
+	private BasketJournal journal;
+	private JournalingBasket basket;
+	private Item[] items;
+	
+	@State(Scope.Thread)
+	public static class Cursor {
+		private final int[] accessPattern = Catalogue.accessPattern(Integer.MAX_VALUE);
+		private int position;
+		
+		int next(int bound) {
+			return accessPattern[position++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)] % bound;
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void openJournal() throws IOException {
+		directory = Files.createTempDirectory("journal-benchmark");
+		journal = new BasketJournal(directory, policy.create());
+		basket = new JournalingBasket("basket", new ConcurrentBasket(), journal);
+		items = Catalogue.items(100);
+	}
+	
+	@TearDown(Level.Trial)
+	public void deleteJournal() throws IOException {
+		journal.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+	
+	@Benchmark
+	public int addItem(Cursor cursor) {
+		return basket.addItem(items[cursor.next(items.length)]);
+	}
+	
+}
@@ -0,0 +1,80 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.BasketEntry;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemDAO;
+
+/**
+ * Replays a whole shopping session: items are resolved through the DAO and added to a new basket,
+ * the total is polled after every change as a checkout page would, a few lines are removed again
+ * and the basket is finally rendered.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MixedWorkloadBenchmark {
+	
+	@Param
+	private BasketType basketType;
+	
+	@Param
+	private ItemDAOType daoType;
+	
+	@Param({"10000", "1000000"})
+	private int catalogueSize;
+	
+	@Param({"20", "200", "2000"})
+	private int basketLines;
+	
+	private ItemDAO itemDAO;
+	private String[] itemIds;
+	private int[] accessPattern;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void populateDAO() {
+		Item[] items = Catalogue.items(catalogueSize);
+		itemDAO = daoType.create(items);
+		itemIds = new String[catalogueSize];
+		for (int i = 0; i < catalogueSize; i++)
+			itemIds[i] = items[i].getId();
+		accessPattern = Catalogue.accessPattern(catalogueSize);
+	}
+	
+	private String nextItemId() {
+		return itemIds[accessPattern[cursor++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)]];
+	}
+	
+	@Benchmark
+	public double shoppingSession() {
+		Basket basket = basketType.create();
+		double displayedTotal = 0d;
+		Item lastItem = null;
+		
+		for (int line = 0; line < basketLines; line++) {
+			Item item = itemDAO.getItem(nextItemId());
+			basket.addItem(item, 1 + (line & 3));
+			displayedTotal += basket.getTotalCost();
+			if ((line & 7) == 7) {
+				basket.removeItem(lastItem);
+				displayedTotal += basket.getTotalCost();
+			}
+			lastItem = item;
+		}
+		
+		for (BasketEntry basketEntry : basket)
+			displayedTotal += basketEntry.getTotalCost();
+		return displayedTotal;
+	}
+	
+}
@@ -0,0 +1,71 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.BasketEventPublisher;
+import homeoffice.application.basket.HashBasket;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ObservableBasket;
+
+/**
+ * Measures the cost that publishing change events adds to {@code addItem} and {@code removeItem},
+ * with no listener and with a listener that takes a millisecond over every batch.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObservableBasketBenchmark {
+	
+	private static final long SLOW_LISTENER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	/**
+	 * How the basket is observed.
+	 */
+	public enum Observer {
+		NONE,
+		NO_LISTENER,
+		SLOW_LISTENER
+	}
+	
+	@Param
+	private Observer observer;
+	
+	private BasketEventPublisher publisher;
+	private Basket basket;
+	private Item[] items;
+	private int[] accessPattern;
+	private int cursor;
+	
+	@Setup(Level.Trial)
+	public void createBasket() {
+		items = Catalogue.items(100);
+		accessPattern = Catalogue.accessPattern(items.length);
+		publisher = new BasketEventPublisher();
+		if (observer == Observer.SLOW_LISTENER)
+			publisher.addListener(events -> LockSupport.parkNanos(SLOW_LISTENER_NANOS));
+		basket = observer == Observer.NONE
+				? new HashBasket() : new ObservableBasket("basket", new HashBasket(), publisher);
+	}
+	
+	@TearDown(Level.Trial)
+	public void closePublisher() {
+		publisher.close();
+	}
+	
+	@Benchmark
+	public int addThenRemoveItem() {
+		Item item = items[accessPattern[cursor++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)]];
+		basket.addItem(item);
+		return basket.removeItem(item);
+	}
+	
+}
@@ -0,0 +1,85 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.PricingEngine;
+
+/**
+ * Compares totalling baskets serially with totalling them through a {@code PricingEngine}, both
+ * for a batch of saved baskets and for a single large basket. The speed-up depends on the number
+ * of processors available.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+	
+	private static final int SCALE = 2;
+	
+	@Param({"SIMPLE", "COMPACT"})
+	private BasketType basketType;
+	
+	@Param({"10000"})
+	private int basketCount;
+	
+	@Param({"100000"})
+	private int largeBasketSize;
+	
+	private final PricingEngine pricingEngine = new PricingEngine();
+	private List<Basket> baskets;
+	private Basket largeBasket;
+	
+	@Setup(Level.Trial)
+	public void populateBaskets() {
+		Item[] items = Catalogue.items(largeBasketSize);
+		int[] accessPattern = Catalogue.accessPattern(items.length);
+		baskets = new ArrayList<>(basketCount);
+		for (int i = 0; i < basketCount; i++) {
+			Basket basket = basketType.create();
+			for (int line = 0; line < 1 + i % 40; line++) {
+				Item item = items[accessPattern[(i + line) % Catalogue.ACCESS_PATTERN_LENGTH]];
+				basket.addItem(item, 1 + line % 3);
+			}
+			baskets.add(basket);
+		}
+		
+		largeBasket = basketType.create();
+		for (int i = 0; i < items.length; i++)
+			largeBasket.addItem(items[i], 1 + i % 5);
+	}
+	
+	@Benchmark
+	public long[] serialBatch() {
+		long[] totals = new long[baskets.size()];
+		for (int i = 0; i < totals.length; i++)
+			totals[i] = baskets.get(i).getTotalCostInMinorUnits(SCALE);
+		return totals;
+	}
+	
+	@Benchmark
+	public long[] engineBatch() {
+		return pricingEngine.getTotalCostsInMinorUnits(baskets, SCALE);
+	}
+	
+	@Benchmark
+	public long serialLargeBasket() {
+		return largeBasket.getTotalCostInMinorUnits(SCALE);
+	}
+	
+	@Benchmark
+	public long engineLargeBasket() {
+		return pricingEngine.getTotalCostInMinorUnits(largeBasket, SCALE);
+	}
+	
+}
@@ -0,0 +1,86 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.Basket;
+import homeoffice.application.basket.ConcurrentBasket;
+import homeoffice.application.basket.HashBasket;
+import homeoffice.application.basket.Item;
+
+/**
+ * Measures a single basket shared between several threads, comparing {@code ConcurrentBasket}
+ * against a {@code HashBasket} guarded by one global lock, which is how shared baskets were
+ * protected before.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SharedBasketBenchmark {
+	
+	/**
+	 * How the shared basket is made safe for concurrent use.
+	 */
+	public enum Sharing {
+		GLOBAL_LOCK,
+		CONCURRENT
+	}
+	
+	@Param
+	private Sharing sharing;
+	
+	@Param({"10", "1000"})
+	private int lines;
+	
+	private Basket basket;
+	private Item[] items;
+	
+	@State(Scope.Thread)
+	public static class Cursor {
+		private final int[] accessPattern = Catalogue.accessPattern(Integer.MAX_VALUE);
+		private int position;
+		
+		int next(int bound) {
+			return accessPattern[position++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)] % bound;
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void populateBasket() {
+		items = Catalogue.items(lines);
+		basket = sharing == Sharing.CONCURRENT ? new ConcurrentBasket() : new HashBasket();
+		for (Item item : items)
+			basket.addItem(item, 2);
+	}
+	
+	@Benchmark
+	public int addThenRemove(Cursor cursor) {
+		Item item = items[cursor.next(lines)];
+		if (sharing == Sharing.GLOBAL_LOCK) {
+			synchronized (basket) {
+				basket.addItem(item);
+				return basket.removeItem(item);
+			}
+		}
+		basket.addItem(item);
+		return basket.removeItem(item);
+	}
+	
+	@Benchmark
+	public double getTotalCost() {
+		if (sharing == Sharing.GLOBAL_LOCK) {
+			synchronized (basket) {
+				return basket.getTotalCost();
+			}
+		}
+		return basket.getTotalCost();
+	}
+	
+}
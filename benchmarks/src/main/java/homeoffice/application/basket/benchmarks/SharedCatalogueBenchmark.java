@@ -0,0 +1,84 @@
+package homeoffice.application.basket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import homeoffice.application.basket.ConcurrentItemDAO;
+import homeoffice.application.basket.Item;
+import homeoffice.application.basket.ItemDAO;
+import homeoffice.application.basket.ItemHashDAO;
+
+/**
+ * Measures a catalogue read by three threads while a fourth updates prices, comparing {@code
+ * ConcurrentItemDAO} against an {@code ItemHashDAO} guarded by one global lock, which is how the
+ * catalogue was protected before.
+ * 
+ * @author Richard Innocent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SharedCatalogueBenchmark {
+	
+	/**
+	 * How the shared catalogue is made safe for concurrent use.
+	 */
+	public enum Sharing {
+		GLOBAL_LOCK,
+		CONCURRENT
+	}
+	
+	@Param
+	private Sharing sharing;
+	
+	private ItemDAO itemDAO;
+	private Item[] items;
+	
+	@State(Scope.Thread)
+	public static class Cursor {
+		private final int[] accessPattern = Catalogue.accessPattern(10_000);
+		private int position;
+		
+		int next() {
+			return accessPattern[position++ & (Catalogue.ACCESS_PATTERN_LENGTH - 1)];
+		}
+	}
+	
+	@Setup(Level.Trial)
+	public void populateCatalogue() {
+		items = Catalogue.items(10_000);
+		itemDAO = sharing == Sharing.CONCURRENT
+				? new ConcurrentItemDAO(items) : new ItemHashDAO(items);
+	}
+	
+	@Benchmark
+	@Group("pricingFeed")
+	@GroupThreads(3)
+	public Item getItem(Cursor cursor) {
+		String id = items[cursor.next()].getId();
+		if (sharing == Sharing.GLOBAL_LOCK) {
+			synchronized (itemDAO) {
+				return itemDAO.getItem(id);
+			}
+		}
+		return itemDAO.getItem(id);
+	}
+	
+	@Benchmark
+	@Group("pricingFeed")
+	@GroupThreads(1)
+	public boolean updateItem(Cursor cursor) {
+		Item item = items[cursor.next()];
+		if (sharing == Sharing.GLOBAL_LOCK) {
+			synchronized (itemDAO) {
+				return itemDAO.updateItem(item);
+			}
+		}
+		return itemDAO.updateItem(item);
+	}
+	
+}
@@ -1,5 +1,8 @@
 package homeoffice.application.basket;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Represents a customer's shopping basket.
  * 
@@ -41,6 +44,35 @@ public interface Basket extends Iterable<BasketEntry> {
 	 */
 	public void removeAll(Item item);
 	
+	/**
+	 * Adds each of the specified items to the basket in the mapped quantity. The whole batch is
+	 * validated before any item is added, so either every item is added or, if an exception is
+	 * thrown, the basket is left unchanged. The keys of the map are expected to be distinct items,
+	 * as they are in any map that compares keys with {@code Item.equals}.
+	 * @param items The items to be added to the basket, mapped to the quantity of each.
+	 * @throws IllegalArgumentException Thrown if any quantity is {@code null} or {@code < 0}.
+	 * @throws ArithmeticException Thrown if the new number of any item would exceed {@code
+	 * 		Integer.MAX_VALUE}.
+	 */
+	public default void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantities(items);
+		for (Map.Entry<Item, Integer> line : items.entrySet())
+			Baskets.addQuantities(getQuantity(line.getKey()), line.getValue(), line.getKey());
+		for (Map.Entry<Item, Integer> line : items.entrySet())
+			addItem(line.getKey(), line.getValue());
+	}
+	
+	/**
+	 * Removes each of the specified items from the basket completely, regardless of their initial
+	 * quantities. Items that are not in the basket are ignored.
+	 * @param items The items to be removed.
+	 */
+	public default void removeAll(Collection<? extends Item> items) {
+		for (Item item : items)
+			removeAll(item);
+	}
+	
 	/**
 	 * Removes all items from the basket.
 	 */
@@ -65,4 +97,25 @@ public interface Basket extends Iterable<BasketEntry> {
 	 * @return The total cost for all items in the basket.
 	 */
 	public double getTotalCost();
+	
+	/**
+	 * Returns the exact total cost for all items in the basket as a number of minor currency
+	 * units at the given scale. For example, a total of {@code 12.34} is returned as {@code 1234}
+	 * at scale {@code 2}, or {@code 123400} at scale {@code 4}. Unlike {@code getTotalCost()}, the
+	 * result is never subject to rounding errors.
+	 * @param scale The scale of the result.
+	 * @return The total cost for all items in the basket in minor units.
+	 * @throws ArithmeticException Thrown if the price of any item cannot be represented exactly at
+	 * 		the given scale, or the total overflows a {@code long}.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 * @see homeoffice.application.basket.Item#getMinorUnitPrice()
+	 */
+	public default long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		long total = 0L;
+		for (BasketEntry basketEntry : this)
+			total = Math.addExact(total, basketEntry.getTotalCostInMinorUnits(scale));
+		return total;
+	}
 }
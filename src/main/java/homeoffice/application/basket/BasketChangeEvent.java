@@ -0,0 +1,71 @@
+package homeoffice.application.basket;
+
+/**
+ * Describes a change to the quantity of an item in a basket. Events are published by an {@code
+ * ObservableBasket} and delivered to {@code BasketChangeListener}s by a {@code
+ * BasketEventPublisher}.<br>
+ * <br>
+ * An item added to the basket has an old quantity of {@code 0}, and an item removed from the
+ * basket has a new quantity of {@code 0}. This class is immutable.
+ * 
+ * @author Richard Innocent
+ */
+public final class BasketChangeEvent {
+	
+	private final String basketId;
+	private final Item item;
+	private final int oldQuantity;
+	private final int newQuantity;
+	
+	/**
+	 * Creates a new event.
+	 * @param basketId The ID of the basket that changed.
+	 * @param item The item whose quantity changed.
+	 * @param oldQuantity The quantity of the item before the change.
+	 * @param newQuantity The quantity of the item after the change.
+	 */
+	public BasketChangeEvent(String basketId, Item item, int oldQuantity, int newQuantity) {
+		this.basketId = basketId;
+		this.item = item;
+		this.oldQuantity = oldQuantity;
+		this.newQuantity = newQuantity;
+	}
+	
+	/**
+	 * Returns the ID of the basket that changed.
+	 * @return The basket ID.
+	 */
+	public String getBasketId() {
+		return basketId;
+	}
+	
+	/**
+	 * Returns the item whose quantity changed.
+	 * @return The item.
+	 */
+	public Item getItem() {
+		return item;
+	}
+	
+	/**
+	 * Returns the quantity of the item before the change.
+	 * @return The old quantity, or {@code 0} if the item was added to the basket.
+	 */
+	public int getOldQuantity() {
+		return oldQuantity;
+	}
+	
+	/**
+	 * Returns the quantity of the item after the change.
+	 * @return The new quantity, or {@code 0} if the item was removed from the basket.
+	 */
+	public int getNewQuantity() {
+		return newQuantity;
+	}
+	
+	@Override
+	public String toString() {
+		return basketId + ": " + item + " " + oldQuantity + " -> " + newQuantity;
+	}
+	
+}
@@ -0,0 +1,23 @@
+package homeoffice.application.basket;
+
+import java.util.List;
+
+/**
+ * Receives the changes made to baskets, in batches. Listeners are called by a {@code
+ * BasketEventPublisher} on its own thread, never on the thread that changed the basket.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.BasketEventPublisher
+ */
+@FunctionalInterface
+public interface BasketChangeListener {
+	
+	/**
+	 * Called with the next batch of changes. The changes to each basket are in the order they
+	 * were made. The list is only valid for the duration of the call, so must be copied if it is
+	 * to be kept.
+	 * @param events The changes, of which there is at least one.
+	 */
+	public void basketsChanged(List<BasketChangeEvent> events);
+	
+}
@@ -0,0 +1,285 @@
+package homeoffice.application.basket;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a {@code Basket}, for persisting baskets between sessions and
+ * replicating them between nodes. Items are stored by ID rather than copied, and are resolved
+ * through an {@code ItemDAO} when the basket is decoded.<br>
+ * <br>
+ * An encoded basket consists of:
+ * <ul>
+ * <li>the byte {@code MARKER}</li>
+ * <li>the format version, {@code VERSION}, as a single byte</li>
+ * <li>for each line of the basket, in iteration order, the length of the item ID in UTF-8 bytes
+ * plus one as a varint, the UTF-8 encoded ID, and the quantity as a varint</li>
+ * <li>a varint {@code 0} marking the end of the lines</li>
+ * </ul>
+ * Varints are unsigned, little-endian base 128: each byte holds seven bits of the value, and the
+ * high bit is set on every byte but the last. Quantities below 128 therefore take one byte.<br>
+ * <br>
+ * Baskets are encoded in a single pass over their entries, so a {@code ConcurrentBasket} can be
+ * encoded while it is being modified.
+ * 
+ * @author Richard Innocent
+ */
+public final class BasketCodec {
+	
+	/**
+	 * The first byte of every encoded basket.
+	 */
+	public static final byte MARKER = (byte) 0xBA;
+	
+	/**
+	 * The current format version.
+	 */
+	public static final int VERSION = 1;
+	
+	private static final int END_OF_LINES = 0;
+	
+	private BasketCodec() {}
+	
+	/**
+	 * Returns the number of bytes needed to encode the given basket. Note that if the basket is
+	 * modified concurrently, the size of the basket when it is encoded may differ.
+	 * @param basket The basket.
+	 * @return The size of the encoded basket in bytes.
+	 */
+	public static int encodedSize(Basket basket) {
+		int size = 2 + varintSize(END_OF_LINES);
+		for (BasketEntry basketEntry : basket) {
+			int idLength = utf8Length(basketEntry.getItem().getId());
+			size += varintSize(idLength + 1) + idLength + varintSize(basketEntry.getQuantity());
+		}
+		return size;
+	}
+	
+	/**
+	 * Encodes the given basket.
+	 * @param basket The basket.
+	 * @return The encoded basket.
+	 */
+	public static byte[] encode(Basket basket) {
+		while (true) {
+			ByteBuffer buffer = ByteBuffer.allocate(encodedSize(basket));
+			try {
+				encode(basket, buffer);
+				return buffer.position() == buffer.capacity()
+						? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+			} catch (BufferOverflowException e) {
+				// The basket grew while it was being encoded, so try again
+			}
+		}
+	}
+	
+	/**
+	 * Encodes the given basket into the buffer, starting at the buffer's position. On return, the
+	 * buffer's position is just after the encoded basket.
+	 * @param basket The basket.
+	 * @param buffer The buffer, which should have at least {@code encodedSize(basket)} bytes
+	 * 		remaining.
+	 * @throws BufferOverflowException Thrown if the buffer is too small, in which case the buffer's
+	 * 		position is undefined.
+	 */
+	public static void encode(Basket basket, ByteBuffer buffer) throws BufferOverflowException {
+		buffer.put(MARKER);
+		buffer.put((byte) VERSION);
+		for (BasketEntry basketEntry : basket) {
+			String id = basketEntry.getItem().getId();
+			putVarint(buffer, utf8Length(id) + 1);
+			putUtf8(buffer, id);
+			putVarint(buffer, basketEntry.getQuantity());
+		}
+		putVarint(buffer, END_OF_LINES);
+	}
+	
+	/**
+	 * Decodes a basket from the buffer, starting at the buffer's position, and adds its items to
+	 * the given basket. The encoded bytes are read directly from the buffer without being copied.
+	 * The items of all the lines are fetched with a single call to {@code itemDAO.getItems}.
+	 * Lines whose items can no longer be found in the {@code itemDAO}, for example because they
+	 * have been withdrawn from sale, are skipped. On return, the buffer's position is just after
+	 * the encoded basket.
+	 * @param buffer The buffer holding the encoded basket.
+	 * @param itemDAO The DAO through which item IDs are resolved.
+	 * @param basket The basket to which the decoded items are added. This is usually empty, but
+	 * 		need not be.
+	 * @return The number of lines that were skipped because their items could not be found.
+	 * @throws IllegalArgumentException Thrown if the buffer does not hold a valid encoded basket,
+	 * 		in which case no lines are added to the basket.
+	 * @throws ArithmeticException Thrown if adding a line overflows the quantity already in the
+	 * 		basket.
+	 */
+	public static int decode(ByteBuffer buffer, ItemDAO itemDAO, Basket basket)
+			throws IllegalArgumentException, ArithmeticException {
+		try {
+			if (buffer.get() != MARKER)
+				throw new IllegalArgumentException("Buffer does not hold an encoded basket");
+			int version = buffer.get() & 0xFF;
+			if (version != VERSION)
+				throw new IllegalArgumentException("Unsupported basket format version " + version);
+			
+			List<String> ids = new ArrayList<>();
+			int[] quantities = new int[16];
+			byte[] scratch = buffer.hasArray() ? null : new byte[64];
+			while (true) {
+				int encodedLength = getVarint(buffer);
+				if (encodedLength == END_OF_LINES)
+					break;
+				if (encodedLength < 0)
+					throw new IllegalArgumentException("Negative ID length in encoded basket");
+				int idLength = encodedLength - 1;
+				if (idLength > buffer.remaining())
+					throw new BufferUnderflowException();
+				
+				String id;
+				if (buffer.hasArray()) {
+					id = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+							idLength, StandardCharsets.UTF_8);
+					buffer.position(buffer.position() + idLength);
+				} else {
+					if (scratch.length < idLength)
+						scratch = new byte[Math.max(idLength, scratch.length * 2)];
+					buffer.get(scratch, 0, idLength);
+					id = new String(scratch, 0, idLength, StandardCharsets.UTF_8);
+				}
+				if (ids.size() == quantities.length)
+					quantities = Arrays.copyOf(quantities, quantities.length * 2);
+				int quantity = getVarint(buffer);
+				if (quantity < 0)
+					throw new IllegalArgumentException("Negative quantity in encoded basket");
+				quantities[ids.size()] = quantity;
+				ids.add(id);
+			}
+			
+			// Every line's item is fetched at once, in one call to the DAO
+			Map<String, Item> items = itemDAO.getItems(ids);
+			int skippedLines = 0;
+			for (int line = 0; line < ids.size(); line++) {
+				Item item = items.get(ids.get(line));
+				if (item == null)
+					skippedLines++;
+				else
+					basket.addItem(item, quantities[line]);
+			}
+			return skippedLines;
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Encoded basket is truncated", e);
+		}
+	}
+	
+	/**
+	 * Decodes a basket from the given bytes. See {@link #decode(ByteBuffer, ItemDAO, Basket)}.
+	 * @param bytes The encoded basket.
+	 * @param itemDAO The DAO through which item IDs are resolved.
+	 * @param basket The basket to which the decoded items are added.
+	 * @return The number of lines that were skipped because their items could not be found.
+	 * @throws IllegalArgumentException Thrown if the bytes are not a valid encoded basket.
+	 * @throws ArithmeticException Thrown if adding a line overflows the quantity already in the
+	 * 		basket.
+	 */
+	public static int decode(byte[] bytes, ItemDAO itemDAO, Basket basket)
+			throws IllegalArgumentException, ArithmeticException {
+		return decode(ByteBuffer.wrap(bytes), itemDAO, basket);
+	}
+	
+	static int varintSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+	
+	static void putVarint(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	static int getVarint(ByteBuffer buffer) throws IllegalArgumentException {
+		int value = 0;
+		for (int shift = 0; shift < 28; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		// The fifth byte holds only the top four bits of an int
+		byte b = buffer.get();
+		if ((b & ~0x0F) != 0)
+			throw new IllegalArgumentException("Malformed varint in encoded basket");
+		return value | b << 28;
+	}
+	
+	/**
+	 * Returns the length of the string in UTF-8, as encoded by {@code putUtf8}.
+	 */
+	static int utf8Length(String string) {
+		int length = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isSurrogate(c)) {
+				if (isSurrogatePair(string, i)) {
+					length += 4;
+					i++;
+				} else {
+					length++;
+				}
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+	
+	/**
+	 * Writes the string in UTF-8 without allocating. As with {@code String.getBytes}, unpaired
+	 * surrogates are written as {@code '?'}.
+	 */
+	static void putUtf8(ByteBuffer buffer, String string) {
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			} else if (Character.isSurrogate(c)) {
+				if (isSurrogatePair(string, i)) {
+					int codePoint = Character.toCodePoint(c, string.charAt(++i));
+					buffer.put((byte) (0xF0 | (codePoint >> 18)));
+					buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+					buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+					buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+				} else {
+					buffer.put((byte) '?');
+				}
+			} else {
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+	
+	private static boolean isSurrogatePair(String string, int index) {
+		return Character.isHighSurrogate(string.charAt(index)) && index + 1 < string.length()
+				&& Character.isLowSurrogate(string.charAt(index + 1));
+	}
+	
+}
@@ -1,5 +1,7 @@
 package homeoffice.application.basket;
 
+import java.util.function.Function;
+
 /**
  * Data structure to hold an {@code Item} and its quantity. The public interface of this class is
  * immutable, and can only be created or modified from via the {@code Basket}.<br>
@@ -21,7 +23,7 @@ public class BasketEntry {
 	 * @throws IllegalArgumentException Thrown if {@code quantity < 0}.
 	 */
 	protected BasketEntry(Item item, int quantity) throws IllegalArgumentException {
-		assertNotNegative(quantity, IllegalArgumentException.class, "Quantity must be >= 0");
+		assertNotNegative(quantity, IllegalArgumentException::new, "Quantity must be >= 0");
 		this.item = item;
 		this.quantity = quantity;
 	}
@@ -68,6 +70,35 @@ public class BasketEntry {
 		return getIndividualItemCost() * quantity; 
 	}
 	
+	/**
+	 * Returns the exact total price of all items in this {@code BasketEntry} as a number of minor
+	 * currency units at the given scale.
+	 * @param scale The scale of the result, e.g. {@code 2} for pence.
+	 * @return {@code getItem().getPriceInMinorUnits(scale) * getQuantity()}.
+	 * @throws ArithmeticException Thrown if the item's price cannot be represented exactly at the
+	 * 		given scale, or the total overflows a {@code long}.
+	 * @see homeoffice.application.basket.Item#getPriceInMinorUnits(int)
+	 */
+	public long getTotalCostInMinorUnits(int scale) throws ArithmeticException {
+		return Math.multiplyExact(item.getPriceInMinorUnits(scale), getQuantity());
+	}
+	
+	/**
+	 * Verifies that {@code amount >= 0}. If not, this method throws the exception created by the
+	 * given factory with the provided {@code failMessage}. Nothing is allocated when the check
+	 * passes, provided that the factory is a constructor reference such as {@code
+	 * IllegalArgumentException::new}.
+	 * @param amount The amount to verify is greater than 0.
+	 * @param exceptionFactory Creates the exception to be thrown if {@code amount < 0} from the
+	 * 		{@code failMessage}.
+	 * @param failMessage The message that the exception should be create with.
+	 */
+	protected static void assertNotNegative(int amount,
+			Function<String, ? extends RuntimeException> exceptionFactory, String failMessage) {
+		if (amount < 0)
+			throw exceptionFactory.apply(failMessage);
+	}
+	
 	/**
 	 * Verifies that {@code amount >= 0}. If not, this method will create a new {@code
 	 * RuntimeException} of the specified type, with the provided {@code failMessage}.
@@ -78,7 +109,10 @@ public class BasketEntry {
 	 * 		message. As a result, ensure that the provided exception type specifies the required
 	 * 		constructor.
 	 * @param failMessage The message that the exception should be create with.
+	 * @deprecated The exception is created reflectively, which is slow when validation fails
+	 * 		often. Use {@link #assertNotNegative(int, Function, String)} instead.
 	 */
+	@Deprecated
 	protected void assertNotNegative(int amount, Class<? extends RuntimeException> errorType,
 			String failMessage) {
 		if (amount < 0) {
@@ -0,0 +1,298 @@
+package homeoffice.application.basket;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers {@code BasketChangeEvent}s to {@code BasketChangeListener}s asynchronously, in batches.
+ * <br>
+ * <br>
+ * Events are published into a bounded ring buffer, from which a single background thread takes
+ * them in batches of up to {@code maxBatchSize} and passes each batch to every listener.
+ * Publishing never blocks or waits for a listener: it claims a slot in the buffer with a single
+ * compare-and-set. When the buffer is empty, the background thread sleeps for up to a millisecond
+ * to let a batch build up, and is woken early only if the buffer becomes half full, so publishers
+ * rarely pay for waking it. If the listeners fall so far behind that the buffer is full, new
+ * events are dropped rather than slowing down the baskets, and counted in {@code
+ * getDroppedCount()}. A listener that sees the count rise should resynchronise by reading the
+ * baskets it follows.<br>
+ * <br>
+ * A listener that throws any exception or error does not stop the batch from being delivered to
+ * the other listeners, or later batches from being delivered to it. Such failures are counted in
+ * {@code getListenerFailureCount()}.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ObservableBasket
+ */
+public class BasketEventPublisher implements Closeable {
+	
+	/**
+	 * The default number of events that can wait for delivery.
+	 */
+	public static final int DEFAULT_CAPACITY = 8192;
+	
+	/**
+	 * The default maximum number of events passed to a listener at once.
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+	
+	/**
+	 * How long the background thread sleeps when there are no events, so that events are delivered
+	 * in batches.
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	private static final long FLUSH_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	
+	private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle TAIL;
+	private static final VarHandle DROPPED_COUNT;
+	
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			TAIL = lookup.findVarHandle(BasketEventPublisher.class, "tail", long.class);
+			DROPPED_COUNT =
+					lookup.findVarHandle(BasketEventPublisher.class, "droppedCount", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	/**
+	 * The ring buffer. The event for position {@code p} is in slot {@code p & mask}, and is ready
+	 * to be taken once that slot's sequence is {@code p + 1}. The slot is free to be claimed for
+	 * position {@code p} once its sequence is {@code p}.
+	 */
+	private final BasketChangeEvent[] events;
+	private final long[] sequences;
+	private final int mask;
+	private final int maxBatchSize;
+	
+	/**
+	 * The next position to be claimed by a publisher.
+	 */
+	@SuppressWarnings("unused")
+	private volatile long tail;
+	
+	/**
+	 * The next position to be taken by the background thread, which is the only thread that
+	 * writes it.
+	 */
+	private long head;
+	
+	/**
+	 * The number of events that have been delivered to every listener.
+	 */
+	private volatile long deliveredCount;
+	
+	@SuppressWarnings("unused")
+	private volatile long droppedCount;
+	private volatile long listenerFailureCount;
+	
+	private final List<BasketChangeListener> listeners = new CopyOnWriteArrayList<>();
+	private final Thread deliveryThread;
+	private volatile boolean idle;
+	private volatile boolean closed;
+	
+	/**
+	 * Creates a new publisher with a buffer of {@code DEFAULT_CAPACITY} events, which delivers
+	 * batches of up to {@code DEFAULT_MAX_BATCH_SIZE} events.
+	 */
+	public BasketEventPublisher() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+	}
+	
+	/**
+	 * Creates a new publisher.
+	 * @param capacity The number of events that can wait for delivery, which is rounded up to a
+	 * 		power of two.
+	 * @param maxBatchSize The maximum number of events passed to a listener at once.
+	 * @throws IllegalArgumentException Thrown if {@code capacity < 1}, {@code capacity > 2^30} or
+	 * 		{@code maxBatchSize < 1}.
+	 */
+	public BasketEventPublisher(int capacity, int maxBatchSize) throws IllegalArgumentException {
+		if (capacity < 1 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+		if (maxBatchSize < 1)
+			throw new IllegalArgumentException("Maximum batch size must be >= 1");
+		int size = Integer.highestOneBit(capacity) == capacity
+				? capacity : Integer.highestOneBit(capacity) << 1;
+		events = new BasketChangeEvent[size];
+		sequences = new long[size];
+		for (int slot = 0; slot < size; slot++)
+			sequences[slot] = slot;
+		mask = size - 1;
+		this.maxBatchSize = maxBatchSize;
+		
+		deliveryThread = new Thread(this::deliverEvents, "basket-event-publisher");
+		deliveryThread.setDaemon(true);
+		deliveryThread.start();
+	}
+	
+	/**
+	 * Adds a listener, which receives every event delivered from now on.
+	 * @param listener The listener.
+	 */
+	public void addListener(BasketChangeListener listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener. The listener may still receive the batch being delivered.
+	 * @param listener The listener.
+	 */
+	public void removeListener(BasketChangeListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Publishes an event, without waiting for it to be delivered.
+	 * @param event The event.
+	 * @return {@code true} if the event will be delivered, or {@code false} if it was dropped
+	 * 		because the buffer is full or this publisher has been closed.
+	 */
+	public boolean publish(BasketChangeEvent event) {
+		if (closed) {
+			DROPPED_COUNT.getAndAdd(this, 1L);
+			return false;
+		}
+		
+		long position = (long) TAIL.getVolatile(this);
+		while (true) {
+			int slot = (int) position & mask;
+			long sequence = (long) SEQUENCES.getAcquire(sequences, slot);
+			if (sequence == position) {
+				if (TAIL.weakCompareAndSet(this, position, position + 1))
+					break;
+				position = (long) TAIL.getVolatile(this);
+			} else if (sequence < position) {
+				// The slot still holds an event from the previous lap, so the buffer is full
+				DROPPED_COUNT.getAndAdd(this, 1L);
+				return false;
+			} else {
+				position = (long) TAIL.getVolatile(this);
+			}
+		}
+		
+		int slot = (int) position & mask;
+		events[slot] = event;
+		SEQUENCES.setRelease(sequences, slot, position + 1);
+		if (idle && position - deliveredCount >= (mask + 1) / 2) {
+			idle = false;
+			LockSupport.unpark(deliveryThread);
+		}
+		return true;
+	}
+	
+	/**
+	 * Waits until every event published before this call has been delivered to the listeners.
+	 * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+	 */
+	public void flush() throws InterruptedException {
+		long target = (long) TAIL.getVolatile(this);
+		while (deliveredCount < target && deliveryThread.isAlive()) {
+			LockSupport.unpark(deliveryThread);
+			LockSupport.parkNanos(this, FLUSH_POLL_NANOS);
+			if (Thread.interrupted())
+				throw new InterruptedException();
+		}
+	}
+	
+	/**
+	 * Returns the number of events that have been dropped because the buffer was full or this
+	 * publisher had been closed.
+	 * @return The number of dropped events.
+	 */
+	public long getDroppedCount() {
+		return (long) DROPPED_COUNT.getVolatile(this);
+	}
+	
+	/**
+	 * Returns the number of events that have been delivered to the listeners.
+	 * @return The number of delivered events.
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount;
+	}
+	
+	/**
+	 * Returns the number of times a listener has thrown an exception.
+	 * @return The number of listener failures.
+	 */
+	public long getListenerFailureCount() {
+		return listenerFailureCount;
+	}
+	
+	/**
+	 * Stops accepting events, delivers the events already published, and stops the background
+	 * thread. Events published while this publisher is closing may be dropped.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(deliveryThread);
+		boolean interrupted = false;
+		while (deliveryThread.isAlive()) {
+			try {
+				deliveryThread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+	
+	private void deliverEvents() {
+		List<BasketChangeEvent> batch = new ArrayList<>(maxBatchSize);
+		List<BasketChangeEvent> readOnlyBatch = Collections.unmodifiableList(batch);
+		while (true) {
+			takeBatch(batch);
+			if (batch.isEmpty()) {
+				if (closed)
+					return;
+				idle = true;
+				if (!hasEvents() && !closed)
+					LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				idle = false;
+				continue;
+			}
+			
+			for (BasketChangeListener listener : listeners) {
+				try {
+					listener.basketsChanged(readOnlyBatch);
+				} catch (Throwable e) {
+					// Even an Error must not stop the delivery thread, or every later event is lost
+					listenerFailureCount++;
+				}
+			}
+			deliveredCount = head;
+			batch.clear();
+		}
+	}
+	
+	private boolean hasEvents() {
+		return (long) SEQUENCES.getAcquire(sequences, (int) head & mask) == head + 1;
+	}
+	
+	private void takeBatch(List<BasketChangeEvent> batch) {
+		while (batch.size() < maxBatchSize && hasEvents()) {
+			int slot = (int) head & mask;
+			batch.add(events[slot]);
+			events[slot] = null;
+			SEQUENCES.setRelease(sequences, slot, head + events.length);
+			head++;
+		}
+	}
+	
+}
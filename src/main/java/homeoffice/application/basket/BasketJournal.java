@@ -0,0 +1,718 @@
+package homeoffice.application.basket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * An append-only journal of basket mutations, from which baskets can be rebuilt after a restart.
+ * Baskets are journaled by wrapping them in a {@code JournalingBasket}, and rebuilt with {@code
+ * recover}.<br>
+ * <br>
+ * The journal is held in two files in its directory. Mutations are appended to a log file, each as
+ * a length-prefixed, checksummed record. Appends from all threads are gathered in memory and
+ * written and synced to disk together (group commit), at the points given by the journal's {@code
+ * SyncPolicy}. To stop the log from growing without bound, {@code compact} writes every basket to
+ * a snapshot file, encoded with {@code BasketCodec}, and then empties the log. Both files carry a
+ * generation number, so that a log that has already been compacted into the snapshot is never
+ * replayed on top of it, even if the process stops part way through compaction.<br>
+ * <br>
+ * If the process stops while a record is being written, the incomplete record is discarded when
+ * the journal is next opened.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.JournalingBasket
+ */
+public class BasketJournal implements Closeable {
+	
+	static final String LOG_FILE = "baskets.log";
+	static final String SNAPSHOT_FILE = "baskets.snapshot";
+	
+	private static final int LOG_MAGIC = 0x42534B4C;
+	private static final int SNAPSHOT_MAGIC = 0x42534B53;
+	private static final int FORMAT_VERSION = 1;
+	private static final int LOG_HEADER_SIZE = 16;
+	private static final int RECORD_HEADER_SIZE = 8;
+	
+	private static final byte ADD = 1;
+	private static final byte ADD_ALL = 2;
+	private static final byte REMOVE = 3;
+	private static final byte REMOVE_ALL = 4;
+	private static final byte REMOVE_ALL_ITEMS = 5;
+	private static final byte CLEAR = 6;
+	private static final byte DISCARD = 7;
+	
+	private final Path directory;
+	private final SyncPolicy syncPolicy;
+	private final FileChannel log;
+	private long generation;
+	
+	/**
+	 * Held for reading while a basket is mutated and its mutation appended, and for writing while
+	 * the journal is compacted, so that every snapshot matches the end of the log exactly.
+	 */
+	private final ReadWriteLock mutationLock = new ReentrantReadWriteLock();
+	
+	/**
+	 * Guards {@code pending}, {@code recordStart}, {@code appendedSequence} and {@code checksum}.
+	 */
+	private final Object appendLock = new Object();
+	private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+	private int recordStart;
+	private long appendedSequence;
+	private final CRC32 checksum = new CRC32();
+	
+	/**
+	 * Guards writes to the log, {@code spare} and {@code generation}.
+	 */
+	private final Object writeLock = new Object();
+	private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+	private volatile long durableSequence;
+	
+	private final ScheduledExecutorService scheduler;
+	private volatile IOException syncFailure;
+	private volatile boolean closed;
+	
+	/**
+	 * Opens the journal in the given directory, creating it if necessary. Any incomplete record at
+	 * the end of the log is discarded.
+	 * @param directory The directory holding the journal files.
+	 * @param syncPolicy When appended mutations are synced to disk.
+	 * @throws IOException Thrown if the journal cannot be opened, or its files are corrupt.
+	 */
+	public BasketJournal(Path directory, SyncPolicy syncPolicy) throws IOException {
+		this.directory = directory;
+		this.syncPolicy = syncPolicy;
+		Files.createDirectories(directory);
+		
+		long snapshotGeneration = readSnapshotGeneration();
+		log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			openLog(snapshotGeneration);
+		} catch (IOException | RuntimeException e) {
+			log.close();
+			throw e;
+		}
+		
+		if (syncPolicy.intervalNanos > 0L) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "basket-journal-sync");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::syncInBackground, syncPolicy.intervalNanos,
+					syncPolicy.intervalNanos, TimeUnit.NANOSECONDS);
+		} else {
+			scheduler = null;
+		}
+	}
+	
+	private void openLog(long snapshotGeneration) throws IOException {
+		if (log.size() < LOG_HEADER_SIZE) {
+			startNewLog(snapshotGeneration + 1);
+			return;
+		}
+		
+		ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+		readFully(log, header, 0L);
+		header.flip();
+		if (header.getInt() != LOG_MAGIC || header.getInt() != FORMAT_VERSION)
+			throw new IOException(directory.resolve(LOG_FILE) + " is not a basket journal");
+		generation = header.getLong();
+		
+		if (generation <= snapshotGeneration) {
+			// The process stopped after this log was compacted but before it was emptied
+			startNewLog(snapshotGeneration + 1);
+			return;
+		}
+		long validLength = replayLog(null, null, null);
+		log.truncate(validLength);
+		log.position(validLength);
+	}
+	
+	private void startNewLog(long newGeneration) throws IOException {
+		generation = newGeneration;
+		log.truncate(0L);
+		ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+		header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(newGeneration).flip();
+		while (header.hasRemaining())
+			log.write(header, header.position());
+		log.force(true);
+		log.position(LOG_HEADER_SIZE);
+	}
+	
+	/**
+	 * Rebuilds every journaled basket from the snapshot and the log. Baskets are rebuilt as they
+	 * were after the last mutation written to the journal. Lines whose items can no longer be
+	 * found are skipped.
+	 * @param itemDAO The DAO through which item IDs are resolved.
+	 * @param basketFactory Creates the empty baskets into which the journaled baskets are rebuilt.
+	 * @return The rebuilt baskets, mapped by basket ID.
+	 * @throws IOException Thrown if the journal cannot be read.
+	 */
+	public Map<String, Basket> recover(ItemDAO itemDAO, Supplier<? extends Basket> basketFactory)
+			throws IOException {
+		Lock lock = mutationLock.writeLock();
+		lock.lock();
+		try {
+			flush();
+			Map<String, Basket> baskets = new LinkedHashMap<>();
+			readSnapshot(baskets, itemDAO, basketFactory);
+			replayLog(baskets, itemDAO, basketFactory);
+			return baskets;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes the given baskets to a new snapshot and empties the log. The baskets must be exactly
+	 * those being journaled, for example as returned by {@code recover} and wrapped in {@code
+	 * JournalingBasket}s. Mutations to journaled baskets wait while the journal is compacted.
+	 * @param baskets Every journaled basket, mapped by basket ID.
+	 * @throws IOException Thrown if the snapshot cannot be written, in which case the existing
+	 * 		snapshot and log are left in place.
+	 */
+	public void compact(Map<String, ? extends Basket> baskets) throws IOException {
+		Lock lock = mutationLock.writeLock();
+		lock.lock();
+		try {
+			flush();
+			synchronized (writeLock) {
+				writeSnapshot(baskets);
+				startNewLog(generation + 1);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes and syncs every mutation appended so far.
+	 * @throws IOException Thrown if the log cannot be written.
+	 */
+	public void flush() throws IOException {
+		long sequence;
+		synchronized (appendLock) {
+			sequence = appendedSequence;
+		}
+		sync(sequence);
+	}
+	
+	/**
+	 * Flushes the journal and closes its files. Journaled baskets can no longer be mutated once
+	 * their journal is closed.
+	 * @throws IOException Thrown if the log cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		if (scheduler != null)
+			scheduler.shutdownNow();
+		Lock lock = mutationLock.writeLock();
+		lock.lock();
+		try {
+			flush();
+		} finally {
+			closed = true;
+			lock.unlock();
+			log.close();
+		}
+	}
+	
+	
+	// Appending, called by JournalingBasket while it holds the mutation lock
+	
+	Lock mutationLock() {
+		return mutationLock.readLock();
+	}
+	
+	/**
+	 * Checks that mutations can still be appended, so that callers can refuse a mutation before
+	 * making it. Once a sync has failed, the journal is stopped and no further mutations are
+	 * accepted, since they could never be made durable.
+	 */
+	void checkWritable() throws IllegalStateException {
+		if (closed)
+			throw new IllegalStateException("Journal is closed");
+		IOException failure = syncFailure;
+		if (failure != null)
+			throw new IllegalStateException("Journal could not be synced", failure);
+	}
+	
+	long appendAdd(String basketId, Item item, int quantity) {
+		String itemId = item.getId();
+		synchronized (appendLock) {
+			beginRecord(ADD, basketId, stringSize(itemId) + BasketCodec.varintSize(quantity));
+			putString(itemId);
+			BasketCodec.putVarint(pending, quantity);
+			return endRecord();
+		}
+	}
+	
+	long appendAddAll(String basketId, Map<Item, Integer> items) {
+		int size = BasketCodec.varintSize(items.size());
+		for (Map.Entry<Item, Integer> line : items.entrySet())
+			size += stringSize(line.getKey().getId()) + BasketCodec.varintSize(line.getValue());
+		synchronized (appendLock) {
+			beginRecord(ADD_ALL, basketId, size);
+			BasketCodec.putVarint(pending, items.size());
+			for (Map.Entry<Item, Integer> line : items.entrySet()) {
+				putString(line.getKey().getId());
+				BasketCodec.putVarint(pending, line.getValue());
+			}
+			return endRecord();
+		}
+	}
+	
+	long appendRemove(String basketId, Item item) {
+		return appendItemRecord(REMOVE, basketId, item);
+	}
+	
+	long appendRemoveAll(String basketId, Item item) {
+		return appendItemRecord(REMOVE_ALL, basketId, item);
+	}
+	
+	long appendRemoveAll(String basketId, Collection<? extends Item> items) {
+		int size = BasketCodec.varintSize(items.size());
+		for (Item item : items)
+			size += stringSize(item.getId());
+		synchronized (appendLock) {
+			beginRecord(REMOVE_ALL_ITEMS, basketId, size);
+			BasketCodec.putVarint(pending, items.size());
+			for (Item item : items)
+				putString(item.getId());
+			return endRecord();
+		}
+	}
+	
+	long appendClear(String basketId) {
+		synchronized (appendLock) {
+			beginRecord(CLEAR, basketId, 0);
+			return endRecord();
+		}
+	}
+	
+	/**
+	 * Records that the basket with the given ID is no longer needed, so that it is not rebuilt by
+	 * {@code recover}.
+	 * @param basketId The basket ID.
+	 * @throws UncheckedIOException Thrown if the record cannot be synced to disk.
+	 * @throws IllegalStateException Thrown if the journal has been closed, or a previous sync
+	 * 		has failed.
+	 */
+	public void discard(String basketId) throws UncheckedIOException, IllegalStateException {
+		long sequence;
+		Lock lock = mutationLock();
+		lock.lock();
+		try {
+			checkWritable();
+			synchronized (appendLock) {
+				beginRecord(DISCARD, basketId, 0);
+				sequence = endRecord();
+			}
+		} finally {
+			lock.unlock();
+		}
+		awaitDurable(sequence);
+	}
+	
+	private long appendItemRecord(byte operation, String basketId, Item item) {
+		String itemId = item.getId();
+		synchronized (appendLock) {
+			beginRecord(operation, basketId, stringSize(itemId));
+			putString(itemId);
+			return endRecord();
+		}
+	}
+	
+	private static int stringSize(String string) {
+		int length = BasketCodec.utf8Length(string);
+		return BasketCodec.varintSize(length) + length;
+	}
+	
+	private void putString(String string) {
+		BasketCodec.putVarint(pending, BasketCodec.utf8Length(string));
+		BasketCodec.putUtf8(pending, string);
+	}
+	
+	private void beginRecord(byte operation, String basketId, int bodySize) {
+		if (closed)
+			throw new IllegalStateException("Journal is closed");
+		int recordSize = RECORD_HEADER_SIZE + 1 + stringSize(basketId) + bodySize;
+		if (pending.remaining() < recordSize) {
+			ByteBuffer grown = ByteBuffer.allocate(
+					Math.max(pending.capacity() * 2, pending.position() + recordSize));
+			pending.flip();
+			grown.put(pending);
+			pending = grown;
+		}
+		recordStart = pending.position();
+		pending.position(recordStart + RECORD_HEADER_SIZE);
+		pending.put(operation);
+		putString(basketId);
+	}
+	
+	private long endRecord() {
+		int end = pending.position();
+		int length = end - recordStart - RECORD_HEADER_SIZE;
+		checksum.reset();
+		checksum.update(pending.array(), recordStart + RECORD_HEADER_SIZE, length);
+		pending.putInt(recordStart, length);
+		pending.putInt(recordStart + 4, (int) checksum.getValue());
+		return ++appendedSequence;
+	}
+	
+	/**
+	 * Waits until the mutation with the given sequence number is as durable as the journal's
+	 * {@code SyncPolicy} requires.
+	 */
+	void awaitDurable(long sequence) throws UncheckedIOException {
+		IOException failure = syncFailure;
+		if (failure != null)
+			throw new UncheckedIOException("Journal could not be synced", failure);
+		if (syncPolicy.intervalNanos > 0L)
+			return;
+		if (sequence - durableSequence < syncPolicy.batchSize)
+			return;
+		try {
+			sync(sequence);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Journal could not be synced", e);
+		}
+	}
+	
+	private void syncInBackground() {
+		try {
+			flush();
+		} catch (IOException e) {
+			// Recorded by sync, and reported to the next caller of awaitDurable
+		}
+	}
+	
+	/**
+	 * Writes and syncs every pending record, if the record with the given sequence number has not
+	 * been synced already. Threads that call this while another thread is syncing wait for it, and
+	 * then usually find that their own records have been synced with it.<br>
+	 * <br>
+	 * If the write fails, the records are put back in front of any appended since, and the
+	 * journal stops: every later sync fails with the same cause, and no further mutations are
+	 * accepted. The log may end part way through a record, which is discarded when the journal
+	 * is next opened.
+	 */
+	private void sync(long sequence) throws IOException {
+		synchronized (writeLock) {
+			IOException failure = syncFailure;
+			if (failure != null)
+				throw new IOException("Journal could not be synced", failure);
+			if (durableSequence >= sequence || closed)
+				return;
+			ByteBuffer toWrite;
+			long writtenSequence;
+			synchronized (appendLock) {
+				toWrite = pending;
+				pending = spare;
+				writtenSequence = appendedSequence;
+			}
+			toWrite.flip();
+			try {
+				while (toWrite.hasRemaining())
+					log.write(toWrite);
+				log.force(false);
+			} catch (IOException e) {
+				synchronized (appendLock) {
+					restorePending(toWrite);
+					syncFailure = e;
+				}
+				throw e;
+			}
+			toWrite.clear();
+			spare = toWrite;
+			durableSequence = writtenSequence;
+		}
+	}
+	
+	/**
+	 * Puts the records of a failed write back in front of those appended since, and leaves
+	 * {@code pending} and {@code spare} as separate buffers.
+	 */
+	private void restorePending(ByteBuffer failed) {
+		ByteBuffer appended = pending;
+		appended.flip();
+		failed.position(0);
+		if (failed.capacity() - failed.limit() < appended.remaining()) {
+			ByteBuffer grown = ByteBuffer.allocate(
+					Math.max(failed.capacity() * 2, failed.limit() + appended.remaining()));
+			grown.put(failed);
+			failed = grown;
+		} else {
+			failed.position(failed.limit()).limit(failed.capacity());
+		}
+		failed.put(appended);
+		appended.clear();
+		pending = failed;
+		spare = appended;
+	}
+	
+	
+	// Reading
+	
+	private long readSnapshotGeneration() throws IOException {
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		if (!Files.exists(snapshot))
+			return 0L;
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshot))) {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION)
+				throw new IOException(snapshot + " is not a basket snapshot");
+			return in.readLong();
+		}
+	}
+	
+	private void readSnapshot(Map<String, Basket> baskets, ItemDAO itemDAO,
+			Supplier<? extends Basket> basketFactory) throws IOException {
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		if (!Files.exists(snapshot))
+			return;
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.limit() - 4);
+		if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4))
+			throw new IOException(snapshot + " is corrupt");
+		
+		buffer.position(16);
+		int basketCount = buffer.getInt();
+		for (int i = 0; i < basketCount; i++) {
+			String basketId = getString(buffer);
+			Basket basket = basketFactory.get();
+			BasketCodec.decode(buffer, itemDAO, basket);
+			baskets.put(basketId, basket);
+		}
+	}
+	
+	private void writeSnapshot(Map<String, ? extends Basket> baskets) throws IOException {
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(generation);
+			out.writeInt(baskets.size());
+			for (Map.Entry<String, ? extends Basket> basket : baskets.entrySet()) {
+				byte[] basketId = basket.getKey().getBytes(StandardCharsets.UTF_8);
+				ByteBuffer varint = ByteBuffer.allocate(5);
+				BasketCodec.putVarint(varint, basketId.length);
+				out.write(varint.array(), 0, varint.position());
+				out.write(basketId);
+				out.write(BasketCodec.encode(basket.getValue()));
+			}
+			out.flush();
+			out.writeInt((int) crc.getValue());
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Reads the records in the log, applying them to the given baskets if any are given.
+	 * @return The length of the log up to the end of the last complete record.
+	 */
+	private long replayLog(Map<String, Basket> baskets, ItemDAO itemDAO,
+			Supplier<? extends Basket> basketFactory) throws IOException {
+		long validLength = LOG_HEADER_SIZE;
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(directory.resolve(LOG_FILE),
+				StandardOpenOption.READ)) {
+			channel.position(LOG_HEADER_SIZE);
+			InputStream stream = Channels.newInputStream(channel);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+			long remaining = log.size() - LOG_HEADER_SIZE;
+			while (remaining >= RECORD_HEADER_SIZE) {
+				int length = in.readInt();
+				int expectedChecksum = in.readInt();
+				if (length <= 0 || length > remaining - RECORD_HEADER_SIZE)
+					break;
+				byte[] record = new byte[length];
+				in.readFully(record);
+				crc.reset();
+				crc.update(record, 0, length);
+				if ((int) crc.getValue() != expectedChecksum)
+					break;
+				if (baskets != null)
+					apply(ByteBuffer.wrap(record), baskets, itemDAO, basketFactory);
+				validLength += RECORD_HEADER_SIZE + length;
+				remaining -= RECORD_HEADER_SIZE + length;
+			}
+		} catch (EOFException e) {
+			// An incomplete record at the end of the log
+		}
+		return validLength;
+	}
+	
+	private static void apply(ByteBuffer record, Map<String, Basket> baskets, ItemDAO itemDAO,
+			Supplier<? extends Basket> basketFactory) {
+		byte operation = record.get();
+		String basketId = getString(record);
+		if (operation == DISCARD) {
+			baskets.remove(basketId);
+			return;
+		}
+		
+		Basket basket = baskets.get(basketId);
+		if (basket == null) {
+			basket = basketFactory.get();
+			baskets.put(basketId, basket);
+		}
+		switch (operation) {
+		case ADD: {
+			Item item = itemDAO.getItem(getString(record));
+			int quantity = BasketCodec.getVarint(record);
+			if (item != null)
+				basket.addItem(item, quantity);
+			break;
+		}
+		case ADD_ALL: {
+			int lines = BasketCodec.getVarint(record);
+			Map<Item, Integer> items = new LinkedHashMap<>();
+			for (int i = 0; i < lines; i++) {
+				Item item = itemDAO.getItem(getString(record));
+				int quantity = BasketCodec.getVarint(record);
+				if (item != null)
+					items.put(item, quantity);
+			}
+			basket.addAll(items);
+			break;
+		}
+		case REMOVE:
+		case REMOVE_ALL: {
+			Item item = itemDAO.getItem(getString(record));
+			if (item != null && operation == REMOVE)
+				basket.removeItem(item);
+			else if (item != null)
+				basket.removeAll(item);
+			break;
+		}
+		case REMOVE_ALL_ITEMS: {
+			int lines = BasketCodec.getVarint(record);
+			List<Item> items = new ArrayList<>(lines);
+			for (int i = 0; i < lines; i++) {
+				Item item = itemDAO.getItem(getString(record));
+				if (item != null)
+					items.add(item);
+			}
+			basket.removeAll(items);
+			break;
+		}
+		case CLEAR:
+			basket.clear();
+			break;
+		default:
+			throw new IllegalStateException("Unknown journal operation " + operation);
+		}
+	}
+	
+	private static String getString(ByteBuffer buffer) {
+		int length = BasketCodec.getVarint(buffer);
+		String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return string;
+	}
+	
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0)
+				throw new EOFException();
+		}
+	}
+	
+	
+	/**
+	 * When mutations appended to a {@code BasketJournal} are synced to disk. Until a mutation has
+	 * been synced, it may be lost if the machine fails.
+	 */
+	public static final class SyncPolicy {
+		
+		private final int batchSize;
+		private final long intervalNanos;
+		
+		private SyncPolicy(int batchSize, long intervalNanos) {
+			this.batchSize = batchSize;
+			this.intervalNanos = intervalNanos;
+		}
+		
+		/**
+		 * Every mutation is synced before the basket method that made it returns. Mutations made
+		 * concurrently by different threads are synced together.
+		 * @return The policy.
+		 */
+		public static SyncPolicy perOperation() {
+			return new SyncPolicy(1, 0L);
+		}
+		
+		/**
+		 * Mutations are synced once the given number have been appended since the last sync, by
+		 * the basket method that appends the last of them. Up to {@code operations - 1}
+		 * mutations may be lost.
+		 * @param operations The number of mutations in each batch.
+		 * @return The policy.
+		 * @throws IllegalArgumentException Thrown if {@code operations < 1}.
+		 */
+		public static SyncPolicy batched(int operations) throws IllegalArgumentException {
+			if (operations < 1)
+				throw new IllegalArgumentException("Operations must be >= 1");
+			return new SyncPolicy(operations, 0L);
+		}
+		
+		/**
+		 * Mutations are synced by a background thread at a fixed interval, so basket methods never
+		 * wait for the disk. Mutations made during the last interval may be lost.
+		 * @param interval The time between syncs.
+		 * @param unit The unit of {@code interval}.
+		 * @return The policy.
+		 * @throws IllegalArgumentException Thrown if {@code interval < 1}.
+		 */
+		public static SyncPolicy interval(long interval, TimeUnit unit)
+				throws IllegalArgumentException {
+			if (interval < 1)
+				throw new IllegalArgumentException("Interval must be >= 1");
+			return new SyncPolicy(Integer.MAX_VALUE, unit.toNanos(interval));
+		}
+	}
+	
+}
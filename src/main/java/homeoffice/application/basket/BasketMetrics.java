@@ -0,0 +1,83 @@
+package homeoffice.application.basket;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics for the baskets wrapped by {@code InstrumentedBasket}: the number of calls to each
+ * {@code Basket} operation, a sample of their latencies, and the distribution of basket sizes. One
+ * {@code BasketMetrics} is normally shared by every basket in a service, and registered with JMX
+ * by calling {@code register}.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.InstrumentedBasket
+ */
+public class BasketMetrics extends OperationMetrics<BasketMetrics.Operation>
+		implements BasketMetricsMXBean {
+	
+	/**
+	 * The operations that are counted and timed.
+	 */
+	public enum Operation {
+		/** {@code addItem(Item)} and {@code addItem(Item, int)}. */
+		ADD_ITEM,
+		/** {@code addAll(Map)}. */
+		ADD_ALL,
+		/** {@code removeItem(Item)}. */
+		REMOVE_ITEM,
+		/** {@code removeAll(Item)} and {@code removeAll(Collection)}. */
+		REMOVE_ALL,
+		/** {@code clear()}. */
+		CLEAR,
+		/** {@code contains(Item)}. */
+		CONTAINS,
+		/** {@code getQuantity(Item)}. */
+		GET_QUANTITY,
+		/** {@code getTotalCost()} and {@code getTotalCostInMinorUnits(int)}. */
+		GET_TOTAL_COST
+	}
+	
+	private final LatencyHistogram basketSizes = new LatencyHistogram();
+	
+	/**
+	 * Creates new metrics that time one in every {@code DEFAULT_SAMPLING_INTERVAL} calls.
+	 */
+	public BasketMetrics() {
+		this(DEFAULT_SAMPLING_INTERVAL);
+	}
+	
+	/**
+	 * Creates new metrics.
+	 * @param samplingInterval The number of calls for each call that is timed, which must be a
+	 * 		power of two. {@code 1} times every call.
+	 * @throws IllegalArgumentException Thrown if {@code samplingInterval} is not a positive power
+	 * 		of two.
+	 */
+	public BasketMetrics(int samplingInterval) throws IllegalArgumentException {
+		this(samplingInterval, System::nanoTime);
+	}
+	
+	BasketMetrics(int samplingInterval, LongSupplier clock) throws IllegalArgumentException {
+		super(Operation.class, samplingInterval, clock);
+	}
+	
+	/**
+	 * Records the number of lines in a basket to which a line has just been added.
+	 */
+	void recordBasketSize(int lineCount) {
+		basketSizes.record(lineCount);
+	}
+	
+	@Override
+	public LatencyHistogram.Snapshot getBasketSizes() {
+		return basketSizes.snapshot();
+	}
+	
+	@Override
+	public void reset() {
+		super.reset();
+		basketSizes.reset();
+	}
+	
+}
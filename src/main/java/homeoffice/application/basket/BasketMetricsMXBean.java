@@ -0,0 +1,41 @@
+package homeoffice.application.basket;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a {@code BasketMetrics}.
+ * 
+ * @author Richard Innocent
+ */
+public interface BasketMetricsMXBean {
+	
+	/**
+	 * Returns the number of calls to each basket operation.
+	 * @return The number of calls, keyed by operation name.
+	 */
+	public Map<String, Long> getOperationCounts();
+	
+	/**
+	 * Returns the latencies of the basket operations that were timed.
+	 * @return The latencies in nanoseconds, keyed by operation name.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getLatencies();
+	
+	/**
+	 * Returns the distribution of basket sizes.
+	 * @return The number of lines in a basket each time a line was added.
+	 */
+	public LatencyHistogram.Snapshot getBasketSizes();
+	
+	/**
+	 * Returns the number of calls for each call that is timed.
+	 * @return The sampling interval.
+	 */
+	public int getSamplingInterval();
+	
+	/**
+	 * Clears every count and histogram.
+	 */
+	public void reset();
+	
+}
@@ -0,0 +1,561 @@
+package homeoffice.application.basket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Holds the baskets of many sessions by session ID, creating each basket the first time its
+ * session asks for it. Baskets that have not been asked for within an idle timeout are evicted.
+ * <br>
+ * <br>
+ * Sessions are spread across a fixed number of shards, each with its own lock, so sessions in
+ * different shards never contend with each other. An idle basket is never returned, and each
+ * shard is swept for idle baskets as it is accessed, at most four times per idle timeout, so no
+ * background thread is needed. {@code evictIdle()} can also be called periodically to evict
+ * baskets from shards that are rarely accessed.<br>
+ * <br>
+ * This class is thread safe. The baskets it returns are only as thread safe as the baskets
+ * created by its factory, so use a {@code ConcurrentBasket} factory if a single session's basket
+ * may be used by several threads at once. A basket that is evicted while a session still holds it
+ * is no longer in the store, so changes made to it afterwards are lost.<br>
+ * <br>
+ * Most baskets in a large store are idle, so a store can also archive baskets that have been idle
+ * for a while, moving them out of the Java heap into compact off-heap storage. An archived basket
+ * is rebuilt in a new basket, through an {@code ItemDAO}, the next time its session asks for it.
+ * As with eviction, a basket that is archived while a session still holds it is no longer in the
+ * store, so sessions should ask the store for their basket each time they use it.
+ * 
+ * @author Richard Innocent
+ */
+public class BasketStore {
+	
+	/**
+	 * The default number of shards, which is enough to keep contention low with every available
+	 * processor accessing the store.
+	 */
+	public static final int DEFAULT_SHARD_COUNT =
+			Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1;
+	
+	private final Supplier<? extends Basket> basketFactory;
+	private final long idleTimeoutNanos;
+	private final long archiveAfterNanos;
+	private final long sweepIntervalNanos;
+	private final ItemDAO itemDAO;
+	private final LongSupplier clock;
+	private final Shard[] shards;
+	
+	/**
+	 * Creates a new {@code BasketStore} with {@code DEFAULT_SHARD_COUNT} shards, whose baskets are
+	 * never evicted.
+	 * @param basketFactory Creates the basket for a new session.
+	 */
+	public BasketStore(Supplier<? extends Basket> basketFactory) {
+		this(basketFactory, DEFAULT_SHARD_COUNT, 0L, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Creates a new {@code BasketStore}.
+	 * @param basketFactory Creates the basket for a new session.
+	 * @param shardCount The number of shards, rounded up to a power of two.
+	 * @param idleTimeout How long a basket is kept after it was last asked for, or {@code 0} if
+	 * 		baskets should never be evicted.
+	 * @param unit The unit of {@code idleTimeout}.
+	 * @throws IllegalArgumentException Thrown if {@code shardCount < 1}, {@code shardCount >
+	 * 		2^30} or {@code idleTimeout < 0}.
+	 */
+	public BasketStore(Supplier<? extends Basket> basketFactory, int shardCount, long idleTimeout,
+			TimeUnit unit) throws IllegalArgumentException {
+		this(basketFactory, shardCount, idleTimeout, 0L, unit, null, System::nanoTime);
+	}
+	
+	/**
+	 * Creates a new {@code BasketStore} that archives idle baskets off the heap.
+	 * @param basketFactory Creates the basket for a new session, and the basket into which an
+	 * 		archived basket is rebuilt.
+	 * @param shardCount The number of shards, rounded up to a power of two.
+	 * @param idleTimeout How long a basket is kept after it was last asked for, or {@code 0} if
+	 * 		baskets should never be evicted.
+	 * @param archiveAfter How long after it was last asked for a basket is archived.
+	 * @param unit The unit of {@code idleTimeout} and {@code archiveAfter}.
+	 * @param itemDAO The DAO through which the items of archived baskets are found when they are
+	 * 		rebuilt. Items that can no longer be found are dropped from the basket.
+	 * @throws IllegalArgumentException Thrown if {@code shardCount < 1}, {@code shardCount >
+	 * 		2^30}, {@code idleTimeout < 0}, {@code archiveAfter < 1} or {@code archiveAfter >=
+	 * 		idleTimeout} when {@code idleTimeout > 0}.
+	 */
+	public BasketStore(Supplier<? extends Basket> basketFactory, int shardCount, long idleTimeout,
+			long archiveAfter, TimeUnit unit, ItemDAO itemDAO) throws IllegalArgumentException {
+		this(basketFactory, shardCount, idleTimeout, archiveAfter, unit, itemDAO,
+				System::nanoTime);
+		if (archiveAfter < 1)
+			throw new IllegalArgumentException("Archive after must be >= 1");
+	}
+	
+	BasketStore(Supplier<? extends Basket> basketFactory, int shardCount, long idleTimeout,
+			long archiveAfter, TimeUnit unit, ItemDAO itemDAO, LongSupplier clock)
+			throws IllegalArgumentException {
+		if (shardCount < 1 || shardCount > 1 << 30)
+			throw new IllegalArgumentException("Shard count must be between 1 and 2^30");
+		if (idleTimeout < 0)
+			throw new IllegalArgumentException("Idle timeout must be >= 0");
+		if (archiveAfter < 0)
+			throw new IllegalArgumentException("Archive after must be >= 0");
+		if (archiveAfter > 0 && idleTimeout > 0 && archiveAfter >= idleTimeout)
+			throw new IllegalArgumentException("Archive after must be < idle timeout");
+		this.basketFactory = basketFactory;
+		this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+		this.archiveAfterNanos = unit.toNanos(archiveAfter);
+		long sweepDelayNanos = archiveAfterNanos != 0L ? archiveAfterNanos : idleTimeoutNanos;
+		this.sweepIntervalNanos = sweepDelayNanos == 0L ? 0L : Math.max(1L, sweepDelayNanos >> 2);
+		this.itemDAO = itemDAO;
+		this.clock = clock;
+		this.shards = new Shard[shardCount == 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1];
+		for (int i = 0; i < shards.length; i++)
+			shards[i] = new Shard();
+	}
+	
+	/**
+	 * Returns the basket for the given session, creating an empty one if the session does not
+	 * have one.
+	 * @param sessionId The session ID.
+	 * @return The session's basket.
+	 */
+	public Basket getBasket(String sessionId) {
+		int hash = hash(sessionId);
+		Shard shard = shardFor(hash);
+		shard.lock();
+		try {
+			long now = now();
+			Basket basket = shard.get(sessionId, hash, now);
+			if (basket != null) {
+				shard.hits++;
+				return basket;
+			}
+			shard.misses++;
+			basket = basketFactory.get();
+			shard.put(sessionId, hash, basket, now);
+			return basket;
+		} finally {
+			shard.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the basket for the given session, if it has one.
+	 * @param sessionId The session ID.
+	 * @return The session's basket, or {@code null} if the session does not have one.
+	 */
+	public Basket getBasketIfPresent(String sessionId) {
+		int hash = hash(sessionId);
+		Shard shard = shardFor(hash);
+		shard.lock();
+		try {
+			Basket basket = shard.get(sessionId, hash, now());
+			if (basket == null)
+				shard.misses++;
+			else
+				shard.hits++;
+			return basket;
+		} finally {
+			shard.unlock();
+		}
+	}
+	
+	/**
+	 * Removes the basket for the given session, for example because the session has ended.
+	 * @param sessionId The session ID.
+	 * @return The session's basket, or {@code null} if the session did not have one or its basket
+	 * 		had been idle for longer than the idle timeout.
+	 */
+	public Basket removeBasket(String sessionId) {
+		int hash = hash(sessionId);
+		Shard shard = shardFor(hash);
+		shard.lock();
+		try {
+			int index = shard.indexOf(sessionId, hash);
+			if (index < 0)
+				return null;
+			if (shard.isIdle(index, now())) {
+				shard.removeAt(index);
+				shard.evictions++;
+				return null;
+			}
+			Basket basket = shard.basketAt(index);
+			shard.removeAt(index);
+			return basket;
+		} finally {
+			shard.unlock();
+		}
+	}
+	
+	/**
+	 * Evicts every basket that has been idle for longer than the idle timeout, and archives every
+	 * basket that is due to be archived.
+	 * @return The number of baskets evicted.
+	 */
+	public int evictIdle() {
+		if (sweepIntervalNanos == 0L)
+			return 0;
+		int evicted = 0;
+		for (Shard shard : shards) {
+			shard.lock();
+			try {
+				evicted += shard.evictIdle(clock.getAsLong());
+			} finally {
+				shard.unlock();
+			}
+		}
+		return evicted;
+	}
+	
+	/**
+	 * Returns the number of baskets in the store, including any that are archived or are idle but
+	 * have not yet been evicted. As the shards are counted one at a time, the result may be out of
+	 * date if the store is being modified.
+	 * @return The number of baskets.
+	 */
+	public int size() {
+		int size = 0;
+		for (Shard shard : shards) {
+			shard.lock();
+			try {
+				size += shard.size;
+			} finally {
+				shard.unlock();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the number of shards into which sessions are spread.
+	 * @return The shard count.
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+	
+	/**
+	 * Returns the current metrics of each shard, in shard order.
+	 * @return The metrics of every shard.
+	 */
+	public List<ShardMetrics> getShardMetrics() {
+		List<ShardMetrics> metrics = new ArrayList<>(shards.length);
+		for (Shard shard : shards) {
+			shard.lock();
+			try {
+				OffHeapBasketArchive archive = shard.archive;
+				metrics.add(new ShardMetrics(shard.size, shard.hits, shard.misses,
+						shard.evictions, shard.contentions,
+						archive == null ? 0 : archive.getBasketCount(),
+						archive == null ? 0L : archive.getByteCount(), shard.rehydrations));
+			} finally {
+				shard.unlock();
+			}
+		}
+		return metrics;
+	}
+	
+	private long now() {
+		// Reading the clock costs more than the rest of a lookup, so avoid it when possible
+		return sweepIntervalNanos == 0L ? 0L : clock.getAsLong();
+	}
+	
+	private static int hash(String sessionId) {
+		int hash = sessionId.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Chooses the shard from the high bits of the hash, leaving the low bits to choose the slot
+	 * within the shard.
+	 */
+	private Shard shardFor(int hash) {
+		return shards[(int) (((hash & 0xFFFFFFFFL) * shards.length) >>> 32)];
+	}
+	
+	
+	/**
+	 * A snapshot of the activity of one shard of a {@code BasketStore}.
+	 */
+	public static final class ShardMetrics {
+		
+		private final int size;
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final long contentionCount;
+		private final int archivedCount;
+		private final long archivedBytes;
+		private final long rehydrationCount;
+		
+		ShardMetrics(int size, long hitCount, long missCount, long evictionCount,
+				long contentionCount, int archivedCount, long archivedBytes,
+				long rehydrationCount) {
+			this.size = size;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.contentionCount = contentionCount;
+			this.archivedCount = archivedCount;
+			this.archivedBytes = archivedBytes;
+			this.rehydrationCount = rehydrationCount;
+		}
+		
+		/**
+		 * Returns the number of baskets in the shard.
+		 * @return The number of baskets.
+		 */
+		public int getSize() {
+			return size;
+		}
+		
+		/**
+		 * Returns the number of requests for a basket that the shard already held.
+		 * @return The hit count.
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+		
+		/**
+		 * Returns the number of requests for a basket that the shard did not hold.
+		 * @return The miss count.
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+		
+		/**
+		 * Returns the number of baskets evicted from the shard because they were idle.
+		 * @return The eviction count.
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+		
+		/**
+		 * Returns the number of times a thread had to wait for the shard's lock.
+		 * @return The contention count.
+		 */
+		public long getContentionCount() {
+			return contentionCount;
+		}
+		
+		/**
+		 * Returns the number of baskets in the shard that are archived off the heap.
+		 * @return The archived basket count.
+		 */
+		public int getArchivedCount() {
+			return archivedCount;
+		}
+		
+		/**
+		 * Returns the number of off-heap bytes used by the shard's archived baskets.
+		 * @return The archived byte count.
+		 */
+		public long getArchivedBytes() {
+			return archivedBytes;
+		}
+		
+		/**
+		 * Returns the number of archived baskets that have been rebuilt on the heap because their
+		 * sessions asked for them.
+		 * @return The rehydration count.
+		 */
+		public long getRehydrationCount() {
+			return rehydrationCount;
+		}
+		
+		@Override
+		public String toString() {
+			return "ShardMetrics[size=" + size + ", hits=" + hitCount + ", misses=" + missCount
+					+ ", evictions=" + evictionCount + ", contentions=" + contentionCount
+					+ ", archived=" + archivedCount + ", archivedBytes=" + archivedBytes
+					+ ", rehydrations=" + rehydrationCount + "]";
+		}
+	}
+	
+	
+	/**
+	 * An open addressing hash table of baskets, with linear probing. Keys, baskets and access
+	 * times are held in parallel arrays rather than in an entry object for each session, which
+	 * saves both memory and a cache miss on every lookup. An archived basket has a {@code null}
+	 * basket and the handle of its archived copy.
+	 */
+	private final class Shard {
+		
+		private static final int INITIAL_CAPACITY = 16;
+		
+		private final ReentrantLock lock = new ReentrantLock();
+		
+		// Guarded by lock
+		private String[] keys = new String[INITIAL_CAPACITY];
+		private Basket[] baskets = new Basket[INITIAL_CAPACITY];
+		private long[] lastAccess = new long[INITIAL_CAPACITY];
+		private long[] handles = archiveAfterNanos == 0L ? null : new long[INITIAL_CAPACITY];
+		private OffHeapBasketArchive archive;
+		private int size;
+		private long lastSweep;
+		private long hits;
+		private long misses;
+		private long evictions;
+		private long contentions;
+		private long rehydrations;
+		
+		void lock() {
+			if (!lock.tryLock()) {
+				lock.lock();
+				contentions++;
+			}
+		}
+		
+		void unlock() {
+			lock.unlock();
+		}
+		
+		/**
+		 * Returns the basket for the given key, or {@code null} if there is none or it has been
+		 * idle for too long. Sweeps the whole shard every quarter of the idle timeout, or of the
+		 * archive delay if there is one, so that baskets that are never asked for again are still
+		 * evicted and archived.
+		 */
+		Basket get(String key, int hash, long now) {
+			if (sweepIntervalNanos != 0L && now - lastSweep >= sweepIntervalNanos)
+				evictIdle(now);
+			int index = indexOf(key, hash);
+			if (index < 0)
+				return null;
+			if (isIdle(index, now)) {
+				removeAt(index);
+				evictions++;
+				return null;
+			}
+			lastAccess[index] = now;
+			return basketAt(index);
+		}
+		
+		/**
+		 * Returns the basket in the given slot, rebuilding it on the heap if it is archived.
+		 */
+		Basket basketAt(int index) {
+			Basket basket = baskets[index];
+			if (basket == null) {
+				basket = basketFactory.get();
+				archive.load(handles[index], itemDAO, basket);
+				archive.free(handles[index]);
+				baskets[index] = basket;
+				rehydrations++;
+			}
+			return basket;
+		}
+		
+		boolean isIdle(int index, long now) {
+			return idleTimeoutNanos != 0L && now - lastAccess[index] >= idleTimeoutNanos;
+		}
+		
+		/**
+		 * Adds a basket for a key that is not in the shard.
+		 */
+		void put(String key, int hash, Basket basket, long now) {
+			if (size >= keys.length - (keys.length >> 2))
+				resize();
+			insert(key, hash, basket, now, 0L);
+		}
+		
+		private void insert(String key, int hash, Basket basket, long now, long handle) {
+			int mask = keys.length - 1;
+			int index = hash & mask;
+			while (keys[index] != null)
+				index = (index + 1) & mask;
+			keys[index] = key;
+			baskets[index] = basket;
+			lastAccess[index] = now;
+			if (handles != null)
+				handles[index] = handle;
+			size++;
+		}
+		
+		int indexOf(String key, int hash) {
+			int mask = keys.length - 1;
+			for (int index = hash & mask; keys[index] != null; index = (index + 1) & mask) {
+				if (keys[index] == key || keys[index].equals(key))
+					return index;
+			}
+			return -1;
+		}
+		
+		/**
+		 * Removes the basket in the given slot, shifting back any baskets further along the
+		 * probe sequence so that no tombstone is needed.
+		 */
+		void removeAt(int index) {
+			if (baskets[index] == null)
+				archive.free(handles[index]);
+			int mask = keys.length - 1;
+			int hole = index;
+			for (int next = (hole + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+				int home = hash(keys[next]) & mask;
+				// Move the basket into the hole unless its home slot lies after the hole
+				if (((next - home) & mask) >= ((next - hole) & mask)) {
+					keys[hole] = keys[next];
+					baskets[hole] = baskets[next];
+					lastAccess[hole] = lastAccess[next];
+					if (handles != null)
+						handles[hole] = handles[next];
+					hole = next;
+				}
+			}
+			keys[hole] = null;
+			baskets[hole] = null;
+			size--;
+		}
+		
+		int evictIdle(long now) {
+			lastSweep = now;
+			int evicted = 0;
+			int index = 0;
+			while (index < keys.length) {
+				if (keys[index] != null && isIdle(index, now)) {
+					// Another basket may be shifted into this slot, so look at it again
+					removeAt(index);
+					evicted++;
+					continue;
+				}
+				if (handles != null && baskets[index] != null
+						&& now - lastAccess[index] >= archiveAfterNanos) {
+					if (archive == null)
+						archive = new OffHeapBasketArchive();
+					handles[index] = archive.store(baskets[index]);
+					baskets[index] = null;
+				}
+				index++;
+			}
+			evictions += evicted;
+			return evicted;
+		}
+		
+		private void resize() {
+			String[] oldKeys = keys;
+			Basket[] oldBaskets = baskets;
+			long[] oldLastAccess = lastAccess;
+			long[] oldHandles = handles;
+			keys = new String[oldKeys.length << 1];
+			baskets = new Basket[oldKeys.length << 1];
+			lastAccess = new long[oldKeys.length << 1];
+			handles = oldHandles == null ? null : new long[oldKeys.length << 1];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					insert(oldKeys[i], hash(oldKeys[i]), oldBaskets[i], oldLastAccess[i],
+							oldHandles == null ? 0L : oldHandles[i]);
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,57 @@
+package homeoffice.application.basket;
+
+import java.util.Map;
+
+/**
+ * Validation shared by the {@code Basket} implementations.
+ * 
+ * @author Richard Innocent
+ */
+final class Baskets {
+	
+	/**
+	 * The message of the exception thrown when a negative quantity is added to a basket.
+	 */
+	static final String NEGATIVE_QUANTITY_MESSAGE =
+			"Should not try to add a negative number of items. Please see removeItem()";
+	
+	private Baskets() {}
+	
+	/**
+	 * Verifies that a quantity can be added to a basket.
+	 * @param quantity The quantity.
+	 * @throws IllegalArgumentException Thrown if {@code quantity < 0}.
+	 */
+	static void assertValidQuantity(int quantity) throws IllegalArgumentException {
+		if (quantity < 0)
+			throw new IllegalArgumentException(NEGATIVE_QUANTITY_MESSAGE);
+	}
+	
+	/**
+	 * Verifies that every quantity in a batch given to {@code Basket.addAll(Map)} can be added to
+	 * a basket.
+	 * @param items The items mapped to their quantities.
+	 * @throws IllegalArgumentException Thrown if any quantity is {@code null} or {@code < 0}.
+	 */
+	static void assertValidQuantities(Map<Item, Integer> items) throws IllegalArgumentException {
+		for (Integer quantity : items.values())
+			if (quantity == null || quantity < 0)
+				throw new IllegalArgumentException(NEGATIVE_QUANTITY_MESSAGE);
+	}
+	
+	/**
+	 * Returns the quantity of an item once {@code amount} more have been added.
+	 * @param quantity The current quantity of the item.
+	 * @param amount The number of items being added, which must be {@code >= 0}.
+	 * @param item The item, for the exception message.
+	 * @return {@code quantity + amount}.
+	 * @throws ArithmeticException Thrown if the new quantity exceeds {@code Integer.MAX_VALUE}.
+	 */
+	static int addQuantities(int quantity, int amount, Item item) throws ArithmeticException {
+		int newQuantity = quantity + amount;
+		if (newQuantity < 0)
+			throw new ArithmeticException("Quantity of " + item + " overflowed");
+		return newQuantity;
+	}
+	
+}
@@ -0,0 +1,69 @@
+package homeoffice.application.basket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A bundle promotion, such as a meal deal: one unit of each of the bundled items is charged at a
+ * fixed bundle price. As many bundles are formed as there are complete sets of the items in the
+ * basket. A bundle whose items would cost less than the bundle price is not discounted.
+ * 
+ * @author Richard Innocent
+ */
+public class BundleRule implements PromotionRule {
+	
+	private final List<String> itemIds;
+	private final long bundlePrice;
+	private final int priceScale;
+	
+	/**
+	 * Creates a new bundle rule.
+	 * @param itemIds The IDs of the bundled items. Duplicate IDs are ignored.
+	 * @param bundlePrice The price of one bundle in minor units, e.g. {@code 350} for {@code
+	 * 		3.50}.
+	 * @param priceScale The number of minor unit digits in the bundle price.
+	 * @throws IllegalArgumentException Thrown if there are fewer than two distinct items, {@code
+	 * 		bundlePrice < 0}, or {@code priceScale < 0} or {@code priceScale > 18}.
+	 */
+	public BundleRule(Collection<String> itemIds, long bundlePrice, int priceScale)
+			throws IllegalArgumentException {
+		MinorUnits.checkScale(priceScale);
+		this.itemIds = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(itemIds)));
+		if (this.itemIds.size() < 2)
+			throw new IllegalArgumentException("A bundle must contain at least two items");
+		if (bundlePrice < 0)
+			throw new IllegalArgumentException("Bundle price must be >= 0");
+		this.bundlePrice = bundlePrice;
+		this.priceScale = priceScale;
+	}
+	
+	@Override
+	public Collection<String> getItemIds() {
+		return itemIds;
+	}
+	
+	@Override
+	public long getDiscountInMinorUnits(Lines lines, int scale) throws ArithmeticException {
+		int bundles = Integer.MAX_VALUE;
+		for (String itemId : itemIds) {
+			bundles = Math.min(bundles, lines.getQuantity(itemId));
+			if (bundles == 0)
+				return 0L;
+		}
+		
+		long itemsPrice = 0L;
+		for (String itemId : itemIds)
+			itemsPrice = Math.addExact(itemsPrice, lines.getUnitPriceInMinorUnits(itemId, scale));
+		long saving = itemsPrice - MinorUnits.rescale(bundlePrice, priceScale, scale);
+		return saving <= 0L ? 0L : Math.multiplyExact(saving, bundles);
+	}
+	
+	@Override
+	public String toString() {
+		return "Bundle of " + itemIds + " for " + MinorUnits.toDouble(bundlePrice, priceScale);
+	}
+	
+}
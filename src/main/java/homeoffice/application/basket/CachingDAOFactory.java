@@ -0,0 +1,99 @@
+package homeoffice.application.basket;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory object that puts a {@code CachingItemDAO} in front of the DAO of another {@code
+ * DAOFactory}.
+ *  
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.DAOFactory#getCachingDAOFactory(DAOFactory.DAOType)
+ */
+public class CachingDAOFactory extends DAOFactory {
+	
+	/**
+	 * The maximum number of items cached by the shared {@code CachingDAOFactory} of each type.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+	
+	private static final Map<DAOType, Holder> instances = new EnumMap<>(DAOType.class);
+	
+	static {
+		for (DAOType type : DAOType.values())
+			instances.put(type, new Holder(type));
+	}
+	
+	private final CachingItemDAO itemDAO;
+	
+	/**
+	 * Creates a new {@code CachingDAOFactory} whose items never expire.
+	 * @param daoFactory The factory of the DAO to be cached.
+	 * @param maximumSize The maximum number of items held in the cache.
+	 * @throws IllegalArgumentException Thrown if {@code maximumSize < 1}.
+	 */
+	public CachingDAOFactory(DAOFactory daoFactory, int maximumSize)
+			throws IllegalArgumentException {
+		itemDAO = new CachingItemDAO(daoFactory.getItemDAO(), maximumSize);
+	}
+	
+	/**
+	 * Creates a new {@code CachingDAOFactory}.
+	 * @param daoFactory The factory of the DAO to be cached.
+	 * @param maximumSize The maximum number of items held in the cache.
+	 * @param timeToLive How long an item is cached for after it was loaded, or {@code 0} if items
+	 * 		should never expire.
+	 * @param unit The unit of {@code timeToLive}.
+	 * @throws IllegalArgumentException Thrown if {@code maximumSize < 1} or {@code timeToLive <
+	 * 		0}.
+	 */
+	public CachingDAOFactory(DAOFactory daoFactory, int maximumSize, long timeToLive,
+			TimeUnit unit) throws IllegalArgumentException {
+		itemDAO = new CachingItemDAO(daoFactory.getItemDAO(), maximumSize, timeToLive, unit);
+	}
+	
+	/**
+	 * Returns the shared {@code CachingDAOFactory} in front of the given type of data store. The
+	 * cache holds up to {@code DEFAULT_MAXIMUM_SIZE} items, which never expire. The factory is
+	 * created on first use. Concurrent first calls for the same type all receive the same object,
+	 * and creating the factory for one type does not block calls for the others.
+	 * @param type The type of data store to be cached.
+	 * @return The {@code CachingDAOFactory} object.
+	 */
+	public static CachingDAOFactory getInstance(DAOType type) {
+		return instances.get(type).getInstance();
+	}
+	
+	@Override
+	public CachingItemDAO getItemDAO() {
+		return itemDAO;
+	}
+	
+	
+	/**
+	 * Holds the shared {@code CachingDAOFactory} of one type of data store. Only the first calls
+	 * for that type lock the holder, while its backend is initialised.
+	 */
+	private static final class Holder {
+		
+		private final DAOType type;
+		private volatile CachingDAOFactory instance;
+		
+		Holder(DAOType type) {
+			this.type = type;
+		}
+		
+		CachingDAOFactory getInstance() {
+			CachingDAOFactory instance = this.instance;
+			if (instance != null)
+				return instance;
+			synchronized (this) {
+				if (this.instance == null)
+					this.instance =
+							new CachingDAOFactory(getDAOFactory(type), DEFAULT_MAXIMUM_SIZE);
+				return this.instance;
+			}
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package homeoffice.application.basket;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache in front of another {@code ItemDAO}. Items returned by the underlying DAO
+ * are cached by ID, up to a maximum number of items, after which the least recently used item is
+ * evicted. Items can optionally expire a fixed time after they were loaded. Items that are not in
+ * the underlying DAO are not cached.<br>
+ * <br>
+ * Updating or removing an item through this DAO invalidates the cached copy, so a subsequent
+ * {@code getItem} sees the change. Changes made directly to the underlying DAO are only seen once
+ * the cached copy has been evicted or has expired.<br>
+ * <br>
+ * This class is thread safe, provided that the underlying DAO is. The underlying DAO is never
+ * called while the cache is locked, so a slow data store does not hold up cache hits.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.CachingDAOFactory
+ */
+public class CachingItemDAO implements ItemDAO {
+	
+	private final ItemDAO itemDAO;
+	private final int maximumSize;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+	private final Map<String, CachedItem> cache;
+	
+	/**
+	 * Incremented whenever an item is invalidated, so that a load that started before the
+	 * invalidation does not put a stale copy back into the cache.
+	 */
+	private long generation;
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	
+	/**
+	 * Creates a new {@code CachingItemDAO} whose items never expire.
+	 * @param itemDAO The DAO from which items are loaded.
+	 * @param maximumSize The maximum number of items held in the cache.
+	 * @throws IllegalArgumentException Thrown if {@code maximumSize < 1}.
+	 */
+	public CachingItemDAO(ItemDAO itemDAO, int maximumSize) throws IllegalArgumentException {
+		this(itemDAO, maximumSize, 0L, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Creates a new {@code CachingItemDAO}.
+	 * @param itemDAO The DAO from which items are loaded.
+	 * @param maximumSize The maximum number of items held in the cache.
+	 * @param timeToLive How long an item is cached for after it was loaded, or {@code 0} if items
+	 * 		should never expire.
+	 * @param unit The unit of {@code timeToLive}.
+	 * @throws IllegalArgumentException Thrown if {@code maximumSize < 1} or {@code timeToLive <
+	 * 		0}.
+	 */
+	public CachingItemDAO(ItemDAO itemDAO, int maximumSize, long timeToLive, TimeUnit unit)
+			throws IllegalArgumentException {
+		this(itemDAO, maximumSize, timeToLive, unit, System::nanoTime);
+	}
+	
+	CachingItemDAO(ItemDAO itemDAO, int maximumSize, long timeToLive, TimeUnit unit,
+			LongSupplier clock) throws IllegalArgumentException {
+		if (maximumSize < 1)
+			throw new IllegalArgumentException("Maximum size must be >= 1");
+		if (timeToLive < 0)
+			throw new IllegalArgumentException("Time to live must be >= 0");
+		this.itemDAO = itemDAO;
+		this.maximumSize = maximumSize;
+		this.timeToLiveNanos = unit.toNanos(timeToLive);
+		this.clock = clock;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedItem> eldest) {
+				if (size() <= CachingItemDAO.this.maximumSize)
+					return false;
+				evictions.increment();
+				return true;
+			}
+		};
+	}
+	
+	@Override
+	public Item getItem(String id) {
+		long loadGeneration;
+		synchronized (cache) {
+			CachedItem cachedItem = cache.get(id);
+			if (cachedItem != null) {
+				if (!cachedItem.hasExpired(clock.getAsLong())) {
+					hits.increment();
+					return cachedItem.item;
+				}
+				cache.remove(id);
+				evictions.increment();
+			}
+			loadGeneration = generation;
+		}
+		
+		misses.increment();
+		Item item = itemDAO.getItem(id);
+		if (item != null)
+			cache(id, item, loadGeneration);
+		return item;
+	}
+	
+	/**
+	 * {@inheritDoc} Items in the cache are returned from it, and the remaining items are loaded
+	 * from the underlying DAO with a single call to its {@code getItems}. Each ID counts as a hit
+	 * or a miss, as it would in {@code getItem}.
+	 */
+	@Override
+	public Map<String, Item> getItems(Collection<String> ids) {
+		Map<String, Item> items = new HashMap<>((int) Math.ceil(ids.size() / 0.75d));
+		Set<String> missingIds = new HashSet<>();
+		long loadGeneration;
+		synchronized (cache) {
+			long now = clock.getAsLong();
+			for (String id : ids) {
+				if (items.containsKey(id) || missingIds.contains(id))
+					continue;
+				CachedItem cachedItem = cache.get(id);
+				if (cachedItem != null) {
+					if (!cachedItem.hasExpired(now)) {
+						hits.increment();
+						items.put(id, cachedItem.item);
+						continue;
+					}
+					cache.remove(id);
+					evictions.increment();
+				}
+				missingIds.add(id);
+			}
+			loadGeneration = generation;
+		}
+		if (missingIds.isEmpty())
+			return items;
+		
+		misses.add(missingIds.size());
+		Map<String, Item> loadedItems = itemDAO.getItems(missingIds);
+		long expiresAt = timeToLiveNanos == 0L ? 0L : clock.getAsLong() + timeToLiveNanos;
+		synchronized (cache) {
+			if (generation == loadGeneration) {
+				for (Map.Entry<String, Item> loadedItem : loadedItems.entrySet()) {
+					CachedItem cachedItem = new CachedItem(loadedItem.getValue(), expiresAt);
+					cache.put(loadedItem.getKey(), cachedItem);
+				}
+			}
+		}
+		items.putAll(loadedItems);
+		return items;
+	}
+	
+	private void cache(String id, Item item, long loadGeneration) {
+		long expiresAt = timeToLiveNanos == 0L ? 0L : clock.getAsLong() + timeToLiveNanos;
+		synchronized (cache) {
+			if (generation == loadGeneration)
+				cache.put(id, new CachedItem(item, expiresAt));
+		}
+	}
+	
+	@Override
+	public boolean updateItem(Item updatedItem) {
+		boolean updated = itemDAO.updateItem(updatedItem);
+		invalidate(updatedItem.getId());
+		return updated;
+	}
+	
+	@Override
+	public boolean addItem(Item item) {
+		return itemDAO.addItem(item);
+	}
+	
+	@Override
+	public int addItems(Iterator<? extends Item> newItems) {
+		return itemDAO.addItems(newItems);
+	}
+	
+	@Override
+	public boolean removeItem(Item item) {
+		boolean removed = itemDAO.removeItem(item);
+		invalidate(item.getId());
+		return removed;
+	}
+	
+	/**
+	 * Removes the item with the given ID from the cache, so that it is next loaded from the
+	 * underlying DAO.
+	 * @param id The item ID.
+	 */
+	public void invalidate(String id) {
+		synchronized (cache) {
+			generation++;
+			cache.remove(id);
+		}
+	}
+	
+	/**
+	 * Removes all items from the cache.
+	 */
+	public void invalidateAll() {
+		synchronized (cache) {
+			generation++;
+			cache.clear();
+		}
+	}
+	
+	/**
+	 * Returns the number of items currently cached, including any that have expired but have not
+	 * yet been evicted.
+	 * @return The number of cached items.
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+	
+	/**
+	 * Returns the number of {@code getItem} calls that were served from the cache.
+	 * @return The hit count.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Returns the number of {@code getItem} calls that had to be served by the underlying DAO.
+	 * @return The miss count.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+	
+	/**
+	 * Returns the number of items that have been evicted, either because the cache was full or
+	 * because they had expired. Items invalidated by an update or removal are not counted.
+	 * @return The eviction count.
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+	
+	/**
+	 * Returns the underlying DAO.
+	 * @return The DAO from which items are loaded.
+	 */
+	public ItemDAO getItemDAO() {
+		return itemDAO;
+	}
+	
+	
+	private static final class CachedItem {
+		
+		private final Item item;
+		private final long expiresAt;
+		
+		CachedItem(Item item, long expiresAt) {
+			this.item = item;
+			this.expiresAt = expiresAt;
+		}
+		
+		boolean hasExpired(long now) {
+			return expiresAt != 0L && now - expiresAt >= 0L;
+		}
+	}
+	
+}
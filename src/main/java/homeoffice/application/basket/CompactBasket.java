@@ -0,0 +1,333 @@
+package homeoffice.application.basket;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Basket} that holds its lines in parallel arrays of items, item ID handles and {@code
+ * int} quantities, rather than in a {@code BasketEntry} object for each line. Lines are found
+ * through an open addressing hash table of line numbers, keyed by handle, so every operation
+ * except iteration takes constant time without comparing ID strings, and totals are calculated in
+ * a single pass over the arrays.<br>
+ * <br>
+ * Iteration follows the order in which items were first added, and creates each {@code
+ * BasketEntry} only as it is returned. The entries returned are snapshots, which are not updated
+ * as the basket changes.<br>
+ * <br>
+ * Note that this implementation of {@code Basket} is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ */
+public class CompactBasket implements Basket {
+	
+	private static final int INITIAL_CAPACITY = 8;
+	
+	/**
+	 * The lines in the order they were added. A removed line leaves a {@code null} item until the
+	 * arrays are compacted.
+	 */
+	private Item[] items = new Item[INITIAL_CAPACITY];
+	private int[] handles = new int[INITIAL_CAPACITY];
+	private int[] quantities = new int[INITIAL_CAPACITY];
+	private int lineCount;
+	private int removedLineCount;
+	
+	/**
+	 * Maps each item to its line number plus one, with {@code 0} marking an empty slot. Always at
+	 * least twice as large as the number of lines in the basket, so probe sequences stay short.
+	 */
+	private int[] index = new int[INITIAL_CAPACITY * 2];
+	
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantity(quantity);
+		int slot = slotOf(item);
+		if (index[slot] != 0) {
+			int line = index[slot] - 1;
+			quantities[line] = Baskets.addQuantities(quantities[line], quantity, item);
+			return quantities[line];
+		}
+		
+		if (lineCount == items.length)
+			growLines();
+		if ((lineCount - removedLineCount + 1) * 2 > index.length) {
+			resizeIndex(index.length * 2);
+			slot = slotOf(item);
+		}
+		items[lineCount] = item;
+		handles[lineCount] = item.getHandle();
+		quantities[lineCount] = quantity;
+		index[slot] = ++lineCount;
+		return quantity;
+	}
+	
+	@Override
+	public int removeItem(Item item) {
+		int slot = slotOf(item);
+		if (index[slot] == 0)
+			return 0;
+		int line = index[slot] - 1;
+		int newQuantity = Math.max(quantities[line] - 1, 0);
+		quantities[line] = newQuantity;
+		if (newQuantity == 0)
+			removeLine(slot);
+		return newQuantity;
+	}
+	
+	@Override
+	public void removeAll(Item item) {
+		int slot = slotOf(item);
+		if (index[slot] != 0)
+			removeLine(slot);
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(items, 0, lineCount, null);
+		Arrays.fill(index, 0);
+		lineCount = 0;
+		removedLineCount = 0;
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		return index[slotOf(item)] != 0;
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		int slot = slotOf(item);
+		return index[slot] == 0 ? 0 : quantities[index[slot] - 1];
+	}
+	
+	@Override
+	public double getTotalCost() {
+		Item[] items = this.items;
+		int[] quantities = this.quantities;
+		int lineCount = this.lineCount;
+		double total = 0d;
+		for (int line = 0; line < lineCount; line++) {
+			Item item = items[line];
+			if (item != null)
+				total += item.getPrice() * quantities[line];
+		}
+		return total;
+	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		Item[] items = this.items;
+		int[] quantities = this.quantities;
+		int lineCount = this.lineCount;
+		long total = 0L;
+		for (int line = 0; line < lineCount; line++) {
+			Item item = items[line];
+			if (item != null) {
+				total = Math.addExact(total,
+						Math.multiplyExact(item.getPriceInMinorUnits(scale), quantities[line]));
+			}
+		}
+		return total;
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return new BasketIterator();
+	}
+	
+	/**
+	 * {@inheritDoc} The spliterator splits the basket's lines into halves by line number, and knows
+	 * its exact size while no lines have been removed, so that the lines can be processed in
+	 * parallel. As with iteration, entries are created only as they are returned.
+	 */
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+		if (removedLineCount == 0)
+			characteristics |= Spliterator.SIZED | Spliterator.SUBSIZED;
+		return new LineSpliterator(0, lineCount, characteristics);
+	}
+	
+	/**
+	 * Returns the slot in the index that holds the given item's line, or the empty slot where it
+	 * would be held if the item is not in the basket.
+	 */
+	private int slotOf(Item item) {
+		int handle = item.getHandle();
+		int mask = index.length - 1;
+		int slot = hash(handle) & mask;
+		while (index[slot] != 0 && handles[index[slot] - 1] != handle)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	
+	private static int hash(int handle) {
+		int hash = handle * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Removes the line held in the given slot of the index. The remaining lines may be compacted,
+	 * so any line number read before the call may then refer to a different line.
+	 */
+	private void removeLine(int slot) {
+		int line = index[slot] - 1;
+		items[line] = null;
+		removedLineCount++;
+		
+		// Shift back any lines further along the probe sequence, so that no tombstone is needed
+		int mask = index.length - 1;
+		int hole = slot;
+		for (int next = (hole + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+			int home = hash(handles[index[next] - 1]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				index[hole] = index[next];
+				hole = next;
+			}
+		}
+		index[hole] = 0;
+		
+		while (lineCount > 0 && items[lineCount - 1] == null) {
+			lineCount--;
+			removedLineCount--;
+		}
+		if (removedLineCount > INITIAL_CAPACITY && removedLineCount * 2 > lineCount)
+			compactLines();
+	}
+	
+	/**
+	 * Closes the gaps left by removed lines, keeping the remaining lines in order.
+	 */
+	private void compactLines() {
+		int liveLineCount = 0;
+		for (int line = 0; line < lineCount; line++) {
+			if (items[line] != null) {
+				items[liveLineCount] = items[line];
+				handles[liveLineCount] = handles[line];
+				quantities[liveLineCount] = quantities[line];
+				liveLineCount++;
+			}
+		}
+		Arrays.fill(items, liveLineCount, lineCount, null);
+		lineCount = liveLineCount;
+		removedLineCount = 0;
+		resizeIndex(index.length);
+	}
+	
+	private void growLines() {
+		items = Arrays.copyOf(items, items.length * 2);
+		handles = Arrays.copyOf(handles, handles.length * 2);
+		quantities = Arrays.copyOf(quantities, quantities.length * 2);
+	}
+	
+	private void resizeIndex(int capacity) {
+		index = new int[capacity];
+		int mask = capacity - 1;
+		for (int line = 0; line < lineCount; line++) {
+			if (items[line] != null) {
+				int slot = hash(handles[line]) & mask;
+				while (index[slot] != 0)
+					slot = (slot + 1) & mask;
+				index[slot] = line + 1;
+			}
+		}
+	}
+	
+	
+	private class BasketIterator implements Iterator<BasketEntry> {
+		
+		private int line = nextLine(0);
+		
+		private int nextLine(int from) {
+			while (from < lineCount && items[from] == null)
+				from++;
+			return from;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return line < lineCount;
+		}
+		
+		@Override
+		public BasketEntry next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			BasketEntry basketEntry = new BasketEntry(items[line], quantities[line]);
+			line = nextLine(line + 1);
+			return basketEntry;
+		}
+	}
+	
+	
+	/**
+	 * Spliterator over the lines in the range {@code [line, fence)}.
+	 */
+	private class LineSpliterator implements Spliterator<BasketEntry> {
+		
+		private int line;
+		private final int fence;
+		private final int characteristics;
+		
+		LineSpliterator(int line, int fence, int characteristics) {
+			this.line = line;
+			this.fence = fence;
+			this.characteristics = characteristics;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super BasketEntry> action) {
+			while (line < fence) {
+				int current = line++;
+				if (items[current] != null) {
+					action.accept(new BasketEntry(items[current], quantities[current]));
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super BasketEntry> action) {
+			Item[] items = CompactBasket.this.items;
+			int[] quantities = CompactBasket.this.quantities;
+			for (int current = line; current < fence; current++) {
+				if (items[current] != null)
+					action.accept(new BasketEntry(items[current], quantities[current]));
+			}
+			line = fence;
+		}
+		
+		@Override
+		public Spliterator<BasketEntry> trySplit() {
+			int middle = (line + fence) >>> 1;
+			if (middle <= line)
+				return null;
+			LineSpliterator prefix = new LineSpliterator(line, middle, characteristics);
+			line = middle;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return fence - line;
+		}
+		
+		@Override
+		public int characteristics() {
+			return characteristics;
+		}
+	}
+	
+}
@@ -0,0 +1,346 @@
+package homeoffice.application.basket;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Represents a customer's shopping basket that can be safely shared between threads without
+ * external locking.<br>
+ * <br>
+ * Entries are held in a {@code ConcurrentHashMap} keyed on item ID, and the quantity of each entry
+ * is updated with compare-and-set, so writers to different lines never block each other and
+ * writers to the same line never block at all. A line whose quantity falls to 0 is retired before
+ * it is unlinked from the map, so that a concurrent {@code addItem} can never increment a line
+ * that is no longer in the basket.<br>
+ * <br>
+ * Iteration is weakly consistent: the iterator never throws {@code
+ * ConcurrentModificationException}, reflects the lines in the basket at some point at or since its
+ * creation, and may or may not reflect subsequent changes. Iteration order is not defined. {@code
+ * getTotalCost()} is computed in the same way, and never blocks writers.
+ * 
+ * @author Richard Innocent
+ */
+public class ConcurrentBasket implements Basket {
+	
+	private final ConcurrentMap<String, ConcurrentBasketEntry> basketEntries =
+			new ConcurrentHashMap<>();
+	
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantity(quantity);
+		String id = item.getId();
+		while (true) {
+			ConcurrentBasketEntry basketEntry = basketEntries.get(id);
+			if (basketEntry == null) {
+				ConcurrentBasketEntry newEntry = new ConcurrentBasketEntry(item, quantity);
+				basketEntry = basketEntries.putIfAbsent(id, newEntry);
+				if (basketEntry == null)
+					return quantity;
+			}
+			int newQuantity = basketEntry.incrementQuantity(quantity);
+			if (newQuantity != ConcurrentBasketEntry.RETIRED)
+				return newQuantity;
+			// The line was emptied concurrently - help unlink it and try again with a fresh line
+			basketEntries.remove(id, basketEntry);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc} The batch is applied line by line without locking, so concurrent readers may
+	 * observe it partly applied. If a line overflows because of a concurrent change, the lines
+	 * already applied are reverted before the exception is thrown.
+	 */
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantities(items);
+		for (Map.Entry<Item, Integer> line : items.entrySet())
+			Baskets.addQuantities(getQuantity(line.getKey()), line.getValue(), line.getKey());
+		
+		List<Map.Entry<Item, Integer>> appliedLines = new ArrayList<>(items.size());
+		try {
+			for (Map.Entry<Item, Integer> line : items.entrySet()) {
+				addItem(line.getKey(), line.getValue());
+				appliedLines.add(line);
+			}
+		} catch (ArithmeticException e) {
+			for (Map.Entry<Item, Integer> line : appliedLines)
+				decrement(line.getKey(), line.getValue());
+			throw e;
+		}
+	}
+	
+	@Override
+	public int removeItem(Item item) {
+		return decrement(item, 1);
+	}
+	
+	private int decrement(Item item, int amount) {
+		String id = item.getId();
+		ConcurrentBasketEntry basketEntry = basketEntries.get(id);
+		
+		if (basketEntry == null)
+			return 0;
+		
+		int newQuantity = basketEntry.decrementQuantity(amount);
+		
+		if (newQuantity == 0)
+			basketEntries.remove(id, basketEntry);
+		
+		return newQuantity;
+	}
+	
+	@Override
+	public void removeAll(Item item) {
+		String id = item.getId();
+		ConcurrentBasketEntry basketEntry = basketEntries.get(id);
+		if (basketEntry != null)
+			retire(id, basketEntry);
+	}
+	
+	private void retire(String id, ConcurrentBasketEntry basketEntry) {
+		basketEntry.retire();
+		basketEntries.remove(id, basketEntry);
+	}
+	
+	@Override
+	public void clear() {
+		for (Map.Entry<String, ConcurrentBasketEntry> entry : basketEntries.entrySet())
+			retire(entry.getKey(), entry.getValue());
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		ConcurrentBasketEntry basketEntry = basketEntries.get(item.getId());
+		return basketEntry != null && !basketEntry.isRetired();
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		ConcurrentBasketEntry basketEntry = basketEntries.get(item.getId());
+		return basketEntry == null ? 0 : basketEntry.getQuantity();
+	}
+	
+	@Override
+	public double getTotalCost() {
+		double total = 0d;
+		for (ConcurrentBasketEntry basketEntry : basketEntries.values())
+			total += basketEntry.getTotalCost();
+		return total;
+	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		long total = 0L;
+		for (ConcurrentBasketEntry basketEntry : basketEntries.values())
+			total = Math.addExact(total, basketEntry.getTotalCostInMinorUnits(scale));
+		return total;
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return new BasketIterator();
+	}
+	
+	/**
+	 * {@inheritDoc} The spliterator is weakly consistent, in the same way as the iterator, and
+	 * splits the basket's lines by hash bin so that they can be processed in parallel.
+	 */
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return new BasketSpliterator(basketEntries.values().spliterator());
+	}
+	
+	
+	/**
+	 * A {@code BasketEntry} whose quantity is read and written atomically. Once an entry's
+	 * quantity has fallen to 0 it is retired, after which it can never be incremented again.
+	 */
+	private static final class ConcurrentBasketEntry extends BasketEntry {
+		
+		/**
+		 * The quantity of an entry that has been removed from the basket.
+		 */
+		static final int RETIRED = -1;
+		
+		private static final VarHandle QUANTITY;
+		
+		static {
+			try {
+				QUANTITY = MethodHandles.lookup()
+						.findVarHandle(BasketEntry.class, "quantity", int.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+		
+		ConcurrentBasketEntry(Item item, int quantity) throws IllegalArgumentException {
+			super(item, quantity);
+		}
+		
+		/**
+		 * Atomically increments the quantity of the item in the basket by the given amount.
+		 * @param amount The number to increment the quantity by.
+		 * @return The new quantity of the item, or {@code RETIRED} if this entry has been removed
+		 * 		from the basket and should be replaced.
+		 * @throws IllegalArgumentException Thrown if {@code amount < 0}.
+		 * @throws ArithmeticException Thrown if {@code getQuantity() + amount >
+		 * 		Integer.MAX_VALUE}. The quantity is left unchanged.
+		 */
+		int incrementQuantity(int amount) throws IllegalArgumentException, ArithmeticException {
+			assertNotNegative(amount, IllegalArgumentException::new, "Quantity must be >= 0");
+			int currentQuantity;
+			int newQuantity;
+			do {
+				currentQuantity = (int) QUANTITY.getVolatile(this);
+				if (currentQuantity == RETIRED)
+					return RETIRED;
+				newQuantity = currentQuantity + amount;
+				assertNotNegative(newQuantity, ArithmeticException::new, "Quantity overflowed");
+			} while (!QUANTITY.compareAndSet(this, currentQuantity, newQuantity));
+			return newQuantity;
+		}
+		
+		/**
+		 * Atomically decrements the quantity of the item in the basket by the given amount,
+		 * retiring this entry if the quantity falls to 0.
+		 * @param amount The number to decrement the quantity by.
+		 * @return The new quantity of the item, which is 0 if this entry is now retired.
+		 */
+		int decrementQuantity(int amount) throws IllegalArgumentException {
+			assertNotNegative(amount, IllegalArgumentException::new, "Quantity must be >= 0");
+			int currentQuantity;
+			int newQuantity;
+			do {
+				currentQuantity = (int) QUANTITY.getVolatile(this);
+				if (currentQuantity == RETIRED)
+					return 0;
+				newQuantity = currentQuantity - amount;
+				if (newQuantity <= 0)
+					newQuantity = RETIRED;
+			} while (!QUANTITY.compareAndSet(this, currentQuantity, newQuantity));
+			return newQuantity == RETIRED ? 0 : newQuantity;
+		}
+		
+		/**
+		 * Retires this entry, regardless of its current quantity.
+		 */
+		void retire() {
+			QUANTITY.setVolatile(this, RETIRED);
+		}
+		
+		boolean isRetired() {
+			return (int) QUANTITY.getVolatile(this) == RETIRED;
+		}
+		
+		@Override
+		public int getQuantity() {
+			int currentQuantity = (int) QUANTITY.getVolatile(this);
+			return currentQuantity == RETIRED ? 0 : currentQuantity;
+		}
+		
+		@Override
+		public double getTotalCost() {
+			return getIndividualItemCost() * getQuantity();
+		}
+		
+		@Override
+		public String toString() {
+			return item + ": " + getQuantity();
+		}
+		
+	}
+	
+	
+	/**
+	 * Weakly consistent iterator that skips entries retired after the iterator reached them.
+	 */
+	private class BasketIterator implements Iterator<BasketEntry> {
+		
+		private final Iterator<ConcurrentBasketEntry> entries = basketEntries.values().iterator();
+		private ConcurrentBasketEntry nextEntry;
+		
+		@Override
+		public boolean hasNext() {
+			while (nextEntry == null && entries.hasNext()) {
+				ConcurrentBasketEntry candidate = entries.next();
+				if (!candidate.isRetired())
+					nextEntry = candidate;
+			}
+			return nextEntry != null;
+		}
+		
+		@Override
+		public BasketEntry next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			BasketEntry basketEntry = nextEntry;
+			nextEntry = null;
+			return basketEntry;
+		}
+	}
+	
+	
+	/**
+	 * Weakly consistent spliterator that skips entries retired after it reached them.
+	 */
+	private static final class BasketSpliterator implements Spliterator<BasketEntry> {
+		
+		private final Spliterator<ConcurrentBasketEntry> entries;
+		private ConcurrentBasketEntry candidate;
+		
+		BasketSpliterator(Spliterator<ConcurrentBasketEntry> entries) {
+			this.entries = entries;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super BasketEntry> action) {
+			while (entries.tryAdvance(basketEntry -> candidate = basketEntry)) {
+				ConcurrentBasketEntry basketEntry = candidate;
+				candidate = null;
+				if (!basketEntry.isRetired()) {
+					action.accept(basketEntry);
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super BasketEntry> action) {
+			entries.forEachRemaining(basketEntry -> {
+				if (!basketEntry.isRetired())
+					action.accept(basketEntry);
+			});
+		}
+		
+		@Override
+		public Spliterator<BasketEntry> trySplit() {
+			Spliterator<ConcurrentBasketEntry> prefix = entries.trySplit();
+			return prefix == null ? null : new BasketSpliterator(prefix);
+		}
+		
+		@Override
+		public long estimateSize() {
+			return entries.estimateSize();
+		}
+		
+		@Override
+		public int characteristics() {
+			return entries.characteristics() & ~(SIZED | SUBSIZED);
+		}
+	}
+	
+}
@@ -0,0 +1,55 @@
+package homeoffice.application.basket;
+
+/**
+ * Factory object for retrieving all concurrent DAOs.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ConcurrentItemDAO
+ */
+public class ConcurrentDAOFactory extends DAOFactory {
+	
+	private final ConcurrentItemDAO itemDAO = new ConcurrentItemDAO();
+	
+	private ConcurrentDAOFactory() {}
+	
+	/**
+	 * Returns the {@code ConcurrentDAOFactory} object, creating it on first use. Concurrent first
+	 * calls all receive the same object.
+	 * @return The {@code ConcurrentDAOFactory} object.
+	 */
+	public static ConcurrentDAOFactory getInstance() {
+		return Holder.INSTANCE;
+	}
+	
+	@Override
+	public ConcurrentItemDAO getItemDAO() {
+		return itemDAO;
+	}
+	
+	
+	/**
+	 * Holds the single {@code ConcurrentDAOFactory}, which the JVM creates exactly once, when
+	 * {@code getInstance()} first reads it.
+	 */
+	private static final class Holder {
+		
+		static final ConcurrentDAOFactory INSTANCE = new ConcurrentDAOFactory();
+	}
+	
+	
+	/**
+	 * Provides the {@code "concurrent"} backend to {@code DAOFactory}.
+	 */
+	public static final class Provider implements DAOFactoryProvider {
+		
+		@Override
+		public String getName() {
+			return "concurrent";
+		}
+		
+		@Override
+		public DAOFactory getDAOFactory() {
+			return getInstance();
+		}
+	}
+}
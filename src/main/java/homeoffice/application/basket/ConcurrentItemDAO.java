@@ -0,0 +1,114 @@
+package homeoffice.application.basket;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * DAO implementation using a {@code ConcurrentHashMap} keyed on item ID, for catalogues that are
+ * read by many threads while being updated, for example by a pricing feed.<br>
+ * <br>
+ * Reads never lock, and are never held up by writes. Each write is a single atomic operation on
+ * the map, which locks only the bin holding the item's ID, so writes to different items rarely
+ * contend. As with {@code ItemHashDAO}, {@code updateItem} swaps in the given instance rather than
+ * copying its fields, so a reader sees either the old item or the new one. Items shared this way
+ * should not be modified after they have been stored; an {@code ImmutableItem} cannot be.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ItemHashDAO
+ * @see homeoffice.application.basket.ImmutableItem
+ */
+public class ConcurrentItemDAO implements ItemDAO {
+	
+	private final ConcurrentMap<String, Item> items;
+	
+	/**
+	 * Creates a new {@code ConcurrentItemDAO} containing the given items. If more than one item has
+	 * the same ID, only the first is kept.
+	 * @param allItems The initial items.
+	 */
+	public ConcurrentItemDAO(Item... allItems) {
+		items = new ConcurrentHashMap<>(Math.max(16, allItems.length));
+		for (Item item : allItems)
+			addItem(item);
+	}
+	
+	/**
+	 * Creates a new {@code ConcurrentItemDAO} containing the given items. If more than one item has
+	 * the same ID, only the first is kept.
+	 * @param allItems The initial items.
+	 */
+	public ConcurrentItemDAO(Collection<? extends Item> allItems) {
+		items = new ConcurrentHashMap<>(Math.max(16, allItems.size()));
+		addItems(allItems);
+	}
+	
+	/**
+	 * Adds all of the given items that are not already in the data store. Items whose ID is
+	 * already present are skipped, as they would be by {@code addItem(Item)}. Each item is added
+	 * atomically, but readers may see some of the items before the others.
+	 * @param newItems The items to be added.
+	 * @return The number of items that were added.
+	 */
+	public int addItems(Collection<? extends Item> newItems) {
+		return addItems(newItems.iterator());
+	}
+	
+	@Override
+	public Item getItem(String id) {
+		return items.get(id);
+	}
+	
+	@Override
+	public boolean updateItem(Item updatedItem) {
+		return items.replace(updatedItem.getId(), updatedItem) != null;
+	}
+	
+	/**
+	 * Replaces the stored item with the same ID as {@code updatedItem}, but only if the stored item
+	 * is still {@code currentItem} itself. This lets a writer update an item from the copy it read
+	 * without losing a concurrent update:<br>
+	 * {@code ImmutableItem item = (ImmutableItem) itemDao.getItem("001");}<br>
+	 * {@code itemDao.replaceItem(item, item.withPrice(9.99)); // false if changed since read}
+	 * @param currentItem The item that is expected to be stored.
+	 * @param updatedItem The item to store in its place.
+	 * @return {@code true} if the item was replaced, or {@code false} if the stored item was not
+	 * 		{@code currentItem}.
+	 * @throws IllegalArgumentException Thrown if the items have different IDs.
+	 */
+	public boolean replaceItem(Item currentItem, Item updatedItem)
+			throws IllegalArgumentException {
+		String id = updatedItem.getId();
+		if (!id.equals(currentItem.getId()))
+			throw new IllegalArgumentException("Items must have the same ID");
+		boolean[] replaced = new boolean[1];
+		items.computeIfPresent(id, (itemId, storedItem) -> {
+			if (storedItem != currentItem)
+				return storedItem;
+			replaced[0] = true;
+			return updatedItem;
+		});
+		return replaced[0];
+	}
+	
+	@Override
+	public boolean addItem(Item item) {
+		return items.putIfAbsent(item.getId(), item) == null;
+	}
+	
+	@Override
+	public boolean removeItem(Item item) {
+		return items.remove(item.getId()) != null;
+	}
+	
+	/**
+	 * Returns the number of items in the data store.
+	 * @return The number of items.
+	 */
+	public int size() {
+		return items.size();
+	}
+	
+}
@@ -1,14 +1,23 @@
 package homeoffice.application.basket;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
- * Interface for providing different DAO types.
+ * Interface for providing different DAO types.<br>
+ * <br>
+ * Each type of data store is a backend, found by name in a registry of {@code
+ * DAOFactoryProvider}s that is loaded with {@code ServiceLoader} on first use. Further backends
+ * can therefore be added by listing their providers on the class path. Each backend is initialised
+ * lazily, when its {@code DAOFactory} is first requested, and {@code warmUp} initialises several
+ * backends in parallel, so that startup does not wait for them one after another.
  *  
  * @author Richard Innocent
+ * @see homeoffice.application.basket.DAOFactoryProvider
  */
 public abstract class DAOFactory {
 	
-	private static ListDAOFactory listDaoFactory;
-	
 	/**
 	 * Returns the {@code ItemDAO} for this DAO type.
 	 * @return The {@code ItemDAO}.
@@ -16,14 +25,33 @@ public abstract class DAOFactory {
 	public abstract ItemDAO getItemDAO();
 	
 	/**
-	 * Different types of data stores supported by this application.
+	 * Different types of data stores supported by this application. Each type is the backend
+	 * whose name is the type's name in lower case.
 	 * @author Richard Innocent
 	 */
 	public enum DAOType {
 		/**
 		 * @see homeoffice.application.basket.ListDAOFactory
 		 */
-		LIST
+		LIST,
+		
+		/**
+		 * @see homeoffice.application.basket.HashDAOFactory
+		 */
+		HASH,
+		
+		/**
+		 * @see homeoffice.application.basket.MappedDAOFactory
+		 */
+		MAPPED;
+		
+		/**
+		 * Returns the name of the backend for this type.
+		 * @return The backend name, such as {@code "hash"}.
+		 */
+		public String getBackendName() {
+			return name().toLowerCase(Locale.ROOT);
+		}
 	}
 	
 	/**
@@ -33,17 +61,87 @@ public abstract class DAOFactory {
 	 * @see homeoffice.application.basket.DAOFactory.DAOType
 	 */
 	public static DAOFactory getDAOFactory(DAOType type) {
-		DAOFactory daoFactory;
+		return getDAOFactory(type.getBackendName());
+	}
+	
+	/**
+	 * Gets the {@code DAOFactory} of the named backend, initialising the backend if this is the
+	 * first time it has been requested.
+	 * @param backendName The name of the backend, such as {@code "hash"}.
+	 * @return The backend's {@code DAOFactory}.
+	 * @throws UnsupportedOperationException Thrown if no backend has the given name.
+	 */
+	public static DAOFactory getDAOFactory(String backendName)
+			throws UnsupportedOperationException {
+		return getProvider(backendName).getDAOFactory();
+	}
+	
+	/**
+	 * Returns the names of the backends that are available.
+	 * @return The backend names.
+	 */
+	public static Set<String> getBackendNames() {
+		return Registry.PROVIDERS.keySet();
+	}
+	
+	/**
+	 * Initialises the named backends in parallel. Backends that have already been initialised
+	 * are not initialised again.
+	 * @param backendNames The names of the backends.
+	 * @param executor The executor on which each backend is initialised. Initialising a backend
+	 * 		may block on I/O, so this should not normally be the common {@code ForkJoinPool}.
+	 * @return A future that completes when every backend has been initialised, or completes
+	 * 		exceptionally if any backend could not be.
+	 * @throws UnsupportedOperationException Thrown if no backend has one of the given names.
+	 */
+	public static CompletableFuture<Void> warmUp(Collection<String> backendNames,
+			Executor executor) throws UnsupportedOperationException {
+		List<DAOFactoryProvider> providers = new ArrayList<>(backendNames.size());
+		for (String backendName : backendNames)
+			providers.add(getProvider(backendName));
+		CompletableFuture<?>[] warmUps = new CompletableFuture<?>[providers.size()];
+		for (int i = 0; i < warmUps.length; i++)
+			warmUps[i] = CompletableFuture.runAsync(providers.get(i)::getDAOFactory, executor);
+		return CompletableFuture.allOf(warmUps);
+	}
+	
+	private static DAOFactoryProvider getProvider(String backendName)
+			throws UnsupportedOperationException {
+		DAOFactoryProvider provider = Registry.PROVIDERS.get(backendName);
+		if (provider == null)
+			throw new UnsupportedOperationException(
+					"Backend " + backendName + " has not been implemented.");
+		return provider;
+	}
+	
+	/**
+	 * Gets a {@code DAOFactory} whose DAO caches the items of the provided {@code DAOType}. To
+	 * configure the size or expiry of the cache, create a {@code CachingDAOFactory} directly.
+	 * @param type The type of data store that should be cached.
+	 * @return The {@code DAOFactory}.
+	 * @see homeoffice.application.basket.CachingDAOFactory
+	 */
+	public static DAOFactory getCachingDAOFactory(DAOType type) {
+		return CachingDAOFactory.getInstance(type);
+	}
+	
+	
+	/**
+	 * Holds the backends found by {@code ServiceLoader}, which are loaded exactly once, when a
+	 * backend is first requested. If two providers have the same name, the first one found on the
+	 * class path is used.
+	 */
+	private static final class Registry {
 		
-		switch (type) {
-		case LIST:
-			daoFactory = (listDaoFactory == null) ? ListDAOFactory.getInstance() : listDaoFactory;
-			break;
-		default:
-			throw new UnsupportedOperationException("Type " + type + " has not been implemented.");
-		}
+		static final Map<String, DAOFactoryProvider> PROVIDERS;
 		
-		return daoFactory;
+		static {
+			Map<String, DAOFactoryProvider> providers = new LinkedHashMap<>();
+			for (DAOFactoryProvider provider : ServiceLoader.load(DAOFactoryProvider.class,
+					DAOFactory.class.getClassLoader()))
+				providers.putIfAbsent(provider.getName(), provider);
+			PROVIDERS = Collections.unmodifiableMap(providers);
+		}
 	}
 	
 }
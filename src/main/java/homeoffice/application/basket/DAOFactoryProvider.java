@@ -0,0 +1,30 @@
+package homeoffice.application.basket;
+
+/**
+ * A data store backend that can be used through {@code DAOFactory.getDAOFactory(String)}.
+ * Backends are discovered with {@code java.util.ServiceLoader}: a backend is added by listing its
+ * provider class in a {@code META-INF/services/homeoffice.application.basket.DAOFactoryProvider}
+ * file on the class path, without changing {@code DAOFactory}.<br>
+ * <br>
+ * Implementations must be public, with a public no-argument constructor that does no work. The
+ * backend should be initialised on the first call to {@code getDAOFactory()}, which may be made
+ * by several threads at once, and must return the same {@code DAOFactory} every time.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.DAOFactory#getDAOFactory(String)
+ */
+public interface DAOFactoryProvider {
+	
+	/**
+	 * Returns the name by which this backend is selected, such as {@code "hash"}.
+	 * @return The backend name.
+	 */
+	public String getName();
+	
+	/**
+	 * Returns the {@code DAOFactory} of this backend, initialising the backend on first use.
+	 * @return The {@code DAOFactory}, which is the same object on every call.
+	 */
+	public DAOFactory getDAOFactory();
+	
+}
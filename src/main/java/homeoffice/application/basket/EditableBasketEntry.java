@@ -0,0 +1,52 @@
+package homeoffice.application.basket;
+
+/**
+ * A {@code BasketEntry} whose quantity can be modified. Instances of this class are only exposed
+ * to callers through the immutable {@code BasketEntry} interface.<br>
+ * <br>
+ * Note that this class is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.BasketEntry
+ */
+class EditableBasketEntry extends BasketEntry {
+	
+	/**
+	 * Creates a new {@code EditableBasketEntry} of the given item and specified quantity.
+	 * @param item The item.
+	 * @param quantity The quantity of the item.
+	 * @throws IllegalArgumentException Thrown if {@code quantity < 0}.
+	 */
+	EditableBasketEntry(Item item, int quantity) throws IllegalArgumentException {
+		super(item, quantity);
+	}
+	
+	/**
+	 * Increments the quantity of the item in the basket by the given amount.
+	 * @param amount The number to increment the quantity by.
+	 * @return The new quantity of the item.
+	 * @throws IllegalArgumentException Thrown if {@code amount <= 0}.
+	 * @throws ArithmeticException Thrown if {@code basketEntry.getAmount() + amount >
+	 * 		Integer.MAX_VALUE}.
+	 */
+	int incrementQuantity(int amount) throws IllegalArgumentException, ArithmeticException {
+		assertNotNegative(amount, IllegalArgumentException::new, "Quantity must be >= 0");
+		int newQuantity = this.quantity + amount;
+		assertNotNegative(newQuantity, ArithmeticException::new, "Quantity overflowed");
+		return this.quantity += amount;
+	}
+	
+	/**
+	 * Decrements the quantity of the item in the basket by the given amount.
+	 * @param amount The number to decrement the quantity by.
+	 * @return The new quantity of the item. Note that this method will not allow the item quantity
+	 * 		to fall below 0 - calling this method when {@code amount > basketEntry.getQuantity()}
+	 * 		will set the item quantity to 0.
+	 */
+	int decrementQuantity(int amount) throws IllegalArgumentException {
+		assertNotNegative(amount, IllegalArgumentException::new, "Quantity must be >= 0");
+		int newQuantity = quantity - amount;
+		return quantity = newQuantity <= 0 ? 0 : newQuantity;
+	}
+	
+}
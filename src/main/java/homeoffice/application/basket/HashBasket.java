@@ -0,0 +1,158 @@
+package homeoffice.application.basket;
+
+import java.util.*;
+
+/**
+ * Represents a customer's shopping basket, indexed by item ID. Unlike {@code SimpleBasket}, which
+ * searches its entries linearly, all single-item operations run in constant time, making this
+ * implementation suitable for baskets with a large number of lines. Entries are iterated in the
+ * order in which they were first added to the basket.<br>
+ * <br>
+ * Note that this implementation of {@code Basket} is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.SimpleBasket
+ */
+public class HashBasket implements Basket {
+	
+	private final Map<String, EditableBasketEntry> basketEntries;
+	
+	/**
+	 * Creates a new, empty {@code HashBasket}.
+	 */
+	public HashBasket() {
+		basketEntries = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * Creates a new, empty {@code HashBasket} that can hold the given number of lines without
+	 * resizing its index.
+	 * @param expectedLines The number of distinct items the basket is expected to hold.
+	 * @throws IllegalArgumentException Thrown if {@code expectedLines < 0}.
+	 */
+	public HashBasket(int expectedLines) throws IllegalArgumentException {
+		if (expectedLines < 0)
+			throw new IllegalArgumentException("Expected lines must be >= 0");
+		basketEntries = new LinkedHashMap<>((int) Math.ceil(expectedLines / 0.75d));
+	}
+	
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantity(quantity);
+		EditableBasketEntry basketEntry = getBasketEntry(item);
+		if (basketEntry == null) {
+			basketEntries.put(item.getId(), new EditableBasketEntry(item, quantity));
+			return quantity;
+		}
+		return basketEntry.incrementQuantity(quantity);
+	}
+	
+	/**
+	 * {@inheritDoc} Each item is looked up only once.
+	 */
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantities(items);
+		
+		EditableBasketEntry[] existingEntries = new EditableBasketEntry[items.size()];
+		int index = 0;
+		for (Map.Entry<Item, Integer> line : items.entrySet()) {
+			EditableBasketEntry basketEntry = getBasketEntry(line.getKey());
+			if (basketEntry != null)
+				Baskets.addQuantities(basketEntry.getQuantity(), line.getValue(), line.getKey());
+			existingEntries[index++] = basketEntry;
+		}
+		
+		index = 0;
+		for (Map.Entry<Item, Integer> line : items.entrySet()) {
+			EditableBasketEntry basketEntry = existingEntries[index++];
+			if (basketEntry == null)
+				basketEntries.put(line.getKey().getId(),
+						new EditableBasketEntry(line.getKey(), line.getValue()));
+			else
+				basketEntry.incrementQuantity(line.getValue());
+		}
+	}
+	
+	private EditableBasketEntry getBasketEntry(Item item) {
+		return basketEntries.get(item.getId());
+	}
+	
+	@Override
+	public int removeItem(Item item) {
+		EditableBasketEntry basketEntry = getBasketEntry(item);
+		
+		if (basketEntry == null)
+			return 0;
+		
+		int newQuantity = basketEntry.decrementQuantity(1);
+		
+		if (newQuantity == 0)
+			basketEntries.remove(item.getId());
+		
+		return newQuantity;
+	}
+	
+	@Override
+	public void removeAll(Item item) {
+		basketEntries.remove(item.getId());
+	}
+	
+	@Override
+	public void clear() {
+		basketEntries.clear();
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		return basketEntries.containsKey(item.getId());
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		EditableBasketEntry basketEntry = getBasketEntry(item);
+		return basketEntry == null ? 0 : basketEntry.getQuantity();
+	}
+	
+	@Override
+	public double getTotalCost() {
+		double total = 0d;
+		for (EditableBasketEntry basketEntry : basketEntries.values())
+			total += basketEntry.getTotalCost();
+		return total;
+	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		long total = 0L;
+		for (EditableBasketEntry basketEntry : basketEntries.values())
+			total = Math.addExact(total, basketEntry.getTotalCostInMinorUnits(scale));
+		return total;
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return Collections.<BasketEntry>unmodifiableCollection(basketEntries.values()).iterator();
+	}
+	
+	/**
+	 * {@inheritDoc} The spliterator reports the lines in the order they were added. It is not split
+	 * by hash bucket: each split copies the next batch of lines into an array, starting with 1024
+	 * lines, so a basket needs more than 1024 lines before it is processed in parallel.
+	 */
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return Collections.<BasketEntry>unmodifiableCollection(basketEntries.values())
+				.spliterator();
+	}
+	
+}
@@ -0,0 +1,53 @@
+package homeoffice.application.basket;
+
+/**
+ * Factory object for retrieving all hash-indexed DAOs.
+ *  
+ * @author Richard Innocent
+ */
+public class HashDAOFactory extends DAOFactory {
+	
+	private final ItemDAO itemDAO = new ItemHashDAO();
+	
+	private HashDAOFactory() {}
+	
+	/**
+	 * Returns the {@code HashDAOFactory} object, creating it on first use. Concurrent
+	 * first calls all receive the same object.
+	 * @return The {@code HashDAOFactory} object.
+	 */
+	public static HashDAOFactory getInstance() {
+		return Holder.INSTANCE;
+	}
+	
+	public ItemDAO getItemDAO() {
+		return itemDAO;
+	}
+	
+	
+	/**
+	 * Holds the single {@code HashDAOFactory}, which the JVM creates exactly once, when {@code
+	 * getInstance()} first reads it.
+	 */
+	private static final class Holder {
+		
+		static final HashDAOFactory INSTANCE = new HashDAOFactory();
+	}
+	
+	
+	/**
+	 * Provides the {@code "hash"} backend to {@code DAOFactory}.
+	 */
+	public static final class Provider implements DAOFactoryProvider {
+		
+		@Override
+		public String getName() {
+			return "hash";
+		}
+		
+		@Override
+		public DAOFactory getDAOFactory() {
+			return getInstance();
+		}
+	}
+}
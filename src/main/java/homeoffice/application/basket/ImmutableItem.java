@@ -0,0 +1,308 @@
+package homeoffice.application.basket;
+
+/**
+ * An {@code Item} that cannot be modified once created. Its state is held in its own final
+ * fields, and every getter is overridden to read them, so an {@code ImmutableItem} can be shared
+ * between threads without locking or defensive copies, even if it is published through a data
+ * race, and its hash code can never change while it is held in a basket or a DAO's index. The
+ * fields inherited from {@code Item} are left empty, so the state is not held twice.<br>
+ * <br>
+ * The setters inherited from {@code Item} throw an {@code UnsupportedOperationException}.
+ * Instead, the {@code with} methods return a modified copy, which can be swapped into a DAO with
+ * {@code ItemDAO.updateItem}. For example:<br>
+ * {@code itemDAO.updateItem(item.withPrice(4.99));}<br>
+ * <br>
+ * An {@code ImmutableItem} is equal to any {@code Item} with the same ID.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ImmutableItem.Builder
+ */
+public final class ImmutableItem extends Item {
+	
+	private final String id;
+	private final int handle;
+	private final String name;
+	private final double price;
+	private final long minorUnitPrice;
+	private final int priceScale;
+	
+	/**
+	 * Creates a new item. The minor unit price is the given price rounded half up to {@code
+	 * DEFAULT_PRICE_SCALE} digits, and the {@code double} price is the rounded price.
+	 * @param id The item ID.
+	 * @param name The item name.
+	 * @param price The item price.
+	 * @throws ArithmeticException Thrown if the price is not finite or is too large to be held in
+	 * 		minor units.
+	 */
+	public ImmutableItem(String id, String name, double price) throws ArithmeticException {
+		this(ItemIdRegistry.register(id), name,
+				MinorUnits.fromDouble(price, DEFAULT_PRICE_SCALE), DEFAULT_PRICE_SCALE);
+	}
+	
+	/**
+	 * Creates a new item with an exact price.
+	 * @param id The item ID.
+	 * @param name The item name.
+	 * @param minorUnitPrice The item price in minor units, e.g. {@code 1234} for {@code 12.34}.
+	 * @param priceScale The number of minor unit digits in the price, e.g. {@code 2} for GBP.
+	 * @throws IllegalArgumentException Thrown if {@code priceScale < 0} or {@code priceScale >
+	 * 		18}.
+	 */
+	public ImmutableItem(String id, String name, long minorUnitPrice, int priceScale)
+			throws IllegalArgumentException {
+		this(ItemIdRegistry.register(id), name, minorUnitPrice, checkScale(priceScale));
+	}
+	
+	private ImmutableItem(int handle, String name, double price, long minorUnitPrice,
+			int priceScale) {
+		super(null, ItemIdRegistry.NULL_HANDLE, null, 0d, 0L, DEFAULT_PRICE_SCALE);
+		this.id = ItemIdRegistry.getId(handle);
+		this.handle = handle;
+		this.name = name;
+		this.price = price;
+		this.minorUnitPrice = minorUnitPrice;
+		this.priceScale = priceScale;
+	}
+	
+	private ImmutableItem(int handle, String name, long minorUnitPrice, int priceScale) {
+		this(handle, name, MinorUnits.toDouble(minorUnitPrice, priceScale), minorUnitPrice,
+				priceScale);
+	}
+	
+	private static int checkScale(int priceScale) throws IllegalArgumentException {
+		MinorUnits.checkScale(priceScale);
+		return priceScale;
+	}
+	
+	/**
+	 * Returns an immutable copy of the given item, or the item itself if it is already immutable.
+	 * @param item The item.
+	 * @return The immutable item.
+	 */
+	public static ImmutableItem copyOf(Item item) {
+		if (item instanceof ImmutableItem)
+			return (ImmutableItem) item;
+		return new ImmutableItem(item.getHandle(), item.getName(), item.getPrice(),
+				item.getMinorUnitPrice(), item.getPriceScale());
+	}
+	
+	/**
+	 * Returns a new builder of immutable items.
+	 * @return The builder.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Returns a copy of this item with the given name.
+	 * @param name The new item name.
+	 * @return The copy.
+	 */
+	public ImmutableItem withName(String name) {
+		return new ImmutableItem(handle, name, price, minorUnitPrice, priceScale);
+	}
+	
+	/**
+	 * Returns a copy of this item with the given price. The minor unit price of the copy is the
+	 * given price rounded half up to this item's price scale, and its {@code double} price is the
+	 * rounded price.
+	 * @param price The new price.
+	 * @return The copy.
+	 * @throws ArithmeticException Thrown if the price is not finite or is too large to be held in
+	 * 		minor units.
+	 */
+	public ImmutableItem withPrice(double price) throws ArithmeticException {
+		return new ImmutableItem(handle, name, MinorUnits.fromDouble(price, priceScale),
+				priceScale);
+	}
+	
+	/**
+	 * Returns a copy of this item with the given exact price.
+	 * @param minorUnitPrice The new price in minor units, e.g. {@code 1234} for {@code 12.34}.
+	 * @param priceScale The number of minor unit digits in the price, e.g. {@code 2} for GBP.
+	 * @return The copy.
+	 * @throws IllegalArgumentException Thrown if {@code priceScale < 0} or {@code priceScale >
+	 * 		18}.
+	 */
+	public ImmutableItem withMinorUnitPrice(long minorUnitPrice, int priceScale)
+			throws IllegalArgumentException {
+		return new ImmutableItem(handle, name, minorUnitPrice, checkScale(priceScale));
+	}
+	
+	@Override
+	public String getId() {
+		return id;
+	}
+	
+	@Override
+	public int getHandle() {
+		return handle;
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public double getPrice() {
+		return price;
+	}
+	
+	@Override
+	public long getMinorUnitPrice() {
+		return minorUnitPrice;
+	}
+	
+	@Override
+	public int getPriceScale() {
+		return priceScale;
+	}
+	
+	@Override
+	public long getPriceInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		if (scale == priceScale)
+			return minorUnitPrice;
+		MinorUnits.checkScale(scale);
+		return MinorUnits.rescale(minorUnitPrice, priceScale, scale);
+	}
+	
+	@Override
+	public boolean hasId(String id) {
+		return this.id == id || this.id.equals(id);
+	}
+	
+	@Override
+	public boolean equals(Object object) {
+		if (!(object instanceof Item))
+			return false;
+		return handle == ((Item) object).getHandle();
+	}
+	
+	@Override
+	public int hashCode() {
+		return handle;
+	}
+	
+	@Override
+	public String toString() {
+		return id;
+	}
+	
+	/**
+	 * Always throws an {@code UnsupportedOperationException}, as the ID of an item identifies it.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setId(String id) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("ImmutableItem cannot be modified");
+	}
+	
+	/**
+	 * Always throws an {@code UnsupportedOperationException}. See {@code withName(String)}.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setName(String name) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("ImmutableItem cannot be modified");
+	}
+	
+	/**
+	 * Always throws an {@code UnsupportedOperationException}. See {@code withPrice(double)}.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setPrice(double price) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("ImmutableItem cannot be modified");
+	}
+	
+	/**
+	 * Always throws an {@code UnsupportedOperationException}. See {@code withMinorUnitPrice(long,
+	 * int)}.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setMinorUnitPrice(long minorUnitPrice, int priceScale)
+			throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("ImmutableItem cannot be modified");
+	}
+	
+	
+	/**
+	 * Builds an {@code ImmutableItem}. If an exact price is given, it takes precedence over a
+	 * {@code double} price.
+	 */
+	public static final class Builder {
+		
+		private String id;
+		private String name;
+		private double price;
+		private Long minorUnitPrice;
+		private int priceScale = DEFAULT_PRICE_SCALE;
+		
+		private Builder() {}
+		
+		/**
+		 * Sets the item ID.
+		 * @param id The item ID.
+		 * @return This builder.
+		 */
+		public Builder id(String id) {
+			this.id = id;
+			return this;
+		}
+		
+		/**
+		 * Sets the item name.
+		 * @param name The item name.
+		 * @return This builder.
+		 */
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+		
+		/**
+		 * Sets the item price, to be rounded half up to {@code DEFAULT_PRICE_SCALE} digits.
+		 * @param price The item price.
+		 * @return This builder.
+		 */
+		public Builder price(double price) {
+			this.price = price;
+			this.minorUnitPrice = null;
+			this.priceScale = DEFAULT_PRICE_SCALE;
+			return this;
+		}
+		
+		/**
+		 * Sets the exact item price.
+		 * @param minorUnitPrice The item price in minor units, e.g. {@code 1234} for {@code
+		 * 		12.34}.
+		 * @param priceScale The number of minor unit digits in the price, e.g. {@code 2} for GBP.
+		 * @return This builder.
+		 */
+		public Builder minorUnitPrice(long minorUnitPrice, int priceScale) {
+			this.minorUnitPrice = minorUnitPrice;
+			this.priceScale = priceScale;
+			return this;
+		}
+		
+		/**
+		 * Builds the item.
+		 * @return The item.
+		 * @throws ArithmeticException Thrown if a {@code double} price is not finite or is too
+		 * 		large to be held in minor units.
+		 * @throws IllegalArgumentException Thrown if an exact price's scale is {@code < 0} or
+		 * 		{@code > 18}.
+		 */
+		public ImmutableItem build() throws ArithmeticException, IllegalArgumentException {
+			if (minorUnitPrice == null)
+				return new ImmutableItem(id, name, price);
+			return new ImmutableItem(id, name, minorUnitPrice, priceScale);
+		}
+	}
+	
+}
@@ -0,0 +1,172 @@
+package homeoffice.application.basket;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@code Basket} that records the calls made to an underlying basket in a {@code BasketMetrics}.
+ * All operations are delegated to the underlying basket, which should not be modified other than
+ * through this {@code InstrumentedBasket}.<br>
+ * <br>
+ * Every call is counted, and a sample of calls is timed (see {@code OperationMetrics}). The
+ * number of lines in the basket is tracked from the quantities returned by the underlying basket,
+ * and recorded in the metrics each time a line is added. Adding or removing an item first checks
+ * whether it is in the basket, so these calls cost one extra lookup per item.<br>
+ * <br>
+ * Instrumentation can be turned off without changing the code that uses the baskets: {@code
+ * instrument(basket, null)} returns the basket itself, which then costs nothing.<br>
+ * <br>
+ * This implementation of {@code Basket} is as thread safe as the basket it wraps. If the basket is
+ * modified by several threads at once, the recorded basket sizes are approximate.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.BasketMetrics
+ */
+public class InstrumentedBasket implements Basket {
+	
+	private final Basket basket;
+	private final BasketMetrics metrics;
+	private final AtomicInteger lineCount = new AtomicInteger();
+	
+	/**
+	 * Creates a new {@code InstrumentedBasket}.
+	 * @param basket The basket to which all operations are delegated.
+	 * @param metrics The metrics in which calls are recorded.
+	 */
+	public InstrumentedBasket(Basket basket, BasketMetrics metrics) {
+		this.basket = basket;
+		this.metrics = Objects.requireNonNull(metrics);
+		for (Iterator<BasketEntry> iterator = basket.iterator(); iterator.hasNext();) {
+			iterator.next();
+			lineCount.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Wraps a basket in an {@code InstrumentedBasket}, unless instrumentation is turned off.
+	 * @param basket The basket.
+	 * @param metrics The metrics in which calls are recorded, or {@code null} to turn
+	 * 		instrumentation off.
+	 * @return An {@code InstrumentedBasket} wrapping {@code basket}, or {@code basket} itself if
+	 * 		{@code metrics} is {@code null}.
+	 */
+	public static Basket instrument(Basket basket, BasketMetrics metrics) {
+		return metrics == null ? basket : new InstrumentedBasket(basket, metrics);
+	}
+	
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		boolean contained = basket.contains(item);
+		long startTime = metrics.start();
+		int newQuantity = basket.addItem(item, quantity);
+		metrics.stop(BasketMetrics.Operation.ADD_ITEM, startTime);
+		if (!contained)
+			metrics.recordBasketSize(lineCount.incrementAndGet());
+		return newQuantity;
+	}
+	
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		int addedLines = 0;
+		for (Item item : items.keySet())
+			if (!basket.contains(item))
+				addedLines++;
+		long startTime = metrics.start();
+		basket.addAll(items);
+		metrics.stop(BasketMetrics.Operation.ADD_ALL, startTime);
+		for (int i = 0; i < addedLines; i++)
+			metrics.recordBasketSize(lineCount.incrementAndGet());
+	}
+	
+	@Override
+	public int removeItem(Item item) {
+		boolean contained = basket.contains(item);
+		long startTime = metrics.start();
+		int newQuantity = basket.removeItem(item);
+		metrics.stop(BasketMetrics.Operation.REMOVE_ITEM, startTime);
+		if (contained && newQuantity == 0)
+			lineCount.decrementAndGet();
+		return newQuantity;
+	}
+	
+	@Override
+	public void removeAll(Item item) {
+		boolean contained = basket.contains(item);
+		long startTime = metrics.start();
+		basket.removeAll(item);
+		metrics.stop(BasketMetrics.Operation.REMOVE_ALL, startTime);
+		if (contained)
+			lineCount.decrementAndGet();
+	}
+	
+	@Override
+	public void removeAll(Collection<? extends Item> items) {
+		int removedLines = 0;
+		for (Item item : new HashSet<>(items))
+			if (basket.contains(item))
+				removedLines++;
+		long startTime = metrics.start();
+		basket.removeAll(items);
+		metrics.stop(BasketMetrics.Operation.REMOVE_ALL, startTime);
+		lineCount.addAndGet(-removedLines);
+	}
+	
+	@Override
+	public void clear() {
+		long startTime = metrics.start();
+		basket.clear();
+		metrics.stop(BasketMetrics.Operation.CLEAR, startTime);
+		lineCount.set(0);
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		long startTime = metrics.start();
+		boolean contains = basket.contains(item);
+		metrics.stop(BasketMetrics.Operation.CONTAINS, startTime);
+		return contains;
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		long startTime = metrics.start();
+		int quantity = basket.getQuantity(item);
+		metrics.stop(BasketMetrics.Operation.GET_QUANTITY, startTime);
+		return quantity;
+	}
+	
+	@Override
+	public double getTotalCost() {
+		long startTime = metrics.start();
+		double totalCost = basket.getTotalCost();
+		metrics.stop(BasketMetrics.Operation.GET_TOTAL_COST, startTime);
+		return totalCost;
+	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		long startTime = metrics.start();
+		long totalCost = basket.getTotalCostInMinorUnits(scale);
+		metrics.stop(BasketMetrics.Operation.GET_TOTAL_COST, startTime);
+		return totalCost;
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return basket.iterator();
+	}
+	
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return basket.spliterator();
+	}
+	
+}
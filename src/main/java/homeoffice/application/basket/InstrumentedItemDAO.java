@@ -0,0 +1,117 @@
+package homeoffice.application.basket;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An {@code ItemDAO} that records the calls made to an underlying DAO in an {@code
+ * ItemDAOMetrics}. Every call is counted, a sample of calls is timed (see {@code
+ * OperationMetrics}), and IDs for which {@code getItem} or {@code getItems} finds no item are
+ * counted as misses.<br>
+ * <br>
+ * Instrumentation can be turned off without changing the code that uses the DAO: {@code
+ * instrument(itemDAO, null)} returns the DAO itself, which then costs nothing.<br>
+ * <br>
+ * This class is thread safe, provided that the underlying DAO is.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ItemDAOMetrics
+ */
+public class InstrumentedItemDAO implements ItemDAO {
+	
+	private final ItemDAO itemDAO;
+	private final ItemDAOMetrics metrics;
+	
+	/**
+	 * Creates a new {@code InstrumentedItemDAO}.
+	 * @param itemDAO The DAO to which all operations are delegated.
+	 * @param metrics The metrics in which calls are recorded.
+	 */
+	public InstrumentedItemDAO(ItemDAO itemDAO, ItemDAOMetrics metrics) {
+		this.itemDAO = itemDAO;
+		this.metrics = Objects.requireNonNull(metrics);
+	}
+	
+	/**
+	 * Wraps a DAO in an {@code InstrumentedItemDAO}, unless instrumentation is turned off.
+	 * @param itemDAO The DAO.
+	 * @param metrics The metrics in which calls are recorded, or {@code null} to turn
+	 * 		instrumentation off.
+	 * @return An {@code InstrumentedItemDAO} wrapping {@code itemDAO}, or {@code itemDAO} itself if
+	 * 		{@code metrics} is {@code null}.
+	 */
+	public static ItemDAO instrument(ItemDAO itemDAO, ItemDAOMetrics metrics) {
+		return metrics == null ? itemDAO : new InstrumentedItemDAO(itemDAO, metrics);
+	}
+	
+	@Override
+	public Item getItem(String id) {
+		long startTime = metrics.start();
+		Item item = itemDAO.getItem(id);
+		if (item == null)
+			metrics.recordMiss();
+		metrics.stop(ItemDAOMetrics.Operation.GET_ITEM, startTime);
+		return item;
+	}
+	
+	/**
+	 * {@inheritDoc} The call is counted and timed as one {@code GET_ITEMS} call, and each distinct
+	 * ID that is not found is counted as a miss.
+	 */
+	@Override
+	public Map<String, Item> getItems(Collection<String> ids) {
+		long startTime = metrics.start();
+		Map<String, Item> items = itemDAO.getItems(ids);
+		int lookups = ids.size() == items.size() ? ids.size() : new HashSet<>(ids).size();
+		metrics.recordBatchLookups(lookups, lookups - items.size());
+		metrics.stop(ItemDAOMetrics.Operation.GET_ITEMS, startTime);
+		return items;
+	}
+	
+	@Override
+	public boolean updateItem(Item updatedItem) {
+		long startTime = metrics.start();
+		boolean updated = itemDAO.updateItem(updatedItem);
+		metrics.stop(ItemDAOMetrics.Operation.UPDATE_ITEM, startTime);
+		return updated;
+	}
+	
+	@Override
+	public boolean addItem(Item item) {
+		long startTime = metrics.start();
+		boolean added = itemDAO.addItem(item);
+		metrics.stop(ItemDAOMetrics.Operation.ADD_ITEM, startTime);
+		return added;
+	}
+	
+	/**
+	 * {@inheritDoc} The whole load is counted and timed as one {@code ADD_ITEMS} call.
+	 */
+	@Override
+	public int addItems(Iterator<? extends Item> newItems) {
+		long startTime = metrics.start();
+		int added = itemDAO.addItems(newItems);
+		metrics.stop(ItemDAOMetrics.Operation.ADD_ITEMS, startTime);
+		return added;
+	}
+	
+	@Override
+	public boolean removeItem(Item item) {
+		long startTime = metrics.start();
+		boolean removed = itemDAO.removeItem(item);
+		metrics.stop(ItemDAOMetrics.Operation.REMOVE_ITEM, startTime);
+		return removed;
+	}
+	
+	/**
+	 * Returns the underlying DAO.
+	 * @return The DAO to which all operations are delegated.
+	 */
+	public ItemDAO getItemDAO() {
+		return itemDAO;
+	}
+	
+}
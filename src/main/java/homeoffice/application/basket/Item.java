@@ -1,26 +1,90 @@
 package homeoffice.application.basket;
 
 /**
- * Represents an item as part of a shopping basket.
+ * Represents an item as part of a shopping basket.<br>
+ * <br>
+ * As well as the {@code double} price, the price of an item is held exactly as a whole number of
+ * minor currency units (e.g. pence or cents) and a scale, the number of minor unit digits after
+ * the decimal point. For example, a price of {@code 12.34} is held as {@code 1234} minor units at
+ * scale {@code 2}. Totals should be calculated from the minor unit price, as the {@code double}
+ * price cannot represent most prices exactly.<br>
+ * <br>
+ * Items are identified by their ID. Each ID is registered with the {@code ItemIdRegistry}, and
+ * items hold the registry's canonical copy of their ID along with its {@code int} handle, so that
+ * items are compared and hashed by handle without comparing ID strings.
  *  
  * @author Richard Innocent
  */
 public class Item {
+	
+	/**
+	 * The price scale used when an item's price is given as a {@code double}, suitable for
+	 * currencies with two minor unit digits such as GBP and USD.
+	 */
+	public static final int DEFAULT_PRICE_SCALE = 2;
 
 	private String id;
+	private int handle;
 	private String name;
 	private double price;
+	private long minorUnitPrice;
+	private int priceScale;
 	
 	/**
-	 * Creates a new item.
+	 * Creates a new item. The minor unit price is the given price rounded half up to {@code
+	 * DEFAULT_PRICE_SCALE} digits, and the {@code double} price is the rounded price, so that the
+	 * two always agree.
 	 * @param id The item ID.
 	 * @param name The item name.
 	 * @param price The item price.
+	 * @throws ArithmeticException Thrown if the price is not finite or is too large to be held in
+	 * 		minor units.
 	 */
-	public Item(String id, String name, double price) {
+	public Item(String id, String name, double price) throws ArithmeticException {
+		assignId(id);
+		this.name = name;
+		this.priceScale = DEFAULT_PRICE_SCALE;
+		this.minorUnitPrice = MinorUnits.fromDouble(price, priceScale);
+		this.price = MinorUnits.toDouble(minorUnitPrice, priceScale);
+	}
+	
+	/**
+	 * Creates a new item with an exact price.
+	 * @param id The item ID.
+	 * @param name The item name.
+	 * @param minorUnitPrice The item price in minor units, e.g. {@code 1234} for {@code 12.34}.
+	 * @param priceScale The number of minor unit digits in the price, e.g. {@code 2} for GBP.
+	 * @throws IllegalArgumentException Thrown if {@code priceScale < 0} or {@code priceScale >
+	 * 		18}.
+	 */
+	public Item(String id, String name, long minorUnitPrice, int priceScale)
+			throws IllegalArgumentException {
+		MinorUnits.checkScale(priceScale);
+		assignId(id);
+		this.name = name;
+		this.minorUnitPrice = minorUnitPrice;
+		this.priceScale = priceScale;
+		this.price = MinorUnits.toDouble(minorUnitPrice, priceScale);
+	}
+	
+	/**
+	 * Creates a new item from another item's state, without registering its ID.
+	 * @param id The item ID, which must be the registry's canonical copy if it is registered.
+	 * @param handle The handle of the item ID, or {@code ItemIdRegistry.NULL_HANDLE} if it is not
+	 * 		registered yet, in which case the subclass must register it before the handle is used,
+	 * 		or if the subclass holds its own state and overrides every getter.
+	 * @param name The item name.
+	 * @param price The item price.
+	 * @param minorUnitPrice The item price in minor units, matching {@code price}.
+	 * @param priceScale The number of minor unit digits in the price, which must be valid.
+	 */
+	Item(String id, int handle, String name, double price, long minorUnitPrice, int priceScale) {
 		this.id = id;
+		this.handle = handle;
 		this.name = name;
 		this.price = price;
+		this.minorUnitPrice = minorUnitPrice;
+		this.priceScale = priceScale;
 	}
 	
 	/**
@@ -36,7 +100,21 @@ public class Item {
 	 * @param id The new item ID.
 	 */
 	public void setId(String id) {
-		this.id = id;
+		assignId(id);
+	}
+	
+	private void assignId(String id) {
+		this.handle = ItemIdRegistry.register(id);
+		this.id = ItemIdRegistry.getId(handle);
+	}
+	
+	/**
+	 * Returns the handle of the item's ID in the {@code ItemIdRegistry}. Items are equal if and
+	 * only if their handles are equal.
+	 * @return The ID handle.
+	 */
+	public int getHandle() {
+		return handle;
 	}
 
 	/**
@@ -48,12 +126,64 @@ public class Item {
 	}
 	
 	/**
-	 * Sets the item's price.
+	 * Sets the item's price. The minor unit price is updated to the given price rounded half up to
+	 * the current price scale, and the {@code double} price to the rounded price.
 	 * @param price The new price. Note that price is best suited to non-atomic units, e.g. USD and
 	 * 		GBP over cents and pence respectively.
+	 * @throws ArithmeticException Thrown if the price is not finite or is too large to be held in
+	 * 		minor units.
 	 */
-	public void setPrice(double price) {
-		this.price = price;
+	public void setPrice(double price) throws ArithmeticException {
+		this.minorUnitPrice = MinorUnits.fromDouble(price, priceScale);
+		this.price = MinorUnits.toDouble(minorUnitPrice, priceScale);
+	}
+	
+	/**
+	 * Returns the item's exact price as a number of minor units at the item's price scale.
+	 * @return The item price in minor units.
+	 * @see #getPriceScale()
+	 */
+	public long getMinorUnitPrice() {
+		return minorUnitPrice;
+	}
+	
+	/**
+	 * Returns the number of minor unit digits in the item's price.
+	 * @return The price scale.
+	 */
+	public int getPriceScale() {
+		return priceScale;
+	}
+	
+	/**
+	 * Returns the item's exact price as a number of minor units at the given scale.
+	 * @param scale The scale of the result.
+	 * @return The item price in minor units at the given scale.
+	 * @throws ArithmeticException Thrown if the price cannot be represented exactly at the given
+	 * 		scale, or is too large to be represented at that scale.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 */
+	public long getPriceInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		if (scale == priceScale)
+			return minorUnitPrice;
+		MinorUnits.checkScale(scale);
+		return MinorUnits.rescale(minorUnitPrice, priceScale, scale);
+	}
+	
+	/**
+	 * Sets the item's exact price.
+	 * @param minorUnitPrice The new price in minor units, e.g. {@code 1234} for {@code 12.34}.
+	 * @param priceScale The number of minor unit digits in the price, e.g. {@code 2} for GBP.
+	 * @throws IllegalArgumentException Thrown if {@code priceScale < 0} or {@code priceScale >
+	 * 		18}.
+	 */
+	public void setMinorUnitPrice(long minorUnitPrice, int priceScale)
+			throws IllegalArgumentException {
+		MinorUnits.checkScale(priceScale);
+		this.minorUnitPrice = minorUnitPrice;
+		this.priceScale = priceScale;
+		this.price = MinorUnits.toDouble(minorUnitPrice, priceScale);
 	}
 	
 	/**
@@ -78,7 +208,7 @@ public class Item {
 	 * @return {@code true} if this {@code Item} matches the given ID.
 	 */
 	public boolean hasId(String id) {
-		return this.id.equals(id);
+		return this.id == id || this.id.equals(id);
 	}
 	
 	/**
@@ -89,8 +219,7 @@ public class Item {
 		if (!(object instanceof Item))
 			return false;
 		
-		Item otherItem = (Item) object;
-		return id.equals(otherItem.getId());
+		return getHandle() == ((Item) object).getHandle();
 	}
 	
 	@Override
@@ -100,7 +229,7 @@ public class Item {
 	
 	@Override
 	public int hashCode() {
-		return id.hashCode();
+		return getHandle();
 	}
 
 }
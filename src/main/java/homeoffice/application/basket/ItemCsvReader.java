@@ -0,0 +1,197 @@
+package homeoffice.application.basket;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the items in a CSV file of {@code id,name,price} lines, such as the nightly catalogue
+ * export. Names may contain commas, but IDs may not. A first line of {@code id,name,price} is
+ * treated as a header, and empty lines are skipped.<br>
+ * <br>
+ * The file is read in chunks of {@code chunkSize} lines, and the items are returned one chunk at
+ * a time, so only one chunk is held in memory however large the file is. The lines of a chunk can
+ * be parsed in parallel on the common {@code ForkJoinPool}; the items are still returned in the
+ * order of the file. A catalogue is loaded in one pass by passing the reader to {@code
+ * ItemDAO.addItems(Iterator)}, which keeps the first item with each ID:<br>
+ * {@code try (ItemCsvReader items = ItemCsvReader.open(csv, true)) {}<br>
+ * {@code     itemDao.addItems(items);}<br>
+ * {@code }}<br>
+ * <br>
+ * As an {@code Iterator} cannot throw an {@code IOException}, a line that cannot be read or
+ * parsed causes {@code hasNext()} to throw an {@code UncheckedIOException}. {@code load} throws
+ * its cause instead.<br>
+ * <br>
+ * Note that this class is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ItemDAO#addItems(Iterator)
+ */
+public final class ItemCsvReader implements Iterator<Item>, Closeable {
+	
+	/**
+	 * The default number of lines read and parsed at once.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 8192;
+	
+	private static final Item[] NO_ITEMS = new Item[0];
+	private static final String HEADER = "id,name,price";
+	
+	private final BufferedReader reader;
+	private final int chunkSize;
+	private final boolean parallel;
+	private final List<String> lines;
+	private Item[] chunk = NO_ITEMS;
+	private int position;
+	private boolean started;
+	private boolean finished;
+	
+	/**
+	 * Creates a new {@code ItemCsvReader}.
+	 * @param reader The reader from which lines are read, which is closed by {@code close()}.
+	 * @param chunkSize The number of lines read and parsed at once.
+	 * @param parallel {@code true} if the lines of each chunk should be parsed in parallel.
+	 * @throws IllegalArgumentException Thrown if {@code chunkSize < 1}.
+	 */
+	public ItemCsvReader(BufferedReader reader, int chunkSize, boolean parallel)
+			throws IllegalArgumentException {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Chunk size must be >= 1");
+		this.reader = reader;
+		this.chunkSize = chunkSize;
+		this.parallel = parallel;
+		this.lines = new ArrayList<>(Math.min(chunkSize, DEFAULT_CHUNK_SIZE));
+	}
+	
+	/**
+	 * Opens a UTF-8 CSV file, to be read in chunks of {@code DEFAULT_CHUNK_SIZE} lines.
+	 * @param csv The CSV file.
+	 * @param parallel {@code true} if the lines of each chunk should be parsed in parallel.
+	 * @return The reader, which must be closed.
+	 * @throws IOException Thrown if the file cannot be opened.
+	 */
+	public static ItemCsvReader open(Path csv, boolean parallel) throws IOException {
+		return new ItemCsvReader(Files.newBufferedReader(csv), DEFAULT_CHUNK_SIZE, parallel);
+	}
+	
+	/**
+	 * Adds the items in a UTF-8 CSV file to the given DAO in one pass. Items whose ID is already
+	 * in the DAO, or earlier in the file, are skipped.
+	 * @param csv The CSV file.
+	 * @param itemDAO The DAO to which the items are added.
+	 * @param parallel {@code true} if lines should be parsed in parallel.
+	 * @return The number of items that were added.
+	 * @throws IOException Thrown if the file cannot be read, or a line is not of the form {@code
+	 * 		id,name,price}.
+	 */
+	public static int load(Path csv, ItemDAO itemDAO, boolean parallel) throws IOException {
+		try (ItemCsvReader items = open(csv, parallel)) {
+			return itemDAO.addItems(items);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Returns the items that have not yet been read, as a sequential stream. The stream must not
+	 * be used once this reader has been closed.
+	 * @return The items.
+	 */
+	public Stream<Item> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the next chunk cannot be read, or one of its lines is
+	 * 		not of the form {@code id,name,price}.
+	 */
+	@Override
+	public boolean hasNext() throws UncheckedIOException {
+		while (position == chunk.length && !finished)
+			readChunk();
+		return position < chunk.length;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the next chunk cannot be read, or one of its lines is
+	 * 		not of the form {@code id,name,price}.
+	 */
+	@Override
+	public Item next() throws NoSuchElementException, UncheckedIOException {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Item item = chunk[position];
+		chunk[position++] = null;
+		return item;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		chunk = NO_ITEMS;
+		position = 0;
+		reader.close();
+	}
+	
+	private void readChunk() throws UncheckedIOException {
+		lines.clear();
+		try {
+			String line;
+			while (lines.size() < chunkSize && (line = reader.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				boolean header = !started && line.equalsIgnoreCase(HEADER);
+				started = true;
+				if (!header)
+					lines.add(line);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		finished = lines.size() < chunkSize;
+		
+		Stream<String> chunkLines = parallel ? lines.parallelStream() : lines.stream();
+		chunk = chunkLines.map(ItemCsvReader::parseItem).toArray(Item[]::new);
+		position = 0;
+	}
+	
+	/**
+	 * Parses a line of the form {@code id,name,price}.
+	 */
+	static Item parseItem(String line) throws UncheckedIOException {
+		int firstComma = line.indexOf(',');
+		int lastComma = line.lastIndexOf(',');
+		if (firstComma < 0 || firstComma == lastComma)
+			throw new UncheckedIOException(
+					new IOException("Expected id,name,price but found: " + line));
+		BigDecimal price;
+		long minorUnitPrice;
+		try {
+			price = new BigDecimal(line.substring(lastComma + 1).trim());
+			if (price.scale() < 0)
+				price = price.setScale(0);
+			minorUnitPrice = price.unscaledValue().longValueExact();
+			MinorUnits.checkScale(price.scale());
+		} catch (IllegalArgumentException | ArithmeticException e) {
+			throw new UncheckedIOException(new IOException("Invalid price in: " + line, e));
+		}
+		return new Item(line.substring(0, firstComma).trim(),
+				line.substring(firstComma + 1, lastComma), minorUnitPrice, price.scale());
+	}
+	
+}
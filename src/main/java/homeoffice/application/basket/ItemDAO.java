@@ -1,5 +1,11 @@
 package homeoffice.application.basket;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
 /**
  * This class provides a go-between for the Java {@code Item}s, and the items in the data store.
  * 
@@ -14,6 +20,28 @@ public interface ItemDAO {
 	 */
 	public Item getItem(String id);
 	
+	/**
+	 * Gets the items from the data store with the specified IDs, so that all the items of a basket
+	 * can be fetched at once rather than one line at a time. IDs that are repeated are looked up
+	 * once.<br>
+	 * <br>
+	 * The default implementation calls {@code getItem(String)} for each ID. Implementations for
+	 * which a single pass or a single query is cheaper than one lookup per ID should override it.
+	 * @param ids The item IDs.
+	 * @return The items that were found, keyed by ID. IDs with no item are not in the map.
+	 */
+	public default Map<String, Item> getItems(Collection<String> ids) {
+		Map<String, Item> items = new HashMap<>((int) Math.ceil(ids.size() / 0.75d));
+		for (String id : ids) {
+			if (!items.containsKey(id)) {
+				Item item = getItem(id);
+				if (item != null)
+					items.put(id, item);
+			}
+		}
+		return items;
+	}
+	
 	/**
 	 * Updates an item in the data store to reflect any changes made on the provided {@code
 	 * updatedItem} object. Consider the following example:<br>
@@ -21,7 +49,13 @@ public interface ItemDAO {
 	 * {@code item.setName("QWERTY Keyboard");}<br>
 	 * {@code // At this point, the data has been updated in the interface but not in the data}<br>
 	 * {@code // store.}<br>
-	 * {@code itemDao.updateItem(item); // Reflect changes in data store}
+	 * {@code itemDao.updateItem(item); // Reflect changes in data store}<br>
+	 * <br>
+	 * The stored item with the same ID is replaced by {@code updatedItem} itself, rather than
+	 * having its fields copied. An {@code ImmutableItem} is therefore updated by swapping in a
+	 * modified copy, and readers see either the old instance or the new one, never a mixture:<br>
+	 * {@code ImmutableItem item = ImmutableItem.copyOf(itemDao.getItem("001"));}<br>
+	 * {@code itemDao.updateItem(item.withName("QWERTY Keyboard"));}
 	 * @param updatedItem The item that has been updated.
 	 * @return {@code true} if the item was added to the data store successfully.
 	 */
@@ -34,6 +68,37 @@ public interface ItemDAO {
 	 */
 	public boolean addItem(Item item);
 	
+	/**
+	 * Adds the given items to the data store in a single pass, consuming them as they are needed,
+	 * so that a large catalogue can be loaded without first being held in memory. Items whose ID
+	 * is already present, including items earlier in {@code newItems}, are skipped, as they would
+	 * be by {@code addItem(Item)}.<br>
+	 * <br>
+	 * The default implementation calls {@code addItem(Item)} for each item. Implementations
+	 * whose {@code addItem} is not a constant time operation should override it.
+	 * @param newItems The items to be added.
+	 * @return The number of items that were added.
+	 * @see homeoffice.application.basket.ItemCsvReader
+	 */
+	public default int addItems(Iterator<? extends Item> newItems) {
+		int added = 0;
+		while (newItems.hasNext())
+			if (addItem(newItems.next()))
+				added++;
+		return added;
+	}
+	
+	/**
+	 * Adds the items of the given stream to the data store, as {@code addItems(Iterator)} does.
+	 * The items are added in encounter order, so the first of several items with the same ID is
+	 * the one kept.
+	 * @param newItems The items to be added.
+	 * @return The number of items that were added.
+	 */
+	public default int addItems(Stream<? extends Item> newItems) {
+		return addItems(newItems.iterator());
+	}
+	
 	/**
 	 * Removes an {@code Item} from the data store.
 	 * @param item The item to be removed.
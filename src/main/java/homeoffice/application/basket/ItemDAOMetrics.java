@@ -0,0 +1,102 @@
+package homeoffice.application.basket;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics for the DAOs wrapped by {@code InstrumentedItemDAO}: the number of calls to each {@code
+ * ItemDAO} operation, a sample of their latencies, and the number of item lookups that found no
+ * item. Metrics can be registered with JMX by calling {@code register}.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.InstrumentedItemDAO
+ */
+public class ItemDAOMetrics extends OperationMetrics<ItemDAOMetrics.Operation>
+		implements ItemDAOMetricsMXBean {
+	
+	/**
+	 * The operations that are counted and timed.
+	 */
+	public enum Operation {
+		/** {@code getItem(String)}. */
+		GET_ITEM,
+		/** {@code getItems(Collection)}. */
+		GET_ITEMS,
+		/** {@code updateItem(Item)}. */
+		UPDATE_ITEM,
+		/** {@code addItem(Item)}. */
+		ADD_ITEM,
+		/** {@code addItems(Iterator)} and {@code addItems(Stream)}. */
+		ADD_ITEMS,
+		/** {@code removeItem(Item)}. */
+		REMOVE_ITEM
+	}
+	
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder batchLookups = new LongAdder();
+	
+	/**
+	 * Creates new metrics that time one in every {@code DEFAULT_SAMPLING_INTERVAL} calls.
+	 */
+	public ItemDAOMetrics() {
+		this(DEFAULT_SAMPLING_INTERVAL);
+	}
+	
+	/**
+	 * Creates new metrics.
+	 * @param samplingInterval The number of calls for each call that is timed, which must be a
+	 * 		power of two. {@code 1} times every call.
+	 * @throws IllegalArgumentException Thrown if {@code samplingInterval} is not a positive power
+	 * 		of two.
+	 */
+	public ItemDAOMetrics(int samplingInterval) throws IllegalArgumentException {
+		this(samplingInterval, System::nanoTime);
+	}
+	
+	ItemDAOMetrics(int samplingInterval, LongSupplier clock) throws IllegalArgumentException {
+		super(Operation.class, samplingInterval, clock);
+	}
+	
+	/**
+	 * Records a call to {@code getItem} that found no item.
+	 */
+	void recordMiss() {
+		misses.increment();
+	}
+	
+	/**
+	 * Records the number of distinct IDs looked up by a call to {@code getItems}, and the number
+	 * of them that were not found.
+	 */
+	void recordBatchLookups(int lookups, int missedLookups) {
+		batchLookups.add(lookups);
+		misses.add(missedLookups);
+	}
+	
+	/**
+	 * {@inheritDoc} IDs looked up by {@code getItems} that were not found are included.
+	 */
+	@Override
+	public long getMissCount() {
+		return misses.sum();
+	}
+	
+	/**
+	 * {@inheritDoc} Each ID looked up by {@code getItems} counts as one lookup.
+	 */
+	@Override
+	public double getMissRate() {
+		long lookups = getCount(Operation.GET_ITEM) + batchLookups.sum();
+		return lookups == 0L ? 0d : Math.min(1d, (double) getMissCount() / lookups);
+	}
+	
+	@Override
+	public void reset() {
+		super.reset();
+		misses.reset();
+		batchLookups.reset();
+	}
+	
+}
@@ -0,0 +1,47 @@
+package homeoffice.application.basket;
+
+import java.util.Map;
+
+/**
+ * The JMX view of an {@code ItemDAOMetrics}.
+ * 
+ * @author Richard Innocent
+ */
+public interface ItemDAOMetricsMXBean {
+	
+	/**
+	 * Returns the number of calls to each DAO operation.
+	 * @return The number of calls, keyed by operation name.
+	 */
+	public Map<String, Long> getOperationCounts();
+	
+	/**
+	 * Returns the latencies of the DAO operations that were timed.
+	 * @return The latencies in nanoseconds, keyed by operation name.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getLatencies();
+	
+	/**
+	 * Returns the number of item lookups that found no item.
+	 * @return The number of misses.
+	 */
+	public long getMissCount();
+	
+	/**
+	 * Returns the proportion of item lookups that found no item.
+	 * @return The miss rate, between {@code 0} and {@code 1}.
+	 */
+	public double getMissRate();
+	
+	/**
+	 * Returns the number of calls for each call that is timed.
+	 * @return The sampling interval.
+	 */
+	public int getSamplingInterval();
+	
+	/**
+	 * Clears every count and histogram.
+	 */
+	public void reset();
+	
+}
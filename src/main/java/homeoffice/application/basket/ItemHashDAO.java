@@ -0,0 +1,76 @@
+package homeoffice.application.basket;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DAO implementation using a {@code HashMap} keyed on item ID. Unlike {@code ItemListDAO}, items
+ * can be looked up, added, updated and removed in constant time, so this implementation is
+ * suitable for large catalogues.<br>
+ * <br>
+ * Note that this class is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.ItemListDAO
+ */
+public class ItemHashDAO implements ItemDAO {
+	
+	private final Map<String, Item> items;
+	
+	/**
+	 * Creates a new {@code ItemHashDAO} containing the given items. If more than one item has the
+	 * same ID, only the first is kept.
+	 * @param allItems The initial items.
+	 */
+	public ItemHashDAO(Item... allItems) {
+		items = new HashMap<>(capacityFor(allItems.length));
+		for (Item item : allItems)
+			addItem(item);
+	}
+	
+	/**
+	 * Creates a new {@code ItemHashDAO} containing the given items. If more than one item has the
+	 * same ID, only the first is kept.
+	 * @param allItems The initial items.
+	 */
+	public ItemHashDAO(Collection<? extends Item> allItems) {
+		items = new HashMap<>(capacityFor(allItems.size()));
+		addItems(allItems);
+	}
+	
+	private static int capacityFor(int size) {
+		return (int) Math.ceil(size / 0.75d);
+	}
+	
+	/**
+	 * Adds all of the given items that are not already in the data store. Items whose ID is
+	 * already present are skipped, as they would be by {@code addItem(Item)}.
+	 * @param newItems The items to be added.
+	 * @return The number of items that were added.
+	 */
+	public int addItems(Collection<? extends Item> newItems) {
+		return addItems(newItems.iterator());
+	}
+	
+	@Override
+	public Item getItem(String id) {
+		return items.get(id);
+	}
+	
+	@Override
+	public boolean updateItem(Item updatedItem) {
+		return items.replace(updatedItem.getId(), updatedItem) != null;
+	}
+	
+	@Override
+	public boolean addItem(Item item) {
+		return items.putIfAbsent(item.getId(), item) == null;
+	}
+	
+	@Override
+	public boolean removeItem(Item item) {
+		return items.remove(item.getId()) != null;
+	}
+	
+}
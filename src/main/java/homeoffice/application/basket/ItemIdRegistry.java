@@ -0,0 +1,132 @@
+package homeoffice.application.basket;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns each distinct item ID a dense {@code int} handle, starting from {@code 0}, and holds a
+ * single canonical copy of each ID. Every {@code Item} takes its handle from here, so that items
+ * can be compared and hashed by handle rather than by comparing ID strings, and collections of
+ * items can be indexed by handle.<br>
+ * <br>
+ * Handles are never reused and IDs are never forgotten: the registry holds every distinct ID
+ * registered since the class was loaded, at a cost of a map entry, a boxed handle and a table
+ * slot per ID on top of the ID itself. IDs are registered only by the {@code Item} constructors
+ * and {@code Item.setId}. Looking an ID up with {@code find}, or through a DAO, never registers
+ * it, and the views returned by {@code MappedItemDAO} register their ID only once they are
+ * compared or hashed, for example when added to a basket. The registry therefore grows with the
+ * number of distinct IDs that have been held in an item, which should be bounded by the size of
+ * the catalogue, and not with the number of lookups.<br>
+ * <br>
+ * This class is thread safe. Looking up an ID that is already registered does not lock, and
+ * registering a new ID only locks the map bin it falls in.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.Item#getHandle()
+ */
+public final class ItemIdRegistry {
+	
+	/**
+	 * The handle of a {@code null} ID.
+	 */
+	public static final int NULL_HANDLE = -1;
+	
+	/**
+	 * The IDs are held in chunks that double in size, the first holding this many IDs, so that the
+	 * table grows without copying or locking.
+	 */
+	private static final int FIRST_CHUNK_BITS = 10;
+	private static final int CHUNK_COUNT = 32 - FIRST_CHUNK_BITS;
+	
+	private static final ConcurrentHashMap<String, Integer> handles = new ConcurrentHashMap<>();
+	private static final AtomicReferenceArray<String[]> chunks =
+			new AtomicReferenceArray<>(CHUNK_COUNT);
+	private static final AtomicInteger size = new AtomicInteger();
+	
+	private ItemIdRegistry() {}
+	
+	/**
+	 * Returns the handle of the given ID, registering the ID if it has not been seen before.
+	 * @param id The item ID.
+	 * @return The ID's handle, or {@code NULL_HANDLE} if the ID is {@code null}.
+	 */
+	public static int register(String id) {
+		if (id == null)
+			return NULL_HANDLE;
+		Integer handle = handles.get(id);
+		if (handle != null)
+			return handle;
+		return handles.computeIfAbsent(id, ItemIdRegistry::assignHandle);
+	}
+	
+	/**
+	 * Assigns the next handle to a new ID. The ID is readable by handle before the handle is
+	 * published in the map.
+	 */
+	private static Integer assignHandle(String id) {
+		int handle = size.getAndIncrement();
+		if (handle < 0)
+			throw new IllegalStateException("Too many item IDs");
+		int chunk = chunkOf(handle);
+		String[] ids = chunks.get(chunk);
+		if (ids == null) {
+			chunks.compareAndSet(chunk, null, new String[1 << (chunk + FIRST_CHUNK_BITS)]);
+			ids = chunks.get(chunk);
+		}
+		ids[offsetOf(handle, chunk)] = id;
+		return handle;
+	}
+	
+	private static int chunkOf(int handle) {
+		long position = (long) handle + (1 << FIRST_CHUNK_BITS);
+		return 63 - Long.numberOfLeadingZeros(position) - FIRST_CHUNK_BITS;
+	}
+	
+	private static int offsetOf(int handle, int chunk) {
+		return (int) ((long) handle + (1 << FIRST_CHUNK_BITS) - (1L << (chunk + FIRST_CHUNK_BITS)));
+	}
+	
+	/**
+	 * Returns the handle of the given ID, without registering it.
+	 * @param id The item ID.
+	 * @return The ID's handle, or {@code NULL_HANDLE} if the ID is {@code null} or has not been
+	 * 		registered, in which case no item has that ID.
+	 */
+	public static int find(String id) {
+		if (id == null)
+			return NULL_HANDLE;
+		Integer handle = handles.get(id);
+		return handle == null ? NULL_HANDLE : handle;
+	}
+	
+	/**
+	 * Returns the canonical copy of the ID with the given handle.
+	 * @param handle The handle.
+	 * @return The ID, or {@code null} if the handle is {@code NULL_HANDLE}.
+	 * @throws IllegalArgumentException Thrown if no ID has been registered with the handle.
+	 */
+	public static String getId(int handle) throws IllegalArgumentException {
+		if (handle == NULL_HANDLE)
+			return null;
+		String id = null;
+		if (handle >= 0) {
+			int chunk = chunkOf(handle);
+			String[] ids = chunks.get(chunk);
+			if (ids != null)
+				id = ids[offsetOf(handle, chunk)];
+		}
+		if (id == null)
+			throw new IllegalArgumentException("No ID has handle " + handle);
+		return id;
+	}
+	
+	/**
+	 * Returns the number of IDs registered, which is one more than the largest handle.
+	 * @return The number of IDs.
+	 */
+	public static int size() {
+		return size.get();
+	}
+	
+}
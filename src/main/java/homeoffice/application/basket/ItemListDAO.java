@@ -1,7 +1,13 @@
 package homeoffice.application.basket;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Simple DAO implementation using a {@code List}.
@@ -23,11 +29,35 @@ public class ItemListDAO implements ItemDAO {
 	}
 	
 	public Item getItem(String id) {
+		// An ID that has never been registered cannot belong to any item
+		int handle = ItemIdRegistry.find(id);
+		if (handle == ItemIdRegistry.NULL_HANDLE)
+			return null;
 		for (Item item : items)
-			if (item.hasId(id))
+			if (item.getHandle() == handle)
 				return item;
 		return null;
 	}
+	
+	/**
+	 * {@inheritDoc} The list is searched once for all of the IDs, rather than once per ID.
+	 */
+	public Map<String, Item> getItems(Collection<String> ids) {
+		// Handles of the IDs still to be found; unregistered IDs cannot belong to any item
+		Set<Integer> wanted = new HashSet<>((int) Math.ceil(ids.size() / 0.75d));
+		for (String id : ids) {
+			int handle = ItemIdRegistry.find(id);
+			if (handle != ItemIdRegistry.NULL_HANDLE)
+				wanted.add(handle);
+		}
+		Map<String, Item> found = new HashMap<>((int) Math.ceil(wanted.size() / 0.75d));
+		for (Iterator<Item> iterator = items.iterator(); iterator.hasNext() && !wanted.isEmpty();) {
+			Item item = iterator.next();
+			if (wanted.remove(item.getHandle()))
+				found.put(item.getId(), item);
+		}
+		return found;
+	}
 
 	public boolean updateItem(Item updatedItem) {
 		int itemIndex = items.indexOf(updatedItem);
@@ -44,6 +74,25 @@ public class ItemListDAO implements ItemDAO {
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc} The IDs of the items already in the list are gathered into a hash set first,
+	 * so each new item is checked in constant time rather than by searching the list.
+	 */
+	public int addItems(Iterator<? extends Item> newItems) {
+		Set<Integer> handles = new HashSet<>((int) Math.ceil(items.size() / 0.75d));
+		for (Item item : items)
+			handles.add(item.getHandle());
+		int added = 0;
+		while (newItems.hasNext()) {
+			Item item = newItems.next();
+			if (handles.add(item.getHandle())) {
+				items.add(item);
+				added++;
+			}
+		}
+		return added;
+	}
+
 	public boolean removeItem(Item item) {
 		return items.remove(item);
 	}
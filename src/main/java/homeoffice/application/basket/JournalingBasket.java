@@ -0,0 +1,205 @@
+package homeoffice.application.basket;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A {@code Basket} that records every change made to it in a {@code BasketJournal}, so that it can
+ * be rebuilt after a restart. All operations are delegated to an underlying basket, which should
+ * not be modified other than through this {@code JournalingBasket}.<br>
+ * <br>
+ * A change is recorded only once the underlying basket has accepted it, so operations that throw
+ * leave the journal unchanged. Once the journal has been closed, or has failed to sync, changes are
+ * refused with an {@code IllegalStateException} before the underlying basket is touched. Whether
+ * a change has reached the disk when its method returns depends on the journal's {@code
+ * SyncPolicy}.<br>
+ * <br>
+ * Changes are recorded in the order they are made, so this implementation of {@code Basket} is
+ * as thread safe as the basket it wraps.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.BasketJournal#recover(ItemDAO, Supplier)
+ */
+public class JournalingBasket implements Basket {
+	
+	private final String basketId;
+	private final Basket basket;
+	private final BasketJournal journal;
+	
+	/**
+	 * Creates a new {@code JournalingBasket}. Any items already in the basket must already have
+	 * been recorded in the journal, for example because the basket was returned by {@code
+	 * BasketJournal.recover}.
+	 * @param basketId The ID under which the basket's changes are recorded.
+	 * @param basket The basket to which all changes are made.
+	 * @param journal The journal in which changes are recorded.
+	 */
+	public JournalingBasket(String basketId, Basket basket, BasketJournal journal) {
+		this.basketId = basketId;
+		this.basket = basket;
+		this.journal = journal;
+	}
+	
+	/**
+	 * Returns the ID under which the basket's changes are recorded.
+	 * @return The basket ID.
+	 */
+	public String getBasketId() {
+		return basketId;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public int addItem(Item item) throws UncheckedIOException {
+		return addItem(item, 1);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException, UncheckedIOException {
+		int[] newQuantity = new int[1];
+		record(() -> {
+			newQuantity[0] = basket.addItem(item, quantity);
+			return journal.appendAdd(basketId, item, quantity);
+		});
+		return newQuantity[0];
+	}
+	
+	/**
+	 * {@inheritDoc} The batch is recorded as a single change.
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException, UncheckedIOException {
+		record(() -> {
+			basket.addAll(items);
+			return journal.appendAddAll(basketId, items);
+		});
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public int removeItem(Item item) throws UncheckedIOException {
+		int[] newQuantity = new int[1];
+		record(() -> {
+			newQuantity[0] = basket.removeItem(item);
+			return journal.appendRemove(basketId, item);
+		});
+		return newQuantity[0];
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public void removeAll(Item item) throws UncheckedIOException {
+		record(() -> {
+			basket.removeAll(item);
+			return journal.appendRemoveAll(basketId, item);
+		});
+	}
+	
+	/**
+	 * {@inheritDoc} The batch is recorded as a single change.
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public void removeAll(Collection<? extends Item> items) throws UncheckedIOException {
+		record(() -> {
+			basket.removeAll(items);
+			return journal.appendRemoveAll(basketId, items);
+		});
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @throws UncheckedIOException Thrown if the change cannot be synced to disk. The change has
+	 * 		still been made.
+	 */
+	@Override
+	public void clear() throws UncheckedIOException {
+		record(() -> {
+			basket.clear();
+			return journal.appendClear(basketId);
+		});
+	}
+	
+	/**
+	 * Makes a change and appends it to the journal as one step, so that changes are journaled in
+	 * the order they are made and never fall between a snapshot and the log. The journal is
+	 * checked first, so that a change it would refuse is never made. The wait for the
+	 * change to be synced happens afterwards, so that other threads' changes can be synced with
+	 * it.
+	 * @param change Makes the change, appends it to the journal and returns its sequence number.
+	 */
+	private void record(LongSupplier change) throws UncheckedIOException {
+		long sequence;
+		Lock lock = journal.mutationLock();
+		lock.lock();
+		try {
+			journal.checkWritable();
+			synchronized (this) {
+				sequence = change.getAsLong();
+			}
+		} finally {
+			lock.unlock();
+		}
+		journal.awaitDurable(sequence);
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		return basket.contains(item);
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		return basket.getQuantity(item);
+	}
+	
+	@Override
+	public double getTotalCost() {
+		return basket.getTotalCost();
+	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		return basket.getTotalCostInMinorUnits(scale);
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return basket.iterator();
+	}
+	
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return basket.spliterator();
+	}
+	
+}
@@ -0,0 +1,199 @@
+package homeoffice.application.basket;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative {@code long} values, such as latencies in nanoseconds or basket
+ * sizes, in the style of an HDR histogram. Values below 64 are counted exactly. Larger values are
+ * counted in 32 buckets per power of two, so every value is counted within about 3% of its true
+ * value, over the whole range of {@code long}, in a fixed 15KB of counts.<br>
+ * <br>
+ * Recording a value takes a few shifts and a single atomic increment, without locking or
+ * allocating. A {@code Snapshot} of the counts can be taken at any time to read percentiles.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ */
+public final class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	
+	/**
+	 * Records a value. Negative values are recorded as {@code 0}.
+	 * @param value The value.
+	 */
+	public void record(long value) {
+		counts.getAndIncrement(indexOf(Math.max(0L, value)));
+	}
+	
+	/**
+	 * Clears every count. Values recorded while the histogram is being reset may or may not be
+	 * kept.
+	 */
+	public void reset() {
+		for (int index = 0; index < BUCKET_COUNT; index++)
+			counts.set(index, 0L);
+	}
+	
+	/**
+	 * Returns a copy of the current counts. Values recorded while the snapshot is being taken may
+	 * or may not be included.
+	 * @return The snapshot.
+	 */
+	public Snapshot snapshot() {
+		long[] snapshotCounts = new long[BUCKET_COUNT];
+		for (int index = 0; index < BUCKET_COUNT; index++)
+			snapshotCounts[index] = counts.get(index);
+		return new Snapshot(snapshotCounts);
+	}
+	
+	/**
+	 * Returns the bucket in which the given non-negative value is counted.
+	 */
+	static int indexOf(long value) {
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		if (magnitude < SUB_BUCKET_BITS)
+			return (int) value;
+		int shift = magnitude - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+	}
+	
+	/**
+	 * Returns the lowest value counted in the given bucket.
+	 */
+	static long lowestValue(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT)
+			return index;
+		int shift = (index >> SUB_BUCKET_BITS) - 1;
+		return (long) ((index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT) << shift;
+	}
+	
+	/**
+	 * Returns the highest value counted in the given bucket.
+	 */
+	static long highestValue(int index) {
+		return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValue(index + 1) - 1;
+	}
+	
+	
+	/**
+	 * An immutable copy of the counts of a {@code LatencyHistogram}. Values read from a snapshot
+	 * are the highest value that could have been counted in the bucket concerned, so they are
+	 * never lower than the true value.
+	 */
+	public static final class Snapshot {
+		
+		private final long[] counts;
+		private final long totalCount;
+		
+		private Snapshot(long[] counts) {
+			this.counts = counts;
+			long total = 0L;
+			for (long count : counts)
+				total += count;
+			this.totalCount = total;
+		}
+		
+		/**
+		 * Returns the number of values recorded.
+		 * @return The number of values.
+		 */
+		public long getCount() {
+			return totalCount;
+		}
+		
+		/**
+		 * Returns the mean of the values recorded, taking each value as the middle of its bucket.
+		 * @return The mean, or {@code 0} if no values were recorded.
+		 */
+		public double getMean() {
+			if (totalCount == 0L)
+				return 0d;
+			double sum = 0d;
+			for (int index = 0; index < counts.length; index++) {
+				if (counts[index] != 0L) {
+					double middle = (lowestValue(index) / 2d) + (highestValue(index) / 2d);
+					sum += middle * counts[index];
+				}
+			}
+			return sum / totalCount;
+		}
+		
+		/**
+		 * Returns the largest value recorded.
+		 * @return The largest value, or {@code 0} if no values were recorded.
+		 */
+		public long getMax() {
+			for (int index = counts.length - 1; index >= 0; index--)
+				if (counts[index] != 0L)
+					return highestValue(index);
+			return 0L;
+		}
+		
+		/**
+		 * Returns the value below which the given percentage of the values recorded fall.
+		 * @param percentile The percentile, e.g. {@code 99.9}.
+		 * @return The value at the percentile, or {@code 0} if no values were recorded.
+		 * @throws IllegalArgumentException Thrown if {@code percentile < 0} or {@code percentile >
+		 * 		100}.
+		 */
+		public long getValueAtPercentile(double percentile) throws IllegalArgumentException {
+			if (!(percentile >= 0d && percentile <= 100d))
+				throw new IllegalArgumentException("Percentile must be between 0 and 100");
+			if (totalCount == 0L)
+				return 0L;
+			long rank = Math.max(1L, (long) Math.ceil(percentile / 100d * totalCount));
+			long seen = 0L;
+			for (int index = 0; index < counts.length; index++) {
+				seen += counts[index];
+				if (seen >= rank)
+					return highestValue(index);
+			}
+			return getMax();
+		}
+		
+		/**
+		 * Returns the median of the values recorded.
+		 * @return {@code getValueAtPercentile(50)}.
+		 */
+		public long getMedian() {
+			return getValueAtPercentile(50d);
+		}
+		
+		/**
+		 * Returns the 90th percentile of the values recorded.
+		 * @return {@code getValueAtPercentile(90)}.
+		 */
+		public long get90thPercentile() {
+			return getValueAtPercentile(90d);
+		}
+		
+		/**
+		 * Returns the 99th percentile of the values recorded.
+		 * @return {@code getValueAtPercentile(99)}.
+		 */
+		public long get99thPercentile() {
+			return getValueAtPercentile(99d);
+		}
+		
+		/**
+		 * Returns the 99.9th percentile of the values recorded.
+		 * @return {@code getValueAtPercentile(99.9)}.
+		 */
+		public long get999thPercentile() {
+			return getValueAtPercentile(99.9d);
+		}
+		
+		@Override
+		public String toString() {
+			return "count=" + totalCount + ", mean=" + getMean() + ", p50=" + getMedian()
+					+ ", p99=" + get99thPercentile() + ", max=" + getMax();
+		}
+	}
+	
+}
@@ -7,23 +7,47 @@ package homeoffice.application.basket;
  */
 public class ListDAOFactory extends DAOFactory {
 	
-	private static ListDAOFactory self;
-
 	private final ItemDAO itemDAO = new ItemListDAO();
 	
 	private ListDAOFactory() {}
 	
 	/**
-	 * Returns the {@code ListDAOFactory} object.
+	 * Returns the {@code ListDAOFactory} object, creating it on first use. Concurrent
+	 * first calls all receive the same object.
 	 * @return The {@code ListDAOFactory} object.
 	 */
 	public static ListDAOFactory getInstance() {
-		if (self == null)
-			self = new ListDAOFactory();
-		return self;
+		return Holder.INSTANCE;
 	}
 	
 	public ItemDAO getItemDAO() {
 		return itemDAO;
 	}
+	
+	
+	/**
+	 * Holds the single {@code ListDAOFactory}, which the JVM creates exactly once, when {@code
+	 * getInstance()} first reads it.
+	 */
+	private static final class Holder {
+		
+		static final ListDAOFactory INSTANCE = new ListDAOFactory();
+	}
+	
+	
+	/**
+	 * Provides the {@code "list"} backend to {@code DAOFactory}.
+	 */
+	public static final class Provider implements DAOFactoryProvider {
+		
+		@Override
+		public String getName() {
+			return "list";
+		}
+		
+		@Override
+		public DAOFactory getDAOFactory() {
+			return getInstance();
+		}
+	}
 }
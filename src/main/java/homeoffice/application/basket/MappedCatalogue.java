@@ -0,0 +1,82 @@
+package homeoffice.application.basket;
+
+/**
+ * Layout of the catalogue files read by {@code MappedItemDAO} and written by {@code
+ * MappedCatalogueWriter}. All values are big-endian.<br>
+ * <br>
+ * The file starts with a header of {@code HEADER_SIZE} bytes:
+ * <ul>
+ * <li>{@code int} magic number, {@code MAGIC}</li>
+ * <li>{@code int} format version, {@code VERSION}</li>
+ * <li>{@code int} number of items</li>
+ * <li>{@code int} number of index slots, a power of two</li>
+ * <li>{@code long} offset of the index</li>
+ * <li>{@code long} reserved, {@code 0}</li>
+ * </ul>
+ * followed by one record per item:
+ * <ul>
+ * <li>{@code int} length of the ID in bytes, followed by the UTF-8 encoded ID</li>
+ * <li>{@code int} length of the name in bytes, followed by the UTF-8 encoded name. A length of
+ * {@code -1} represents a {@code null} name</li>
+ * <li>{@code long} price in minor units</li>
+ * <li>{@code int} price scale</li>
+ * </ul>
+ * followed by the index, an open addressing hash table of {@code long} slots. The high 32 bits of
+ * each slot hold the hash of the item's ID and the low 32 bits hold the offset of its record, or
+ * {@code 0} if the slot is empty. Collisions are resolved by linear probing.
+ * 
+ * @author Richard Innocent
+ */
+final class MappedCatalogue {
+	
+	static final int MAGIC = 0x42534B43;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	
+	static final int ITEM_COUNT_OFFSET = 8;
+	static final int SLOT_COUNT_OFFSET = 12;
+	static final int INDEX_OFFSET_OFFSET = 16;
+	
+	/**
+	 * The largest file that can be mapped into a single buffer.
+	 */
+	static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+	
+	private MappedCatalogue() {}
+	
+	/**
+	 * Returns the hash under which an item ID is indexed.
+	 * @param id The item ID.
+	 * @return The hash.
+	 */
+	static int hash(String id) {
+		int hash = id.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Returns the number of index slots for the given number of items, keeping the index at most
+	 * half full.
+	 * @param itemCount The number of items.
+	 * @return The number of slots, a power of two.
+	 */
+	static int slotCount(int itemCount) {
+		int slots = 2;
+		while (slots < itemCount * 2L)
+			slots <<= 1;
+		return slots;
+	}
+	
+	static long slot(int hash, int recordOffset) {
+		return ((long) hash << 32) | (recordOffset & 0xFFFFFFFFL);
+	}
+	
+	static int slotHash(long slot) {
+		return (int) (slot >>> 32);
+	}
+	
+	static int slotRecordOffset(long slot) {
+		return (int) slot;
+	}
+	
+}
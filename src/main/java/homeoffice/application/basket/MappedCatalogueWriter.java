@@ -0,0 +1,154 @@
+package homeoffice.application.basket;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Writes catalogue files that can be served by {@code MappedItemDAO}.<br>
+ * <br>
+ * This class can also be run from the command line to convert a CSV file of {@code id,name,price}
+ * lines into a catalogue file:<br>
+ * {@code java homeoffice.application.basket.MappedCatalogueWriter items.csv catalogue.bin}
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.MappedItemDAO
+ * @see homeoffice.application.basket.MappedCatalogue
+ */
+public final class MappedCatalogueWriter {
+	
+	private MappedCatalogueWriter() {}
+	
+	/**
+	 * Writes the given items to a new catalogue file, replacing any existing file. If more than one
+	 * item has the same ID, only the first is written.
+	 * @param file The catalogue file.
+	 * @param items The items.
+	 * @return The number of items written.
+	 * @throws IOException Thrown if the file cannot be written, or the catalogue would exceed 2GB.
+	 */
+	public static int write(Path file, Iterable<? extends Item> items) throws IOException {
+		return write(file, items.iterator());
+	}
+	
+	/**
+	 * Writes the given items to a new catalogue file, replacing any existing file. If more than one
+	 * item has the same ID, only the first is written.
+	 * @param file The catalogue file.
+	 * @param items The items.
+	 * @return The number of items written.
+	 * @throws IOException Thrown if the file cannot be written, or the catalogue would exceed 2GB.
+	 */
+	public static int write(Path file, Iterator<? extends Item> items) throws IOException {
+		Set<String> writtenIds = new HashSet<>();
+		int[] hashes = new int[1024];
+		int[] recordOffsets = new int[1024];
+		int itemCount = 0;
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			out.write(new byte[MappedCatalogue.HEADER_SIZE]);
+			long offset = MappedCatalogue.HEADER_SIZE;
+			
+			while (items.hasNext()) {
+				Item item = items.next();
+				if (!writtenIds.add(item.getId()))
+					continue;
+				if (itemCount == hashes.length) {
+					hashes = Arrays.copyOf(hashes, itemCount * 2);
+					recordOffsets = Arrays.copyOf(recordOffsets, itemCount * 2);
+				}
+				hashes[itemCount] = MappedCatalogue.hash(item.getId());
+				recordOffsets[itemCount] = (int) offset;
+				itemCount++;
+				offset += writeRecord(out, item);
+				checkSize(offset);
+			}
+			
+			int slotCount = MappedCatalogue.slotCount(itemCount);
+			long[] index = new long[slotCount];
+			for (int i = 0; i < itemCount; i++) {
+				int slotIndex = hashes[i] & (slotCount - 1);
+				while (index[slotIndex] != 0L)
+					slotIndex = (slotIndex + 1) & (slotCount - 1);
+				index[slotIndex] = MappedCatalogue.slot(hashes[i], recordOffsets[i]);
+			}
+			long indexOffset = offset;
+			checkSize(indexOffset + slotCount * 8L);
+			for (long slot : index)
+				out.writeLong(slot);
+			out.flush();
+			
+			ByteBuffer header = ByteBuffer.allocate(MappedCatalogue.HEADER_SIZE);
+			header.putInt(MappedCatalogue.MAGIC);
+			header.putInt(MappedCatalogue.VERSION);
+			header.putInt(itemCount);
+			header.putInt(slotCount);
+			header.putLong(indexOffset);
+			header.putLong(0L);
+			header.flip();
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+		}
+		return itemCount;
+	}
+	
+	private static int writeRecord(DataOutputStream out, Item item) throws IOException {
+		byte[] id = item.getId().getBytes(StandardCharsets.UTF_8);
+		byte[] name = item.getName() == null
+				? null : item.getName().getBytes(StandardCharsets.UTF_8);
+		out.writeInt(id.length);
+		out.write(id);
+		if (name == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(name.length);
+			out.write(name);
+		}
+		out.writeLong(item.getMinorUnitPrice());
+		out.writeInt(item.getPriceScale());
+		return 4 + id.length + 4 + (name == null ? 0 : name.length) + 8 + 4;
+	}
+	
+	private static void checkSize(long size) throws IOException {
+		if (size > MappedCatalogue.MAX_FILE_SIZE)
+			throw new IOException("Catalogue exceeds the maximum size of "
+					+ MappedCatalogue.MAX_FILE_SIZE + " bytes");
+	}
+	
+	/**
+	 * Converts a CSV file of {@code id,name,price} lines into a catalogue file. Names may contain
+	 * commas, but IDs may not. A first line of {@code id,name,price} is treated as a header. The
+	 * CSV file is read and parsed in parallel chunks as the catalogue is written, so it is never
+	 * held in memory as a whole.
+	 * @param args The CSV file and the catalogue file to be written.
+	 * @throws IOException Thrown if either file cannot be read or written.
+	 * @see homeoffice.application.basket.ItemCsvReader
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: MappedCatalogueWriter <items.csv> <catalogue file>");
+			System.exit(1);
+		}
+		
+		int written;
+		try (ItemCsvReader items = ItemCsvReader.open(Paths.get(args[0]), true)) {
+			written = write(Paths.get(args[1]), items);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		System.out.println("Wrote " + written + " items to " + args[1]);
+	}
+	
+}
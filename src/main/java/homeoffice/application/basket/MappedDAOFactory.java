@@ -0,0 +1,83 @@
+package homeoffice.application.basket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * Factory object for retrieving all DAOs backed by memory-mapped catalogue files. The catalogue
+ * file is given by the {@code CATALOGUE_PROPERTY} system property.
+ *  
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.MappedItemDAO
+ */
+public class MappedDAOFactory extends DAOFactory {
+	
+	/**
+	 * The system property holding the path of the catalogue file.
+	 */
+	public static final String CATALOGUE_PROPERTY = "homeoffice.basket.catalogue";
+	
+	/**
+	 * The single {@code MappedDAOFactory}, once the catalogue has been mapped. It is created with
+	 * double-checked locking rather than a holder class, so that a failure to map the catalogue
+	 * can be retried.
+	 */
+	private static volatile MappedDAOFactory self;
+	
+	private final ItemDAO itemDAO;
+	
+	private MappedDAOFactory(ItemDAO itemDAO) {
+		this.itemDAO = itemDAO;
+	}
+	
+	/**
+	 * Returns the {@code MappedDAOFactory} object, mapping the catalogue file on first use. Once
+	 * the catalogue has been mapped, this method does not lock.
+	 * @return The {@code MappedDAOFactory} object.
+	 * @throws IllegalStateException Thrown if the {@code CATALOGUE_PROPERTY} system property is not
+	 * 		set.
+	 * @throws UncheckedIOException Thrown if the catalogue file cannot be mapped.
+	 */
+	public static MappedDAOFactory getInstance()
+			throws IllegalStateException, UncheckedIOException {
+		MappedDAOFactory instance = self;
+		if (instance != null)
+			return instance;
+		synchronized (MappedDAOFactory.class) {
+			if (self == null) {
+				String catalogue = System.getProperty(CATALOGUE_PROPERTY);
+				if (catalogue == null)
+					throw new IllegalStateException("The " + CATALOGUE_PROPERTY
+							+ " system property must give the catalogue file");
+				try {
+					self = new MappedDAOFactory(new MappedItemDAO(Paths.get(catalogue)));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Could not map catalogue " + catalogue, e);
+				}
+			}
+			return self;
+		}
+	}
+	
+	public ItemDAO getItemDAO() {
+		return itemDAO;
+	}
+	
+	
+	/**
+	 * Provides the {@code "mapped"} backend to {@code DAOFactory}.
+	 */
+	public static final class Provider implements DAOFactoryProvider {
+		
+		@Override
+		public String getName() {
+			return "mapped";
+		}
+		
+		@Override
+		public DAOFactory getDAOFactory() {
+			return getInstance();
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package homeoffice.application.basket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Read-only DAO implementation serving items from a memory-mapped catalogue file, as written by
+ * {@code MappedCatalogueWriter}. The file is indexed by item ID, so lookups run in constant time,
+ * and opening a catalogue only maps the file rather than loading it, so it is near-instant
+ * regardless of the catalogue's size. The catalogue lives in the page cache rather than on the
+ * heap, and is shared between all processes that map the same file.<br>
+ * <br>
+ * Each call to {@code getItem} returns a new {@code Item} view of the item's record. The name is
+ * only decoded from the file when it is first requested. Changes made to these items are not
+ * written back to the catalogue, and {@code addItem}, {@code updateItem} and {@code removeItem}
+ * always return {@code false}: to change the catalogue, write a new file.<br>
+ * <br>
+ * Catalogue files are limited to 2GB. This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.MappedCatalogueWriter
+ * @see homeoffice.application.basket.MappedCatalogue
+ */
+public class MappedItemDAO implements ItemDAO {
+	
+	private final ByteBuffer catalogue;
+	private final int itemCount;
+	private final int slotMask;
+	private final int indexOffset;
+	
+	/**
+	 * Maps the given catalogue file.
+	 * @param file The catalogue file.
+	 * @throws IOException Thrown if the file cannot be read or is not a valid catalogue.
+	 */
+	public MappedItemDAO(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < MappedCatalogue.HEADER_SIZE || size > MappedCatalogue.MAX_FILE_SIZE)
+				throw new IOException(file + " is not a valid catalogue: unexpected size " + size);
+			catalogue = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+		}
+		
+		if (catalogue.getInt(0) != MappedCatalogue.MAGIC)
+			throw new IOException(file + " is not a catalogue file");
+		int version = catalogue.getInt(4);
+		if (version != MappedCatalogue.VERSION)
+			throw new IOException(file + " has unsupported catalogue version " + version);
+		
+		itemCount = catalogue.getInt(MappedCatalogue.ITEM_COUNT_OFFSET);
+		int slotCount = catalogue.getInt(MappedCatalogue.SLOT_COUNT_OFFSET);
+		long index = catalogue.getLong(MappedCatalogue.INDEX_OFFSET_OFFSET);
+		if (Integer.bitCount(slotCount) != 1 || index + slotCount * 8L != catalogue.capacity())
+			throw new IOException(file + " is not a valid catalogue: corrupt index");
+		slotMask = slotCount - 1;
+		indexOffset = (int) index;
+	}
+	
+	/**
+	 * Returns the number of items in the catalogue.
+	 * @return The number of items.
+	 */
+	public int size() {
+		return itemCount;
+	}
+	
+	@Override
+	public Item getItem(String id) {
+		if (id == null)
+			return null;
+		int hash = MappedCatalogue.hash(id);
+		int slotIndex = hash & slotMask;
+		while (true) {
+			long slot = catalogue.getLong(indexOffset + slotIndex * 8);
+			int recordOffset = MappedCatalogue.slotRecordOffset(slot);
+			if (recordOffset == 0)
+				return null;
+			if (MappedCatalogue.slotHash(slot) == hash && idMatches(recordOffset, id))
+				return readItem(recordOffset, id);
+			slotIndex = (slotIndex + 1) & slotMask;
+		}
+	}
+	
+	private boolean idMatches(int recordOffset, String id) {
+		int idLength = catalogue.getInt(recordOffset);
+		int idStart = recordOffset + 4;
+		
+		// IDs are usually ASCII, so compare them without decoding where possible
+		if (idLength == id.length()) {
+			boolean ascii = true;
+			for (int i = 0; i < idLength; i++) {
+				byte b = catalogue.get(idStart + i);
+				if (b < 0) {
+					ascii = false;
+					break;
+				}
+				if (b != id.charAt(i))
+					return false;
+			}
+			if (ascii)
+				return true;
+		}
+		return id.equals(readString(idStart, idLength));
+	}
+	
+	private String readString(int start, int length) {
+		byte[] bytes = new byte[length];
+		catalogue.slice().position(start).get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private Item readItem(int recordOffset, String id) {
+		int nameOffset = recordOffset + 4 + catalogue.getInt(recordOffset);
+		int nameLength = Math.max(catalogue.getInt(nameOffset), 0);
+		int priceOffset = nameOffset + 4 + nameLength;
+		int priceScale = catalogue.getInt(priceOffset + 8);
+		MinorUnits.checkScale(priceScale);
+		return new MappedItem(id, nameOffset, catalogue.getLong(priceOffset), priceScale);
+	}
+	
+	/**
+	 * The catalogue is read-only, so no item can be updated.
+	 * @return {@code false}.
+	 */
+	@Override
+	public boolean updateItem(Item updatedItem) {
+		return false;
+	}
+	
+	/**
+	 * The catalogue is read-only, so no item can be added.
+	 * @return {@code false}.
+	 */
+	@Override
+	public boolean addItem(Item item) {
+		return false;
+	}
+	
+	/**
+	 * The catalogue is read-only, so no items can be added, and none are consumed.
+	 * @return {@code 0}.
+	 */
+	@Override
+	public int addItems(Iterator<? extends Item> newItems) {
+		return 0;
+	}
+	
+	/**
+	 * The catalogue is read-only, so no item can be removed.
+	 * @return {@code false}.
+	 */
+	@Override
+	public boolean removeItem(Item item) {
+		return false;
+	}
+	
+	
+	/**
+	 * An {@code Item} whose name is decoded from the catalogue the first time it is requested.
+	 * Its ID is only registered with the {@code ItemIdRegistry} once the item is compared or
+	 * hashed, so that looking items up does not fill the registry with the catalogue.
+	 */
+	private final class MappedItem extends Item {
+		
+		private int nameOffset;
+		
+		MappedItem(String id, int nameOffset, long minorUnitPrice, int priceScale) {
+			this(id, ItemIdRegistry.find(id), nameOffset, minorUnitPrice, priceScale);
+		}
+		
+		private MappedItem(String id, int handle, int nameOffset, long minorUnitPrice,
+				int priceScale) {
+			super(handle == ItemIdRegistry.NULL_HANDLE ? id : ItemIdRegistry.getId(handle), handle,
+					null, MinorUnits.toDouble(minorUnitPrice, priceScale), minorUnitPrice,
+					priceScale);
+			this.nameOffset = nameOffset;
+		}
+		
+		@Override
+		public int getHandle() {
+			int handle = super.getHandle();
+			if (handle == ItemIdRegistry.NULL_HANDLE) {
+				super.setId(getId());
+				handle = super.getHandle();
+			}
+			return handle;
+		}
+		
+		@Override
+		public String getName() {
+			if (nameOffset != 0) {
+				int nameLength = catalogue.getInt(nameOffset);
+				super.setName(nameLength < 0 ? null : readString(nameOffset + 4, nameLength));
+				nameOffset = 0;
+			}
+			return super.getName();
+		}
+		
+		@Override
+		public void setName(String name) {
+			nameOffset = 0;
+			super.setName(name);
+		}
+	}
+	
+}
@@ -0,0 +1,99 @@
+package homeoffice.application.basket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for exact arithmetic on amounts of money held as a {@code long} number of minor units
+ * (e.g. pence or cents) together with a decimal scale, so that {@code 1234} at scale {@code 2}
+ * represents {@code 12.34}.
+ * 
+ * @author Richard Innocent
+ */
+final class MinorUnits {
+	
+	/**
+	 * The largest supported scale. {@code 10^MAX_SCALE} is the largest power of ten that fits in a
+	 * {@code long}.
+	 */
+	static final int MAX_SCALE = 18;
+	
+	private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+	
+	static {
+		POWERS_OF_TEN[0] = 1L;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+	}
+	
+	private MinorUnits() {}
+	
+	/**
+	 * Verifies that the given scale is supported.
+	 * @param scale The scale.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > MAX_SCALE}.
+	 */
+	static void checkScale(int scale) throws IllegalArgumentException {
+		if (scale < 0 || scale > MAX_SCALE)
+			throw new IllegalArgumentException(
+					"Scale must be between 0 and " + MAX_SCALE + " but was " + scale);
+	}
+	
+	/**
+	 * Returns {@code 10^scale}.
+	 * @param scale The scale, which must be supported.
+	 * @return {@code 10^scale}.
+	 */
+	static long powerOfTen(int scale) {
+		return POWERS_OF_TEN[scale];
+	}
+	
+	/**
+	 * Converts an amount from one scale to another without any loss of precision.
+	 * @param amount The amount in minor units at {@code fromScale}.
+	 * @param fromScale The current scale of the amount.
+	 * @param toScale The required scale.
+	 * @return The amount in minor units at {@code toScale}.
+	 * @throws ArithmeticException Thrown if the amount cannot be represented exactly at {@code
+	 * 		toScale}, or if the result overflows a {@code long}.
+	 */
+	static long rescale(long amount, int fromScale, int toScale) throws ArithmeticException {
+		if (fromScale == toScale)
+			return amount;
+		if (toScale > fromScale)
+			return Math.multiplyExact(amount, POWERS_OF_TEN[toScale - fromScale]);
+		long divisor = POWERS_OF_TEN[fromScale - toScale];
+		if (amount % divisor != 0)
+			throw new ArithmeticException("Amount " + amount + " at scale " + fromScale
+					+ " cannot be represented exactly at scale " + toScale);
+		return amount / divisor;
+	}
+	
+	/**
+	 * Converts a decimal amount into minor units, rounding half away from zero. The amount is
+	 * rounded from its shortest decimal representation, so {@code 1.005} at scale {@code 2} becomes
+	 * {@code 101} rather than the {@code 100} that binary floating point arithmetic would give.
+	 * @param amount The amount.
+	 * @param scale The scale, which must be supported.
+	 * @return The amount in minor units.
+	 * @throws ArithmeticException Thrown if the amount is not finite, or does not fit in a {@code
+	 * 		long} at the given scale.
+	 */
+	static long fromDouble(double amount, int scale) throws ArithmeticException {
+		if (Double.isNaN(amount) || Double.isInfinite(amount))
+			throw new ArithmeticException("Amount must be finite but was " + amount);
+		return BigDecimal.valueOf(amount).setScale(scale, RoundingMode.HALF_UP).unscaledValue()
+				.longValueExact();
+	}
+	
+	/**
+	 * Converts an amount in minor units into a decimal amount.
+	 * @param amount The amount in minor units.
+	 * @param scale The scale, which must be supported.
+	 * @return The decimal amount.
+	 */
+	static double toDouble(long amount, int scale) {
+		return (double) amount / POWERS_OF_TEN[scale];
+	}
+	
+}
@@ -0,0 +1,54 @@
+package homeoffice.application.basket;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A multi-buy promotion on a single item, such as "3 for 2": for every {@code buyQuantity} units
+ * of the item in the basket, only {@code payQuantity} are charged.
+ * 
+ * @author Richard Innocent
+ */
+public class MultiBuyRule implements PromotionRule {
+	
+	private final String itemId;
+	private final int buyQuantity;
+	private final int payQuantity;
+	
+	/**
+	 * Creates a new multi-buy rule.
+	 * @param itemId The ID of the item on promotion.
+	 * @param buyQuantity The number of units that make up one multi-buy.
+	 * @param payQuantity The number of units charged for each multi-buy.
+	 * @throws IllegalArgumentException Thrown if {@code buyQuantity < 1}, {@code payQuantity < 0}
+	 * 		or {@code payQuantity >= buyQuantity}.
+	 */
+	public MultiBuyRule(String itemId, int buyQuantity, int payQuantity)
+			throws IllegalArgumentException {
+		if (buyQuantity < 1 || payQuantity < 0 || payQuantity >= buyQuantity)
+			throw new IllegalArgumentException("Must pay for fewer items than are bought");
+		this.itemId = itemId;
+		this.buyQuantity = buyQuantity;
+		this.payQuantity = payQuantity;
+	}
+	
+	@Override
+	public Collection<String> getItemIds() {
+		return Collections.singleton(itemId);
+	}
+	
+	@Override
+	public long getDiscountInMinorUnits(Lines lines, int scale) throws ArithmeticException {
+		int multiBuys = lines.getQuantity(itemId) / buyQuantity;
+		if (multiBuys == 0)
+			return 0L;
+		long freeItems = (long) multiBuys * (buyQuantity - payQuantity);
+		return Math.multiplyExact(lines.getUnitPriceInMinorUnits(itemId, scale), freeItems);
+	}
+	
+	@Override
+	public String toString() {
+		return buyQuantity + " for " + payQuantity + " on " + itemId;
+	}
+	
+}
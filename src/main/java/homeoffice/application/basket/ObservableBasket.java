@@ -0,0 +1,167 @@
+package homeoffice.application.basket;
+
+import java.util.*;
+
+/**
+ * A {@code Basket} that publishes a {@code BasketChangeEvent} for every change to the quantity of
+ * an item, so that other services can follow the basket without polling it. All operations are
+ * delegated to an underlying basket, which should not be modified other than through this {@code
+ * ObservableBasket}.<br>
+ * <br>
+ * Events are handed to a {@code BasketEventPublisher}, which delivers them to its listeners on a
+ * background thread. Making a change therefore costs only a lookup of the item's old quantity and
+ * a non-blocking publish, however slow the listeners are. Operations that leave a quantity
+ * unchanged, such as removing an item that is not in the basket, publish nothing.<br>
+ * <br>
+ * Changes are made and published as one step, so the events for each basket are delivered in
+ * the order the changes were made. To do this, every change holds this {@code ObservableBasket}'s
+ * monitor, so changes to the same basket are serialised even if the basket it wraps is a {@code
+ * ConcurrentBasket}: concurrent writers to one basket get no more throughput than a single
+ * writer. Reads are not synchronised. This implementation of {@code Basket} is thread safe if the
+ * basket it wraps is safe for concurrent reads alongside a single writer.
+ * 
+ * @author Richard Innocent
+ */
+public class ObservableBasket implements Basket {
+	
+	private final String basketId;
+	private final Basket basket;
+	private final BasketEventPublisher publisher;
+	
+	/**
+	 * Creates a new {@code ObservableBasket}. No events are published for the items already in the
+	 * basket.
+	 * @param basketId The ID of the basket, which is given in each event.
+	 * @param basket The basket to which all changes are made.
+	 * @param publisher The publisher through which events are delivered.
+	 */
+	public ObservableBasket(String basketId, Basket basket, BasketEventPublisher publisher) {
+		this.basketId = basketId;
+		this.basket = basket;
+		this.publisher = publisher;
+	}
+	
+	/**
+	 * Returns the ID of the basket, which is given in each event.
+	 * @return The basket ID.
+	 */
+	public String getBasketId() {
+		return basketId;
+	}
+	
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	@Override
+	public synchronized int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		int newQuantity = basket.addItem(item, quantity);
+		publish(item, newQuantity - quantity, newQuantity);
+		return newQuantity;
+	}
+	
+	/**
+	 * {@inheritDoc} An event is published for each item in the batch.
+	 */
+	@Override
+	public synchronized void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		int[] oldQuantities = getQuantities(items.keySet());
+		basket.addAll(items);
+		publishChanges(items.keySet(), oldQuantities);
+	}
+	
+	@Override
+	public synchronized int removeItem(Item item) {
+		int oldQuantity = basket.getQuantity(item);
+		int newQuantity = basket.removeItem(item);
+		publish(item, oldQuantity, newQuantity);
+		return newQuantity;
+	}
+	
+	@Override
+	public synchronized void removeAll(Item item) {
+		int oldQuantity = basket.getQuantity(item);
+		basket.removeAll(item);
+		publish(item, oldQuantity, 0);
+	}
+	
+	/**
+	 * {@inheritDoc} An event is published for each item that was in the basket.
+	 */
+	@Override
+	public synchronized void removeAll(Collection<? extends Item> items) {
+		Set<Item> distinctItems = new LinkedHashSet<>(items);
+		int[] oldQuantities = getQuantities(distinctItems);
+		basket.removeAll(items);
+		int index = 0;
+		for (Item item : distinctItems)
+			publish(item, oldQuantities[index++], 0);
+	}
+	
+	/**
+	 * {@inheritDoc} An event is published for each item that was in the basket.
+	 */
+	@Override
+	public synchronized void clear() {
+		List<BasketEntry> removedEntries = new ArrayList<>();
+		for (BasketEntry basketEntry : basket)
+			removedEntries.add(new BasketEntry(basketEntry.getItem(), basketEntry.getQuantity()));
+		basket.clear();
+		for (BasketEntry basketEntry : removedEntries)
+			publish(basketEntry.getItem(), basketEntry.getQuantity(), 0);
+	}
+	
+	private int[] getQuantities(Collection<? extends Item> items) {
+		int[] quantities = new int[items.size()];
+		int index = 0;
+		for (Item item : items)
+			quantities[index++] = basket.getQuantity(item);
+		return quantities;
+	}
+	
+	private void publishChanges(Collection<? extends Item> items, int[] oldQuantities) {
+		int index = 0;
+		for (Item item : items)
+			publish(item, oldQuantities[index++], basket.getQuantity(item));
+	}
+	
+	private void publish(Item item, int oldQuantity, int newQuantity) {
+		if (oldQuantity != newQuantity)
+			publisher.publish(new BasketChangeEvent(basketId, item, oldQuantity, newQuantity));
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		return basket.contains(item);
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		return basket.getQuantity(item);
+	}
+	
+	@Override
+	public double getTotalCost() {
+		return basket.getTotalCost();
+	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		return basket.getTotalCostInMinorUnits(scale);
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return basket.iterator();
+	}
+	
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return basket.spliterator();
+	}
+	
+}
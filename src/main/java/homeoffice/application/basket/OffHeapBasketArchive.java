@@ -0,0 +1,158 @@
+package homeoffice.application.basket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds baskets outside the Java heap, encoded with {@code BasketCodec} in direct buffers, so that
+ * idle baskets cost the garbage collector nothing. Each archived basket is identified by a handle,
+ * from which it can be loaded back into a heap basket.<br>
+ * <br>
+ * Baskets are packed one after another into fixed size slabs. A slab is reused once every basket
+ * in it has been freed, so a slab holding a single long-lived basket is not reclaimed until that
+ * basket is freed. Baskets too large for a slab are given a slab of their own.<br>
+ * <br>
+ * This class is not thread safe.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.BasketStore
+ */
+final class OffHeapBasketArchive {
+	
+	static final int DEFAULT_SLAB_SIZE = 256 * 1024;
+	
+	private static final int LENGTH_SIZE = 4;
+	
+	private final int slabSize;
+	
+	/**
+	 * Indexed by the slab number in each handle. Slabs that have been released leave a {@code
+	 * null}, which is reused by the next slab to be allocated.
+	 */
+	private final List<Slab> slabs = new ArrayList<>();
+	private Slab current;
+	private Slab spare;
+	
+	private int basketCount;
+	private long byteCount;
+	
+	OffHeapBasketArchive() {
+		this(DEFAULT_SLAB_SIZE);
+	}
+	
+	OffHeapBasketArchive(int slabSize) {
+		this.slabSize = slabSize;
+	}
+	
+	/**
+	 * Archives the given basket.
+	 * @param basket The basket.
+	 * @return The handle from which the basket can be loaded.
+	 */
+	long store(Basket basket) {
+		byte[] encoded = BasketCodec.encode(basket);
+		int recordLength = LENGTH_SIZE + encoded.length;
+		
+		Slab slab;
+		if (recordLength > slabSize) {
+			slab = allocate(recordLength);
+		} else {
+			if (current == null || current.buffer.remaining() < recordLength) {
+				current = spare != null ? spare : allocate(slabSize);
+				spare = null;
+			}
+			slab = current;
+		}
+		
+		int offset = slab.buffer.position();
+		slab.buffer.putInt(encoded.length);
+		slab.buffer.put(encoded);
+		slab.liveBytes += recordLength;
+		basketCount++;
+		byteCount += recordLength;
+		return ((long) slab.index << 32) | offset;
+	}
+	
+	/**
+	 * Adds the items of an archived basket to the given basket. Lines whose items can no longer be
+	 * found are skipped.
+	 * @param handle The handle returned when the basket was archived.
+	 * @param itemDAO The DAO through which item IDs are resolved.
+	 * @param basket The basket to which the archived items are added.
+	 */
+	void load(long handle, ItemDAO itemDAO, Basket basket) {
+		ByteBuffer buffer = slabs.get((int) (handle >>> 32)).buffer.duplicate();
+		buffer.position((int) handle + LENGTH_SIZE);
+		BasketCodec.decode(buffer, itemDAO, basket);
+	}
+	
+	/**
+	 * Frees the space used by an archived basket. The handle must not be used again.
+	 * @param handle The handle returned when the basket was archived.
+	 */
+	void free(long handle) {
+		Slab slab = slabs.get((int) (handle >>> 32));
+		int recordLength = LENGTH_SIZE + slab.buffer.getInt((int) handle);
+		slab.liveBytes -= recordLength;
+		basketCount--;
+		byteCount -= recordLength;
+		if (slab.liveBytes > 0)
+			return;
+		
+		if (slab == current) {
+			slab.buffer.clear();
+		} else if (slab.buffer.capacity() == slabSize && spare == null) {
+			slab.buffer.clear();
+			spare = slab;
+		} else {
+			// Dropping the last reference lets the direct memory be reclaimed
+			slabs.set(slab.index, null);
+		}
+	}
+	
+	/**
+	 * Returns the number of baskets archived.
+	 * @return The basket count.
+	 */
+	int getBasketCount() {
+		return basketCount;
+	}
+	
+	/**
+	 * Returns the number of bytes used by archived baskets, excluding unused space in slabs.
+	 * @return The byte count.
+	 */
+	long getByteCount() {
+		return byteCount;
+	}
+	
+	private Slab allocate(int capacity) {
+		int index = slabs.indexOf(null);
+		if (index < 0) {
+			index = slabs.size();
+			slabs.add(null);
+		}
+		Slab slab = new Slab(index, ByteBuffer.allocateDirect(capacity));
+		slabs.set(index, slab);
+		return slab;
+	}
+	
+	
+	private static final class Slab {
+		
+		private final int index;
+		
+		/**
+		 * Baskets are written at the buffer's position, which is reset once the slab is empty.
+		 */
+		private final ByteBuffer buffer;
+		private int liveBytes;
+		
+		Slab(int index, ByteBuffer buffer) {
+			this.index = index;
+			this.buffer = buffer;
+		}
+	}
+	
+}
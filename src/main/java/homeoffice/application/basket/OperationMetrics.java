@@ -0,0 +1,168 @@
+package homeoffice.application.basket;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts the calls to each of a set of operations, and records their latencies in nanoseconds in
+ * a {@code LatencyHistogram} per operation.<br>
+ * <br>
+ * Every call is counted, but to keep the cost of a call low only one in every {@code
+ * samplingInterval} calls, chosen at random, is timed. Counting a call costs a {@code LongAdder}
+ * increment, which does not contend between threads, and timing it costs two reads of {@code
+ * System.nanoTime()} and a histogram increment. The histograms therefore hold a sample of the
+ * calls, and their percentiles are estimates of the percentiles of all calls.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ * @param <O> The type of the operations.
+ * @see homeoffice.application.basket.BasketMetrics
+ * @see homeoffice.application.basket.ItemDAOMetrics
+ */
+public abstract class OperationMetrics<O extends Enum<O>> {
+	
+	/**
+	 * The default number of calls for each call that is timed.
+	 */
+	public static final int DEFAULT_SAMPLING_INTERVAL = 16;
+	
+	/**
+	 * Returned by {@code start()} when the call is not to be timed.
+	 */
+	static final long NOT_SAMPLED = Long.MIN_VALUE;
+	
+	private final O[] operations;
+	private final LongAdder[] counts;
+	private final LatencyHistogram[] latencies;
+	private final int samplingInterval;
+	private final int samplingMask;
+	private final LongSupplier clock;
+	
+	OperationMetrics(Class<O> operationType, int samplingInterval, LongSupplier clock)
+			throws IllegalArgumentException {
+		if (samplingInterval < 1 || Integer.bitCount(samplingInterval) != 1)
+			throw new IllegalArgumentException("Sampling interval must be a power of two");
+		operations = operationType.getEnumConstants();
+		counts = new LongAdder[operations.length];
+		latencies = new LatencyHistogram[operations.length];
+		for (int operation = 0; operation < operations.length; operation++) {
+			counts[operation] = new LongAdder();
+			latencies[operation] = new LatencyHistogram();
+		}
+		this.samplingInterval = samplingInterval;
+		this.samplingMask = samplingInterval - 1;
+		this.clock = clock;
+	}
+	
+	/**
+	 * Called before an operation. Returns the time at which the operation started if it is to be
+	 * timed, or {@code NOT_SAMPLED} if not.
+	 */
+	long start() {
+		if ((ThreadLocalRandom.current().nextInt() & samplingMask) != 0)
+			return NOT_SAMPLED;
+		return clock.getAsLong();
+	}
+	
+	/**
+	 * Called after an operation has completed, with the value returned by {@code start()}.
+	 */
+	void stop(O operation, long startTime) {
+		counts[operation.ordinal()].increment();
+		if (startTime != NOT_SAMPLED)
+			latencies[operation.ordinal()].record(clock.getAsLong() - startTime);
+	}
+	
+	/**
+	 * Returns the number of calls to the given operation that have completed.
+	 * @param operation The operation.
+	 * @return The number of calls.
+	 */
+	public long getCount(O operation) {
+		return counts[operation.ordinal()].sum();
+	}
+	
+	/**
+	 * Returns the latencies of the calls to the given operation that were timed.
+	 * @param operation The operation.
+	 * @return A snapshot of the latencies, in nanoseconds.
+	 */
+	public LatencyHistogram.Snapshot getLatency(O operation) {
+		return latencies[operation.ordinal()].snapshot();
+	}
+	
+	/**
+	 * Returns the number of calls to each operation that have completed.
+	 * @return The number of calls, keyed by operation name.
+	 */
+	public Map<String, Long> getOperationCounts() {
+		Map<String, Long> operationCounts = new LinkedHashMap<>();
+		for (O operation : operations)
+			operationCounts.put(operation.name(), getCount(operation));
+		return operationCounts;
+	}
+	
+	/**
+	 * Returns the latencies of the calls to each operation that were timed.
+	 * @return Snapshots of the latencies in nanoseconds, keyed by operation name.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getLatencies() {
+		Map<String, LatencyHistogram.Snapshot> operationLatencies = new LinkedHashMap<>();
+		for (O operation : operations)
+			operationLatencies.put(operation.name(), getLatency(operation));
+		return operationLatencies;
+	}
+	
+	/**
+	 * Returns the number of calls for each call that is timed.
+	 * @return The sampling interval.
+	 */
+	public int getSamplingInterval() {
+		return samplingInterval;
+	}
+	
+	/**
+	 * Clears every count and histogram.
+	 */
+	public void reset() {
+		for (int operation = 0; operation < operations.length; operation++) {
+			counts[operation].reset();
+			latencies[operation].reset();
+		}
+	}
+	
+	/**
+	 * Registers these metrics with the platform MBean server, so that they can be read with JMX
+	 * tools such as JConsole. The object name is {@code
+	 * homeoffice.application.basket:type=<class name>,name=<name>}.
+	 * @param name The name that distinguishes these metrics from others of the same type.
+	 * @return The name under which the metrics were registered.
+	 * @throws JMException Thrown if the name is invalid or already registered.
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName(getClass().getPackageName() + ":type="
+				+ getClass().getSimpleName() + ",name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+	
+	/**
+	 * Unregisters metrics registered by {@code register}.
+	 * @param objectName The name returned by {@code register}.
+	 * @throws JMException Thrown if no MBean is registered under the name.
+	 */
+	public static void unregister(ObjectName objectName) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.unregisterMBean(objectName);
+	}
+	
+}
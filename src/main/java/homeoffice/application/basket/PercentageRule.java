@@ -0,0 +1,61 @@
+package homeoffice.application.basket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A percentage discount on a group of items, such as 10% off a range. The discount is taken from
+ * the combined cost of every unit of the items in the basket, and is rounded down to a whole
+ * minor unit.
+ * 
+ * @author Richard Innocent
+ */
+public class PercentageRule implements PromotionRule {
+	
+	private final List<String> itemIds;
+	private final int percentage;
+	
+	/**
+	 * Creates a new percentage rule.
+	 * @param itemIds The IDs of the discounted items. Duplicate IDs are ignored.
+	 * @param percentage The percentage taken off the cost of the items.
+	 * @throws IllegalArgumentException Thrown if {@code percentage < 1} or {@code percentage >
+	 * 		100}, or there are no items.
+	 */
+	public PercentageRule(Collection<String> itemIds, int percentage)
+			throws IllegalArgumentException {
+		if (percentage < 1 || percentage > 100)
+			throw new IllegalArgumentException("Percentage must be between 1 and 100");
+		this.itemIds = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(itemIds)));
+		if (this.itemIds.isEmpty())
+			throw new IllegalArgumentException("A percentage discount must apply to some items");
+		this.percentage = percentage;
+	}
+	
+	@Override
+	public Collection<String> getItemIds() {
+		return itemIds;
+	}
+	
+	@Override
+	public long getDiscountInMinorUnits(Lines lines, int scale) throws ArithmeticException {
+		long cost = 0L;
+		for (String itemId : itemIds) {
+			int quantity = lines.getQuantity(itemId);
+			if (quantity > 0) {
+				cost = Math.addExact(cost, Math.multiplyExact(
+						lines.getUnitPriceInMinorUnits(itemId, scale), quantity));
+			}
+		}
+		return Math.multiplyExact(cost, percentage) / 100;
+	}
+	
+	@Override
+	public String toString() {
+		return percentage + "% off " + itemIds;
+	}
+	
+}
@@ -0,0 +1,258 @@
+package homeoffice.application.basket;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Totals baskets in parallel on a {@code ForkJoinPool}, for jobs such as re-pricing every saved
+ * basket after catalogue prices have changed. Many baskets are totalled by splitting the baskets
+ * between the pool's threads, and a large basket is totalled by splitting its lines with its
+ * {@code Spliterator}.<br>
+ * <br>
+ * Totals are calculated exactly, in minor currency units (see {@code
+ * Basket.getTotalCostInMinorUnits(int)}). As {@code long} addition is associative, each total is
+ * exactly the same as the basket's own serial total, however its lines are split. There is no
+ * parallel equivalent of {@code getTotalCost()}, as summing {@code double}s in a different order
+ * gives a slightly different result.<br>
+ * <br>
+ * Only the lines of a {@code SimpleBasket}, {@code HashBasket}, {@code ConcurrentBasket} or {@code
+ * CompactBasket} are split, as their totals are defined as the sum of their lines. Other baskets,
+ * such as a {@code RunningTotalBasket}, are totalled by calling their own {@code
+ * getTotalCostInMinorUnits(int)}. Baskets other than a {@code ConcurrentBasket} must not be
+ * modified while they are being totalled.<br>
+ * <br>
+ * This class is thread safe.
+ * 
+ * @author Richard Innocent
+ */
+public class PricingEngine {
+	
+	/**
+	 * The default number of lines below which a basket is totalled by a single thread.
+	 */
+	public static final int DEFAULT_SPLIT_THRESHOLD = 1024;
+	
+	/**
+	 * The number of tasks per thread that a batch of baskets is divided into, so that threads
+	 * that finish early can take work from threads with larger baskets.
+	 */
+	private static final int TASKS_PER_THREAD = 8;
+	
+	private final ForkJoinPool pool;
+	private final int splitThreshold;
+	
+	/**
+	 * Creates a new pricing engine that runs on the common pool.
+	 */
+	public PricingEngine() {
+		this(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Creates a new pricing engine that runs on the given pool.
+	 * @param pool The pool.
+	 */
+	public PricingEngine(ForkJoinPool pool) {
+		this(pool, DEFAULT_SPLIT_THRESHOLD);
+	}
+	
+	/**
+	 * Creates a new pricing engine that runs on the given pool.
+	 * @param pool The pool.
+	 * @param splitThreshold The number of lines below which a basket is totalled by a single
+	 * 		thread.
+	 * @throws IllegalArgumentException Thrown if {@code splitThreshold < 1}.
+	 */
+	public PricingEngine(ForkJoinPool pool, int splitThreshold) throws IllegalArgumentException {
+		if (splitThreshold < 1)
+			throw new IllegalArgumentException("Split threshold must be >= 1");
+		this.pool = Objects.requireNonNull(pool);
+		this.splitThreshold = splitThreshold;
+	}
+	
+	/**
+	 * Returns the exact total cost of the given basket, splitting its lines between threads if
+	 * there are at least as many as the split threshold.
+	 * @param basket The basket.
+	 * @param scale The scale of the result.
+	 * @return {@code basket.getTotalCostInMinorUnits(scale)}.
+	 * @throws ArithmeticException Thrown if the price of any item cannot be represented exactly at
+	 * 		the given scale, or the total overflows a {@code long}.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 */
+	public long getTotalCostInMinorUnits(Basket basket, int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		if (!isSumOfLines(basket))
+			return basket.getTotalCostInMinorUnits(scale);
+		Spliterator<BasketEntry> lines = basket.spliterator();
+		if (lines.estimateSize() < splitThreshold)
+			return basket.getTotalCostInMinorUnits(scale);
+		return invoke(new LinesTotal(lines, scale));
+	}
+	
+	/**
+	 * Returns the exact total cost of each of the given baskets.
+	 * @param baskets The baskets.
+	 * @param scale The scale of the results.
+	 * @return The total of each basket, in the same order as the baskets.
+	 * @throws ArithmeticException Thrown if the price of any item cannot be represented exactly at
+	 * 		the given scale, or any total overflows a {@code long}.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 */
+	public long[] getTotalCostsInMinorUnits(List<? extends Basket> baskets, int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		Basket[] basketArray = baskets.toArray(new Basket[0]);
+		long[] totals = new long[basketArray.length];
+		if (basketArray.length > 0)
+			invoke(new BasketsTotal(basketArray, totals, 0, basketArray.length,
+					batchSize(basketArray.length), scale));
+		return totals;
+	}
+	
+	/**
+	 * Returns the exact total cost of each of the given baskets, such as the baskets returned by
+	 * {@code BasketJournal.recover}.
+	 * @param <K> The type of the basket IDs.
+	 * @param baskets The baskets, keyed by ID.
+	 * @param scale The scale of the results.
+	 * @return The total of each basket, keyed by the basket's ID.
+	 * @throws ArithmeticException Thrown if the price of any item cannot be represented exactly at
+	 * 		the given scale, or any total overflows a {@code long}.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 */
+	public <K> Map<K, Long> getTotalCostsInMinorUnits(Map<K, ? extends Basket> baskets,
+			int scale) throws ArithmeticException, IllegalArgumentException {
+		List<K> ids = new ArrayList<>(baskets.size());
+		List<Basket> basketList = new ArrayList<>(baskets.size());
+		for (Map.Entry<K, ? extends Basket> entry : baskets.entrySet()) {
+			ids.add(entry.getKey());
+			basketList.add(entry.getValue());
+		}
+		
+		long[] totals = getTotalCostsInMinorUnits(basketList, scale);
+		Map<K, Long> totalsById = new HashMap<>((int) (ids.size() / 0.75f) + 1);
+		for (int i = 0; i < totals.length; i++)
+			totalsById.put(ids.get(i), totals[i]);
+		return totalsById;
+	}
+	
+	/**
+	 * Runs the task in the pool. If the task failed in another thread, the pool rethrows a copy
+	 * of the exception, which may lack its message, so the original exception is thrown instead.
+	 */
+	private <T> T invoke(ForkJoinTask<T> task) {
+		try {
+			return pool.invoke(task);
+		} catch (RuntimeException e) {
+			if (e.getCause() != null && e.getCause().getClass() == e.getClass())
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+	
+	private int batchSize(int basketCount) {
+		return Math.max(1, basketCount / (pool.getParallelism() * TASKS_PER_THREAD));
+	}
+	
+	private static boolean isSumOfLines(Basket basket) {
+		return basket instanceof SimpleBasket || basket instanceof HashBasket
+				|| basket instanceof ConcurrentBasket || basket instanceof CompactBasket;
+	}
+	
+	/**
+	 * Returns the total of a single basket from within a task that is already running in the
+	 * pool, so that a large basket's lines are split into subtasks of the current task.
+	 */
+	private long totalInPool(Basket basket, int scale) {
+		if (!isSumOfLines(basket))
+			return basket.getTotalCostInMinorUnits(scale);
+		Spliterator<BasketEntry> lines = basket.spliterator();
+		if (lines.estimateSize() < splitThreshold)
+			return basket.getTotalCostInMinorUnits(scale);
+		return new LinesTotal(lines, scale).invoke();
+	}
+	
+	
+	/**
+	 * Totals the baskets in the range {@code [from, to)}, halving the range until it is no larger
+	 * than the batch size.
+	 */
+	private final class BasketsTotal extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Basket[] baskets;
+		private final long[] totals;
+		private final int from;
+		private final int to;
+		private final int batchSize;
+		private final int scale;
+		
+		BasketsTotal(Basket[] baskets, long[] totals, int from, int to, int batchSize, int scale) {
+			this.baskets = baskets;
+			this.totals = totals;
+			this.from = from;
+			this.to = to;
+			this.batchSize = batchSize;
+			this.scale = scale;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from <= batchSize) {
+				for (int i = from; i < to; i++)
+					totals[i] = totalInPool(baskets[i], scale);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new BasketsTotal(baskets, totals, from, middle, batchSize, scale),
+					new BasketsTotal(baskets, totals, middle, to, batchSize, scale));
+		}
+	}
+	
+	
+	/**
+	 * Totals the lines of a single basket, splitting them until fewer than the split threshold
+	 * remain.
+	 */
+	private final class LinesTotal extends RecursiveTask<Long> implements Consumer<BasketEntry> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Spliterator<BasketEntry> lines;
+		private final int scale;
+		private long total;
+		
+		LinesTotal(Spliterator<BasketEntry> lines, int scale) {
+			this.lines = lines;
+			this.scale = scale;
+		}
+		
+		@Override
+		protected Long compute() {
+			if (lines.estimateSize() >= splitThreshold) {
+				Spliterator<BasketEntry> prefix = lines.trySplit();
+				if (prefix != null) {
+					LinesTotal prefixTotal = new LinesTotal(prefix, scale);
+					prefixTotal.fork();
+					long suffixTotal = compute();
+					return Math.addExact(prefixTotal.join(), suffixTotal);
+				}
+			}
+			lines.forEachRemaining(this);
+			return total;
+		}
+		
+		@Override
+		public void accept(BasketEntry basketEntry) {
+			total = Math.addExact(total, basketEntry.getTotalCostInMinorUnits(scale));
+		}
+	}
+	
+}
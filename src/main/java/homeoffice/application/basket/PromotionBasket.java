@@ -0,0 +1,525 @@
+package homeoffice.application.basket;
+
+import java.util.*;
+
+/**
+ * A {@code Basket} that applies promotions to the cost of an underlying basket, which should not
+ * be modified other than through this {@code PromotionBasket}. Its totals are the underlying
+ * basket's totals less the discounts given by its {@code PromotionRule}s.<br>
+ * <br>
+ * Rules are indexed by the IDs of their items, and the discount given by each rule is held along
+ * with the total discount. When an item is added or removed, only the rules on that item are
+ * re-evaluated, and then re-applied along with the rules sharing items with them, so the cost of
+ * a change depends on the rules it touches rather than on the size of the basket or the number
+ * of promotions. Wrapping a {@code RunningTotalBasket} keeps {@code getTotalCost()} a constant
+ * time operation.<br>
+ * <br>
+ * Rules that share items stack, but together never discount those items by more than they cost.
+ * Such rules are applied in the order they were given, and each gives no more discount than the
+ * cost of the shared items left by the rules before it. Discounts are held exactly, in minor
+ * currency units at a fixed scale. As with {@code RunningTotalBasket}, a rule is evaluated at the
+ * prices its items have when it is re-evaluated, so call {@code refreshDiscounts()} after
+ * catalogue prices have changed.<br>
+ * <br>
+ * The rules touched by a change are evaluated before the underlying basket is modified, so a
+ * change that a rule cannot evaluate leaves the basket and its discounts as they were.<br>
+ * <br>
+ * Note that this implementation of {@code Basket} is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.PromotionRule
+ */
+public class PromotionBasket implements Basket {
+	
+	private static final int[] NO_RULES = new int[0];
+	
+	private final Basket basket;
+	private final int scale;
+	private final PromotionRule[] rules;
+	
+	/**
+	 * Maps the ID of each item on promotion to the indices of the rules on that item.
+	 */
+	private final Map<String, int[]> ruleIndex = new HashMap<>();
+	
+	/**
+	 * The group of rules that share items with each rule, directly or through other rules.
+	 */
+	private final RuleGroup[] ruleGroups;
+	
+	/**
+	 * The discount each rule gives on its own, and the part of it applied once the rules before
+	 * it in its group have been applied.
+	 */
+	private final long[] ruleDiscounts;
+	private final long[] appliedDiscounts;
+	private long discount;
+	
+	/**
+	 * The items on promotion that are in the basket, as first added, by ID.
+	 */
+	private final Map<String, Item> promotedItems = new HashMap<>();
+	
+	/**
+	 * The lines of a change being evaluated, by item ID, as they will be once it is made.
+	 */
+	private final Map<String, BasketEntry> pendingLines = new HashMap<>();
+	private final PromotionRule.Lines lines = new PromotedLines();
+	
+	/**
+	 * Creates a new {@code PromotionBasket} that holds discounts at {@code
+	 * Item.DEFAULT_PRICE_SCALE}.
+	 * @param basket The basket to which all items are added. Any items already in the basket are
+	 * 		discounted immediately.
+	 * @param rules The promotions.
+	 * @throws ArithmeticException Thrown if the price of an item on promotion already in the
+	 * 		basket cannot be represented exactly at the default scale.
+	 */
+	public PromotionBasket(Basket basket, Collection<? extends PromotionRule> rules)
+			throws ArithmeticException {
+		this(basket, rules, Item.DEFAULT_PRICE_SCALE);
+	}
+	
+	/**
+	 * Creates a new {@code PromotionBasket}.
+	 * @param basket The basket to which all items are added. Any items already in the basket are
+	 * 		discounted immediately.
+	 * @param rules The promotions.
+	 * @param scale The scale at which discounts are held. Items on promotion whose price cannot be
+	 * 		represented exactly at this scale cannot be added to the basket.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 * @throws ArithmeticException Thrown if the price of an item on promotion already in the
+	 * 		basket cannot be represented exactly at the given scale.
+	 */
+	public PromotionBasket(Basket basket, Collection<? extends PromotionRule> rules, int scale)
+			throws IllegalArgumentException, ArithmeticException {
+		MinorUnits.checkScale(scale);
+		this.basket = basket;
+		this.scale = scale;
+		this.rules = rules.toArray(new PromotionRule[0]);
+		ruleDiscounts = new long[this.rules.length];
+		appliedDiscounts = new long[this.rules.length];
+		indexRules();
+		ruleGroups = groupRules();
+		refreshDiscounts();
+	}
+	
+	private void indexRules() {
+		for (int rule = 0; rule < rules.length; rule++) {
+			for (String itemId : rules[rule].getItemIds()) {
+				int[] itemRules = ruleIndex.getOrDefault(itemId, NO_RULES);
+				if (itemRules.length == 0 || itemRules[itemRules.length - 1] != rule) {
+					itemRules = Arrays.copyOf(itemRules, itemRules.length + 1);
+					itemRules[itemRules.length - 1] = rule;
+					ruleIndex.put(itemId, itemRules);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Groups together the rules that share items, directly or through other rules.
+	 */
+	private RuleGroup[] groupRules() {
+		int[] parents = new int[rules.length];
+		for (int rule = 0; rule < rules.length; rule++)
+			parents[rule] = rule;
+		for (int[] itemRules : ruleIndex.values())
+			for (int rule : itemRules)
+				parents[root(parents, rule)] = root(parents, itemRules[0]);
+		
+		Map<Integer, List<Integer>> groupedRules = new LinkedHashMap<>();
+		for (int rule = 0; rule < rules.length; rule++)
+			groupedRules.computeIfAbsent(root(parents, rule), root -> new ArrayList<>()).add(rule);
+		RuleGroup[] groups = new RuleGroup[rules.length];
+		for (List<Integer> groupRules : groupedRules.values()) {
+			RuleGroup group = new RuleGroup(groupRules, rules);
+			for (int rule : group.rules)
+				groups[rule] = group;
+		}
+		return groups;
+	}
+	
+	private static int root(int[] parents, int rule) {
+		while (parents[rule] != rule)
+			rule = parents[rule] = parents[parents[rule]];
+		return rule;
+	}
+	
+	/**
+	 * {@inheritDoc} The promotions on the item are re-evaluated.
+	 * @throws ArithmeticException Also thrown if the item is on promotion and its price cannot be
+	 * 		represented exactly at this basket's scale.
+	 */
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	/**
+	 * {@inheritDoc} The promotions on the item are re-evaluated.
+	 * @throws ArithmeticException Also thrown if the item is on promotion and its price cannot be
+	 * 		represented exactly at this basket's scale.
+	 */
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		int[] itemRules = ruleIndex.getOrDefault(item.getId(), NO_RULES);
+		if (itemRules.length == 0)
+			return basket.addItem(item, quantity);
+		
+		// Nothing is changed unless the item can be priced and its rules evaluated
+		Baskets.assertValidQuantity(quantity);
+		item.getPriceInMinorUnits(scale);
+		putPendingLine(item, Baskets.addQuantities(basket.getQuantity(item), quantity, item));
+		Evaluation evaluation = evaluatePendingLines();
+		int newQuantity = basket.addItem(item, quantity);
+		commit(evaluation);
+		return newQuantity;
+	}
+	
+	/**
+	 * {@inheritDoc} Each promotion on the items is re-evaluated once for the whole batch.
+	 * @throws ArithmeticException Also thrown if any item is on promotion and its price cannot be
+	 * 		represented exactly at this basket's scale.
+	 */
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantities(items);
+		
+		// Nothing is changed unless every item can be priced and every touched rule evaluated
+		for (Map.Entry<Item, Integer> line : items.entrySet()) {
+			Item item = line.getKey();
+			if (ruleIndex.containsKey(item.getId())) {
+				item.getPriceInMinorUnits(scale);
+				BasketEntry pendingLine = pendingLines.get(item.getId());
+				int quantity = pendingLine == null
+						? basket.getQuantity(item) : pendingLine.getQuantity();
+				putPendingLine(item, Baskets.addQuantities(quantity, line.getValue(), item));
+			}
+		}
+		Evaluation evaluation = evaluatePendingLines();
+		basket.addAll(items);
+		commit(evaluation);
+	}
+	
+	/**
+	 * {@inheritDoc} The promotions on the item are re-evaluated.
+	 * @throws ArithmeticException Thrown if a discount overflows. The basket is left unchanged.
+	 */
+	@Override
+	public int removeItem(Item item) throws ArithmeticException {
+		if (!ruleIndex.containsKey(item.getId()))
+			return basket.removeItem(item);
+		
+		putPendingLine(item, Math.max(basket.getQuantity(item) - 1, 0));
+		Evaluation evaluation = evaluatePendingLines();
+		int newQuantity = basket.removeItem(item);
+		commit(evaluation);
+		return newQuantity;
+	}
+	
+	/**
+	 * {@inheritDoc} The promotions on the item are re-evaluated.
+	 * @throws ArithmeticException Thrown if a discount overflows. The basket is left unchanged.
+	 */
+	@Override
+	public void removeAll(Item item) throws ArithmeticException {
+		if (!ruleIndex.containsKey(item.getId())) {
+			basket.removeAll(item);
+			return;
+		}
+		
+		putPendingLine(item, 0);
+		Evaluation evaluation = evaluatePendingLines();
+		basket.removeAll(item);
+		commit(evaluation);
+	}
+	
+	/**
+	 * {@inheritDoc} Each promotion on the items is re-evaluated once for the whole batch.
+	 * @throws ArithmeticException Thrown if a discount overflows. The basket is left unchanged.
+	 */
+	@Override
+	public void removeAll(Collection<? extends Item> items) throws ArithmeticException {
+		for (Item item : items)
+			if (ruleIndex.containsKey(item.getId()))
+				putPendingLine(item, 0);
+		Evaluation evaluation = evaluatePendingLines();
+		basket.removeAll(items);
+		commit(evaluation);
+	}
+	
+	@Override
+	public void clear() {
+		basket.clear();
+		promotedItems.clear();
+		Arrays.fill(ruleDiscounts, 0L);
+		Arrays.fill(appliedDiscounts, 0L);
+		discount = 0L;
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		return basket.contains(item);
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		return basket.getQuantity(item);
+	}
+	
+	/**
+	 * Returns the total cost for all items in the basket, less the discounts given by the
+	 * promotions.
+	 * @return The discounted total cost.
+	 */
+	@Override
+	public double getTotalCost() {
+		return basket.getTotalCost() - MinorUnits.toDouble(discount, scale);
+	}
+	
+	/**
+	 * Returns the exact total cost for all items in the basket, less the discounts given by the
+	 * promotions.
+	 * @throws ArithmeticException Also thrown if the discount cannot be represented exactly at the
+	 * 		given scale.
+	 */
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		long total = basket.getTotalCostInMinorUnits(scale);
+		return Math.subtractExact(total, MinorUnits.rescale(discount, this.scale, scale));
+	}
+	
+	/**
+	 * Returns the total discount given by the promotions, in constant time.
+	 * @return The discount in minor units at this basket's scale.
+	 */
+	public long getDiscountInMinorUnits() {
+		return discount;
+	}
+	
+	/**
+	 * Returns the discount currently given by each promotion that applies to the basket, for
+	 * example to itemise the discounts on a receipt. Each discount is the part applied once the
+	 * promotions before it on the same items have been applied, so they sum to the total discount.
+	 * @return The discount given by each promotion, in minor units at this basket's scale, in the
+	 * 		order the promotions were given.
+	 */
+	public Map<PromotionRule, Long> getDiscountsInMinorUnits() {
+		Map<PromotionRule, Long> discounts = new LinkedHashMap<>();
+		for (int rule = 0; rule < rules.length; rule++)
+			if (appliedDiscounts[rule] != 0L)
+				discounts.put(rules[rule], appliedDiscounts[rule]);
+		return discounts;
+	}
+	
+	/**
+	 * Returns the scale at which this basket's discounts are held.
+	 * @return The scale.
+	 */
+	public int getScale() {
+		return scale;
+	}
+	
+	/**
+	 * Re-evaluates every promotion at its items' current prices. This should be called when the
+	 * price of items already in the basket may have changed.
+	 * @throws ArithmeticException Thrown if the price of any item on promotion cannot be
+	 * 		represented exactly at this basket's scale, or a discount overflows. The existing
+	 * 		discounts are left unchanged.
+	 */
+	public void refreshDiscounts() throws ArithmeticException {
+		Map<String, Item> oldPromotedItems = new HashMap<>(promotedItems);
+		promotedItems.clear();
+		for (BasketEntry basketEntry : basket) {
+			Item item = basketEntry.getItem();
+			if (ruleIndex.containsKey(item.getId()))
+				promotedItems.put(item.getId(), item);
+		}
+		
+		BitSet allRules = new BitSet(rules.length);
+		allRules.set(0, rules.length);
+		Evaluation evaluation;
+		try {
+			evaluation = evaluate(allRules);
+		} catch (ArithmeticException e) {
+			promotedItems.clear();
+			promotedItems.putAll(oldPromotedItems);
+			throw e;
+		}
+		commit(evaluation);
+	}
+	
+	/**
+	 * Records the line an item on promotion will have once the change being evaluated is made.
+	 */
+	private void putPendingLine(Item item, int quantity) {
+		Item promotedItem = promotedItems.getOrDefault(item.getId(), item);
+		pendingLines.put(item.getId(), new BasketEntry(promotedItem, quantity));
+	}
+	
+	/**
+	 * Evaluates the rules on the pending lines as they will be once the change is made, without
+	 * changing any discounts, and then clears the pending lines.
+	 */
+	private Evaluation evaluatePendingLines() throws ArithmeticException {
+		try {
+			BitSet touchedRules = new BitSet(rules.length);
+			for (String itemId : pendingLines.keySet())
+				for (int rule : ruleIndex.get(itemId))
+					touchedRules.set(rule);
+			Evaluation evaluation = evaluate(touchedRules);
+			evaluation.lines = new ArrayList<>(pendingLines.values());
+			return evaluation;
+		} finally {
+			pendingLines.clear();
+		}
+	}
+	
+	/**
+	 * Evaluates the given rules, and applies every rule in their groups again in order.
+	 */
+	private Evaluation evaluate(BitSet touchedRules) throws ArithmeticException {
+		Set<RuleGroup> touchedGroups = new LinkedHashSet<>();
+		int ruleCount = 0;
+		for (int rule = touchedRules.nextSetBit(0); rule >= 0;
+				rule = touchedRules.nextSetBit(rule + 1))
+			if (touchedGroups.add(ruleGroups[rule]))
+				ruleCount += ruleGroups[rule].rules.length;
+		
+		Evaluation evaluation = new Evaluation(ruleCount);
+		long newDiscount = discount;
+		int index = 0;
+		for (RuleGroup group : touchedGroups) {
+			long remainingCost = group.getCostInMinorUnits(lines, scale);
+			for (int rule : group.rules) {
+				long ruleDiscount = touchedRules.get(rule)
+						? rules[rule].getDiscountInMinorUnits(lines, scale) : ruleDiscounts[rule];
+				long appliedDiscount = Math.min(ruleDiscount, remainingCost);
+				remainingCost -= appliedDiscount;
+				newDiscount = Math.addExact(newDiscount, appliedDiscount - appliedDiscounts[rule]);
+				evaluation.rules[index] = rule;
+				evaluation.ruleDiscounts[index] = ruleDiscount;
+				evaluation.appliedDiscounts[index] = appliedDiscount;
+				index++;
+			}
+		}
+		evaluation.discount = newDiscount;
+		return evaluation;
+	}
+	
+	/**
+	 * Applies an evaluation, once the change it was made for has been made.
+	 */
+	private void commit(Evaluation evaluation) {
+		for (BasketEntry line : evaluation.lines) {
+			if (line.getQuantity() == 0)
+				promotedItems.remove(line.getItem().getId());
+			else
+				promotedItems.putIfAbsent(line.getItem().getId(), line.getItem());
+		}
+		for (int index = 0; index < evaluation.rules.length; index++) {
+			int rule = evaluation.rules[index];
+			ruleDiscounts[rule] = evaluation.ruleDiscounts[index];
+			appliedDiscounts[rule] = evaluation.appliedDiscounts[index];
+		}
+		discount = evaluation.discount;
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return basket.iterator();
+	}
+	
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return basket.spliterator();
+	}
+	
+	
+	/**
+	 * The lines of the items on promotion, as seen by the rules, including any pending lines.
+	 */
+	private class PromotedLines implements PromotionRule.Lines {
+		
+		@Override
+		public int getQuantity(String itemId) {
+			BasketEntry pendingLine = pendingLines.get(itemId);
+			if (pendingLine != null)
+				return pendingLine.getQuantity();
+			Item item = promotedItems.get(itemId);
+			return item == null ? 0 : basket.getQuantity(item);
+		}
+		
+		@Override
+		public long getUnitPriceInMinorUnits(String itemId, int scale)
+				throws ArithmeticException {
+			BasketEntry pendingLine = pendingLines.get(itemId);
+			if (pendingLine != null) {
+				return pendingLine.getQuantity() == 0
+						? 0L : pendingLine.getItem().getPriceInMinorUnits(scale);
+			}
+			Item item = promotedItems.get(itemId);
+			return item == null ? 0L : item.getPriceInMinorUnits(scale);
+		}
+	}
+	
+	
+	/**
+	 * Rules that share items, directly or through other rules, in the order they were given.
+	 */
+	private static final class RuleGroup {
+		
+		private final int[] rules;
+		private final String[] itemIds;
+		
+		private RuleGroup(List<Integer> groupRules, PromotionRule[] allRules) {
+			rules = new int[groupRules.size()];
+			Set<String> groupItemIds = new LinkedHashSet<>();
+			for (int index = 0; index < rules.length; index++) {
+				rules[index] = groupRules.get(index);
+				groupItemIds.addAll(allRules[rules[index]].getItemIds());
+			}
+			itemIds = groupItemIds.toArray(new String[0]);
+		}
+		
+		/**
+		 * Returns the undiscounted cost of the group's items in the basket.
+		 */
+		private long getCostInMinorUnits(PromotionRule.Lines lines, int scale)
+				throws ArithmeticException {
+			long cost = 0L;
+			for (String itemId : itemIds) {
+				int quantity = lines.getQuantity(itemId);
+				if (quantity > 0) {
+					cost = Math.addExact(cost, Math.multiplyExact(
+							lines.getUnitPriceInMinorUnits(itemId, scale), quantity));
+				}
+			}
+			return cost;
+		}
+	}
+	
+	
+	/**
+	 * The new discounts of the rules touched by a change, evaluated before the change is made.
+	 */
+	private static final class Evaluation {
+		
+		private final int[] rules;
+		private final long[] ruleDiscounts;
+		private final long[] appliedDiscounts;
+		private long discount;
+		private List<BasketEntry> lines = Collections.emptyList();
+		
+		private Evaluation(int ruleCount) {
+			rules = new int[ruleCount];
+			ruleDiscounts = new long[ruleCount];
+			appliedDiscounts = new long[ruleCount];
+		}
+	}
+	
+}
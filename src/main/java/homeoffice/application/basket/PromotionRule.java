@@ -0,0 +1,60 @@
+package homeoffice.application.basket;
+
+import java.util.Collection;
+
+/**
+ * A promotion that discounts a basket according to the quantities of a fixed set of items, such
+ * as a multi-buy, bundle or percentage discount. Rules are evaluated by a {@code PromotionBasket},
+ * which re-evaluates a rule only when the quantity of one of its items changes.<br>
+ * <br>
+ * A rule must depend on nothing but the lines of its own items, and must give no discount when
+ * none of its items are in the basket. Implementations should be immutable.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.PromotionBasket
+ */
+public interface PromotionRule {
+	
+	/**
+	 * Returns the IDs of the items whose quantities this rule depends on.
+	 * @return The item IDs.
+	 */
+	public Collection<String> getItemIds();
+	
+	/**
+	 * Returns the discount this rule gives on the given lines, as a number of minor currency units
+	 * at the given scale.
+	 * @param lines The lines of the basket. Only the lines of this rule's items may be read.
+	 * @param scale The scale of the result.
+	 * @return The discount, which is {@code >= 0}.
+	 * @throws ArithmeticException Thrown if an item's price cannot be represented exactly at the
+	 * 		given scale, or the discount overflows a {@code long}.
+	 */
+	public long getDiscountInMinorUnits(Lines lines, int scale) throws ArithmeticException;
+	
+	
+	/**
+	 * A read-only view of the lines of a basket, by item ID.
+	 */
+	public interface Lines {
+		
+		/**
+		 * Returns the quantity of the given item in the basket.
+		 * @param itemId The item ID.
+		 * @return The quantity, or {@code 0} if the item is not in the basket.
+		 */
+		public int getQuantity(String itemId);
+		
+		/**
+		 * Returns the unit price of the given item in the basket.
+		 * @param itemId The item ID.
+		 * @param scale The scale of the result.
+		 * @return The unit price in minor units, or {@code 0} if the item is not in the basket.
+		 * @throws ArithmeticException Thrown if the price cannot be represented exactly at the
+		 * 		given scale.
+		 */
+		public long getUnitPriceInMinorUnits(String itemId, int scale) throws ArithmeticException;
+		
+	}
+	
+}
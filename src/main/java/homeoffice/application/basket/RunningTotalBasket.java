@@ -0,0 +1,240 @@
+package homeoffice.application.basket;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+
+/**
+ * A {@code Basket} that keeps a running total of its cost as items are added and removed, so that
+ * {@code getTotalCost()} is a constant time operation. All other operations are delegated to an
+ * underlying basket, which should not be modified other than through this {@code
+ * RunningTotalBasket}. Wrapping a {@code HashBasket} keeps every operation constant time.<br>
+ * <br>
+ * The total is held exactly, in minor currency units at a fixed scale (see {@code
+ * Item.getMinorUnitPrice()}). As {@code Item.setPrice(double)} can change an item's price after it
+ * has been added, each line is charged at the unit price its item had when the line was last
+ * added to, or when {@code refreshPrices()} was last called. Removing items from a line does not
+ * reprice it. Call {@code refreshPrices()} after catalogue prices have changed to bring every line
+ * up to date.<br>
+ * <br>
+ * Note that this implementation of {@code Basket} is <b>not</b> synchronised.
+ * 
+ * @author Richard Innocent
+ * @see homeoffice.application.basket.Item#getPriceInMinorUnits(int)
+ */
+public class RunningTotalBasket implements Basket {
+	
+	private final Basket basket;
+	private final int scale;
+	private final Map<String, Long> unitPrices = new HashMap<>();
+	private long total;
+	
+	/**
+	 * Creates a new {@code RunningTotalBasket} that totals at {@code Item.DEFAULT_PRICE_SCALE}.
+	 * @param basket The basket to which all items are added. Any items already in the basket are
+	 * 		priced immediately.
+	 * @throws ArithmeticException Thrown if the price of an item already in the basket cannot be
+	 * 		represented exactly at the default scale.
+	 */
+	public RunningTotalBasket(Basket basket) throws ArithmeticException {
+		this(basket, Item.DEFAULT_PRICE_SCALE);
+	}
+	
+	/**
+	 * Creates a new {@code RunningTotalBasket}.
+	 * @param basket The basket to which all items are added. Any items already in the basket are
+	 * 		priced immediately.
+	 * @param scale The scale at which the total is held. Items whose price cannot be represented
+	 * 		exactly at this scale cannot be added to the basket.
+	 * @throws IllegalArgumentException Thrown if {@code scale < 0} or {@code scale > 18}.
+	 * @throws ArithmeticException Thrown if the price of an item already in the basket cannot be
+	 * 		represented exactly at the given scale.
+	 */
+	public RunningTotalBasket(Basket basket, int scale)
+			throws IllegalArgumentException, ArithmeticException {
+		MinorUnits.checkScale(scale);
+		this.basket = basket;
+		this.scale = scale;
+		refreshPrices();
+	}
+	
+	/**
+	 * {@inheritDoc} The whole line is charged at the item's current price.
+	 * @throws ArithmeticException Also thrown if the item's price cannot be represented exactly at
+	 * 		this basket's scale.
+	 */
+	@Override
+	public int addItem(Item item) throws ArithmeticException {
+		return addItem(item, 1);
+	}
+	
+	/**
+	 * {@inheritDoc} The whole line is charged at the item's current price.
+	 * @throws ArithmeticException Also thrown if the item's price cannot be represented exactly at
+	 * 		this basket's scale.
+	 */
+	@Override
+	public int addItem(Item item, int quantity)
+			throws IllegalArgumentException, ArithmeticException {
+		long unitPrice = item.getPriceInMinorUnits(scale);
+		Long oldUnitPrice = unitPrices.get(item.getId());
+		int oldQuantity = oldUnitPrice == null ? 0 : basket.getQuantity(item);
+		long oldLineTotal =
+				oldUnitPrice == null ? 0L : Math.multiplyExact(oldUnitPrice, oldQuantity);
+		long newLineTotal = Math.multiplyExact(unitPrice, (long) oldQuantity + quantity);
+		long newTotal = Math.addExact(total, Math.subtractExact(newLineTotal, oldLineTotal));
+		
+		// Nothing is changed unless the delegate accepts the new quantity
+		int newQuantity = basket.addItem(item, quantity);
+		
+		total = newTotal;
+		unitPrices.put(item.getId(), unitPrice);
+		return newQuantity;
+	}
+	
+	/**
+	 * {@inheritDoc} Each line is charged at its item's current price.
+	 * @throws ArithmeticException Also thrown if the price of any item cannot be represented
+	 * 		exactly at this basket's scale.
+	 */
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantities(items);
+		
+		long[] newUnitPrices = new long[items.size()];
+		long newTotal = total;
+		int index = 0;
+		for (Map.Entry<Item, Integer> line : items.entrySet()) {
+			Item item = line.getKey();
+			long unitPrice = item.getPriceInMinorUnits(scale);
+			Long oldUnitPrice = unitPrices.get(item.getId());
+			int oldQuantity = oldUnitPrice == null ? 0 : basket.getQuantity(item);
+			long oldLineTotal =
+					oldUnitPrice == null ? 0L : Math.multiplyExact(oldUnitPrice, oldQuantity);
+			long newLineTotal =
+					Math.multiplyExact(unitPrice, (long) oldQuantity + line.getValue());
+			newTotal = Math.addExact(newTotal, Math.subtractExact(newLineTotal, oldLineTotal));
+			newUnitPrices[index++] = unitPrice;
+		}
+		
+		// Nothing is changed unless the delegate accepts the whole batch
+		basket.addAll(items);
+		
+		index = 0;
+		for (Item item : items.keySet())
+			unitPrices.put(item.getId(), newUnitPrices[index++]);
+		total = newTotal;
+	}
+	
+	@Override
+	public int removeItem(Item item) {
+		Long unitPrice = unitPrices.get(item.getId());
+		if (unitPrice == null)
+			return basket.removeItem(item);
+		
+		// A single unit is removed, unless the line is already empty
+		long newTotal =
+				basket.getQuantity(item) == 0 ? total : Math.subtractExact(total, unitPrice);
+		int newQuantity = basket.removeItem(item);
+		total = newTotal;
+		if (!basket.contains(item))
+			unitPrices.remove(item.getId());
+		return newQuantity;
+	}
+	
+	@Override
+	public void removeAll(Item item) {
+		Long unitPrice = unitPrices.get(item.getId());
+		if (unitPrice == null) {
+			basket.removeAll(item);
+			return;
+		}
+		long newTotal = Math.subtractExact(total,
+				Math.multiplyExact(unitPrice.longValue(), basket.getQuantity(item)));
+		basket.removeAll(item);
+		unitPrices.remove(item.getId());
+		total = newTotal;
+	}
+	
+	@Override
+	public void clear() {
+		basket.clear();
+		unitPrices.clear();
+		total = 0L;
+	}
+	
+	@Override
+	public boolean contains(Item item) {
+		return basket.contains(item);
+	}
+	
+	@Override
+	public int getQuantity(Item item) {
+		return basket.getQuantity(item);
+	}
+	
+	/**
+	 * Returns the total cost for all items in the basket, in constant time.
+	 * @return The total cost for all items in the basket.
+	 */
+	@Override
+	public double getTotalCost() {
+		return MinorUnits.toDouble(total, scale);
+	}
+	
+	/**
+	 * Returns the exact total cost for all items in the basket, in constant time.
+	 * @throws ArithmeticException Thrown if the total cannot be represented exactly at the given
+	 * 		scale.
+	 */
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		if (scale == this.scale)
+			return total;
+		MinorUnits.checkScale(scale);
+		return MinorUnits.rescale(total, this.scale, scale);
+	}
+	
+	/**
+	 * Returns the scale at which this basket's total is held.
+	 * @return The scale.
+	 */
+	public int getScale() {
+		return scale;
+	}
+	
+	/**
+	 * Reprices every line in the basket at its item's current price, and recalculates the total.
+	 * This should be called when the price of items already in the basket may have changed.
+	 * @throws ArithmeticException Thrown if the price of any item cannot be represented exactly at
+	 * 		this basket's scale, or the total overflows. The existing total is left unchanged.
+	 */
+	public void refreshPrices() throws ArithmeticException {
+		Map<String, Long> newUnitPrices = new HashMap<>();
+		long newTotal = 0L;
+		for (BasketEntry basketEntry : basket) {
+			Item item = basketEntry.getItem();
+			long unitPrice = item.getPriceInMinorUnits(scale);
+			newTotal = Math.addExact(newTotal,
+					Math.multiplyExact(unitPrice, basketEntry.getQuantity()));
+			newUnitPrices.put(item.getId(), unitPrice);
+		}
+		unitPrices.clear();
+		unitPrices.putAll(newUnitPrices);
+		total = newTotal;
+	}
+	
+	@Override
+	public Iterator<BasketEntry> iterator() {
+		return basket.iterator();
+	}
+	
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return basket.spliterator();
+	}
+	
+}
@@ -21,17 +21,7 @@ public class SimpleBasket implements Basket {
 	@Override
 	public int addItem(Item item, int quantity)
 			throws IllegalArgumentException, ArithmeticException {
-		try {
-			return addItemThrowException(item, quantity);
-		} catch (IllegalArgumentException e) {
-			throw new IllegalArgumentException(
-					"Should not try to add a negative number of items. Please see removeItem()",
-					e);
-		}
-	}
-	
-	private int addItemThrowException(Item item, int quantity)
-			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantity(quantity);
 		EditableBasketEntry basketEntry = getBasketEntry(item);
 		if (basketEntry == null) {
 			basketEntries.add(new EditableBasketEntry(item, quantity));
@@ -40,6 +30,41 @@ public class SimpleBasket implements Basket {
 		return basketEntry.incrementQuantity(quantity);
 	}
 	
+	/**
+	 * {@inheritDoc} Rather than searching the basket once per item, the basket's entries are
+	 * indexed once for the whole batch.
+	 */
+	@Override
+	public void addAll(Map<Item, Integer> items)
+			throws IllegalArgumentException, ArithmeticException {
+		Baskets.assertValidQuantities(items);
+		
+		Map<String, EditableBasketEntry> index = indexEntries();
+		for (Map.Entry<Item, Integer> line : items.entrySet()) {
+			EditableBasketEntry basketEntry = index.get(line.getKey().getId());
+			if (basketEntry != null)
+				Baskets.addQuantities(basketEntry.getQuantity(), line.getValue(), line.getKey());
+		}
+		
+		for (Map.Entry<Item, Integer> line : items.entrySet()) {
+			EditableBasketEntry basketEntry = index.get(line.getKey().getId());
+			if (basketEntry == null) {
+				basketEntry = new EditableBasketEntry(line.getKey(), line.getValue());
+				basketEntries.add(basketEntry);
+				index.put(line.getKey().getId(), basketEntry);
+			} else {
+				basketEntry.incrementQuantity(line.getValue());
+			}
+		}
+	}
+	
+	private Map<String, EditableBasketEntry> indexEntries() {
+		Map<String, EditableBasketEntry> index = new HashMap<>();
+		for (EditableBasketEntry basketEntry : basketEntries)
+			index.putIfAbsent(basketEntry.getItem().getId(), basketEntry);
+		return index;
+	}
+	
 	private EditableBasketEntry getBasketEntry(Item item) {
 		for (EditableBasketEntry basketEntry : basketEntries) {
 			if (basketEntry.contains(item))
@@ -68,6 +93,15 @@ public class SimpleBasket implements Basket {
 		remove(getBasketEntry(item));
 	}
 	
+	/**
+	 * {@inheritDoc} The basket is searched only once for the whole batch.
+	 */
+	@Override
+	public void removeAll(Collection<? extends Item> items) {
+		Set<Item> itemsToRemove = new HashSet<>(items);
+		basketEntries.removeIf(basketEntry -> itemsToRemove.contains(basketEntry.getItem()));
+	}
+	
 	private void remove(EditableBasketEntry basketEntry) {
 		basketEntries.remove(basketEntry);
 	}
@@ -95,47 +129,29 @@ public class SimpleBasket implements Basket {
 			total += basketEntry.getTotalCost();
 		return total;
 	}
+	
+	@Override
+	public long getTotalCostInMinorUnits(int scale)
+			throws ArithmeticException, IllegalArgumentException {
+		MinorUnits.checkScale(scale);
+		long total = 0L;
+		for (int i = 0; i < basketEntries.size(); i++)
+			total = Math.addExact(total, basketEntries.get(i).getTotalCostInMinorUnits(scale));
+		return total;
+	}
 
 	@Override
 	public Iterator<BasketEntry> iterator() {
 		return new BasketIterator();
 	}
 	
-	
-	private class EditableBasketEntry extends BasketEntry {
-		
-		public EditableBasketEntry(Item item, int quantity) throws IllegalArgumentException {
-			super(item, quantity);
-		}
-		
-		/**
-		 * Increments the quantity of the item in the basket by the given amount.
-		 * @param amount The number to increment the quantity by.
-		 * @return The new quantity of the item.
-		 * @throws IllegalArgumentException Thrown if {@code amount <= 0}.
-		 * @throws ArithmeticException Thrown if {@code basketEntry.getAmount() + amount >
-		 * 		Integer.MAX_VALUE}.
-		 */
-		public int incrementQuantity(int amount) throws IllegalArgumentException, ArithmeticException {
-			assertNotNegative(amount, IllegalArgumentException.class, "Quantity must be >= 0");
-			int newQuantity = this.quantity + amount;
-			assertNotNegative(newQuantity, ArithmeticException.class, "Quantity overflowed");
-			return this.quantity += amount;
-		}
-		
-		/**
-		 * Decrements the quantity of the item in the basket by the given amount.
-		 * @param amount The number to decrement the quantity by.
-		 * @return The new quantity of the item. Note that this method will not allow the item quantity
-		 * 		to fall below 0 - calling this method when {@code amount > basketEntry.getQuantity()}
-		 * 		will set the item quantity to 0.
-		 */
-		public int decrementQuantity(int amount) throws IllegalArgumentException {
-			assertNotNegative(amount, IllegalArgumentException.class, "Quantity must be >= 0");
-			int newQuantity = quantity - amount;
-			return quantity = newQuantity <= 0 ? 0 : newQuantity;
-		}
-		
+	/**
+	 * {@inheritDoc} The spliterator knows its exact size and splits the basket's lines evenly, so
+	 * that the lines can be processed in parallel.
+	 */
+	@Override
+	public Spliterator<BasketEntry> spliterator() {
+		return Collections.<BasketEntry>unmodifiableList(basketEntries).spliterator();
 	}
 	
 	
@@ -0,0 +1,203 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class BasketCodecTest {
+	
+	private final Item item1 = new Item("id01", "Water bottle", 3.45);
+	private final Item item2 = new Item("id02", "Desktop fan", 10d);
+	private final Item item3 = new Item("id\u00e903\ud83d\uded2", "Trolley", 3.6);
+	private final Item item4 = new Item("id04", "Thermal flask", 5.7);
+	
+	private final ItemDAO itemDAO = new ItemHashDAO(item1, item2, item3, item4);
+	
+	@Test
+	public void testRoundTrip() {
+		Basket basket = new HashBasket();
+		basket.addItem(item2, 300);
+		basket.addItem(item1);
+		basket.addItem(item3, Integer.MAX_VALUE);
+		basket.addItem(item4, 0);
+		
+		byte[] encoded = BasketCodec.encode(basket);
+		assertEquals(BasketCodec.encodedSize(basket), encoded.length);
+		
+		Basket decoded = new HashBasket();
+		assertEquals(0, BasketCodec.decode(encoded, itemDAO, decoded));
+		assertSameLines(basket, decoded);
+	}
+	
+	@Test
+	public void testDecodeIntoAnyBasket() {
+		Basket basket = new SimpleBasket();
+		basket.addItem(item1, 2);
+		basket.addItem(item2, 5);
+		byte[] encoded = BasketCodec.encode(basket);
+		
+		Basket decoded = new RunningTotalBasket(new ConcurrentBasket());
+		BasketCodec.decode(encoded, itemDAO, decoded);
+		assertEquals(2, decoded.getQuantity(item1));
+		assertEquals(5, decoded.getQuantity(item2));
+		assertEquals(345L * 2 + 1000L * 5, decoded.getTotalCostInMinorUnits(2));
+	}
+	
+	@Test
+	public void testEncodingIsCompact() {
+		Basket basket = new HashBasket();
+		basket.addItem(item1, 3);
+		// Marker, version, ID length, 4 ID bytes, quantity, end of lines
+		assertEquals(9, BasketCodec.encode(basket).length);
+	}
+	
+	@Test
+	public void testDirectBufferAtOffset() {
+		Basket basket = new HashBasket();
+		basket.addItem(item1, 7);
+		basket.addItem(item3, 129);
+		
+		ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+		buffer.putInt(42);
+		BasketCodec.encode(basket, buffer);
+		int end = buffer.position();
+		buffer.putInt(43);
+		buffer.flip();
+		
+		assertEquals(42, buffer.getInt());
+		Basket decoded = new HashBasket();
+		BasketCodec.decode(buffer, itemDAO, decoded);
+		assertEquals(end, buffer.position());
+		assertEquals(43, buffer.getInt());
+		assertSameLines(basket, decoded);
+	}
+	
+	@Test
+	public void testMissingItemsAreSkipped() {
+		Basket basket = new HashBasket();
+		basket.addItem(item1);
+		basket.addItem(new Item("withdrawn", "Withdrawn item", 1d), 4);
+		basket.addItem(item2, 2);
+		
+		Basket decoded = new HashBasket();
+		assertEquals(1, BasketCodec.decode(BasketCodec.encode(basket), itemDAO, decoded));
+		assertEquals(1, decoded.getQuantity(item1));
+		assertEquals(2, decoded.getQuantity(item2));
+	}
+	
+	@Test
+	public void testItemsAreFetchedInOneCall() {
+		Basket basket = new SimpleBasket();
+		basket.addItem(item1);
+		basket.addItem(item2, 2);
+		basket.addItem(item4, 3);
+		ItemDAO spyDAO = spy(itemDAO);
+		
+		Basket decoded = new SimpleBasket();
+		assertEquals(0, BasketCodec.decode(BasketCodec.encode(basket), spyDAO, decoded));
+		verify(spyDAO).getItems(Arrays.asList(item1.getId(), item2.getId(), item4.getId()));
+		assertSameLines(basket, decoded);
+	}
+	
+	@Test
+	public void testTruncatedBasketAddsNoLines() {
+		Basket basket = new SimpleBasket();
+		basket.addItem(item1);
+		basket.addItem(item2, 2);
+		byte[] encoded = BasketCodec.encode(basket);
+		Basket decoded = new HashBasket();
+		try {
+			BasketCodec.decode(ByteBuffer.wrap(encoded, 0, encoded.length - 2), itemDAO, decoded);
+			fail("Truncated basket accepted");
+		} catch (IllegalArgumentException e) {
+			assertFalse(decoded.iterator().hasNext());
+		}
+	}
+	
+	@Test
+	public void testNegativeQuantityAddsNoLines() {
+		Basket basket = new SimpleBasket();
+		basket.addItem(item1, 3);
+		basket.addItem(item2);
+		byte[] encoded = BasketCodec.encode(basket);
+		
+		// Replace the last line's quantity of 1 with a varint of -1
+		byte[] corrupt = Arrays.copyOf(encoded, encoded.length + 4);
+		int quantity = encoded.length - 2;
+		System.arraycopy(new byte[] {-1, -1, -1, -1, 0x0F, 0}, 0, corrupt, quantity, 6);
+		Basket decoded = new HashBasket();
+		try {
+			BasketCodec.decode(corrupt, itemDAO, decoded);
+			fail("Negative quantity accepted");
+		} catch (IllegalArgumentException e) {
+			assertFalse(decoded.iterator().hasNext());
+		}
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testNegativeIdLength() {
+		BasketCodec.decode(new byte[] {BasketCodec.MARKER, 1, -1, -1, -1, -1, 0x0F}, itemDAO,
+				new HashBasket());
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testOverlongVarint() {
+		BasketCodec.getVarint(ByteBuffer.wrap(new byte[] {-1, -1, -1, -1, 0x1F}));
+	}
+	
+	@Test
+	public void testEmptyBasket() {
+		byte[] encoded = BasketCodec.encode(new HashBasket());
+		assertEquals(3, encoded.length);
+		Basket decoded = new HashBasket();
+		BasketCodec.decode(encoded, itemDAO, decoded);
+		assertFalse(decoded.iterator().hasNext());
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testUnsupportedVersion() {
+		BasketCodec.decode(new byte[] {BasketCodec.MARKER, 2, 0}, itemDAO, new HashBasket());
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testNotABasket() {
+		BasketCodec.decode(new byte[] {1, 1, 0}, itemDAO, new HashBasket());
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testTruncatedBasket() {
+		Basket basket = new HashBasket();
+		basket.addItem(item1, 3);
+		byte[] encoded = BasketCodec.encode(basket);
+		BasketCodec.decode(ByteBuffer.wrap(encoded, 0, encoded.length - 2), itemDAO,
+				new HashBasket());
+	}
+	
+	@Test
+	public void testVarints() {
+		ByteBuffer buffer = ByteBuffer.allocate(5);
+		for (int value : new int[] {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, -1}) {
+			buffer.clear();
+			BasketCodec.putVarint(buffer, value);
+			assertEquals(BasketCodec.varintSize(value), buffer.position());
+			buffer.flip();
+			assertEquals(value, BasketCodec.getVarint(buffer));
+		}
+	}
+	
+	private static void assertSameLines(Basket expected, Basket actual) {
+		Iterator<BasketEntry> actualEntries = actual.iterator();
+		for (BasketEntry expectedEntry : expected) {
+			BasketEntry actualEntry = actualEntries.next();
+			assertEquals(expectedEntry.getItem(), actualEntry.getItem());
+			assertEquals(expectedEntry.getQuantity(), actualEntry.getQuantity());
+		}
+		assertFalse(actualEntries.hasNext());
+	}
+	
+}
@@ -26,5 +26,17 @@ public class BasketEntryTest {
 	public void testGetTotalCost() {
 		assertEquals(14.65*3, basketEntry.getTotalCost(), 1e-5);
 	}
+	
+	@Test
+	public void testGetTotalCostInMinorUnits() {
+		assertEquals(4395L, basketEntry.getTotalCostInMinorUnits(2));
+		assertEquals(439500L, basketEntry.getTotalCostInMinorUnits(4));
+	}
+	
+	@Test (expected = ArithmeticException.class)
+	public void testGetTotalCostInMinorUnitsOverflows() {
+		new BasketEntry(new Item("id3", "Yacht", Long.MAX_VALUE / 2, 0), 3)
+				.getTotalCostInMinorUnits(0);
+	}
 
 }
@@ -0,0 +1,177 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BasketEventPublisherTest {
+	
+	private static final Item ITEM = new Item("event01", "Event item", 1d);
+	
+	private BasketEventPublisher publisher = new BasketEventPublisher(16, 4);
+	
+	@After
+	public void closePublisher() {
+		publisher.close();
+	}
+	
+	private static BasketChangeEvent event(int newQuantity) {
+		return new BasketChangeEvent("basket", ITEM, newQuantity - 1, newQuantity);
+	}
+	
+	@Test
+	public void testEventsAreDeliveredInOrderInBatches() throws InterruptedException {
+		List<Integer> quantities = new ArrayList<>();
+		List<Integer> batchSizes = new ArrayList<>();
+		publisher.addListener(batch -> {
+			batchSizes.add(batch.size());
+			for (BasketChangeEvent event : batch)
+				quantities.add(event.getNewQuantity());
+		});
+		
+		for (int i = 1; i <= 10; i++)
+			assertTrue(publisher.publish(event(i)));
+		publisher.flush();
+		
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 1; i <= 10; i++)
+			expected.add(i);
+		assertEquals(expected, quantities);
+		for (int batchSize : batchSizes)
+			assertTrue(batchSize >= 1 && batchSize <= 4);
+		assertEquals(10L, publisher.getDeliveredCount());
+		assertEquals(0L, publisher.getDroppedCount());
+	}
+	
+	@Test
+	public void testFullBufferDropsEventsWithoutBlocking() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> quantities = new ArrayList<>();
+		publisher.addListener(batch -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for (BasketChangeEvent event : batch)
+				quantities.add(event.getNewQuantity());
+		});
+		
+		publisher.publish(event(1));
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+		int accepted = 0;
+		for (int i = 2; i <= 100; i++)
+			if (publisher.publish(event(i)))
+				accepted++;
+		assertEquals(16, accepted);
+		assertEquals(100 - 1 - 16, publisher.getDroppedCount());
+		
+		release.countDown();
+		publisher.flush();
+		assertEquals(17, quantities.size());
+		assertEquals(17L, publisher.getDeliveredCount());
+	}
+	
+	@Test
+	public void testFailingListenerDoesNotStopDelivery() throws InterruptedException {
+		List<BasketChangeEvent> received = new ArrayList<>();
+		publisher.addListener(batch -> {
+			throw new IllegalStateException("Listener failed");
+		});
+		publisher.addListener(received::addAll);
+		publisher.publish(event(1));
+		publisher.flush();
+		publisher.publish(event(2));
+		publisher.flush();
+		
+		assertEquals(2, received.size());
+		assertEquals(2L, publisher.getListenerFailureCount());
+	}
+	
+	@Test
+	public void testListenerErrorDoesNotStopDelivery() throws InterruptedException {
+		List<BasketChangeEvent> received = new ArrayList<>();
+		publisher.addListener(batch -> {
+			throw new AssertionError("Listener failed");
+		});
+		publisher.addListener(received::addAll);
+		publisher.publish(event(1));
+		publisher.flush();
+		publisher.publish(event(2));
+		publisher.flush();
+		
+		assertEquals(2, received.size());
+		assertEquals(2L, publisher.getListenerFailureCount());
+	}
+	
+	@Test
+	public void testCloseDeliversPublishedEvents() {
+		List<BasketChangeEvent> received = new ArrayList<>();
+		publisher.addListener(received::addAll);
+		for (int i = 1; i <= 12; i++)
+			publisher.publish(event(i));
+		publisher.close();
+		assertEquals(12, received.size());
+		
+		assertFalse(publisher.publish(event(13)));
+		assertEquals(1L, publisher.getDroppedCount());
+	}
+	
+	@Test
+	public void testConcurrentPublishers() throws InterruptedException {
+		publisher.close();
+		publisher = new BasketEventPublisher(1 << 16, 256);
+		long[] received = new long[1];
+		publisher.addListener(batch -> received[0] += batch.size());
+		
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 1; i <= 10_000; i++)
+					publisher.publish(event(i));
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		publisher.flush();
+		
+		assertEquals(40_000L, received[0] + publisher.getDroppedCount());
+		assertEquals(received[0], publisher.getDeliveredCount());
+	}
+	
+	@Test
+	public void testCapacityIsRoundedUpToPowerOfTwo() throws InterruptedException {
+		publisher.close();
+		publisher = new BasketEventPublisher(5, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		publisher.addListener(batch -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		int accepted = 0;
+		for (int i = 1; i <= 20; i++)
+			if (publisher.publish(event(i)))
+				accepted++;
+		release.countDown();
+		// Up to one event may already have been taken by the blocked listener
+		assertTrue(accepted == 8 || accepted == 9);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCapacityIsRejected() {
+		new BasketEventPublisher(0, 1);
+	}
+	
+}
@@ -0,0 +1,275 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BasketJournalTest {
+	
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	
+	private final Item item1 = new Item("id01", "Water bottle", 3.45);
+	private final Item item2 = new Item("id02", "Desktop fan", 10d);
+	private final Item item3 = new Item("id\u00e903", "Caf\u00e9 cr\u00e8me", 1.25);
+	private final ItemDAO itemDAO = new ItemHashDAO(item1, item2, item3);
+	
+	private Map<String, Basket> reopen(Path directory) throws IOException {
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			return journal.recover(itemDAO, SimpleBasket::new);
+		}
+	}
+	
+	@Test
+	public void testEmptyJournalRecoversNoBaskets() throws IOException {
+		assertTrue(reopen(folder.getRoot().toPath()).isEmpty());
+	}
+	
+	@Test
+	public void testBasketsAreRecoveredWithEverySyncPolicy() throws IOException {
+		List<BasketJournal.SyncPolicy> syncPolicies = Arrays.asList(
+				BasketJournal.SyncPolicy.perOperation(),
+				BasketJournal.SyncPolicy.batched(3),
+				BasketJournal.SyncPolicy.interval(1, TimeUnit.HOURS));
+		for (BasketJournal.SyncPolicy syncPolicy : syncPolicies) {
+			Path directory = folder.newFolder().toPath();
+			try (BasketJournal journal = new BasketJournal(directory, syncPolicy)) {
+				Basket basket1 = new JournalingBasket("b1", new SimpleBasket(), journal);
+				Basket basket2 = new JournalingBasket("b\u00e92", new HashBasket(), journal);
+				basket1.addItem(item1, 2);
+				basket2.addItem(item3);
+				basket1.removeAll(Arrays.asList(item1, item2));
+				basket1.addItem(item2);
+				basket2.addItem(item3, 4);
+			}
+			
+			Map<String, Basket> baskets = reopen(directory);
+			assertEquals(Arrays.asList("b1", "b\u00e92"), new ArrayList<>(baskets.keySet()));
+			assertFalse(baskets.get("b1").contains(item1));
+			assertEquals(1, baskets.get("b1").getQuantity(item2));
+			assertEquals(5, baskets.get("b\u00e92").getQuantity(item3));
+		}
+	}
+	
+	@Test
+	public void testDiscardedBasketIsNotRecovered() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			new JournalingBasket("b1", new SimpleBasket(), journal).addItem(item1);
+			new JournalingBasket("b2", new SimpleBasket(), journal).addItem(item2);
+			journal.discard("b1");
+		}
+		assertEquals(Arrays.asList("b2"), new ArrayList<>(reopen(directory).keySet()));
+	}
+	
+	@Test
+	public void testMissingItemsAreSkipped() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket basket = new JournalingBasket("b1", new SimpleBasket(), journal);
+			basket.addItem(new Item("id04", "Wallet", 12d));
+			basket.addItem(item1);
+		}
+		Basket basket = reopen(directory).get("b1");
+		assertEquals(1, basket.getQuantity(item1));
+		assertEquals(item1.getPrice(), basket.getTotalCost(), 0d);
+	}
+	
+	@Test
+	public void testIncompleteRecordIsDiscarded() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket basket = new JournalingBasket("b1", new SimpleBasket(), journal);
+			basket.addItem(item1);
+			basket.addItem(item2);
+		}
+		
+		// Simulate a crash part way through writing the last record
+		Path log = directory.resolve(BasketJournal.LOG_FILE);
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+		long tornLength = Files.size(log);
+		
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket basket = new JournalingBasket("b1",
+					journal.recover(itemDAO, SimpleBasket::new).get("b1"), journal);
+			assertEquals(1, basket.getQuantity(item1));
+			assertFalse(basket.contains(item2));
+			assertTrue(Files.size(log) < tornLength);
+			basket.addItem(item3);
+		}
+		
+		Basket basket = reopen(directory).get("b1");
+		assertEquals(1, basket.getQuantity(item1));
+		assertEquals(1, basket.getQuantity(item3));
+	}
+	
+	@Test
+	public void testCorruptRecordEndsReplay() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket basket = new JournalingBasket("b1", new SimpleBasket(), journal);
+			basket.addItem(item1);
+			basket.addItem(item2);
+		}
+		
+		Path log = directory.resolve(BasketJournal.LOG_FILE);
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), channel.size() - 1);
+		}
+		
+		Basket basket = reopen(directory).get("b1");
+		assertEquals(1, basket.getQuantity(item1));
+		assertFalse(basket.contains(item2));
+	}
+	
+	@Test
+	public void testCompactionReplacesLogWithSnapshot() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Path log = directory.resolve(BasketJournal.LOG_FILE);
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket basket = new JournalingBasket("b1", new SimpleBasket(), journal);
+			for (int i = 0; i < 100; i++) {
+				basket.addItem(item1);
+				basket.removeItem(item1);
+			}
+			basket.addItem(item2, 3);
+			long uncompactedLength = Files.size(log);
+			
+			journal.compact(Map.of("b1", basket));
+			assertTrue(Files.size(log) < uncompactedLength);
+			basket.addItem(item3);
+		}
+		
+		Basket basket = reopen(directory).get("b1");
+		assertFalse(basket.contains(item1));
+		assertEquals(3, basket.getQuantity(item2));
+		assertEquals(1, basket.getQuantity(item3));
+	}
+	
+	@Test
+	public void testCompactedLogIsNotReplayedTwice() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		Path log = directory.resolve(BasketJournal.LOG_FILE);
+		Path savedLog = directory.resolve("saved.log");
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket basket = new JournalingBasket("b1", new SimpleBasket(), journal);
+			basket.addItem(item1, 2);
+			journal.flush();
+			Files.copy(log, savedLog);
+			journal.compact(Map.of("b1", basket));
+		}
+		
+		// Simulate a crash after the snapshot was written but before the log was emptied
+		Files.copy(savedLog, log, StandardCopyOption.REPLACE_EXISTING);
+		Files.delete(savedLog);
+		assertEquals(2, reopen(directory).get("b1").getQuantity(item1));
+		assertEquals(2, reopen(directory).get("b1").getQuantity(item1));
+	}
+	
+	@Test
+	public void testConcurrentChangesAreAllRecovered() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		int threadCount = 8;
+		int additions = 200;
+		try (BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation())) {
+			Basket shared = new JournalingBasket("shared", new ConcurrentBasket(), journal);
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < threadCount; t++) {
+				Basket own = new JournalingBasket("b" + t, new SimpleBasket(), journal);
+				threads.add(new Thread(() -> {
+					for (int i = 0; i < additions; i++) {
+						shared.addItem(item1);
+						own.addItem(item2);
+					}
+				}));
+			}
+			for (Thread thread : threads)
+				thread.start();
+			for (Thread thread : threads)
+				thread.join();
+		}
+		
+		Map<String, Basket> baskets = reopen(directory);
+		assertEquals(threadCount * additions, baskets.get("shared").getQuantity(item1));
+		for (int t = 0; t < threadCount; t++)
+			assertEquals(additions, baskets.get("b" + t).getQuantity(item2));
+	}
+	
+	@Test
+	public void testFailedSyncStopsJournal() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		BasketJournal journal =
+				new BasketJournal(directory, BasketJournal.SyncPolicy.perOperation());
+		Basket basket = new JournalingBasket("b1", new SimpleBasket(), journal);
+		basket.addItem(item1);
+		
+		// Interrupting the syncing thread closes the log, so the write fails
+		Thread.currentThread().interrupt();
+		try {
+			basket.addItem(item2);
+			fail("UncheckedIOException expected");
+		} catch (UncheckedIOException e) {
+			// Expected
+		} finally {
+			Thread.interrupted();
+		}
+		assertTrue(basket.contains(item2));
+		
+		try {
+			basket.addItem(item3);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		assertFalse(basket.contains(item3));
+		try {
+			journal.flush();
+			fail("IOException expected");
+		} catch (IOException e) {
+			// Expected
+		}
+		try {
+			journal.close();
+			fail("IOException expected");
+		} catch (IOException e) {
+			// Expected
+		}
+		
+		Basket recovered = reopen(directory).get("b1");
+		assertEquals(1, recovered.getQuantity(item1));
+		assertFalse(recovered.contains(item3));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBatchSizeThrowsException() {
+		BasketJournal.SyncPolicy.batched(0);
+	}
+	
+}
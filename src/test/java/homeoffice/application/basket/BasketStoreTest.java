@@ -0,0 +1,248 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class BasketStoreTest {
+	
+	private final AtomicLong clock = new AtomicLong();
+	private final BasketStore store =
+			new BasketStore(SimpleBasket::new, 4, 10, 0L, TimeUnit.SECONDS, null, clock::get);
+	private final Item item = new Item("id01", "Water bottle", 3.45);
+	
+	@Test
+	public void testBasketIsCreatedOnceForEachSession() {
+		Basket basket = store.getBasket("session1");
+		basket.addItem(item);
+		assertSame(basket, store.getBasket("session1"));
+		assertNotSame(basket, store.getBasket("session2"));
+		assertEquals(1, store.getBasket("session1").getQuantity(item));
+		assertEquals(2, store.size());
+	}
+	
+	@Test
+	public void testGetBasketIfPresentDoesNotCreateBasket() {
+		assertNull(store.getBasketIfPresent("session1"));
+		Basket basket = store.getBasket("session1");
+		assertSame(basket, store.getBasketIfPresent("session1"));
+		assertEquals(1, store.size());
+	}
+	
+	@Test
+	public void testRemoveBasket() {
+		Basket basket = store.getBasket("session1");
+		assertSame(basket, store.removeBasket("session1"));
+		assertNull(store.removeBasket("session1"));
+		assertNull(store.getBasketIfPresent("session1"));
+		assertEquals(0, store.size());
+	}
+	
+	@Test
+	public void testIdleBasketsAreEvicted() {
+		Basket basket1 = store.getBasket("session1");
+		store.getBasket("session2");
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		assertSame(basket1, store.getBasket("session1"));
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		
+		assertEquals(1, store.evictIdle());
+		assertEquals(1, store.size());
+		assertSame(basket1, store.getBasketIfPresent("session1"));
+		assertNull(store.getBasketIfPresent("session2"));
+		
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		assertNotSame(basket1, store.getBasket("session1"));
+	}
+	
+	@Test
+	public void testBasketsAreNotEvictedWithoutIdleTimeout() {
+		BasketStore store =
+				new BasketStore(SimpleBasket::new, 4, 0, 0L, TimeUnit.SECONDS, null, clock::get);
+		store.getBasket("session1");
+		clock.addAndGet(TimeUnit.DAYS.toNanos(365));
+		assertEquals(0, store.evictIdle());
+		assertNotNull(store.getBasketIfPresent("session1"));
+	}
+	
+	@Test
+	public void testShardCountIsRoundedUpToPowerOfTwo() {
+		assertEquals(1, new BasketStore(SimpleBasket::new, 1, 0, TimeUnit.SECONDS).getShardCount());
+		assertEquals(8, new BasketStore(SimpleBasket::new, 5, 0, TimeUnit.SECONDS).getShardCount());
+		assertEquals(8, new BasketStore(SimpleBasket::new, 8, 0, TimeUnit.SECONDS).getShardCount());
+		assertTrue(Integer.bitCount(new BasketStore(SimpleBasket::new).getShardCount()) == 1);
+	}
+	
+	@Test
+	public void testShardMetrics() {
+		for (int i = 0; i < 100; i++)
+			store.getBasket("session" + i);
+		for (int i = 0; i < 50; i++)
+			store.getBasket("session" + i);
+		store.getBasketIfPresent("missing");
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		store.evictIdle();
+		
+		List<BasketStore.ShardMetrics> metrics = store.getShardMetrics();
+		assertEquals(4, metrics.size());
+		long hits = 0;
+		long misses = 0;
+		long evictions = 0;
+		for (BasketStore.ShardMetrics shardMetrics : metrics) {
+			assertEquals(0, shardMetrics.getSize());
+			hits += shardMetrics.getHitCount();
+			misses += shardMetrics.getMissCount();
+			evictions += shardMetrics.getEvictionCount();
+		}
+		assertEquals(50, hits);
+		assertEquals(101, misses);
+		assertEquals(100, evictions);
+	}
+	
+	@Test
+	public void testStoreMatchesMapThroughAddsRemovalsAndEvictions() {
+		BasketStore store =
+				new BasketStore(SimpleBasket::new, 1, 100, 0L, TimeUnit.SECONDS, null, clock::get);
+		Map<String, Basket> expected = new HashMap<>();
+		Map<String, Long> lastAccess = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			String sessionId = "session" + random.nextInt(2000);
+			switch (random.nextInt(4)) {
+			case 0:
+				assertSame(expected.remove(sessionId), store.removeBasket(sessionId));
+				break;
+			case 1:
+				clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(random.nextInt(100)));
+				expected.keySet().removeIf(id ->
+						clock.get() - lastAccess.get(id) >= TimeUnit.SECONDS.toNanos(100));
+				break;
+			default:
+				Basket basket = store.getBasket(sessionId);
+				Basket previous = expected.putIfAbsent(sessionId, basket);
+				if (previous != null)
+					assertSame(previous, basket);
+				lastAccess.put(sessionId, clock.get());
+			}
+		}
+		for (Map.Entry<String, Basket> session : expected.entrySet())
+			assertSame(session.getValue(), store.getBasketIfPresent(session.getKey()));
+		store.evictIdle();
+		assertEquals(expected.size(), store.size());
+	}
+	
+	@Test
+	public void testConcurrentSessionsEachGetOneBasket() throws InterruptedException {
+		BasketStore store = new BasketStore(ConcurrentBasket::new);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 1000; i++)
+					store.getBasket("session" + i).addItem(item);
+			}));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		
+		assertEquals(1000, store.size());
+		for (int i = 0; i < 1000; i++)
+			assertEquals(8, store.getBasket("session" + i).getQuantity(item));
+	}
+	
+	@Test
+	public void testIdleBasketsAreArchivedAndRehydrated() {
+		Item item2 = new Item("id02", "Desktop fan", 10d);
+		BasketStore store = new BasketStore(SimpleBasket::new, 2, 60, 10, TimeUnit.SECONDS,
+				new ItemHashDAO(item, item2), clock::get);
+		Basket basket1 = store.getBasket("session1");
+		basket1.addItem(item, 2);
+		basket1.addItem(item2);
+		store.getBasket("session2").addItem(item);
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		store.getBasket("session2");
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		
+		assertEquals(0, store.evictIdle());
+		assertEquals(2, store.size());
+		assertEquals(1, totalArchivedCount(store));
+		
+		Basket rehydrated = store.getBasket("session1");
+		assertNotSame(basket1, rehydrated);
+		assertEquals(2, rehydrated.getQuantity(item));
+		assertEquals(1, rehydrated.getQuantity(item2));
+		assertSame(rehydrated, store.getBasket("session1"));
+		assertEquals(0, totalArchivedCount(store));
+		
+		long rehydrations = 0;
+		for (BasketStore.ShardMetrics metrics : store.getShardMetrics())
+			rehydrations += metrics.getRehydrationCount();
+		assertEquals(1, rehydrations);
+	}
+	
+	@Test
+	public void testArchivedBasketsAreEvictedAndRemoved() {
+		BasketStore store = new BasketStore(SimpleBasket::new, 1, 60, 10, TimeUnit.SECONDS,
+				new ItemHashDAO(item), clock::get);
+		store.getBasket("session1").addItem(item);
+		store.getBasket("session2").addItem(item, 3);
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		store.evictIdle();
+		assertEquals(2, totalArchivedCount(store));
+		assertTrue(store.getShardMetrics().get(0).getArchivedBytes() > 0L);
+		
+		assertEquals(3, store.removeBasket("session2").getQuantity(item));
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+		assertEquals(1, store.evictIdle());
+		assertEquals(0, store.size());
+		assertEquals(0, totalArchivedCount(store));
+		assertEquals(0L, store.getShardMetrics().get(0).getArchivedBytes());
+	}
+	
+	@Test
+	public void testManyArchivedBasketsSurviveResizing() {
+		BasketStore store = new BasketStore(SimpleBasket::new, 1, 0, 10, TimeUnit.SECONDS,
+				new ItemHashDAO(item), clock::get);
+		for (int i = 0; i < 500; i++)
+			store.getBasket("session" + i).addItem(item, i + 1);
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		store.evictIdle();
+		for (int i = 500; i < 1000; i++)
+			store.getBasket("session" + i).addItem(item, i + 1);
+		assertEquals(500, totalArchivedCount(store));
+		for (int i = 0; i < 1000; i++)
+			assertEquals(i + 1, store.getBasket("session" + i).getQuantity(item));
+	}
+	
+	private static int totalArchivedCount(BasketStore store) {
+		int archived = 0;
+		for (BasketStore.ShardMetrics metrics : store.getShardMetrics())
+			archived += metrics.getArchivedCount();
+		return archived;
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testArchiveAfterIdleTimeoutThrowsException() {
+		new BasketStore(SimpleBasket::new, 4, 10, 10, TimeUnit.SECONDS, new ItemHashDAO());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidShardCountThrowsException() {
+		new BasketStore(SimpleBasket::new, 0, 0, TimeUnit.SECONDS);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeIdleTimeoutThrowsException() {
+		new BasketStore(SimpleBasket::new, 4, -1, TimeUnit.SECONDS);
+	}
+	
+}
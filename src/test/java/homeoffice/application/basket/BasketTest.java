@@ -2,22 +2,39 @@ package homeoffice.application.basket;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import org.junit.Test;
 
 public class BasketTest {
 	
-	private final SimpleBasket basket = new SimpleBasket();
+	protected final Basket basket = createBasket();
 	
-	private static final double ITEM_1_COST = 3.45;
-	private static final double ITEM_2_COST = 1.23;
-	private static final double ITEM_3_COST = 13.45;
+	protected static final double ITEM_1_COST = 3.45;
+	protected static final double ITEM_2_COST = 1.23;
+	protected static final double ITEM_3_COST = 13.45;
 	
-	private static final Item ITEM_1 = new Item("id01", "Water bottle", ITEM_1_COST);
-	private static final Item ITEM_2 = new Item("id02", "Desktop fan", ITEM_2_COST);
-	private static final Item ITEM_3 = new Item("id03", "Coffee beans", ITEM_3_COST);
+	protected static final Item ITEM_1 = new Item("id01", "Water bottle", ITEM_1_COST);
+	protected static final Item ITEM_2 = new Item("id02", "Desktop fan", ITEM_2_COST);
+	protected static final Item ITEM_3 = new Item("id03", "Coffee beans", ITEM_3_COST);
+	
+	/**
+	 * Creates the {@code Basket} under test. Subclasses should override this to run the suite
+	 * against other {@code Basket} implementations.
+	 * @return A new, empty basket.
+	 */
+	protected Basket createBasket() {
+		return new SimpleBasket();
+	}
 	
 	@Test
 	public void testAddSingleItem() {
@@ -90,6 +107,65 @@ public class BasketTest {
 		assertFalse(basket.contains(ITEM_1));
 	}
 	
+	@Test
+	public void testAddAll() {
+		basket.addItem(ITEM_1, 2);
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(ITEM_1, 3);
+		items.put(ITEM_2, 4);
+		items.put(ITEM_3, 0);
+		basket.addAll(items);
+		assertEquals(5, basket.getQuantity(ITEM_1));
+		assertEquals(4, basket.getQuantity(ITEM_2));
+		assertTrue(basket.contains(ITEM_3));
+		assertEquals(345L * 5 + 123L * 4, basket.getTotalCostInMinorUnits(2));
+	}
+	
+	@Test
+	public void testAddAllWithNegativeQuantityChangesNothing() {
+		basket.addItem(ITEM_1, 2);
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(ITEM_1, 3);
+		items.put(ITEM_2, -1);
+		try {
+			basket.addAll(items);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals(2, basket.getQuantity(ITEM_1));
+			assertFalse(basket.contains(ITEM_2));
+		}
+	}
+	
+	@Test
+	public void testAddAllWithOverflowChangesNothing() {
+		basket.addItem(ITEM_2, Integer.MAX_VALUE);
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(ITEM_1, 3);
+		items.put(ITEM_2, 1);
+		items.put(ITEM_3, 1);
+		try {
+			basket.addAll(items);
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			assertFalse(basket.contains(ITEM_1));
+			assertEquals(Integer.MAX_VALUE, basket.getQuantity(ITEM_2));
+			assertFalse(basket.contains(ITEM_3));
+			assertEquals(123L * Integer.MAX_VALUE, basket.getTotalCostInMinorUnits(2));
+		}
+	}
+	
+	@Test
+	public void testRemoveAllItems() {
+		basket.addItem(ITEM_1, 5);
+		basket.addItem(ITEM_2, 6);
+		basket.addItem(ITEM_3, 3);
+		basket.removeAll(Arrays.asList(ITEM_1, ITEM_3, new Item("id04", "Not in basket", 1d)));
+		assertFalse(basket.contains(ITEM_1));
+		assertEquals(6, basket.getQuantity(ITEM_2));
+		assertFalse(basket.contains(ITEM_3));
+		assertEquals(123L * 6, basket.getTotalCostInMinorUnits(2));
+	}
+	
 	@Test
 	public void testClear() {
 		basket.addItem(ITEM_1, 5);
@@ -118,6 +194,31 @@ public class BasketTest {
 		assertEquals(expectedCost, basket.getTotalCost(), 1e-5);
 	}
 	
+	@Test
+	public void testGetTotalCostInMinorUnits() {
+		basket.addItem(ITEM_1, 5);
+		basket.addItem(ITEM_2, 6);
+		basket.addItem(ITEM_3, 3);
+		long expectedCost = 345L * 5 + 123L * 6 + 1345L * 3;
+		assertEquals(expectedCost, basket.getTotalCostInMinorUnits(2));
+		assertEquals(expectedCost * 10, basket.getTotalCostInMinorUnits(3));
+	}
+	
+	@Test
+	public void testGetTotalCostInMinorUnitsIsExact() {
+		Item tenPence = new Item("id04", "Sweet", 0.1);
+		basket.addItem(tenPence, 3);
+		assertEquals(30L, basket.getTotalCostInMinorUnits(2));
+		assertEquals(0L, basket.getTotalCostInMinorUnits(2) - 30L);
+	}
+	
+	@Test (expected = ArithmeticException.class)
+	public void testGetTotalCostInMinorUnitsOverflows() {
+		basket.addItem(new Item("id04", "Yacht", Long.MAX_VALUE / 4, 0), 2);
+		basket.addItem(new Item("id05", "Another yacht", Long.MAX_VALUE / 4, 0), 3);
+		basket.getTotalCostInMinorUnits(0);
+	}
+	
 	@Test
 	public void testGetTotalCostWhenEmpty() {
 		assertEquals(0d, basket.getTotalCost(), 1e-5);
@@ -172,4 +273,34 @@ public class BasketTest {
 		basketEntries.next();
 	}
 	
+	@Test
+	public void testSpliteratorVisitsEveryLineOnceWhenSplit() {
+		Map<Item, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100; i++) {
+			Item item = new Item(String.format("spliterator%03d", i), "Item " + i, 1d);
+			basket.addItem(item, i + 1);
+			expected.put(item, i + 1);
+		}
+		basket.removeAll(new Item("spliterator050", "Item 50", 1d));
+		expected.remove(new Item("spliterator050", "Item 50", 1d));
+		
+		Map<Item, Integer> visited = new HashMap<>();
+		Consumer<BasketEntry> visit = basketEntry ->
+				visited.merge(basketEntry.getItem(), basketEntry.getQuantity(), Integer::sum);
+		Deque<Spliterator<BasketEntry>> spliterators = new ArrayDeque<>();
+		spliterators.push(basket.spliterator());
+		while (!spliterators.isEmpty()) {
+			Spliterator<BasketEntry> spliterator = spliterators.pop();
+			Spliterator<BasketEntry> prefix = spliterator.trySplit();
+			if (prefix != null) {
+				spliterators.push(prefix);
+				spliterators.push(spliterator);
+			} else {
+				spliterator.tryAdvance(visit);
+				spliterator.forEachRemaining(visit);
+			}
+		}
+		assertEquals(expected, visited);
+	}
+	
 }
@@ -0,0 +1,121 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class CachingItemDAOTest extends ItemListDAOTest {
+	
+	private final AtomicLong clock = new AtomicLong();
+	
+	@Override
+	protected ItemDAO createItemDAO(Item... items) {
+		return new CachingItemDAO(new ItemListDAO(items), 100);
+	}
+	
+	@Test
+	public void repeatedLookupsAreServedFromCache() {
+		ItemDAO backingDAO = spy(new ItemListDAO(initialItems));
+		CachingItemDAO cachingDAO = new CachingItemDAO(backingDAO, 10);
+		assertSame(item1, cachingDAO.getItem(item1.getId()));
+		assertSame(item1, cachingDAO.getItem(item1.getId()));
+		assertSame(item1, cachingDAO.getItem(item1.getId()));
+		verify(backingDAO, times(1)).getItem(item1.getId());
+		assertEquals(2, cachingDAO.getHitCount());
+		assertEquals(1, cachingDAO.getMissCount());
+	}
+	
+	@Test
+	public void missingItemsAreNotCached() {
+		CachingItemDAO cachingDAO = new CachingItemDAO(new ItemListDAO(initialItems), 10);
+		assertNull(cachingDAO.getItem(item8.getId()));
+		assertEquals(0, cachingDAO.size());
+		assertTrue(cachingDAO.addItem(item8));
+		assertSame(item8, cachingDAO.getItem(item8.getId()));
+	}
+	
+	@Test
+	public void leastRecentlyUsedItemIsEvicted() {
+		ItemDAO backingDAO = spy(new ItemListDAO(initialItems));
+		CachingItemDAO cachingDAO = new CachingItemDAO(backingDAO, 2);
+		cachingDAO.getItem(item1.getId());
+		cachingDAO.getItem(item2.getId());
+		cachingDAO.getItem(item1.getId());
+		cachingDAO.getItem(item3.getId());
+		assertEquals(2, cachingDAO.size());
+		assertEquals(1, cachingDAO.getEvictionCount());
+		
+		cachingDAO.getItem(item1.getId());
+		verify(backingDAO, times(1)).getItem(item1.getId());
+		cachingDAO.getItem(item2.getId());
+		verify(backingDAO, times(2)).getItem(item2.getId());
+	}
+	
+	@Test
+	public void itemsExpireAfterTimeToLive() {
+		ItemDAO backingDAO = spy(new ItemListDAO(initialItems));
+		CachingItemDAO cachingDAO =
+				new CachingItemDAO(backingDAO, 10, 5, TimeUnit.SECONDS, clock::get);
+		cachingDAO.getItem(item1.getId());
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+		cachingDAO.getItem(item1.getId());
+		verify(backingDAO, times(1)).getItem(item1.getId());
+		
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		cachingDAO.getItem(item1.getId());
+		verify(backingDAO, times(2)).getItem(item1.getId());
+		assertEquals(1, cachingDAO.getEvictionCount());
+	}
+	
+	@Test
+	public void updateInvalidatesCachedItem() {
+		CachingItemDAO cachingDAO = new CachingItemDAO(new ItemListDAO(initialItems), 10);
+		assertSame(item5, cachingDAO.getItem(item5.getId()));
+		Item item5Updated = new Item(item5.getId(), "Wireless mouse", 8.95);
+		assertTrue(cachingDAO.updateItem(item5Updated));
+		assertSame(item5Updated, cachingDAO.getItem(item5.getId()));
+	}
+	
+	@Test
+	public void removeInvalidatesCachedItem() {
+		CachingItemDAO cachingDAO = new CachingItemDAO(new ItemListDAO(initialItems), 10);
+		assertSame(item6, cachingDAO.getItem(item6.getId()));
+		assertTrue(cachingDAO.removeItem(item6));
+		assertNull(cachingDAO.getItem(item6.getId()));
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getItemsLoadsOnlyUncachedItemsInOneCall() {
+		ItemDAO backingDAO = spy(new ItemListDAO(initialItems));
+		CachingItemDAO cachingDAO = new CachingItemDAO(backingDAO, 10);
+		cachingDAO.getItem(item1.getId());
+		
+		Map<String, Item> items = cachingDAO.getItems(
+				Arrays.asList(item1.getId(), item2.getId(), item8.getId(), item2.getId()));
+		assertEquals(2, items.size());
+		assertSame(item1, items.get(item1.getId()));
+		assertSame(item2, items.get(item2.getId()));
+		verify(backingDAO, times(1)).getItems((Set<String>) argThat(ids ->
+				((Set<String>) ids).size() == 2 && ((Set<String>) ids).contains(item8.getId())));
+		assertEquals(1, cachingDAO.getHitCount());
+		assertEquals(3, cachingDAO.getMissCount());
+		
+		cachingDAO.getItems(Arrays.asList(item1.getId(), item2.getId()));
+		verify(backingDAO, times(1)).getItems(anyCollection());
+		assertEquals(3, cachingDAO.getHitCount());
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void maximumSizeMustBePositive() {
+		new CachingItemDAO(new ItemListDAO(), 0);
+	}
+	
+}
@@ -0,0 +1,112 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompactBasketTest extends BasketTest {
+	
+	@Override
+	protected Basket createBasket() {
+		return new CompactBasket();
+	}
+	
+	@Test
+	public void testIterationFollowsInsertionOrder() {
+		basket.addItem(ITEM_3);
+		basket.addItem(ITEM_1, 2);
+		basket.addItem(ITEM_2);
+		basket.removeAll(ITEM_1);
+		basket.addItem(ITEM_3);
+		
+		Iterator<BasketEntry> basketEntries = basket.iterator();
+		BasketEntry basketEntry = basketEntries.next();
+		assertEquals(ITEM_3, basketEntry.getItem());
+		assertEquals(2, basketEntry.getQuantity());
+		assertEquals(ITEM_2, basketEntries.next().getItem());
+		assertFalse(basketEntries.hasNext());
+	}
+	
+	@Test
+	public void testEntriesAreSnapshots() {
+		basket.addItem(ITEM_1, 2);
+		BasketEntry basketEntry = basket.iterator().next();
+		basket.addItem(ITEM_1);
+		assertEquals(2, basketEntry.getQuantity());
+		assertEquals(3, basket.iterator().next().getQuantity());
+	}
+	
+	@Test
+	public void testRemovingZeroQuantityLine() {
+		basket.addItem(ITEM_1, 0);
+		assertTrue(basket.contains(ITEM_1));
+		assertEquals(0, basket.removeItem(ITEM_1));
+		assertFalse(basket.contains(ITEM_1));
+	}
+	
+	@Test
+	public void testRemovingLastUnitAcrossCompaction() {
+		Item[] items = new Item[30];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new Item("id" + i, "Item " + i, 1d);
+			basket.addItem(items[i], i + 1);
+		}
+		basket.removeAll(Arrays.asList(items).subList(14, 29));
+		
+		// Removing this line leaves enough gaps for the lines to be compacted
+		assertEquals(0, basket.removeItem(items[0]));
+		assertFalse(basket.contains(items[0]));
+		for (int i = 1; i < 14; i++)
+			assertEquals(i + 1, basket.getQuantity(items[i]));
+		assertEquals(30, basket.getQuantity(items[29]));
+	}
+	
+	@Test
+	public void testBasketMatchesMapThroughManyChanges() {
+		Item[] items = new Item[200];
+		for (int i = 0; i < items.length; i++)
+			items[i] = new Item("id" + i, "Item " + i, (i % 17) + 0.25);
+		Map<Item, Integer> expected = new LinkedHashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			Item item = items[random.nextInt(items.length)];
+			switch (random.nextInt(5)) {
+			case 0:
+				basket.removeAll(item);
+				expected.remove(item);
+				break;
+			case 1:
+				Integer oldQuantity = expected.get(item);
+				assertEquals(oldQuantity == null ? 0 : oldQuantity - 1, basket.removeItem(item));
+				if (oldQuantity != null && oldQuantity > 1)
+					expected.put(item, oldQuantity - 1);
+				else
+					expected.remove(item);
+				break;
+			default:
+				int quantity = 1 + random.nextInt(3);
+				basket.addItem(item, quantity);
+				expected.merge(item, quantity, Integer::sum);
+			}
+		}
+		
+		long expectedTotal = 0L;
+		Iterator<BasketEntry> basketEntries = basket.iterator();
+		for (Map.Entry<Item, Integer> line : expected.entrySet()) {
+			BasketEntry basketEntry = basketEntries.next();
+			assertEquals(line.getKey(), basketEntry.getItem());
+			assertEquals((int) line.getValue(), basketEntry.getQuantity());
+			assertEquals((int) line.getValue(), basket.getQuantity(line.getKey()));
+			expectedTotal += line.getKey().getPriceInMinorUnits(2) * line.getValue();
+		}
+		assertFalse(basketEntries.hasNext());
+		assertEquals(expectedTotal, basket.getTotalCostInMinorUnits(2));
+	}
+	
+}
@@ -0,0 +1,127 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+public class ConcurrentBasketTest extends BasketTest {
+	
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 10_000;
+	
+	@Override
+	protected Basket createBasket() {
+		return new ConcurrentBasket();
+	}
+	
+	@Test
+	public void testOverflowLeavesQuantityUnchanged() {
+		basket.addItem(ITEM_1, Integer.MAX_VALUE - 1);
+		try {
+			basket.addItem(ITEM_1, 2);
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			assertEquals(Integer.MAX_VALUE - 1, basket.getQuantity(ITEM_1));
+		}
+	}
+	
+	@Test
+	public void testRemoveItemToZeroRemovesLine() {
+		basket.addItem(ITEM_1, 2);
+		assertEquals(1, basket.removeItem(ITEM_1));
+		assertEquals(0, basket.removeItem(ITEM_1));
+		assertFalse(basket.contains(ITEM_1));
+		assertFalse(basket.iterator().hasNext());
+		assertEquals(0, basket.removeItem(ITEM_1));
+	}
+	
+	@Test
+	public void testItemCanBeReaddedAfterRemoval() {
+		basket.addItem(ITEM_1);
+		basket.removeAll(ITEM_1);
+		assertEquals(2, basket.addItem(ITEM_1, 2));
+		assertEquals(2, basket.getQuantity(ITEM_1));
+	}
+	
+	@Test
+	public void testConcurrentAddsAreNotLost() throws Exception {
+		runConcurrently(() -> {
+			for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+				basket.addItem(ITEM_1);
+				basket.addItem(ITEM_2, 2);
+			}
+		});
+		assertEquals(THREADS * OPERATIONS_PER_THREAD, basket.getQuantity(ITEM_1));
+		assertEquals(2 * THREADS * OPERATIONS_PER_THREAD, basket.getQuantity(ITEM_2));
+		assertEquals(THREADS * OPERATIONS_PER_THREAD * (ITEM_1_COST + 2 * ITEM_2_COST),
+				basket.getTotalCost(), 1e-3);
+	}
+	
+	@Test
+	public void testConcurrentAddsAndRemovesBalance() throws Exception {
+		runConcurrently(() -> {
+			for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+				basket.addItem(ITEM_1);
+				basket.removeItem(ITEM_1);
+			}
+		});
+		assertEquals(0, basket.getQuantity(ITEM_1));
+		assertFalse(basket.contains(ITEM_1));
+		
+		// Whichever adds and removes interleaved, the line must still behave normally
+		assertEquals(3, basket.addItem(ITEM_1, 3));
+	}
+	
+	@Test
+	public void testConcurrentBatchesAreNotLost() throws Exception {
+		Map<Item, Integer> batch = new LinkedHashMap<>();
+		batch.put(ITEM_1, 1);
+		batch.put(ITEM_2, 3);
+		runConcurrently(() -> {
+			for (int i = 0; i < OPERATIONS_PER_THREAD; i++)
+				basket.addAll(batch);
+		});
+		assertEquals(THREADS * OPERATIONS_PER_THREAD, basket.getQuantity(ITEM_1));
+		assertEquals(3 * THREADS * OPERATIONS_PER_THREAD, basket.getQuantity(ITEM_2));
+	}
+	
+	@Test
+	public void testIterationDuringConcurrentModification() throws Exception {
+		basket.addItem(ITEM_3);
+		runConcurrently(() -> {
+			for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+				basket.addItem(ITEM_1);
+				basket.removeAll(ITEM_1);
+				for (BasketEntry basketEntry : basket)
+					assertNotNull(basketEntry.getItem());
+			}
+		});
+		assertEquals(1, basket.getQuantity(ITEM_3));
+	}
+	
+	private void runConcurrently(Runnable task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CyclicBarrier start = new CyclicBarrier(THREADS);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					task.run();
+					return null;
+				}));
+			}
+			for (Future<?> future : futures)
+				future.get(30, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+}
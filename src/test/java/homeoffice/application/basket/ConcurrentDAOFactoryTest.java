@@ -0,0 +1,29 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+public class ConcurrentDAOFactoryTest {
+	
+	private static final ConcurrentDAOFactory concurrentDaoFactory =
+			ConcurrentDAOFactory.getInstance();
+	
+	@Test
+	public void testGetInstance() {
+		assertTrue(concurrentDaoFactory == ConcurrentDAOFactory.getInstance());
+		assertTrue(concurrentDaoFactory == ConcurrentDAOFactory.getInstance());
+	}
+	
+	@Test
+	public void testGetItemDAOIsConcurrentItemDAO() {
+		assertTrue(concurrentDaoFactory.getItemDAO() instanceof ConcurrentItemDAO);
+	}
+	
+	@Test
+	public void testRegisteredAsConcurrentBackend() {
+		assertSame(concurrentDaoFactory, DAOFactory.getDAOFactory("concurrent"));
+	}
+	
+}
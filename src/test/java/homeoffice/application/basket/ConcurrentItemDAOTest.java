@@ -0,0 +1,101 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConcurrentItemDAOTest extends ItemListDAOTest {
+	
+	@Override
+	protected ItemDAO createItemDAO(Item... items) {
+		return new ConcurrentItemDAO(items);
+	}
+	
+	@Test
+	public void updateItemReplacesInstance() {
+		Item item2Updated = new Item(item2.getId(), "Tower fan", 24.99);
+		assertTrue(itemDAO.updateItem(item2Updated));
+		assertSame(item2Updated, itemDAO.getItem(item2.getId()));
+	}
+	
+	@Test
+	public void firstDuplicateWinsOnConstruction() {
+		Item duplicate = new Item(item1.getId(), "Glass bottle", 6d);
+		ItemDAO dao = new ConcurrentItemDAO(item1, duplicate);
+		assertSame(item1, dao.getItem(item1.getId()));
+	}
+	
+	@Test
+	public void bulkLoadSkipsExistingItems() {
+		ConcurrentItemDAO dao = new ConcurrentItemDAO(Arrays.asList(initialItems));
+		Item duplicate = new Item(item3.getId(), "Croydon mug", 2.2);
+		assertEquals(1, dao.addItems(Arrays.asList(item8, duplicate)));
+		assertSame(item8, dao.getItem(item8.getId()));
+		assertSame(item3, dao.getItem(item3.getId()));
+		assertEquals(8, dao.size());
+	}
+	
+	@Test
+	public void replaceItemOnlyReplacesExpectedInstance() {
+		ConcurrentItemDAO dao = new ConcurrentItemDAO(initialItems);
+		ImmutableItem stale = ImmutableItem.copyOf(item4);
+		ImmutableItem current = ImmutableItem.copyOf(item4);
+		assertTrue(dao.updateItem(current));
+		
+		assertFalse(dao.replaceItem(stale, stale.withPrice(1d)));
+		assertSame(current, dao.getItem(item4.getId()));
+		ImmutableItem updated = current.withPrice(6.5);
+		assertTrue(dao.replaceItem(current, updated));
+		assertSame(updated, dao.getItem(item4.getId()));
+		
+		assertFalse(dao.replaceItem(item8, item8));
+		assertNull(dao.getItem(item8.getId()));
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void replaceItemRejectsDifferentIds() {
+		new ConcurrentItemDAO(initialItems).replaceItem(item1, item2);
+	}
+	
+	@Test
+	public void readersSeeWholeItemsWhileWritersUpdate() throws InterruptedException {
+		// Every version is priced at scale 0, so that readers can compare it with the name
+		ConcurrentItemDAO dao =
+				new ConcurrentItemDAO(new ImmutableItem(item1.getId(), "v0", 0L, 0));
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < 3; r++) {
+			Thread reader = new Thread(() -> {
+				try {
+					while (running.get()) {
+						Item item = dao.getItem(item1.getId());
+						// Each version's name and price are written together
+						if (item == null
+								|| !item.getName().equals("v" + item.getPriceInMinorUnits(0)))
+							throw new AssertionError("Inconsistent item: " + item);
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+		
+		for (int version = 1; version <= 20_000; version++)
+			assertTrue(dao.updateItem(new ImmutableItem(item1.getId(), "v" + version, version, 0)));
+		running.set(false);
+		for (Thread reader : readers)
+			reader.join();
+		if (failure.get() != null)
+			throw new AssertionError("Reader failed", failure.get());
+	}
+	
+}
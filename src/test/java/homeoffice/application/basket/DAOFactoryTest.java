@@ -1,6 +1,16 @@
 package homeoffice.application.basket;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -15,5 +25,141 @@ public class DAOFactoryTest {
 		DAOFactory daoFactory2 = DAOFactory.getDAOFactory(DAOType.LIST);
 		assertTrue(daoFactory == daoFactory2);
 	}
-
+	
+	@Test
+	public void testGetHashDAOFactory() {
+		DAOFactory daoFactory = DAOFactory.getDAOFactory(DAOType.HASH);
+		assertTrue(daoFactory instanceof HashDAOFactory);
+		DAOFactory daoFactory2 = DAOFactory.getDAOFactory(DAOType.HASH);
+		assertTrue(daoFactory == daoFactory2);
+	}
+	
+	@Test
+	public void testGetCachingDAOFactory() {
+		DAOFactory daoFactory = DAOFactory.getCachingDAOFactory(DAOType.HASH);
+		assertTrue(daoFactory instanceof CachingDAOFactory);
+		assertSame(daoFactory, DAOFactory.getCachingDAOFactory(DAOType.HASH));
+		CachingItemDAO itemDAO = (CachingItemDAO) daoFactory.getItemDAO();
+		assertSame(DAOFactory.getDAOFactory(DAOType.HASH).getItemDAO(), itemDAO.getItemDAO());
+	}
+	
+	@Test
+	public void testConcurrentCallsShareOneCachingFactory() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<DAOFactory>> daoFactories = new ArrayList<>();
+			for (int t = 0; t < 8; t++)
+				daoFactories.add(
+						executor.submit(() -> DAOFactory.getCachingDAOFactory(DAOType.LIST)));
+			for (Future<DAOFactory> daoFactory : daoFactories)
+				assertSame(DAOFactory.getCachingDAOFactory(DAOType.LIST),
+						daoFactory.get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+		assertNotSame(DAOFactory.getCachingDAOFactory(DAOType.LIST),
+				DAOFactory.getCachingDAOFactory(DAOType.HASH));
+	}
+	
+	@Test
+	public void testBuiltInBackendsAreDiscovered() {
+		assertTrue(DAOFactory.getBackendNames()
+				.containsAll(Arrays.asList("list", "hash", "mapped")));
+		assertSame(DAOFactory.getDAOFactory(DAOType.HASH), DAOFactory.getDAOFactory("hash"));
+		assertSame(ListDAOFactory.getInstance(), DAOFactory.getDAOFactory("list"));
+	}
+	
+	@Test (expected = UnsupportedOperationException.class)
+	public void testUnknownBackendIsRejected() {
+		DAOFactory.getDAOFactory("no-such-backend");
+	}
+	
+	@Test
+	public void testConcurrentFirstCallsShareOneFactory() throws Exception {
+		int threadCount = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		DAOFactory[] daoFactories = new DAOFactory[threadCount];
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			int index = t;
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				daoFactories[index] = DAOFactory.getDAOFactory(CountingProvider.NAME);
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads)
+			thread.join();
+		
+		for (DAOFactory daoFactory : daoFactories)
+			assertSame(daoFactories[0], daoFactory);
+		assertEquals(1, CountingProvider.CREATED.get());
+	}
+	
+	@Test
+	public void testWarmUpInitialisesBackends() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			DAOFactory.warmUp(Arrays.asList("list", "hash", CountingProvider.NAME), executor)
+					.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, CountingProvider.CREATED.get());
+		assertNotNull(DAOFactory.getDAOFactory(CountingProvider.NAME).getItemDAO());
+	}
+	
+	@Test (expected = UnsupportedOperationException.class)
+	public void testWarmUpRejectsUnknownBackend() {
+		DAOFactory.warmUp(Arrays.asList("list", "no-such-backend"), Runnable::run);
+	}
+	
+	
+	/**
+	 * A backend, listed in the test class path's services file, that counts how many factories it
+	 * creates and takes a while to initialise, so that concurrent first calls overlap.
+	 */
+	public static final class CountingProvider implements DAOFactoryProvider {
+		
+		static final String NAME = "counting";
+		static final AtomicInteger CREATED = new AtomicInteger();
+		
+		private volatile DAOFactory daoFactory;
+		
+		@Override
+		public String getName() {
+			return NAME;
+		}
+		
+		@Override
+		public DAOFactory getDAOFactory() {
+			DAOFactory instance = daoFactory;
+			if (instance != null)
+				return instance;
+			synchronized (this) {
+				if (daoFactory == null) {
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					CREATED.incrementAndGet();
+					ItemDAO itemDAO = new ItemHashDAO();
+					daoFactory = new DAOFactory() {
+						@Override
+						public ItemDAO getItemDAO() {
+							return itemDAO;
+						}
+					};
+				}
+				return daoFactory;
+			}
+		}
+	}
+	
 }
@@ -0,0 +1,65 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class HashBasketTest extends BasketTest {
+	
+	@Override
+	protected Basket createBasket() {
+		return new HashBasket();
+	}
+	
+	@Test
+	public void testIterationFollowsInsertionOrder() {
+		basket.addItem(ITEM_3);
+		basket.addItem(ITEM_1, 2);
+		basket.addItem(ITEM_2);
+		basket.addItem(ITEM_3);
+		
+		Iterator<BasketEntry> basketEntries = basket.iterator();
+		assertEquals(ITEM_3, basketEntries.next().getItem());
+		assertEquals(ITEM_1, basketEntries.next().getItem());
+		assertEquals(ITEM_2, basketEntries.next().getItem());
+		assertFalse(basketEntries.hasNext());
+	}
+	
+	@Test
+	public void testReaddedItemMovesToEnd() {
+		basket.addItem(ITEM_1);
+		basket.addItem(ITEM_2);
+		basket.removeItem(ITEM_1);
+		basket.addItem(ITEM_1, 3);
+		
+		Iterator<BasketEntry> basketEntries = basket.iterator();
+		assertEquals(ITEM_2, basketEntries.next().getItem());
+		BasketEntry readded = basketEntries.next();
+		assertEquals(ITEM_1, readded.getItem());
+		assertEquals(3, readded.getQuantity());
+	}
+	
+	@Test
+	public void testLookupByItemId() {
+		basket.addItem(ITEM_1, 2);
+		Item sameId = new Item(ITEM_1.getId(), "Another water bottle", 1d);
+		assertTrue(basket.contains(sameId));
+		assertEquals(3, basket.addItem(sameId));
+	}
+	
+	@Test (expected = UnsupportedOperationException.class)
+	public void testIteratorDoesNotSupportRemove() {
+		basket.addItem(ITEM_1);
+		Iterator<BasketEntry> basketEntries = basket.iterator();
+		basketEntries.next();
+		basketEntries.remove();
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testNegativeExpectedLines() {
+		new HashBasket(-1);
+	}
+	
+}
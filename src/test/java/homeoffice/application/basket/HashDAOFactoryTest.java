@@ -0,0 +1,22 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.*;
+
+public class HashDAOFactoryTest {
+	
+	private static final HashDAOFactory hashDaoFactory = HashDAOFactory.getInstance();
+	
+	@Test
+	public void testGetInstance() {
+		assertTrue(hashDaoFactory == HashDAOFactory.getInstance());
+		assertTrue(hashDaoFactory == HashDAOFactory.getInstance());
+	}
+	
+	@Test
+	public void testGetItemDAOIsItemHashDAO() {
+		assertTrue(hashDaoFactory.getItemDAO() instanceof ItemHashDAO);
+	}
+
+}
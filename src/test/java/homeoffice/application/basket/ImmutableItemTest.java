@@ -0,0 +1,156 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ImmutableItemTest {
+	
+	private final String itemId = "immutableItem123";
+	private final String name = "Desk lamp";
+	private final double price = 24.99;
+	
+	private final ImmutableItem item = new ImmutableItem(itemId, name, price);
+	
+	@Test
+	public void testConstructor() {
+		assertEquals(itemId, item.getId());
+		assertEquals(name, item.getName());
+		assertEquals(price, item.getPrice(), 1e-5);
+		assertEquals(2499L, item.getMinorUnitPrice());
+		assertEquals(Item.DEFAULT_PRICE_SCALE, item.getPriceScale());
+		assertEquals(ItemIdRegistry.find(itemId), item.getHandle());
+	}
+	
+	@Test
+	public void testMinorUnitConstructor() {
+		ImmutableItem exact = new ImmutableItem(itemId, name, 12345L, 3);
+		assertEquals(12345L, exact.getMinorUnitPrice());
+		assertEquals(3, exact.getPriceScale());
+		assertEquals(12.345, exact.getPrice(), 1e-9);
+		assertEquals(123450L, exact.getPriceInMinorUnits(4));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMinorUnitConstructorRejectsInvalidScale() {
+		new ImmutableItem(itemId, name, 1L, -1);
+	}
+	
+	@Test
+	public void testEqualsMutableItemWithSameId() {
+		Item mutable = new Item(itemId, "Some other name", 1d);
+		assertEquals(item, mutable);
+		assertEquals(mutable, item);
+		assertEquals(mutable.hashCode(), item.hashCode());
+		assertNotEquals(item, new ImmutableItem("otherImmutableItem", name, price));
+	}
+	
+	@Test
+	public void testSettersAreUnsupported() {
+		assertUnsupported(() -> item.setId("other"));
+		assertUnsupported(() -> item.setName("other"));
+		assertUnsupported(() -> item.setPrice(1d));
+		assertUnsupported(() -> item.setMinorUnitPrice(1L, 2));
+		assertEquals(itemId, item.getId());
+		assertEquals(name, item.getName());
+		assertEquals(2499L, item.getMinorUnitPrice());
+	}
+	
+	private static void assertUnsupported(Runnable mutation) {
+		try {
+			mutation.run();
+			fail("Expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+	}
+	
+	@Test
+	public void testWithPrice() {
+		ImmutableItem repriced = item.withPrice(19.5);
+		assertNotSame(item, repriced);
+		assertEquals(item, repriced);
+		assertEquals(name, repriced.getName());
+		assertEquals(1950L, repriced.getMinorUnitPrice());
+		assertEquals(2499L, item.getMinorUnitPrice());
+	}
+	
+	@Test
+	public void testWithPriceKeepsScale() {
+		ImmutableItem repriced = new ImmutableItem(itemId, name, 1000L, 3).withPrice(2.0005);
+		assertEquals(3, repriced.getPriceScale());
+		assertEquals(2001L, repriced.getMinorUnitPrice());
+		assertEquals(2.001, repriced.getPrice(), 0d);
+	}
+	
+	@Test
+	public void testWithMinorUnitPrice() {
+		ImmutableItem repriced = item.withMinorUnitPrice(1999L, 2);
+		assertEquals(19.99, repriced.getPrice(), 1e-9);
+		assertEquals(1999L, repriced.getMinorUnitPrice());
+	}
+	
+	@Test
+	public void testWithName() {
+		ImmutableItem renamed = item.withName("Floor lamp");
+		assertEquals("Floor lamp", renamed.getName());
+		assertEquals(price, renamed.getPrice(), 1e-9);
+		assertEquals(name, item.getName());
+	}
+	
+	@Test
+	public void testBuilder() {
+		ImmutableItem built = ImmutableItem.builder().id(itemId).name(name).price(price).build();
+		assertEquals(itemId, built.getId());
+		assertEquals(name, built.getName());
+		assertEquals(2499L, built.getMinorUnitPrice());
+		
+		ImmutableItem exact = ImmutableItem.builder()
+				.id(itemId).name(name).minorUnitPrice(500L, 1).build();
+		assertEquals(500L, exact.getMinorUnitPrice());
+		assertEquals(1, exact.getPriceScale());
+		assertEquals(50d, exact.getPrice(), 1e-9);
+	}
+	
+	@Test
+	public void testCopyOf() {
+		Item mutable = new Item(itemId, name, 3.456);
+		ImmutableItem copy = ImmutableItem.copyOf(mutable);
+		assertEquals(mutable.getPrice(), copy.getPrice(), 0d);
+		assertEquals(mutable.getMinorUnitPrice(), copy.getMinorUnitPrice());
+		
+		mutable.setName("Changed");
+		assertEquals(name, copy.getName());
+		assertSame(copy, ImmutableItem.copyOf(copy));
+	}
+	
+	@Test
+	public void testUpdateItemSwapsInstance() {
+		ItemDAO itemDAO = new ItemHashDAO(item);
+		ImmutableItem repriced = item.withPrice(9.99);
+		assertTrue(itemDAO.updateItem(repriced));
+		assertSame(repriced, itemDAO.getItem(itemId));
+		
+		itemDAO = new ItemListDAO(item);
+		assertTrue(itemDAO.updateItem(repriced));
+		assertSame(repriced, itemDAO.getItem(itemId));
+	}
+	
+	@Test
+	public void testUsableInBaskets() {
+		List<Basket> baskets = new ArrayList<>();
+		baskets.add(new SimpleBasket());
+		baskets.add(new HashBasket());
+		baskets.add(new CompactBasket());
+		for (Basket basket : baskets) {
+			basket.addItem(item, 2);
+			basket.addItem(new Item(itemId, name, price));
+			assertEquals(3, basket.getQuantity(item.withPrice(1d)));
+			assertEquals(7497L, basket.getTotalCostInMinorUnits(2));
+		}
+	}
+	
+}
@@ -0,0 +1,145 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+public class InstrumentedBasketTest extends BasketTest {
+	
+	// Assigned by createBasket(), which runs before this class's field initialisers
+	private BasketMetrics metrics;
+	
+	@Override
+	protected Basket createBasket() {
+		AtomicLong clock = new AtomicLong();
+		metrics = new BasketMetrics(1, () -> clock.addAndGet(10L));
+		return new InstrumentedBasket(new SimpleBasket(), metrics);
+	}
+	
+	@Test
+	public void testInstrumentReturnsBasketWhenDisabled() {
+		Basket simpleBasket = new SimpleBasket();
+		assertSame(simpleBasket, InstrumentedBasket.instrument(simpleBasket, null));
+		assertTrue(InstrumentedBasket.instrument(simpleBasket, metrics)
+				instanceof InstrumentedBasket);
+	}
+	
+	@Test
+	public void testEveryCallIsCountedAndTimed() {
+		basket.addItem(ITEM_1);
+		basket.addItem(ITEM_2, 3);
+		basket.getQuantity(ITEM_2);
+		basket.contains(ITEM_3);
+		basket.removeItem(ITEM_2);
+		basket.getTotalCost();
+		basket.getTotalCostInMinorUnits(2);
+		basket.clear();
+		
+		assertEquals(2L, metrics.getCount(BasketMetrics.Operation.ADD_ITEM));
+		assertEquals(1L, metrics.getCount(BasketMetrics.Operation.GET_QUANTITY));
+		assertEquals(2L, metrics.getCount(BasketMetrics.Operation.GET_TOTAL_COST));
+		assertEquals(1L, metrics.getCount(BasketMetrics.Operation.CLEAR));
+		assertEquals(0L, metrics.getCount(BasketMetrics.Operation.ADD_ALL));
+		
+		LatencyHistogram.Snapshot latency = metrics.getLatency(BasketMetrics.Operation.ADD_ITEM);
+		assertEquals(2L, latency.getCount());
+		assertEquals(10L, latency.getMax());
+	}
+	
+	@Test
+	public void testZeroQuantityLinesAreCountedOnce() {
+		basket.addItem(ITEM_1, 0);
+		basket.addItem(ITEM_1, 0);
+		basket.addItem(ITEM_1, 0);
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(ITEM_1, 0);
+		items.put(ITEM_2, 0);
+		basket.addAll(items);
+		basket.removeAll(Arrays.asList(ITEM_1, ITEM_2));
+		basket.addItem(ITEM_3);
+		
+		LatencyHistogram.Snapshot sizes = metrics.getBasketSizes();
+		assertEquals(3L, sizes.getCount());
+		assertEquals(2L, sizes.getMax());
+		assertEquals(1L, sizes.getMedian());
+	}
+	
+	@Test
+	public void testBasketSizeIsRecordedWhenLinesAreAdded() {
+		basket.addItem(ITEM_1);
+		basket.addItem(ITEM_1);
+		basket.addItem(ITEM_2);
+		basket.removeAll(ITEM_2);
+		basket.removeItem(ITEM_3);
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(ITEM_2, 1);
+		items.put(ITEM_3, 2);
+		basket.addAll(items);
+		basket.removeAll(Arrays.asList(ITEM_1, ITEM_1, ITEM_2));
+		basket.addItem(ITEM_1);
+		
+		LatencyHistogram.Snapshot sizes = metrics.getBasketSizes();
+		assertEquals(5L, sizes.getCount());
+		assertEquals(3L, sizes.getMax());
+		assertEquals(2L, sizes.getMedian());
+	}
+	
+	@Test
+	public void testExistingLinesAreCounted() {
+		Basket simpleBasket = new SimpleBasket();
+		simpleBasket.addItem(ITEM_1);
+		simpleBasket.addItem(ITEM_2);
+		Basket instrumentedBasket = new InstrumentedBasket(simpleBasket, metrics);
+		instrumentedBasket.addItem(ITEM_3);
+		assertEquals(3L, metrics.getBasketSizes().getMax());
+	}
+	
+	@Test
+	public void testResetClearsMetrics() {
+		basket.addItem(ITEM_1);
+		metrics.reset();
+		assertEquals(0L, metrics.getCount(BasketMetrics.Operation.ADD_ITEM));
+		assertEquals(0L, metrics.getLatency(BasketMetrics.Operation.ADD_ITEM).getCount());
+		assertEquals(0L, metrics.getBasketSizes().getCount());
+	}
+	
+	@Test
+	public void testMetricsAreReadableThroughJmx() throws JMException {
+		basket.addItem(ITEM_1);
+		basket.getTotalCost();
+		ObjectName name = metrics.register("test");
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			TabularData counts = (TabularData) server.getAttribute(name, "OperationCounts");
+			assertEquals(1L, counts.get(new Object[] {"ADD_ITEM"}).get("value"));
+			assertEquals(1L, counts.get(new Object[] {"GET_TOTAL_COST"}).get("value"));
+			
+			CompositeData sizes = (CompositeData) server.getAttribute(name, "BasketSizes");
+			assertEquals(1L, sizes.get("count"));
+			assertEquals(1, server.getAttribute(name, "SamplingInterval"));
+			
+			server.invoke(name, "reset", null, null);
+			assertEquals(0L, metrics.getCount(BasketMetrics.Operation.ADD_ITEM));
+		} finally {
+			OperationMetrics.unregister(name);
+		}
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testSamplingIntervalMustBePowerOfTwo() {
+		new BasketMetrics(12);
+	}
+	
+}
@@ -0,0 +1,80 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class InstrumentedItemDAOTest extends ItemListDAOTest {
+	
+	private final AtomicLong clock = new AtomicLong();
+	
+	@Override
+	protected ItemDAO createItemDAO(Item... items) {
+		return new InstrumentedItemDAO(new ItemListDAO(items), new ItemDAOMetrics());
+	}
+	
+	@Test
+	public void instrumentReturnsDAOWhenDisabled() {
+		ItemDAO listDAO = new ItemListDAO(initialItems);
+		assertSame(listDAO, InstrumentedItemDAO.instrument(listDAO, null));
+		ItemDAO instrumentedDAO = InstrumentedItemDAO.instrument(listDAO, new ItemDAOMetrics());
+		assertSame(listDAO, ((InstrumentedItemDAO) instrumentedDAO).getItemDAO());
+	}
+	
+	@Test
+	public void callsAndMissesAreCounted() {
+		ItemDAOMetrics metrics = new ItemDAOMetrics(1, () -> clock.addAndGet(25L));
+		ItemDAO instrumentedDAO = new InstrumentedItemDAO(new ItemListDAO(initialItems), metrics);
+		assertSame(item1, instrumentedDAO.getItem(item1.getId()));
+		assertSame(item2, instrumentedDAO.getItem(item2.getId()));
+		assertSame(item3, instrumentedDAO.getItem(item3.getId()));
+		assertNull(instrumentedDAO.getItem(item8.getId()));
+		assertTrue(instrumentedDAO.addItem(item8));
+		assertTrue(instrumentedDAO.removeItem(item8));
+		
+		assertEquals(4L, metrics.getCount(ItemDAOMetrics.Operation.GET_ITEM));
+		assertEquals(1L, metrics.getCount(ItemDAOMetrics.Operation.ADD_ITEM));
+		assertEquals(1L, metrics.getCount(ItemDAOMetrics.Operation.REMOVE_ITEM));
+		assertEquals(0L, metrics.getCount(ItemDAOMetrics.Operation.UPDATE_ITEM));
+		assertEquals(1L, metrics.getMissCount());
+		assertEquals(0.25d, metrics.getMissRate(), 0d);
+		
+		LatencyHistogram.Snapshot latency = metrics.getLatency(ItemDAOMetrics.Operation.GET_ITEM);
+		assertEquals(4L, latency.getCount());
+		assertEquals(25L, latency.getMedian());
+		assertEquals(4L, (long) metrics.getOperationCounts().get("GET_ITEM"));
+		assertEquals(4L, metrics.getLatencies().get("GET_ITEM").getCount());
+	}
+	
+	@Test
+	public void batchLookupsCountTowardsMissRate() {
+		ItemDAOMetrics metrics = new ItemDAOMetrics(1);
+		ItemDAO instrumentedDAO = new InstrumentedItemDAO(new ItemListDAO(initialItems), metrics);
+		instrumentedDAO.getItem(item1.getId());
+		assertEquals(1, instrumentedDAO.getItems(
+				Arrays.asList(item2.getId(), item8.getId(), item8.getId(), "unknown")).size());
+		assertEquals(1L, metrics.getCount(ItemDAOMetrics.Operation.GET_ITEMS));
+		assertEquals(2L, metrics.getMissCount());
+		assertEquals(0.5d, metrics.getMissRate(), 0d);
+	}
+	
+	@Test
+	public void onlySampledCallsAreTimed() {
+		ItemDAOMetrics metrics = new ItemDAOMetrics(16);
+		ItemDAO instrumentedDAO = new InstrumentedItemDAO(new ItemListDAO(initialItems), metrics);
+		for (int i = 0; i < 16_000; i++)
+			instrumentedDAO.getItem(item1.getId());
+		assertEquals(16_000L, metrics.getCount(ItemDAOMetrics.Operation.GET_ITEM));
+		long timed = metrics.getLatency(ItemDAOMetrics.Operation.GET_ITEM).getCount();
+		assertTrue(timed + " calls timed", timed > 500L && timed < 1_500L);
+	}
+	
+	@Test
+	public void missRateIsZeroWithoutCalls() {
+		assertEquals(0d, new ItemDAOMetrics().getMissRate(), 0d);
+	}
+	
+}
@@ -0,0 +1,126 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ItemCsvReaderTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private static ItemCsvReader reader(int chunkSize, boolean parallel, String... lines) {
+		String csv = String.join("\n", lines);
+		return new ItemCsvReader(new BufferedReader(new StringReader(csv)), chunkSize, parallel);
+	}
+	
+	private static List<String> ids(ItemCsvReader items) {
+		List<String> ids = new ArrayList<>();
+		items.forEachRemaining(item -> ids.add(item.getId()));
+		return ids;
+	}
+	
+	@Test
+	public void linesAreParsed() {
+		ItemCsvReader items = reader(10, false, "id,name,price", "csv01,Water bottle,3.45", "",
+				"csv02,Fan, desktop,10", "csv03,Pen,1.5E+1");
+		Item bottle = items.next();
+		assertEquals("csv01", bottle.getId());
+		assertEquals("Water bottle", bottle.getName());
+		assertEquals(345L, bottle.getMinorUnitPrice());
+		assertEquals(2, bottle.getPriceScale());
+		Item fan = items.next();
+		assertEquals("Fan, desktop", fan.getName());
+		assertEquals(10L, fan.getMinorUnitPrice());
+		assertEquals(0, fan.getPriceScale());
+		assertEquals(15L, items.next().getMinorUnitPrice());
+		assertFalse(items.hasNext());
+	}
+	
+	@Test
+	public void itemsKeepFileOrderAcrossParallelChunks() {
+		String[] lines = new String[1000];
+		List<String> expectedIds = new ArrayList<>();
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = "csv" + i + ",Item " + i + "," + i + ".99";
+			expectedIds.add("csv" + i);
+		}
+		assertEquals(expectedIds, ids(reader(64, true, lines)));
+		assertEquals(expectedIds, ids(reader(1, false, lines)));
+		assertEquals(expectedIds, ids(reader(1000, true, lines)));
+	}
+	
+	@Test (expected = UncheckedIOException.class)
+	public void onlyFirstLineCanBeHeader() {
+		ids(reader(10, false, "csv01,Water bottle,3.45", "id,name,price"));
+	}
+	
+	@Test (expected = NoSuchElementException.class)
+	public void nextThrowsWhenFinished() {
+		reader(10, false, "id,name,price").next();
+	}
+	
+	@Test
+	public void malformedLineIsReported() {
+		ItemCsvReader items = reader(10, true, "csv01,Water bottle,3.45", "csv02 no price");
+		try {
+			items.hasNext();
+			fail("Malformed line accepted");
+		} catch (UncheckedIOException e) {
+			assertTrue(e.getCause().getMessage().contains("csv02 no price"));
+		}
+	}
+	
+	@Test (expected = IOException.class)
+	public void loadThrowsIOExceptionForUnsupportedScale() throws IOException {
+		Path csv = folder.newFile("items.csv").toPath();
+		Files.write(csv, Arrays.asList("csv01,Water bottle,1e-20"));
+		ItemCsvReader.load(csv, new ItemHashDAO(), false);
+	}
+	
+	@Test
+	public void streamReturnsRemainingItems() {
+		ItemCsvReader items = reader(2, false, "csv01,A,1", "csv02,B,2", "csv03,C,3");
+		items.next();
+		assertEquals(Arrays.asList("csv02", "csv03"),
+				items.stream().map(Item::getId).collect(Collectors.toList()));
+	}
+	
+	@Test
+	public void loadAddsFileToDAO() throws IOException {
+		Path csv = folder.newFile("items.csv").toPath();
+		Files.write(csv, Arrays.asList("id,name,price", "csv01,Water bottle,3.45",
+				"csv02,Desktop fan,10", "csv01,Glass bottle,6"));
+		ItemDAO itemDAO = new ItemListDAO();
+		assertEquals(2, ItemCsvReader.load(csv, itemDAO, true));
+		assertEquals("Water bottle", itemDAO.getItem("csv01").getName());
+		assertEquals("Desktop fan", itemDAO.getItem("csv02").getName());
+	}
+	
+	@Test (expected = IOException.class)
+	public void loadThrowsIOExceptionForMalformedFile() throws IOException {
+		Path csv = folder.newFile("items.csv").toPath();
+		Files.write(csv, Arrays.asList("csv01,Water bottle"));
+		ItemCsvReader.load(csv, new ItemHashDAO(), false);
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void chunkSizeMustBePositive() {
+		reader(0, false);
+	}
+	
+}
@@ -0,0 +1,39 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ItemHashDAOTest extends ItemListDAOTest {
+	
+	@Override
+	protected ItemDAO createItemDAO(Item... items) {
+		return new ItemHashDAO(items);
+	}
+	
+	@Test
+	public void updateItemReplacesInstance() {
+		Item item2Updated = new Item(item2.getId(), "Tower fan", 24.99);
+		assertTrue(itemDAO.updateItem(item2Updated));
+		assertSame(item2Updated, itemDAO.getItem(item2.getId()));
+	}
+	
+	@Test
+	public void firstDuplicateWinsOnConstruction() {
+		Item duplicate = new Item(item1.getId(), "Glass bottle", 6d);
+		ItemDAO dao = new ItemHashDAO(item1, duplicate);
+		assertSame(item1, dao.getItem(item1.getId()));
+	}
+	
+	@Test
+	public void bulkLoadSkipsExistingItems() {
+		ItemHashDAO dao = new ItemHashDAO(Arrays.asList(initialItems));
+		Item duplicate = new Item(item3.getId(), "Croydon mug", 2.2);
+		assertEquals(1, dao.addItems(Arrays.asList(item8, duplicate)));
+		assertSame(item8, dao.getItem(item8.getId()));
+		assertSame(item3, dao.getItem(item3.getId()));
+	}
+	
+}
@@ -0,0 +1,79 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ItemIdRegistryTest {
+	
+	@Test
+	public void testRegisterReturnsSameHandleForEqualIds() {
+		int handle = ItemIdRegistry.register("registry-test-1");
+		assertEquals(handle, ItemIdRegistry.register(new String("registry-test-1")));
+		assertEquals(handle, ItemIdRegistry.find("registry-test-1"));
+		assertNotEquals(handle, ItemIdRegistry.register("registry-test-2"));
+		assertEquals("registry-test-1", ItemIdRegistry.getId(handle));
+	}
+	
+	@Test
+	public void testFindDoesNotRegister() {
+		int size = ItemIdRegistry.size();
+		assertEquals(ItemIdRegistry.NULL_HANDLE, ItemIdRegistry.find("registry-test-absent"));
+		assertEquals(size, ItemIdRegistry.size());
+	}
+	
+	@Test
+	public void testNullId() {
+		assertEquals(ItemIdRegistry.NULL_HANDLE, ItemIdRegistry.register(null));
+		assertEquals(ItemIdRegistry.NULL_HANDLE, ItemIdRegistry.find(null));
+		assertNull(ItemIdRegistry.getId(ItemIdRegistry.NULL_HANDLE));
+	}
+	
+	@Test
+	public void testHandlesAreDense() {
+		int first = ItemIdRegistry.register("registry-test-dense-0");
+		for (int i = 1; i < 3000; i++)
+			assertTrue(ItemIdRegistry.register("registry-test-dense-" + i) < ItemIdRegistry.size());
+		assertTrue(ItemIdRegistry.size() >= first + 3000);
+		assertEquals("registry-test-dense-2999",
+				ItemIdRegistry.getId(ItemIdRegistry.find("registry-test-dense-2999")));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownHandleThrowsException() {
+		ItemIdRegistry.getId(Integer.MAX_VALUE);
+	}
+	
+	@Test
+	public void testConcurrentRegistrationsAgree() throws InterruptedException {
+		int idCount = 2000;
+		int[][] handles = new int[4][idCount];
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < handles.length; t++) {
+			int[] threadHandles = handles[t];
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < idCount; i++)
+					threadHandles[i] = ItemIdRegistry.register("registry-test-concurrent-" + i);
+			}));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		
+		Set<Integer> distinctHandles = new HashSet<>();
+		for (int i = 0; i < idCount; i++) {
+			for (int t = 1; t < handles.length; t++)
+				assertEquals(handles[0][i], handles[t][i]);
+			assertEquals("registry-test-concurrent-" + i, ItemIdRegistry.getId(handles[0][i]));
+			distinctHandles.add(handles[0][i]);
+		}
+		assertEquals(idCount, distinctHandles.size());
+	}
+	
+}
@@ -2,24 +2,28 @@ package homeoffice.application.basket;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import org.junit.Before;
 import org.junit.Test;
 
 public class ItemListDAOTest {
 	
-	private ItemDAO itemDAO;
-	private final Item [] initialItems = new Item [7];
+	protected ItemDAO itemDAO;
+	protected final Item [] initialItems = new Item [7];
 	
-	private final Item item1 = new Item("id01", "Water bottle", 3.45);
-	private final Item item2 = new Item("id02", "Desktop fan", 10d);
-	private final Item item3 = new Item("id03", "Coffee beans", 3.6);
-	private final Item item4 = new Item("id04", "Thermal flask", 5.7);
-	private final Item item5 = new Item("id05", "Computer mouse", 8.5);
-	private final Item item6 = new Item("id06", "Wallet", 12d);
-	private final Item item7 = new Item("id07", "Pillow", 14.95);
+	protected final Item item1 = new Item("id01", "Water bottle", 3.45);
+	protected final Item item2 = new Item("id02", "Desktop fan", 10d);
+	protected final Item item3 = new Item("id03", "Coffee beans", 3.6);
+	protected final Item item4 = new Item("id04", "Thermal flask", 5.7);
+	protected final Item item5 = new Item("id05", "Computer mouse", 8.5);
+	protected final Item item6 = new Item("id06", "Wallet", 12d);
+	protected final Item item7 = new Item("id07", "Pillow", 14.95);
 	
 	// Not added to the DAO initially
-	private final Item item8 = new Item("id08", "Fax machine", 40.2);
+	protected final Item item8 = new Item("id08", "Fax machine", 40.2);
 	
 	@Before
 	public void populateDAO() {
@@ -30,7 +34,17 @@ public class ItemListDAOTest {
 		initialItems[4] = item5;
 		initialItems[5] = item6;
 		initialItems[6] = item7;
-		itemDAO = new ItemListDAO(initialItems);
+		itemDAO = createItemDAO(initialItems);
+	}
+	
+	/**
+	 * Creates the {@code ItemDAO} under test. Subclasses should override this to run the suite
+	 * against other {@code ItemDAO} implementations.
+	 * @param items The initial items.
+	 * @return The DAO.
+	 */
+	protected ItemDAO createItemDAO(Item... items) {
+		return new ItemListDAO(items);
 	}
 	
 	@Test
@@ -92,4 +106,32 @@ public class ItemListDAOTest {
 		assertFalse(itemDAO.removeItem(item8));
 	}
 	
+	@Test
+	public void addItemsSkipsExistingAndRepeatedIds() {
+		Item item9 = new Item("id09", "Desk lamp", 19.99);
+		Item duplicate8 = new Item(item8.getId(), "Telex machine", 99d);
+		Item duplicate1 = new Item(item1.getId(), "Glass bottle", 6d);
+		assertEquals(2, itemDAO.addItems(
+				Arrays.asList(item8, duplicate1, duplicate8, item9).iterator()));
+		assertSame(item8, itemDAO.getItem(item8.getId()));
+		assertSame(item9, itemDAO.getItem(item9.getId()));
+		assertSame(item1, itemDAO.getItem(item1.getId()));
+	}
+	
+	@Test
+	public void addItemsFromStream() {
+		assertEquals(1, itemDAO.addItems(Stream.of(item2, item8)));
+		assertSame(item8, itemDAO.getItem(item8.getId()));
+	}
+	
+	@Test
+	public void getItemsReturnsFoundItemsById() {
+		Map<String, Item> items = itemDAO.getItems(Arrays.asList(item3.getId(), item8.getId(),
+				"never-registered", item1.getId(), item3.getId()));
+		assertEquals(2, items.size());
+		assertSame(item1, items.get(item1.getId()));
+		assertSame(item3, items.get(item3.getId()));
+		assertTrue(itemDAO.getItems(Arrays.asList()).isEmpty());
+	}
+	
 }
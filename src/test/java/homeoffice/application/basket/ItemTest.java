@@ -33,6 +33,83 @@ public class ItemTest {
 		assertFalse(item.equals(differentItemId));
 	}
 	
+	@Test
+	public void testDoublePriceIsHeldInMinorUnits() {
+		assertEquals(345L, item.getMinorUnitPrice());
+		assertEquals(Item.DEFAULT_PRICE_SCALE, item.getPriceScale());
+		assertEquals(101L, new Item(itemId, name, 1.005).getMinorUnitPrice());
+	}
+	
+	@Test
+	public void testDoublePriceIsRounded() {
+		Item roundedItem = new Item(itemId, name, 0.005);
+		assertEquals(1L, roundedItem.getMinorUnitPrice());
+		assertEquals(0.01, roundedItem.getPrice(), 0d);
+		
+		Item yenItem = new Item(itemId, name, 1500L, 0);
+		yenItem.setPrice(12.5);
+		assertEquals(13L, yenItem.getMinorUnitPrice());
+		assertEquals(13d, yenItem.getPrice(), 0d);
+	}
+	
+	@Test (expected = ArithmeticException.class)
+	public void testNonFiniteDoublePrice() {
+		new Item(itemId, name, Double.NaN);
+	}
+	
+	@Test
+	public void testMinorUnitConstructor() {
+		Item yenItem = new Item(itemId, name, 1500L, 0);
+		assertEquals(1500L, yenItem.getMinorUnitPrice());
+		assertEquals(0, yenItem.getPriceScale());
+		assertEquals(1500d, yenItem.getPrice(), 1e-5);
+	}
+	
+	@Test
+	public void testGetPriceInMinorUnits() {
+		assertEquals(345L, item.getPriceInMinorUnits(2));
+		assertEquals(34500L, item.getPriceInMinorUnits(4));
+		assertEquals(35L, new Item(itemId, name, 3.5).getPriceInMinorUnits(1));
+	}
+	
+	@Test (expected = ArithmeticException.class)
+	public void testGetPriceInMinorUnitsAtInexactScale() {
+		item.getPriceInMinorUnits(1);
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testUnsupportedPriceScale() {
+		new Item(itemId, name, 1L, 19);
+	}
+	
+	@Test
+	public void testSetPriceUpdatesMinorUnits() {
+		item.setPrice(4.99);
+		assertEquals(499L, item.getMinorUnitPrice());
+		item.setMinorUnitPrice(12345L, 3);
+		assertEquals(12.345, item.getPrice(), 1e-9);
+		assertEquals(3, item.getPriceScale());
+	}
+	
+	@Test
+	public void testItemsWithSameIdShareHandleAndId() {
+		Item sameItemId = new Item(new String(itemId), "Some other name", 1d);
+		assertEquals(item.getHandle(), sameItemId.getHandle());
+		assertSame(item.getId(), sameItemId.getId());
+		assertTrue(sameItemId.hasId(new String(itemId)));
+		assertNotEquals(item.getHandle(), new Item("other" + itemId, name, price).getHandle());
+	}
+	
+	@Test
+	public void testSetIdChangesHandle() {
+		Item otherItem = new Item("other" + itemId, name, price);
+		assertNotEquals(item, otherItem);
+		otherItem.setId(itemId);
+		assertEquals(item.getHandle(), otherItem.getHandle());
+		assertEquals(item, otherItem);
+		assertEquals(item.hashCode(), otherItem.hashCode());
+	}
+	
 	@Test
 	public void testToString() {
 		assertEquals(itemId, item.toString());
@@ -0,0 +1,101 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class JournalingBasketTest extends BasketTest {
+	
+	// Assigned by createBasket(), which runs before this class's field initialisers
+	private Path directory;
+	private BasketJournal journal;
+	
+	@Override
+	protected Basket createBasket() {
+		try {
+			directory = Files.createTempDirectory("journal");
+			journal = new BasketJournal(directory, BasketJournal.SyncPolicy.batched(16));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new JournalingBasket("basket", new HashBasket(), journal);
+	}
+	
+	@After
+	public void deleteJournal() throws IOException {
+		journal.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+	
+	@Test
+	public void testRecoveredBasketMatchesBasket() throws IOException {
+		Map<Item, Integer> batch = new LinkedHashMap<>();
+		batch.put(ITEM_2, 4);
+		batch.put(ITEM_3, 1);
+		
+		basket.addItem(ITEM_1, 3);
+		basket.addAll(batch);
+		basket.removeItem(ITEM_1);
+		basket.removeAll(ITEM_3);
+		
+		Basket recovered = journal.recover(
+				new ItemHashDAO(ITEM_1, ITEM_2, ITEM_3), HashBasket::new).get("basket");
+		assertEquals(2, recovered.getQuantity(ITEM_1));
+		assertEquals(4, recovered.getQuantity(ITEM_2));
+		assertFalse(recovered.contains(ITEM_3));
+	}
+	
+	@Test
+	public void testRejectedChangeIsNotRecorded() throws IOException {
+		basket.addItem(ITEM_1, Integer.MAX_VALUE);
+		try {
+			basket.addItem(ITEM_1);
+			fail("ArithmeticException expected");
+		} catch (ArithmeticException e) {
+			// Expected
+		}
+		
+		Basket recovered = journal.recover(
+				new ItemHashDAO(ITEM_1, ITEM_2, ITEM_3), HashBasket::new).get("basket");
+		assertEquals(Integer.MAX_VALUE, recovered.getQuantity(ITEM_1));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testChangesAfterJournalClosedThrowException() throws IOException {
+		journal.close();
+		basket.addItem(ITEM_1);
+	}
+	
+	@Test
+	public void testChangesAfterJournalClosedLeaveBasketUnchanged() throws IOException {
+		basket.addItem(ITEM_1);
+		journal.close();
+		try {
+			basket.addItem(ITEM_2);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		try {
+			basket.clear();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		assertFalse(basket.contains(ITEM_2));
+		assertEquals(1, basket.getQuantity(ITEM_1));
+	}
+	
+}
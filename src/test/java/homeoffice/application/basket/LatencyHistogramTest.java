@@ -0,0 +1,107 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+	
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	
+	@Test
+	public void testBucketsCoverEveryValueInOrder() {
+		assertEquals(0, LatencyHistogram.indexOf(0L));
+		assertEquals(63, LatencyHistogram.indexOf(63L));
+		long previousHighest = -1L;
+		for (int index = 0; index < LatencyHistogram.indexOf(Long.MAX_VALUE) + 1; index++) {
+			long lowest = LatencyHistogram.lowestValue(index);
+			long highest = LatencyHistogram.highestValue(index);
+			assertEquals(previousHighest + 1, lowest);
+			assertEquals(index, LatencyHistogram.indexOf(lowest));
+			assertEquals(index, LatencyHistogram.indexOf(highest));
+			previousHighest = highest;
+		}
+		assertEquals(Long.MAX_VALUE, previousHighest);
+	}
+	
+	@Test
+	public void testValuesAreCountedWithinThreePercent() {
+		for (long value = 1L; value > 0L && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+			int index = LatencyHistogram.indexOf(value);
+			long width = LatencyHistogram.highestValue(index) - LatencyHistogram.lowestValue(index);
+			assertTrue(value + " counted too coarsely", width <= value * 0.032);
+		}
+	}
+	
+	@Test
+	public void testEmptySnapshot() {
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(0L, snapshot.getCount());
+		assertEquals(0d, snapshot.getMean(), 0d);
+		assertEquals(0L, snapshot.getMax());
+		assertEquals(0L, snapshot.get99thPercentile());
+	}
+	
+	@Test
+	public void testPercentilesOfSmallValuesAreExact() {
+		for (long value = 1L; value <= 50L; value++)
+			histogram.record(value);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(50L, snapshot.getCount());
+		assertEquals(25.5d, snapshot.getMean(), 1e-9);
+		assertEquals(25L, snapshot.getMedian());
+		assertEquals(45L, snapshot.get90thPercentile());
+		assertEquals(50L, snapshot.get999thPercentile());
+		assertEquals(1L, snapshot.getValueAtPercentile(0d));
+		assertEquals(50L, snapshot.getMax());
+	}
+	
+	@Test
+	public void testPercentilesOfLargeValuesAreApproximate() {
+		for (int i = 0; i < 99; i++)
+			histogram.record(1_000L);
+		histogram.record(1_000_000L);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1_000L, snapshot.getMedian(), 32d);
+		assertEquals(1_000L, snapshot.get99thPercentile(), 32d);
+		assertEquals(1_000_000L, snapshot.get999thPercentile(), 32_000d);
+		assertTrue(snapshot.getMax() >= 1_000_000L);
+	}
+	
+	@Test
+	public void testNegativeValuesAreRecordedAsZero() {
+		histogram.record(-5L);
+		assertEquals(1L, histogram.snapshot().getCount());
+		assertEquals(0L, histogram.snapshot().getMax());
+	}
+	
+	@Test
+	public void testResetClearsCounts() {
+		histogram.record(10L);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		histogram.reset();
+		assertEquals(0L, histogram.snapshot().getCount());
+		assertEquals(1L, snapshot.getCount());
+	}
+	
+	@Test
+	public void testConcurrentRecordingLosesNoCounts() throws InterruptedException {
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++)
+					histogram.record(i);
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		assertEquals(40_000L, histogram.snapshot().getCount());
+	}
+	
+	@Test (expected = IllegalArgumentException.class)
+	public void testPercentileMustBeAtMostOneHundred() {
+		histogram.snapshot().getValueAtPercentile(100.1d);
+	}
+	
+}
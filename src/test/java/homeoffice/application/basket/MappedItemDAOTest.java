@@ -0,0 +1,124 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedItemDAOTest {
+	
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	
+	private final Item item1 = new Item("id01", "Water bottle", 3.45);
+	private final Item item2 = new Item("id02", "Desktop fan", 10d);
+	private final Item item3 = new Item("id03", "Caf\u00e9 cr\u00e8me", 1250L, 3);
+	private final Item item4 = new Item("id\u00e904", null, 5.7);
+	
+	private Path catalogue;
+	private MappedItemDAO itemDAO;
+	
+	@Before
+	public void writeCatalogue() throws IOException {
+		catalogue = folder.newFile("catalogue.bin").toPath();
+		Item duplicate = new Item(item1.getId(), "Duplicate", 1d);
+		assertEquals(4, MappedCatalogueWriter.write(catalogue,
+				Arrays.asList(item1, item2, item3, duplicate, item4)));
+		itemDAO = new MappedItemDAO(catalogue);
+	}
+	
+	@Test
+	public void getItemTest() {
+		assertEquals(4, itemDAO.size());
+		assertItemEquals(item1, itemDAO.getItem(item1.getId()));
+		assertItemEquals(item2, itemDAO.getItem(item2.getId()));
+		assertItemEquals(item3, itemDAO.getItem(item3.getId()));
+		assertItemEquals(item4, itemDAO.getItem(item4.getId()));
+	}
+	
+	@Test
+	public void getNonExistentItemShouldReturnNull() {
+		assertNull(itemDAO.getItem("invalidId"));
+		assertNull(itemDAO.getItem("id1"));
+		assertNull(itemDAO.getItem(""));
+		assertNull(itemDAO.getItem(null));
+	}
+	
+	@Test
+	public void catalogueIsReadOnly() {
+		assertFalse(itemDAO.addItem(new Item("id05", "Wallet", 12d)));
+		assertFalse(itemDAO.updateItem(new Item(item1.getId(), "Glass bottle", 4d)));
+		assertFalse(itemDAO.removeItem(item1));
+		assertItemEquals(item1, itemDAO.getItem(item1.getId()));
+	}
+	
+	@Test
+	public void namesCanBeChangedOnViews() {
+		Item view = itemDAO.getItem(item2.getId());
+		view.setName("Tower fan");
+		assertEquals("Tower fan", view.getName());
+		assertEquals(item2.getName(), itemDAO.getItem(item2.getId()).getName());
+	}
+	
+	@Test
+	public void lookupsDoNotRegisterIds() {
+		int registered = ItemIdRegistry.size();
+		Item view = itemDAO.getItem(new String(item1.getId()));
+		assertSame(item1.getId(), view.getId());
+		assertEquals(item1.hashCode(), view.hashCode());
+		assertNull(itemDAO.getItem("mapped-test-unregistered"));
+		assertEquals(registered, ItemIdRegistry.size());
+	}
+	
+	@Test
+	public void largeCatalogue() throws IOException {
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < 50_000; i++)
+			items.add(new Item("SKU" + i, "Item " + i, i, 2));
+		Path largeCatalogue = folder.newFile("large.bin").toPath();
+		MappedCatalogueWriter.write(largeCatalogue, items);
+		MappedItemDAO largeDAO = new MappedItemDAO(largeCatalogue);
+		for (Item item : items)
+			assertItemEquals(item, largeDAO.getItem(item.getId()));
+		assertNull(largeDAO.getItem("SKU50000"));
+	}
+	
+	@Test (expected = IOException.class)
+	public void invalidFileIsRejected() throws IOException {
+		Path invalid = folder.newFile("invalid.bin").toPath();
+		Files.write(invalid, new byte[64]);
+		new MappedItemDAO(invalid);
+	}
+	
+	@Test
+	public void writerConvertsCsv() throws IOException {
+		Path csv = folder.newFile("items.csv").toPath();
+		Files.write(csv, Arrays.asList("id,name,price", "id01,Water bottle,3.45",
+				"id02,Fan, desktop,10"));
+		MappedCatalogueWriter.main(new String[] {csv.toString(), catalogue.toString()});
+		MappedItemDAO csvDAO = new MappedItemDAO(catalogue);
+		assertItemEquals(item1, csvDAO.getItem("id01"));
+		Item fan = csvDAO.getItem("id02");
+		assertEquals("Fan, desktop", fan.getName());
+		assertEquals(10L, fan.getMinorUnitPrice());
+		assertEquals(0, fan.getPriceScale());
+	}
+	
+	private static void assertItemEquals(Item expected, Item actual) {
+		assertEquals(expected, actual);
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getMinorUnitPrice(), actual.getMinorUnitPrice());
+		assertEquals(expected.getPriceScale(), actual.getPriceScale());
+	}
+	
+}
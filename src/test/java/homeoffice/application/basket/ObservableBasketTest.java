@@ -0,0 +1,101 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ObservableBasketTest extends BasketTest {
+	
+	// Assigned by createBasket(), which runs before this class's field initialisers
+	private BasketEventPublisher publisher;
+	private List<BasketChangeEvent> events;
+	
+	@Override
+	protected Basket createBasket() {
+		publisher = new BasketEventPublisher(64, 8);
+		events = new ArrayList<>();
+		List<BasketChangeEvent> received = events;
+		publisher.addListener(batch -> {
+			synchronized (received) {
+				received.addAll(batch);
+			}
+		});
+		return new ObservableBasket("basket", new HashBasket(), publisher);
+	}
+	
+	@After
+	public void closePublisher() {
+		publisher.close();
+	}
+	
+	private List<String> deliveredEvents() throws InterruptedException {
+		publisher.flush();
+		List<String> descriptions = new ArrayList<>();
+		synchronized (events) {
+			for (BasketChangeEvent event : events)
+				descriptions.add(event.toString());
+			events.clear();
+		}
+		return descriptions;
+	}
+	
+	@Test
+	public void testSingleItemChangesArePublished() throws InterruptedException {
+		basket.addItem(ITEM_1);
+		basket.addItem(ITEM_1, 2);
+		basket.removeItem(ITEM_1);
+		basket.removeAll(ITEM_1);
+		assertEquals(Arrays.asList("basket: id01 0 -> 1", "basket: id01 1 -> 3",
+				"basket: id01 3 -> 2", "basket: id01 2 -> 0"), deliveredEvents());
+	}
+	
+	@Test
+	public void testUnchangedQuantitiesAreNotPublished() throws InterruptedException {
+		basket.removeItem(ITEM_1);
+		basket.removeAll(ITEM_2);
+		basket.addItem(ITEM_3, 0);
+		basket.removeAll(Arrays.asList(ITEM_1, ITEM_2));
+		basket.clear();
+		assertEquals(Arrays.asList(), deliveredEvents());
+	}
+	
+	@Test
+	public void testBatchChangesArePublished() throws InterruptedException {
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(ITEM_1, 2);
+		items.put(ITEM_2, 1);
+		basket.addAll(items);
+		basket.removeAll(Arrays.asList(ITEM_2, ITEM_3, ITEM_2));
+		basket.addItem(ITEM_3, 4);
+		basket.clear();
+		
+		List<String> delivered = deliveredEvents();
+		assertEquals(Arrays.asList("basket: id01 0 -> 2", "basket: id02 0 -> 1",
+				"basket: id02 1 -> 0", "basket: id03 0 -> 4"), delivered.subList(0, 4));
+		assertEquals(6, delivered.size());
+		assertTrue(delivered.containsAll(Arrays.asList("basket: id01 2 -> 0",
+				"basket: id03 4 -> 0")));
+	}
+	
+	@Test
+	public void testEventCarriesItem() throws InterruptedException {
+		List<BasketChangeEvent> received = new ArrayList<>();
+		publisher.addListener(received::addAll);
+		basket.addItem(ITEM_2, 5);
+		publisher.flush();
+		
+		BasketChangeEvent event = received.get(0);
+		assertSame(ITEM_2, event.getItem());
+		assertEquals("basket", event.getBasketId());
+		assertEquals(0, event.getOldQuantity());
+		assertEquals(5, event.getNewQuantity());
+	}
+	
+}
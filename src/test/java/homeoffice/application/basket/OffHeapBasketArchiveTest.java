@@ -0,0 +1,96 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class OffHeapBasketArchiveTest {
+	
+	private final Item item1 = new Item("id01", "Water bottle", 3.45);
+	private final Item item2 = new Item("id\u00e902", "Caf\u00e9 cr\u00e8me", 1.25);
+	private final ItemDAO itemDAO = new ItemHashDAO(item1, item2);
+	private final OffHeapBasketArchive archive = new OffHeapBasketArchive(64);
+	
+	private Basket basket(int quantity1, int quantity2) {
+		Basket basket = new SimpleBasket();
+		if (quantity1 > 0)
+			basket.addItem(item1, quantity1);
+		if (quantity2 > 0)
+			basket.addItem(item2, quantity2);
+		return basket;
+	}
+	
+	private Basket load(long handle) {
+		Basket basket = new HashBasket();
+		archive.load(handle, itemDAO, basket);
+		return basket;
+	}
+	
+	@Test
+	public void testStoredBasketsCanBeLoaded() {
+		long handle1 = archive.store(basket(2, 0));
+		long handle2 = archive.store(basket(1, 300));
+		long handle3 = archive.store(new SimpleBasket());
+		assertEquals(3, archive.getBasketCount());
+		
+		assertEquals(2, load(handle1).getQuantity(item1));
+		assertFalse(load(handle1).contains(item2));
+		assertEquals(1, load(handle2).getQuantity(item1));
+		assertEquals(300, load(handle2).getQuantity(item2));
+		assertFalse(load(handle3).iterator().hasNext());
+	}
+	
+	@Test
+	public void testFreeingReleasesSpaceForReuse() {
+		long[] handles = new long[20];
+		for (int i = 0; i < handles.length; i++)
+			handles[i] = archive.store(basket(i + 1, i));
+		long byteCount = archive.getByteCount();
+		assertTrue(byteCount > 0L);
+		
+		for (int i = 0; i < handles.length; i += 2)
+			archive.free(handles[i]);
+		assertEquals(10, archive.getBasketCount());
+		assertTrue(archive.getByteCount() < byteCount);
+		for (int i = 1; i < handles.length; i += 2)
+			assertEquals(i + 1, load(handles[i]).getQuantity(item1));
+		
+		for (int i = 1; i < handles.length; i += 2)
+			archive.free(handles[i]);
+		assertEquals(0, archive.getBasketCount());
+		assertEquals(0L, archive.getByteCount());
+		
+		for (int i = 0; i < handles.length; i++)
+			handles[i] = archive.store(basket(i + 1, 0));
+		for (int i = 0; i < handles.length; i++)
+			assertEquals(i + 1, load(handles[i]).getQuantity(item1));
+	}
+	
+	@Test
+	public void testBasketLargerThanSlabIsStored() {
+		Basket large = new SimpleBasket();
+		for (int i = 0; i < 20; i++)
+			large.addItem(new Item("item" + i, "Item " + i, 1d), i + 1);
+		ItemDAO largeItemDAO = new ItemHashDAO();
+		for (BasketEntry basketEntry : large)
+			largeItemDAO.addItem(basketEntry.getItem());
+		
+		long handle = archive.store(large);
+		archive.store(basket(1, 1));
+		Basket loaded = new SimpleBasket();
+		archive.load(handle, largeItemDAO, loaded);
+		assertEquals(20, loaded.getQuantity(new Item("item19", "Item 19", 1d)));
+		archive.free(handle);
+		assertEquals(1, archive.getBasketCount());
+	}
+	
+	@Test
+	public void testMissingItemsAreSkipped() {
+		long handle = archive.store(basket(1, 1));
+		Basket loaded = new SimpleBasket();
+		archive.load(handle, new ItemHashDAO(item2), loaded);
+		assertFalse(loaded.contains(item1));
+		assertEquals(1, loaded.getQuantity(item2));
+	}
+	
+}
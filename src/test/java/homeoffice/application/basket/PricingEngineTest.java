@@ -0,0 +1,133 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PricingEngineTest {
+	
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+	private final PricingEngine pricingEngine = new PricingEngine(pool, 4);
+	private final Random random = new Random(18L);
+	
+	@After
+	public void shutDownPool() {
+		pool.shutdown();
+	}
+	
+	private Basket fill(Basket basket, int lineCount) {
+		for (int i = 0; i < lineCount; i++) {
+			Item item = new Item("pricing" + i, "Item " + i, random.nextInt(100_000), 2);
+			basket.addItem(item, 1 + random.nextInt(20));
+		}
+		for (int i = 0; i < lineCount; i += 7)
+			basket.removeAll(new Item("pricing" + i, "Item " + i, 0d));
+		return basket;
+	}
+	
+	private List<Supplier<Basket>> basketFactories() {
+		List<Supplier<Basket>> basketFactories = new ArrayList<>();
+		basketFactories.add(SimpleBasket::new);
+		basketFactories.add(HashBasket::new);
+		basketFactories.add(ConcurrentBasket::new);
+		basketFactories.add(CompactBasket::new);
+		basketFactories.add(() -> new RunningTotalBasket(new HashBasket()));
+		return basketFactories;
+	}
+	
+	@Test
+	public void testLargeBasketTotalMatchesSerialTotal() {
+		for (Supplier<Basket> basketFactory : basketFactories()) {
+			Basket basket = fill(basketFactory.get(), 5000);
+			assertEquals(basket.getTotalCostInMinorUnits(2),
+					pricingEngine.getTotalCostInMinorUnits(basket, 2));
+			assertEquals(basket.getTotalCostInMinorUnits(4),
+					pricingEngine.getTotalCostInMinorUnits(basket, 4));
+		}
+	}
+	
+	@Test
+	public void testSmallBasketTotalMatchesSerialTotal() {
+		Basket basket = fill(new SimpleBasket(), 2);
+		assertEquals(basket.getTotalCostInMinorUnits(2),
+				pricingEngine.getTotalCostInMinorUnits(basket, 2));
+		assertEquals(0L, pricingEngine.getTotalCostInMinorUnits(new CompactBasket(), 2));
+	}
+	
+	@Test
+	public void testManyBasketTotalsMatchSerialTotals() {
+		List<Basket> baskets = new ArrayList<>();
+		List<Supplier<Basket>> basketFactories = basketFactories();
+		for (int i = 0; i < 500; i++) {
+			Supplier<Basket> basketFactory = basketFactories.get(i % basketFactories.size());
+			baskets.add(fill(basketFactory.get(), i % 50 == 0 ? 2000 : random.nextInt(30)));
+		}
+		
+		long[] totals = pricingEngine.getTotalCostsInMinorUnits(baskets, 2);
+		assertEquals(baskets.size(), totals.length);
+		for (int i = 0; i < totals.length; i++)
+			assertEquals(baskets.get(i).getTotalCostInMinorUnits(2), totals[i]);
+	}
+	
+	@Test
+	public void testTotalsByBasketId() {
+		Map<String, Basket> baskets = new HashMap<>();
+		for (int i = 0; i < 50; i++)
+			baskets.put("session" + i, fill(new CompactBasket(), random.nextInt(100)));
+		
+		Map<String, Long> totals = pricingEngine.getTotalCostsInMinorUnits(baskets, 2);
+		assertEquals(baskets.keySet(), totals.keySet());
+		for (Map.Entry<String, Basket> entry : baskets.entrySet()) {
+			assertEquals(entry.getValue().getTotalCostInMinorUnits(2),
+					(long) totals.get(entry.getKey()));
+		}
+	}
+	
+	@Test
+	public void testEmptyBatch() {
+		assertEquals(0, pricingEngine.getTotalCostsInMinorUnits(new ArrayList<Basket>(), 2).length);
+	}
+	
+	@Test
+	public void testRunningTotalBasketKeepsItsOwnPrices() {
+		Item item = new Item("pricingRepriced", "Repriced", 1000L, 2);
+		Basket basket = fill(new RunningTotalBasket(new HashBasket()), 100);
+		basket.addItem(item, 2);
+		item.setPrice(20d);
+		assertEquals(basket.getTotalCostInMinorUnits(2),
+				pricingEngine.getTotalCostInMinorUnits(basket, 2));
+	}
+	
+	@Test(expected = ArithmeticException.class)
+	public void testInexactScaleIsRejected() {
+		pricingEngine.getTotalCostInMinorUnits(fill(new CompactBasket(), 100), 1);
+	}
+	
+	@Test(expected = ArithmeticException.class)
+	public void testInexactScaleIsRejectedInBatch() {
+		List<Basket> baskets = new ArrayList<>();
+		for (int i = 0; i < 20; i++)
+			baskets.add(fill(new SimpleBasket(), 100));
+		pricingEngine.getTotalCostsInMinorUnits(baskets, 1);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidScaleIsRejected() {
+		pricingEngine.getTotalCostInMinorUnits(new SimpleBasket(), -1);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSplitThresholdIsRejected() {
+		new PricingEngine(pool, 0);
+	}
+	
+}
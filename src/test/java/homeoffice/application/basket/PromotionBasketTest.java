@@ -0,0 +1,263 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PromotionBasketTest extends BasketTest {
+	
+	private static final Item SANDWICH = new Item("promo01", "Sandwich", 2.5);
+	private static final Item CRISPS = new Item("promo02", "Crisps", 0.85);
+	private static final Item DRINK = new Item("promo03", "Drink", 1.2);
+	private static final Item SOAP = new Item("promo04", "Soap", 1.99);
+	
+	private static final PromotionRule THREE_FOR_TWO = new MultiBuyRule("promo04", 3, 2);
+	private static final PromotionRule MEAL_DEAL =
+			new BundleRule(Arrays.asList("promo01", "promo02", "promo03"), 350L, 2);
+	private static final PromotionRule TEN_PERCENT_OFF =
+			new PercentageRule(Arrays.asList("promo03", "promo04"), 10);
+	
+	private static final List<PromotionRule> RULES =
+			Arrays.asList(THREE_FOR_TWO, MEAL_DEAL, TEN_PERCENT_OFF);
+	
+	@Override
+	protected Basket createBasket() {
+		return new PromotionBasket(new HashBasket(), RULES);
+	}
+	
+	private PromotionBasket promotionBasket() {
+		return (PromotionBasket) basket;
+	}
+	
+	@Test
+	public void testMultiBuy() {
+		PromotionBasket basket = new PromotionBasket(new HashBasket(),
+				Collections.singleton(THREE_FOR_TWO));
+		long[] expectedDiscounts = {0L, 0L, 0L, 199L, 199L, 199L, 398L};
+		for (int quantity = 1; quantity < expectedDiscounts.length; quantity++) {
+			basket.addItem(SOAP);
+			assertEquals(expectedDiscounts[quantity], basket.getDiscountInMinorUnits());
+			assertEquals(199L * quantity - expectedDiscounts[quantity],
+					basket.getTotalCostInMinorUnits(2));
+		}
+		basket.removeItem(SOAP);
+		assertEquals(398L - 199L, basket.getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testBundle() {
+		PromotionBasket basket = new PromotionBasket(new HashBasket(),
+				Collections.singleton(MEAL_DEAL));
+		basket.addItem(SANDWICH, 2);
+		basket.addItem(CRISPS, 3);
+		assertEquals(0L, basket.getDiscountInMinorUnits());
+		basket.addItem(DRINK);
+		assertEquals(455L - 350L, basket.getDiscountInMinorUnits());
+		basket.addItem(DRINK);
+		assertEquals(2 * (455L - 350L), basket.getDiscountInMinorUnits());
+		basket.removeAll(SANDWICH);
+		assertEquals(0L, basket.getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testBundleNeverCostsMore() {
+		PromotionRule expensiveBundle =
+				new BundleRule(Arrays.asList("promo02", "promo03"), 500L, 2);
+		PromotionBasket basket = new PromotionBasket(new HashBasket(),
+				Collections.singleton(expensiveBundle));
+		basket.addItem(CRISPS);
+		basket.addItem(DRINK);
+		assertEquals(0L, basket.getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testPercentageIsRoundedDown() {
+		PromotionBasket basket = new PromotionBasket(new HashBasket(),
+				Collections.singleton(TEN_PERCENT_OFF));
+		basket.addItem(SOAP);
+		assertEquals(19L, basket.getDiscountInMinorUnits());
+		basket.addItem(DRINK, 2);
+		assertEquals(43L, basket.getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testRulesStack() {
+		basket.addItem(SOAP, 3);
+		basket.addItem(SANDWICH);
+		basket.addItem(CRISPS);
+		basket.addItem(DRINK);
+		basket.addItem(ITEM_1);
+		
+		long undiscounted = 3 * 199L + 250L + 85L + 120L + 345L;
+		long discount = 199L + (455L - 350L) + (3 * 199L + 120L) / 10;
+		assertEquals(discount, promotionBasket().getDiscountInMinorUnits());
+		assertEquals(undiscounted - discount, basket.getTotalCostInMinorUnits(2));
+		assertEquals((undiscounted - discount) / 100d, basket.getTotalCost(), 1e-9);
+		
+		Map<PromotionRule, Long> expected = new LinkedHashMap<>();
+		expected.put(THREE_FOR_TWO, 199L);
+		expected.put(MEAL_DEAL, 105L);
+		expected.put(TEN_PERCENT_OFF, 71L);
+		assertEquals(expected, promotionBasket().getDiscountsInMinorUnits());
+	}
+	
+	@Test
+	public void testOverlappingRulesNeverDiscountMoreThanCost() {
+		PromotionRule twoForOne = new MultiBuyRule("promo04", 2, 1);
+		PromotionRule allOff = new PercentageRule(Arrays.asList("promo02", "promo04"), 100);
+		PromotionBasket basket = new PromotionBasket(new HashBasket(),
+				Arrays.asList(twoForOne, allOff));
+		basket.addItem(SOAP, 2);
+		assertEquals(0L, basket.getTotalCostInMinorUnits(2));
+		
+		Map<PromotionRule, Long> expected = new LinkedHashMap<>();
+		expected.put(twoForOne, 199L);
+		expected.put(allOff, 199L);
+		assertEquals(expected, basket.getDiscountsInMinorUnits());
+		
+		basket.addItem(CRISPS);
+		assertEquals(0L, basket.getTotalCostInMinorUnits(2));
+		basket.removeItem(SOAP);
+		assertEquals(0L, basket.getTotalCostInMinorUnits(2));
+		assertEquals(Collections.singletonMap(allOff, 199L + 85L),
+				basket.getDiscountsInMinorUnits());
+	}
+	
+	@Test
+	public void testFailedRuleLeavesBasketUnchanged() {
+		PromotionRule failing = new PromotionRule() {
+			@Override
+			public Collection<String> getItemIds() {
+				return Collections.singleton("promo04");
+			}
+			
+			@Override
+			public long getDiscountInMinorUnits(Lines lines, int scale) {
+				if (lines.getQuantity("promo04") > 2)
+					throw new ArithmeticException("Discount overflowed");
+				return lines.getQuantity("promo04");
+			}
+		};
+		PromotionBasket basket = new PromotionBasket(new HashBasket(),
+				Collections.singleton(failing));
+		basket.addItem(SOAP, 2);
+		try {
+			basket.addItem(SOAP);
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			// Expected
+		}
+		try {
+			basket.addAll(Collections.singletonMap(SOAP, 1));
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			// Expected
+		}
+		assertEquals(2, basket.getQuantity(SOAP));
+		assertEquals(2L, basket.getDiscountInMinorUnits());
+		basket.removeItem(SOAP);
+		assertEquals(1L, basket.getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testAddAllEvaluatesTouchedRules() {
+		Map<Item, Integer> items = new LinkedHashMap<>();
+		items.put(SANDWICH, 1);
+		items.put(CRISPS, 1);
+		items.put(DRINK, 1);
+		items.put(ITEM_2, 4);
+		basket.addAll(items);
+		assertEquals(105L + 12L, promotionBasket().getDiscountInMinorUnits());
+		
+		basket.removeAll(Arrays.asList(DRINK, ITEM_2));
+		assertEquals(0L, promotionBasket().getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testClearRemovesDiscounts() {
+		basket.addItem(SOAP, 6);
+		basket.clear();
+		assertEquals(0L, promotionBasket().getDiscountInMinorUnits());
+		assertTrue(promotionBasket().getDiscountsInMinorUnits().isEmpty());
+		basket.addItem(SOAP, 3);
+		assertEquals(199L + 59L, promotionBasket().getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testIncrementalDiscountMatchesFullEvaluation() {
+		HashBasket underlying = new HashBasket();
+		PromotionBasket basket = new PromotionBasket(underlying, RULES);
+		Item[] items = {SANDWICH, CRISPS, DRINK, SOAP, ITEM_1};
+		Random random = new Random(19L);
+		for (int i = 0; i < 2000; i++) {
+			Item item = items[random.nextInt(items.length)];
+			switch (random.nextInt(4)) {
+			case 0:
+			case 1:
+				basket.addItem(item, 1 + random.nextInt(3));
+				break;
+			case 2:
+				basket.removeItem(item);
+				break;
+			default:
+				if (random.nextInt(10) == 0)
+					basket.removeAll(item);
+			}
+			assertEquals(new PromotionBasket(underlying, RULES).getDiscountInMinorUnits(),
+					basket.getDiscountInMinorUnits());
+		}
+	}
+	
+	@Test
+	public void testExistingItemsAreDiscounted() {
+		HashBasket underlying = new HashBasket();
+		underlying.addItem(SOAP, 3);
+		assertEquals(199L + 59L, new PromotionBasket(underlying, RULES).getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testRefreshDiscounts() {
+		Item soap = new Item("promo04", "Soap", 1.99);
+		basket.addItem(soap, 3);
+		soap.setPrice(2.5);
+		assertEquals(199L + 59L, promotionBasket().getDiscountInMinorUnits());
+		promotionBasket().refreshDiscounts();
+		assertEquals(250L + 75L, promotionBasket().getDiscountInMinorUnits());
+	}
+	
+	@Test
+	public void testInexactPriceIsRejected() {
+		try {
+			basket.addItem(new Item("promo04", "Soap", 1995L, 3));
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			// Expected
+		}
+		assertFalse(basket.contains(SOAP));
+		assertEquals(0L, promotionBasket().getDiscountInMinorUnits());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiBuyMustDiscount() {
+		new MultiBuyRule("promo04", 3, 3);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testBundleNeedsTwoItems() {
+		new BundleRule(Arrays.asList("promo01", "promo01"), 100L, 2);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testPercentageMustBeInRange() {
+		new PercentageRule(Collections.singleton("promo01"), 101);
+	}
+	
+}
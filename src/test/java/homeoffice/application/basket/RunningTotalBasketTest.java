@@ -0,0 +1,114 @@
+package homeoffice.application.basket;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RunningTotalBasketTest extends BasketTest {
+	
+	@Override
+	protected Basket createBasket() {
+		return new RunningTotalBasket(new HashBasket());
+	}
+	
+	@Test
+	public void testTotalFollowsEveryMutation() {
+		Item item4 = new Item("id04", "Notebook", 2.5);
+		basket.addItem(ITEM_1, 2);
+		basket.addItem(item4, 3);
+		assertEquals(2 * 345L + 3 * 250L, basket.getTotalCostInMinorUnits(2));
+		basket.removeItem(item4);
+		assertEquals(2 * 345L + 2 * 250L, basket.getTotalCostInMinorUnits(2));
+		basket.removeAll(ITEM_1);
+		assertEquals(2 * 250L, basket.getTotalCostInMinorUnits(2));
+		basket.removeItem(item4);
+		basket.removeItem(item4);
+		basket.removeItem(item4);
+		assertEquals(0L, basket.getTotalCostInMinorUnits(2));
+		basket.addItem(ITEM_2);
+		basket.clear();
+		assertEquals(0L, basket.getTotalCostInMinorUnits(2));
+	}
+	
+	@Test
+	public void testLineIsRepricedWhenAddedTo() {
+		Item item = new Item("id04", "Notebook", 2.5);
+		basket.addItem(item, 2);
+		item.setPrice(3d);
+		assertEquals(500L, basket.getTotalCostInMinorUnits(2));
+		basket.addItem(item);
+		assertEquals(900L, basket.getTotalCostInMinorUnits(2));
+		basket.removeItem(item);
+		assertEquals(600L, basket.getTotalCostInMinorUnits(2));
+	}
+	
+	@Test
+	public void testRefreshPrices() {
+		Item item = new Item("id04", "Notebook", 2.5);
+		basket.addItem(item, 2);
+		basket.addItem(ITEM_1);
+		item.setPrice(1.25);
+		((RunningTotalBasket) basket).refreshPrices();
+		assertEquals(250L + 345L, basket.getTotalCostInMinorUnits(2));
+		assertEquals(5.95, basket.getTotalCost(), 1e-9);
+	}
+	
+	@Test
+	public void testFailedAddLeavesTotalUnchanged() {
+		basket.addItem(ITEM_1, Integer.MAX_VALUE);
+		try {
+			basket.addItem(ITEM_1);
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			assertEquals(345L * Integer.MAX_VALUE, basket.getTotalCostInMinorUnits(2));
+		}
+	}
+	
+	@Test
+	public void testOverflowingTotalLeavesBasketUnchanged() {
+		Item item4 = new Item("id04", "Yacht", Long.MAX_VALUE / 2 + 1, 2);
+		Item item5 = new Item("id05", "Jet", Long.MAX_VALUE / 2 + 1, 2);
+		basket.addItem(item4);
+		try {
+			basket.addItem(item5);
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			assertFalse(basket.contains(item5));
+			assertEquals(Long.MAX_VALUE / 2 + 1, basket.getTotalCostInMinorUnits(2));
+		}
+	}
+	
+	@Test
+	public void testOverflowingBatchLeavesBasketUnchanged() {
+		Map<Item, Integer> batch = new LinkedHashMap<>();
+		batch.put(new Item("id04", "Yacht", Long.MAX_VALUE / 2 + 1, 2), 1);
+		batch.put(new Item("id05", "Jet", Long.MAX_VALUE / 2 + 1, 2), 1);
+		basket.addItem(ITEM_1);
+		try {
+			basket.addAll(batch);
+			fail("Expected ArithmeticException");
+		} catch (ArithmeticException e) {
+			for (Item item : batch.keySet())
+				assertFalse(basket.contains(item));
+			assertEquals(345L, basket.getTotalCostInMinorUnits(2));
+		}
+	}
+	
+	@Test (expected = ArithmeticException.class)
+	public void testItemMoreExactThanScaleIsRejected() {
+		basket.addItem(new Item("id04", "Fuel", 1459L, 3));
+	}
+	
+	@Test
+	public void testExistingItemsArePricedOnConstruction() {
+		Basket existing = new SimpleBasket();
+		existing.addItem(ITEM_1, 2);
+		existing.addItem(ITEM_3);
+		assertEquals(2 * 345L + 1345L,
+				new RunningTotalBasket(existing).getTotalCostInMinorUnits(2));
+	}
+	
+}